@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("org.springframework.boot") version "3.2.0"
     id("io.spring.dependency-management") version "1.1.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.url.shortener"
@@ -20,6 +21,9 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     
+    // Embedded database for the JDBC repository
+    runtimeOnly("com.h2database:h2")
+    
     // Test dependencies
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
@@ -30,4 +34,12 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
+}
+
+// Microbenchmarks live in src/jmh/java; run with ./gradlew jmh, or build ./gradlew jmhJar
+// and pass JMH options (e.g. -t 16 for the thread count) to the jar.
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package org.url.shortener.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+import org.url.shortener.repository.DurableRepository;
+import org.url.shortener.repository.URLRepository;
+
+/**
+ * Measures time-to-ready of a durable repository: loading the snapshot through mmap and
+ * replaying a short log tail, which is what runs before Spring fires ApplicationReadyEvent.
+ * The 50M case needs a large heap, e.g. {@code -Pjmh.jvmArgsAppend=-Xmx24g}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx24g")
+public class SnapshotRecoveryBenchmark {
+
+  private static final int TAIL_RECORDS = 10_000;
+
+  @Param({"10000000", "50000000"})
+  public int entries;
+
+  private Path directory;
+
+  @Setup(Level.Trial)
+  public void writeSnapshotAndTail() throws IOException {
+    directory = Files.createTempDirectory("snapshot-bench");
+    long expiry = System.currentTimeMillis() / 1000 + 3600;
+    // A repository view that streams synthetic entries without holding them on the heap.
+    URLRepository source = new DefaultRepository() {
+      @Override
+      public void forEachEntry(BiConsumer<String, LongUrl> action) {
+        for (int i = 0; i < entries; i++) {
+          action.accept(Integer.toString(i, 36), new LongUrl("https://example.com/campaign/" + i, expiry));
+        }
+      }
+    };
+    new SnapshotStore(directory.resolve("snapshots")).write(0, source);
+
+    WriteAheadLog log = new WriteAheadLog(logConfig());
+    log.recover(0, (sequence, record) -> { });
+    for (int i = 0; i < TAIL_RECORDS; i++) {
+      log.append(LogRecord.save("tail" + i, new LongUrl("https://example.com/tail/" + i, expiry)));
+    }
+    log.append(LogRecord.remove("tail0")).join();
+    log.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public long decodeSnapshot() {
+    long[] count = new long[1];
+    new SnapshotStore(directory.resolve("snapshots")).load((id, url) -> count[0]++);
+    return count[0];
+  }
+
+  @Benchmark
+  public DurableRepository recoverRepository() {
+    DurableRepository repository = new DurableRepository(new DefaultRepository(),
+        new WriteAheadLog(logConfig()), new SnapshotStore(directory.resolve("snapshots")), 0);
+    repository.close();
+    return repository;
+  }
+
+  private WriteAheadLogConfig logConfig() {
+    return new WriteAheadLogConfig(directory.resolve("wal"), FsyncPolicy.OS_MANAGED, 0);
+  }
+}
@@ -0,0 +1,32 @@
+package org.url.shortener.repository;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Memory readings for the footprint benchmarks, which compare what is in use before and
+ * after building the structure they measure.
+ */
+final class MemoryFootprint {
+
+  private MemoryFootprint() {
+  }
+
+  /** Heap in use after a few collections, so garbage left by setup is not counted. */
+  static long usedHeapBytes() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /** Memory held by direct buffers, which the heap reading does not see. */
+  static long usedDirectBytes() {
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if ("direct".equals(pool.getName())) {
+        return pool.getMemoryUsed();
+      }
+    }
+    return 0;
+  }
+}
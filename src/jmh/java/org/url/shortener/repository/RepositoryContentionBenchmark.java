@@ -0,0 +1,71 @@
+package org.url.shortener.repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Compares write contention of the single-monitor and lock-striped repositories.
+ * Run with e.g. {@code ./gradlew jmh -Pjmh.includes=RepositoryContentionBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RepositoryContentionBenchmark {
+
+  private static final int PRELOADED = 100_000;
+
+  @Param({"default", "striped"})
+  public String implementation;
+
+  private URLRepository repository;
+  private final AtomicLong sequence = new AtomicLong();
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    repository = "striped".equals(implementation) ? new StripedRepository() : new DefaultRepository();
+    long now = System.currentTimeMillis() / 1000;
+    for (int i = 0; i < PRELOADED; i++) {
+      repository.save("p" + i, new LongUrl("https://example.com/p/" + i, now + (i % 3600)));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadKeys {
+    int cursor;
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void save() {
+    long id = sequence.incrementAndGet();
+    repository.save("s" + id, new LongUrl("https://example.com/s/" + id, 4_000_000_000L + (id % 3600)));
+  }
+
+  @Benchmark
+  @Group("redirectDuringSweep")
+  @GroupThreads(7)
+  public String redirect(ThreadKeys keys) {
+    keys.cursor = (keys.cursor + 7919) % PRELOADED;
+    return repository.get("p" + keys.cursor);
+  }
+
+  @Benchmark
+  @Group("redirectDuringSweep")
+  @GroupThreads(1)
+  public int sweep() {
+    return repository.getAllExpired(Long.MAX_VALUE).size();
+  }
+}
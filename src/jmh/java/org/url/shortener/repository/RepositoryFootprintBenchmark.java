@@ -0,0 +1,66 @@
+package org.url.shortener.repository;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Compares on-heap and off-heap storage. Setup prints bytes per mapping (heap plus direct
+ * memory), and the sampled {@code get} benchmark reports the latency distribution including
+ * p99.9, where GC pauses of a large heap show up.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-XX:MaxDirectMemorySize=8g"})
+public class RepositoryFootprintBenchmark {
+
+  @Param({"default", "off-heap"})
+  public String implementation;
+
+  @Param({"5000000"})
+  public int entries;
+
+  private URLRepository repository;
+
+  @Setup(Level.Trial)
+  public void load() {
+    long before = usedBytes();
+    repository = "off-heap".equals(implementation) ? new OffHeapRepository() : new DefaultRepository();
+    long expiry = System.currentTimeMillis() / 1000 + 3600;
+    for (int i = 0; i < entries; i++) {
+      repository.save(key(i), new LongUrl("https://example.com/campaign/2024/item/" + i, expiry));
+    }
+    long after = usedBytes();
+    System.out.printf("%n%s: %.1f bytes per mapping%n", implementation,
+        (after - before) / (double) entries);
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public String get(Cursor cursor) {
+    cursor.next = (cursor.next + 104_729) % entries;
+    return repository.get(key(cursor.next));
+  }
+
+  private static String key(int i) {
+    return Integer.toString(i + 1_000_000_000, 36);
+  }
+
+  private static long usedBytes() {
+    return MemoryFootprint.usedHeapBytes() + MemoryFootprint.usedDirectBytes();
+  }
+}
@@ -0,0 +1,80 @@
+package org.url.shortener.repository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.url.shortener.strategy.Base62Codec;
+
+/**
+ * Memory cost of the long-URL reverse index alone: a String-keyed map versus the
+ * fingerprint index. Setup prints heap bytes per entry on top of the primary records,
+ * which are shared by both variants; the {@code find} benchmark shows what verification
+ * against the primary record costs per dedup lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class ReverseIndexFootprintBenchmark {
+
+  @Param({"string-map", "fingerprint"})
+  public String implementation;
+
+  @Param({"10000000"})
+  public int entries;
+
+  private ShortIdIndex<String> records;
+  private Map<String, String> stringMap;
+  private UrlFingerprintIndex fingerprints;
+
+  @Setup(Level.Trial)
+  public void load() {
+    records = new ShortIdIndex<>();
+    for (int i = 0; i < entries; i++) {
+      records.putIfAbsent(key(i), url(i));
+    }
+    long before = MemoryFootprint.usedHeapBytes();
+    if ("fingerprint".equals(implementation)) {
+      fingerprints = new UrlFingerprintIndex(records::get);
+      records.forEach((id, url) -> fingerprints.put(url, id));
+    } else {
+      stringMap = new ConcurrentHashMap<>();
+      records.forEach((id, url) -> stringMap.put(url, id));
+    }
+    long after = MemoryFootprint.usedHeapBytes();
+    System.out.printf("%n%s: %.1f bytes per reverse-index entry%n", implementation,
+        (after - before) / (double) entries);
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public Optional<String> find(Cursor cursor) {
+    cursor.next = (cursor.next + 104_729) % entries;
+    // Fresh String so the map cannot short-circuit on a cached hash code.
+    String url = new String(url(cursor.next));
+    return stringMap != null ? Optional.ofNullable(stringMap.get(url)) : fingerprints.find(url);
+  }
+
+  private static String key(int i) {
+    return Base62Codec.decode(Base62Codec.encode("aaaaaa") + i);
+  }
+
+  private static String url(int i) {
+    return "https://campaigns.example.com/2024/spring-sale/landing?utm_source=mail&id=" + i;
+  }
+}
@@ -0,0 +1,80 @@
+package org.url.shortener.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Mixed save/get throughput of the single-monitor, lock-striped and sharded repositories.
+ * Contention shows as threads are added; build with {@code ./gradlew jmhJar} and pick the
+ * thread count with JMH's {@code -t}, e.g.
+ * {@code java -jar build/libs/url-shortener-1.0-SNAPSHOT-jmh.jar ShardedRepositoryBenchmark -t 16}.
+ * The shard count follows the machine's core count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ShardedRepositoryBenchmark {
+
+  private static final int PRELOADED = 100_000;
+
+  @Param({"default", "striped", "sharded"})
+  public String implementation;
+
+  private URLRepository repository;
+  private final AtomicLong sequence = new AtomicLong();
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    switch (implementation) {
+      case "striped":
+        repository = new StripedRepository();
+        break;
+      case "sharded":
+        repository = new ShardedRepository();
+        break;
+      default:
+        repository = new DefaultRepository();
+    }
+    long now = System.currentTimeMillis() / 1000;
+    for (int i = 0; i < PRELOADED; i++) {
+      repository.save("p" + i, new LongUrl("https://example.com/p/" + i, now + 3600 + (i % 3600)));
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws IOException {
+    if (repository instanceof Closeable) {
+      ((Closeable) repository).close();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadKeys {
+    int cursor;
+  }
+
+  @Benchmark
+  public void save() {
+    long id = sequence.incrementAndGet();
+    repository.save("s" + id, new LongUrl("https://example.com/s/" + id, 4_000_000_000L + (id % 3600)));
+  }
+
+  @Benchmark
+  public String get(ThreadKeys keys) {
+    keys.cursor = (keys.cursor + 7919) % PRELOADED;
+    return repository.get("p" + keys.cursor);
+  }
+}
@@ -0,0 +1,84 @@
+package org.url.shortener.repository;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.strategy.Base62Codec;
+
+/**
+ * Redirect-path cost of rebuilding URLs from the prefix dictionary versus handing out the
+ * stored String. URLs are drawn from a few thousand campaign hosts and CDN paths; setup
+ * prints heap bytes per stored URL for each layout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class UrlReconstructionBenchmark {
+
+  @Param({"string", "dictionary"})
+  public String layout;
+
+  @Param({"2000000"})
+  public int entries;
+
+  private ShortIdIndex<LongUrl> strings;
+  private ShortIdIndex<CompactUrl> compact;
+  private UrlDictionary dictionary;
+
+  @Setup(Level.Trial)
+  public void load() {
+    long before = MemoryFootprint.usedHeapBytes();
+    long expiry = System.currentTimeMillis() / 1000 + 3600;
+    if ("dictionary".equals(layout)) {
+      dictionary = new UrlDictionary();
+      compact = new ShortIdIndex<>();
+      for (int i = 0; i < entries; i++) {
+        compact.putIfAbsent(key(i), dictionary.compress(url(i), expiry));
+      }
+    } else {
+      strings = new ShortIdIndex<>();
+      for (int i = 0; i < entries; i++) {
+        strings.putIfAbsent(key(i), new LongUrl(url(i), expiry));
+      }
+    }
+    long after = MemoryFootprint.usedHeapBytes();
+    System.out.printf("%n%s: %.1f bytes per URL%n", layout, (after - before) / (double) entries);
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public String get(Cursor cursor) {
+    cursor.next = (cursor.next + 104_729) % entries;
+    String key = key(cursor.next);
+    if (compact != null) {
+      CompactUrl compactUrl = compact.get(key);
+      return compactUrl != null ? dictionary.expand(compactUrl) : null;
+    }
+    LongUrl longUrl = strings.get(key);
+    return longUrl != null ? longUrl.getUrl() : null;
+  }
+
+  private static String key(int i) {
+    return Base62Codec.decode(Base62Codec.encode("aaaaaa") + i);
+  }
+
+  private static String url(int i) {
+    int host = i % 3_000;
+    return "https://campaign" + host + ".example.com/spring-sale/landing/offer-" + (i % 40)
+        + "?utm_source=newsletter&utm_medium=email&id=" + i;
+  }
+}
@@ -0,0 +1,61 @@
+package org.url.shortener.strategy;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of six-character random keys from the original generator (a shared
+ * {@link SecureRandom} call per character into a {@link StringBuilder}) and from
+ * {@link Base62KeyEncoder} with each {@link EntropySource}. The shared generator's lock
+ * shows as threads are added; build with {@code ./gradlew jmhJar} and pick the thread
+ * count with JMH's {@code -t}, e.g.
+ * {@code java -jar build/libs/url-shortener-1.0-SNAPSHOT-jmh.jar KeyEncoderBenchmark -t 16}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class KeyEncoderBenchmark {
+
+  private static final int LENGTH = 6;
+
+  @Param({"shared-secure-random", "buffered-secure", "fast"})
+  public String source;
+
+  private SecureRandom sharedRandom;
+  private Base62KeyEncoder encoder;
+
+  @Setup
+  public void setUp() {
+    sharedRandom = new SecureRandom();
+    switch (source) {
+      case "buffered-secure":
+        encoder = new Base62KeyEncoder(EntropySource.secure());
+        break;
+      case "fast":
+        encoder = new Base62KeyEncoder(EntropySource.fast());
+        break;
+      default:
+        encoder = null;
+    }
+  }
+
+  @Benchmark
+  public String nextKey() {
+    if (encoder != null) {
+      return encoder.nextKey(LENGTH);
+    }
+    StringBuilder key = new StringBuilder(LENGTH);
+    for (int i = 0; i < LENGTH; i++) {
+      key.append(Base62Codec.ALPHABET.charAt(sharedRandom.nextInt(Base62Codec.ALPHABET.length())));
+    }
+    return key.toString();
+  }
+}
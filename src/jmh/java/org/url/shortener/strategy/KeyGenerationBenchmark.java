@@ -0,0 +1,81 @@
+package org.url.shortener.strategy;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+import org.url.shortener.repository.URLRepository;
+
+/**
+ * Cost of finding an unused key with each strategy in a key space that is {@code fill}
+ * full. Random keys are checked against the repository and redrawn on a hit, as
+ * {@code BasicURLService} does through its collision retries; sequential and Feistel keys
+ * are unique by construction and skip the check. Three-character keys keep the key space
+ * small enough to fill. Build with {@code ./gradlew jmhJar} and run
+ * {@code java -jar build/libs/url-shortener-1.0-SNAPSHOT-jmh.jar KeyGenerationBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class KeyGenerationBenchmark {
+
+  private static final int LENGTH = 3;
+  private static final long KEY_SPACE = 62L * 62L * 62L;
+
+  @Param({"random", "sequential", "feistel"})
+  public String strategy;
+
+  @Param({"0.0", "0.5", "0.9"})
+  public double fill;
+
+  private URLGenerationStrategy generator;
+  private URLRepository repository;
+  private boolean checked;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    switch (strategy) {
+      case "sequential":
+        generator = new SequentialGenerationStrategy(new MemoryIdBlockAllocator(0, 10_000));
+        break;
+      case "feistel":
+        generator = new FeistelGenerationStrategy(new MemoryIdBlockAllocator(0, 10_000), 0x5DEECE66DL);
+        break;
+      default:
+        generator = new RandomGenerationStrategy();
+    }
+    checked = "random".equals(strategy);
+    repository = new DefaultRepository();
+    LongUrl longUrl = new LongUrl("https://example.com", 4_000_000_000L);
+    long target = (long) (KEY_SPACE * fill);
+    for (long i = 0; i < target; i++) {
+      if (checked) {
+        repository.save(nextUnused(), longUrl);
+      } else {
+        // Only advances the counter, as creating the stored links would have.
+        generator.generateUniqueKey(null, LENGTH);
+      }
+    }
+  }
+
+  @Benchmark
+  public String nextKey() {
+    return checked ? nextUnused() : generator.generateUniqueKey(null, LENGTH);
+  }
+
+  private String nextUnused() {
+    String key;
+    do {
+      key = generator.generateUniqueKey(null, LENGTH);
+    } while (repository.exists(key));
+    return key;
+  }
+}
@@ -1,23 +1,59 @@
 package org.url.shortener;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.url.shortener.cluster.ClusterNode;
+import org.url.shortener.cluster.ClusterRepository;
+import org.url.shortener.cluster.HashRing;
 import org.url.shortener.config.URLShortenerConfig;
+import org.url.shortener.memory.MemoryGovernor;
+import org.url.shortener.memory.PressureLevel;
 import org.url.shortener.observer.AnalyticsListener;
+import org.url.shortener.observer.KeyspaceManager;
 import org.url.shortener.observer.LoggingListener;
 import org.url.shortener.observer.MetricsListener;
 import org.url.shortener.observer.URLEventPublisher;
+import org.url.shortener.persistence.FsyncPolicy;
+import org.url.shortener.persistence.SnapshotStore;
+import org.url.shortener.persistence.WriteAheadLog;
+import org.url.shortener.persistence.WriteAheadLogConfig;
+import org.url.shortener.replication.FollowerRepository;
+import org.url.shortener.replication.LeaderRepository;
+import org.url.shortener.replication.ReplicationRole;
+import org.url.shortener.repository.BloomFilterRepository;
 import org.url.shortener.repository.DefaultRepository;
+import org.url.shortener.repository.DurableRepository;
+import org.url.shortener.repository.LsmRepository;
+import org.url.shortener.repository.OffHeapRepository;
+import org.url.shortener.repository.RepositoryType;
+import org.url.shortener.repository.ShardedRepository;
+import org.url.shortener.repository.StripedRepository;
+import org.url.shortener.repository.TieredRepository;
 import org.url.shortener.repository.URLRepository;
+import org.url.shortener.repository.jdbc.JdbcRepository;
 import org.url.shortener.scheduler.DeleteExpiryUrlsScheduler;
 import org.url.shortener.scheduler.SchedulerConfig;
 import org.url.shortener.strategy.UniqueKeyGenerator;
 import org.url.shortener.service.BasicURLService;
+import org.url.shortener.service.CachedURLService;
+import org.url.shortener.service.CoalescingURLService;
+import org.url.shortener.service.LoadSheddingURLService;
+import org.url.shortener.service.NegativeCachingURLService;
 import org.url.shortener.service.URLService;
 import org.url.shortener.strategy.RandomGenerationStrategy;
+import org.url.shortener.strategy.URLStrategy;
 
 @SpringBootApplication
 public class Main {
@@ -27,13 +63,189 @@ public class Main {
   }
   
   @Bean
-  public URLShortenerConfig urlShortenerConfig() {
-    return new URLShortenerConfig();
+  public URLShortenerConfig urlShortenerConfig(Environment environment) {
+    URLShortenerConfig.Builder builder = URLShortenerConfig.builder()
+        .withRepositoryType(RepositoryType.valueOf(
+            environment.getProperty("url-shortener.repository", "DEFAULT")));
+    builder.withKeyStrategy(URLStrategy.valueOf(environment.getProperty("url-shortener.key-strategy", "RANDOM")))
+        .withSequenceBlockSize(environment.getProperty("url-shortener.sequence.block-size", Integer.class, 10_000))
+        .withFeistelKey(environment.getProperty("url-shortener.feistel.key"));
+    builder.withAdaptiveKeyLength(
+        environment.getProperty("url-shortener.keyspace.max-length", Integer.class, 10),
+        environment.getProperty("url-shortener.keyspace.max-expected-attempts", Double.class, 1.1));
+    builder.withKeyPool(environment.getProperty("url-shortener.key-pool.capacity", Integer.class, 0),
+        environment.getProperty("url-shortener.key-pool.refill-batch-size", Integer.class, 1000));
+    builder.withCache(environment.getProperty("url-shortener.cache.max-entries", Long.class, 0L),
+        environment.getProperty("url-shortener.cache.max-bytes", Long.class, 0L),
+        environment.getProperty("url-shortener.cache.max-ttl-seconds", Long.class, 300L));
+    builder.withReadCoalescing(
+        environment.getProperty("url-shortener.read-coalescing.enabled", Boolean.class, true));
+    builder.withNegativeCache(environment.getProperty("url-shortener.negative-cache.max-entries", Long.class, 0L),
+        environment.getProperty("url-shortener.negative-cache.ttl-seconds", Long.class, 30L));
+    String dataDirectory = environment.getProperty("url-shortener.data-dir");
+    if (dataDirectory != null && !dataDirectory.isBlank()) {
+      builder.withPersistence(dataDirectory,
+          FsyncPolicy.valueOf(environment.getProperty("url-shortener.fsync-policy", "INTERVAL")),
+          environment.getProperty("url-shortener.fsync-interval-ms", Long.class, 100L));
+      builder.withSnapshotInterval(
+          environment.getProperty("url-shortener.snapshot-interval-seconds", Long.class, 300L));
+    }
+    builder.withTiering(
+        environment.getProperty("url-shortener.tiered.max-hot-entries", Long.class, 1_000_000L),
+        environment.getProperty("url-shortener.tiered.idle-seconds", Long.class, 86400L));
+    builder.withJdbc(environment.getProperty("url-shortener.jdbc.url"),
+        environment.getProperty("url-shortener.jdbc.pool-size", Integer.class, 4));
+    builder.withJdbcWriteBehind(
+        environment.getProperty("url-shortener.jdbc.write-behind.batch-size", Integer.class, 0),
+        environment.getProperty("url-shortener.jdbc.write-behind.flush-interval-ms", Long.class, 50L));
+    String clusterNodeId = environment.getProperty("url-shortener.cluster.node-id");
+    if (clusterNodeId != null && !clusterNodeId.isBlank()) {
+      builder.withCluster(clusterNodeId,
+          environment.getRequiredProperty("url-shortener.cluster.nodes"),
+          environment.getProperty("url-shortener.cluster.virtual-nodes", Integer.class, 128));
+    }
+    switch (ReplicationRole.valueOf(environment.getProperty("url-shortener.replication.role", "NONE"))) {
+      case LEADER:
+        builder.asReplicationLeader(
+            environment.getProperty("url-shortener.replication.port", Integer.class, 9091),
+            environment.getProperty("url-shortener.replication.retained-records", Integer.class, 100_000));
+        break;
+      case FOLLOWER:
+        builder.asReplicationFollower(
+            environment.getRequiredProperty("url-shortener.replication.leader"),
+            environment.getProperty("url-shortener.replication.staleness-bound-ms", Long.class, 5000L));
+        break;
+      default:
+        break;
+    }
+    if (environment.getProperty("url-shortener.bloom-filter.enabled", Boolean.class, false)) {
+      builder.withBloomFilter(
+          environment.getProperty("url-shortener.bloom-filter.expected-insertions", Long.class, 1_000_000L),
+          environment.getProperty("url-shortener.bloom-filter.false-positive-rate", Double.class, 0.01));
+    }
+    return builder.build();
+  }
+  
+  @Bean(destroyMethod = "shutdown")
+  public MemoryGovernor memoryGovernor() {
+    MemoryGovernor governor = new MemoryGovernor();
+    governor.start();
+    return governor;
   }
   
   @Bean
-  public URLRepository urlRepository() {
-    return new DefaultRepository();
+  public URLRepository urlRepository(URLShortenerConfig config, MemoryGovernor memoryGovernor) {
+    URLRepository repository;
+    switch (config.getRepositoryType()) {
+      case STRIPED:
+        repository = new StripedRepository();
+        break;
+      case OFF_HEAP:
+        repository = new OffHeapRepository();
+        break;
+      case SHARDED:
+        repository = new ShardedRepository();
+        break;
+      case LSM:
+        if (!config.isPersistenceEnabled()) {
+          throw new IllegalStateException("The LSM repository requires url-shortener.data-dir");
+        }
+        // Keeps its own log, truncated as memtables are flushed.
+        LsmRepository lsm = new LsmRepository(Paths.get(config.getDataDirectory(), "lsm"),
+            new WriteAheadLog(new WriteAheadLogConfig(
+                Paths.get(config.getDataDirectory(), "lsm", "wal"),
+                config.getFsyncPolicy(),
+                config.getFsyncIntervalMillis())));
+        memoryGovernor.register(PressureLevel.SPILL_COLD_MAPPINGS, "flush LSM memtable", lsm::flush, null);
+        repository = lsm;
+        break;
+      case TIERED:
+        TieredRepository tiered = new TieredRepository(coldTierDirectory(config),
+            config.getTieredMaxHotEntries(), config.getTieredIdleSeconds());
+        memoryGovernor.register(PressureLevel.SPILL_COLD_MAPPINGS, "spill a quarter of hot links to disk",
+            () -> tiered.spill(0.25), null);
+        repository = tiered;
+        break;
+      case JDBC:
+        repository = new JdbcRepository(jdbcUrl(config), config.getJdbcPoolSize(),
+            config.getJdbcWriteBehindBatchSize(), config.getJdbcWriteBehindFlushMillis());
+        break;
+      default:
+        repository = new DefaultRepository();
+    }
+    // LSM keeps its own log and JDBC relies on the database for durability.
+    if (config.isPersistenceEnabled() && config.getRepositoryType() != RepositoryType.LSM
+        && config.getRepositoryType() != RepositoryType.JDBC) {
+      WriteAheadLogConfig logConfig = new WriteAheadLogConfig(
+          Paths.get(config.getDataDirectory(), "wal"),
+          config.getFsyncPolicy(),
+          config.getFsyncIntervalMillis());
+      repository = new DurableRepository(repository, new WriteAheadLog(logConfig),
+          new SnapshotStore(Paths.get(config.getDataDirectory(), "snapshots")),
+          config.getSnapshotIntervalSeconds());
+    }
+    if (config.isBloomFilterEnabled()) {
+      // Outermost, so definite misses skip persistence and storage alike.
+      repository = new BloomFilterRepository(repository,
+          config.getBloomFilterExpectedInsertions(), config.getBloomFilterFalsePositiveRate());
+    }
+    if (config.isClusterEnabled()) {
+      // Around everything else: the local stack only ever sees identifiers this node owns.
+      List<ClusterNode> members = ClusterNode.parseAll(config.getClusterNodes());
+      ClusterNode self = members.stream()
+          .filter(node -> node.getId().equals(config.getClusterNodeId()))
+          .findFirst()
+          .orElseThrow(() -> new IllegalStateException("Cluster node id " + config.getClusterNodeId()
+              + " is not listed in url-shortener.cluster.nodes"));
+      repository = new ClusterRepository(self, new HashRing(members, config.getClusterVirtualNodes()),
+          repository);
+    }
+    if (config.getReplicationRole() != ReplicationRole.NONE) {
+      if (config.isClusterEnabled()) {
+        throw new IllegalStateException("Replication and cluster mode cannot be combined");
+      }
+      repository = replicate(repository, config);
+    }
+    return repository;
+  }
+  
+  private static URLRepository replicate(URLRepository repository, URLShortenerConfig config) {
+    if (config.getReplicationRole() == ReplicationRole.LEADER) {
+      return new LeaderRepository(repository, config.getReplicationPort(),
+          config.getReplicationRetainedRecords());
+    }
+    String leader = config.getReplicationLeaderAddress();
+    int colon = leader.lastIndexOf(':');
+    if (colon <= 0) {
+      throw new IllegalStateException("Expected host:port for url-shortener.replication.leader, got " + leader);
+    }
+    // Without a data directory the replica starts empty, so a remembered offset would be wrong.
+    Path offsetFile = config.isPersistenceEnabled()
+        ? Paths.get(config.getDataDirectory(), "replication.offset")
+        : null;
+    return new FollowerRepository(repository, leader.substring(0, colon),
+        Integer.parseInt(leader.substring(colon + 1)), config.getReplicationStalenessBoundMillis(), offsetFile);
+  }
+  
+  private static String jdbcUrl(URLShortenerConfig config) {
+    if (config.getJdbcUrl() != null && !config.getJdbcUrl().isBlank()) {
+      return config.getJdbcUrl();
+    }
+    if (config.isPersistenceEnabled()) {
+      return "jdbc:h2:file:" + Paths.get(config.getDataDirectory(), "jdbc", "urls").toAbsolutePath();
+    }
+    return "jdbc:h2:mem:url-shortener;DB_CLOSE_DELAY=-1";
+  }
+  
+  private static Path coldTierDirectory(URLShortenerConfig config) {
+    if (config.isPersistenceEnabled()) {
+      return Paths.get(config.getDataDirectory(), "cold");
+    }
+    try {
+      return Files.createTempDirectory("url-shortener-cold");
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to create cold tier directory", e);
+    }
   }
   
   @Bean
@@ -56,13 +268,27 @@ public class Main {
   }
   
   @Bean
-  public AnalyticsListener analyticsListener(URLEventPublisher eventPublisher) {
+  public AnalyticsListener analyticsListener(URLEventPublisher eventPublisher,
+                                             MemoryGovernor memoryGovernor) {
     AnalyticsListener listener = new AnalyticsListener();
     eventPublisher.subscribe(listener);
+    memoryGovernor.register(PressureLevel.DROP_ANALYTICS_DETAIL, "drop per-URL analytics",
+        listener::dropDetail, listener::resumeDetail);
     return listener;
   }
 
   
+  @Bean
+  public KeyspaceManager keyspaceManager(URLShortenerConfig config, URLEventPublisher eventPublisher,
+                                         URLRepository urlRepository) {
+    KeyspaceManager manager = new KeyspaceManager(config.getShortUrlLength(),
+        config.getMaxShortUrlLength(), config.getMaxExpectedKeyAttempts(),
+        config.getKeyStrategy() != URLStrategy.RANDOM);
+    manager.seed(urlRepository);
+    eventPublisher.subscribe(manager);
+    return manager;
+  }
+  
   @Bean
   public DeleteExpiryUrlsScheduler deleteExpiryUrlsScheduler(URLRepository urlRepository,
                                                               URLShortenerConfig config,
@@ -80,9 +306,36 @@ public class Main {
     return scheduler;
   }
   
+  @Bean
+  @Primary
+  public URLService urlService(BasicURLService basicURLService, MemoryGovernor memoryGovernor,
+                               URLShortenerConfig config, URLEventPublisher eventPublisher) {
+    URLService service = basicURLService;
+    if (config.isReadCoalescingEnabled()) {
+      // Below the cache, so only its misses are coalesced.
+      service = new CoalescingURLService(service, eventPublisher);
+    }
+    if (config.isCacheEnabled()) {
+      CachedURLService cached = new CachedURLService(service, eventPublisher, config);
+      eventPublisher.subscribe(cached);
+      memoryGovernor.register(PressureLevel.SHRINK_CACHES, "clear URL cache", cached::clear, null);
+      service = cached;
+    }
+    if (config.isNegativeCacheEnabled()) {
+      NegativeCachingURLService negative = new NegativeCachingURLService(service,
+          config.getNegativeCacheMaxEntries(), TimeUnit.SECONDS.toMillis(config.getNegativeCacheTtlSeconds()));
+      eventPublisher.subscribe(negative);
+      memoryGovernor.register(PressureLevel.SHRINK_CACHES, "clear missing URL cache", negative::clear, null);
+      service = negative;
+    }
+    // Reads keep serving under memory pressure; only creates are shed.
+    return new LoadSheddingURLService(service, memoryGovernor);
+  }
+  
   @EventListener(ApplicationReadyEvent.class)
-  public void onApplicationReady() {
+  public void onApplicationReady(ApplicationReadyEvent event) {
     System.out.println("=== URL Shortener Service Started ===");
+    System.out.println("   Ready in " + event.getTimeTaken().toMillis() + " ms");
     System.out.println("🎯 Observer Pattern: Event listeners with ASYNC notification!");
     System.out.println("🌐 REST API is now available!");
     System.out.println("   POST /api/urls - Create short URL");
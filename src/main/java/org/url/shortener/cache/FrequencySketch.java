@@ -0,0 +1,88 @@
+package org.url.shortener.cache;
+
+/**
+ * Approximate access counts for the TinyLFU admission policy: a count-min sketch of four
+ * rows of 4-bit counters, sixteen to a {@code long}. An item's frequency is the smallest
+ * of its four counters, so collisions only ever overestimate it.
+ *
+ * <p>Counters saturate at 15. After about ten additions per table slot every counter is
+ * halved, so the sketch follows what is popular now rather than what was popular since
+ * startup. Not thread-safe; {@link WTinyLfuCache} only touches it under its policy lock.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int additions;
+
+  FrequencySketch(long expectedEntries) {
+    long capped = Math.min(Math.max(expectedEntries, 8), 1 << 30);
+    int slots = (int) Long.highestOneBit(capped - 1) << 1;
+    this.table = new long[slots];
+    this.tableMask = slots - 1;
+    this.sampleSize = 10 * slots;
+  }
+
+  /** Estimated accesses of the item since the counters were last halved, at most 15. */
+  int frequency(int hashCode) {
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int row = 0; row < 4; row++) {
+      int index = indexOf(hash, row);
+      int count = (int) ((table[index] >>> ((start + row) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  void increment(int hashCode) {
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int row = 0; row < 4; row++) {
+      added |= incrementAt(indexOf(hash, row), start + row);
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /** Halves every counter; odd counts lose their remainder, which the addition count tracks. */
+  private void reset() {
+    int odd = 0;
+    for (int i = 0; i < table.length; i++) {
+      odd += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions = (additions >>> 1) - (odd >>> 2);
+  }
+
+  private int indexOf(int hash, int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
@@ -0,0 +1,398 @@
+package org.url.shortener.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A size-bounded cache with the W-TinyLFU policy. New entries land in a small LRU window
+ * (1% of the budget); what falls out of the window only gets into the main area if the
+ * {@link FrequencySketch} says it is used more often than the entry it would displace.
+ * The main area is a segmented LRU: entries hit again while on probation move to the
+ * protected segment (80% of the main area), whose overflow drops back to probation.
+ * One-off lookups therefore cannot flush out links that are read all the time.
+ *
+ * <p>The budget is a total weight: one per entry, or an estimate of the bytes each entry
+ * holds. Every entry also carries its own expiry and is dropped the first time it is read
+ * past it.
+ *
+ * <p>Lookups go straight to a {@link ConcurrentHashMap}. Recording the access in the
+ * sketch and the LRU order needs the policy lock; a read that finds it held skips that
+ * bookkeeping rather than wait, so under heavy contention the policy sees a sample of the
+ * reads. Writes always take the lock.
+ */
+public class WTinyLfuCache<K, V> {
+
+  public static final long NEVER = Long.MAX_VALUE;
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data;
+  private final ToIntBiFunction<K, V> weigher;
+  private final LongSupplier clock;
+  private final ReentrantLock policyLock;
+  private final FrequencySketch sketch;
+  private final Queue<K, V> window;
+  private final Queue<K, V> probation;
+  private final Queue<K, V> protectedQueue;
+  private final long maximumWeight;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+  private final LongAdder admissionRejects;
+  private final LongAdder expirations;
+  // Guarded by policyLock; read without it for metrics.
+  private volatile long totalWeight;
+  private long windowWeight;
+  private long protectedWeight;
+
+  /** A cache of at most {@code maximumEntries} entries. */
+  public WTinyLfuCache(long maximumEntries) {
+    this(maximumEntries, (key, value) -> 1, maximumEntries, System::currentTimeMillis);
+  }
+
+  /**
+   * A cache whose entries weigh at most {@code maximumWeight} together.
+   *
+   * @param expectedEntries roughly how many entries fit, to size the frequency sketch
+   */
+  public WTinyLfuCache(long maximumWeight, ToIntBiFunction<K, V> weigher, long expectedEntries) {
+    this(maximumWeight, weigher, expectedEntries, System::currentTimeMillis);
+  }
+
+  WTinyLfuCache(long maximumWeight, ToIntBiFunction<K, V> weigher, long expectedEntries, LongSupplier clock) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException("Maximum cache weight must be positive");
+    }
+    if (weigher == null || clock == null) {
+      throw new IllegalArgumentException("Weigher and clock cannot be null");
+    }
+    this.maximumWeight = maximumWeight;
+    this.windowMaximum = Math.max(1, maximumWeight / 100);
+    this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+    this.weigher = weigher;
+    this.clock = clock;
+    this.data = new ConcurrentHashMap<>();
+    this.policyLock = new ReentrantLock();
+    this.sketch = new FrequencySketch(expectedEntries);
+    this.window = new Queue<>();
+    this.probation = new Queue<>();
+    this.protectedQueue = new Queue<>();
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+    this.admissionRejects = new LongAdder();
+    this.expirations = new LongAdder();
+  }
+
+  /** The cached value, or null if there is none or it has expired. */
+  public V get(K key) {
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      misses.increment();
+      if (policyLock.tryLock()) {
+        try {
+          // Misses count too, so a key read often enough earns its way in once cached.
+          sketch.increment(key.hashCode());
+        } finally {
+          policyLock.unlock();
+        }
+      }
+      return null;
+    }
+    if (node.expiresAtMillis <= clock.getAsLong()) {
+      policyLock.lock();
+      try {
+        if (data.remove(key, node)) {
+          discard(node);
+          expirations.increment();
+        }
+      } finally {
+        policyLock.unlock();
+      }
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    if (policyLock.tryLock()) {
+      try {
+        onAccess(node);
+      } finally {
+        policyLock.unlock();
+      }
+    }
+    return node.value;
+  }
+
+  /**
+   * Caches the value until {@code expiresAtMillis}, or {@link #NEVER}. A value heavier than
+   * the whole budget is not cached, and any older value for the key is dropped.
+   */
+  public void put(K key, V value, long expiresAtMillis) {
+    if (key == null || value == null) {
+      throw new IllegalArgumentException("Key and value cannot be null");
+    }
+    int weight = weigher.applyAsInt(key, value);
+    policyLock.lock();
+    try {
+      Node<K, V> previous;
+      if (weight > maximumWeight) {
+        previous = data.remove(key);
+        admissionRejects.increment();
+      } else {
+        Node<K, V> node = new Node<>(key, value, weight, expiresAtMillis);
+        previous = data.put(key, node);
+        sketch.increment(key.hashCode());
+        node.queue = WINDOW;
+        window.addLast(node);
+        windowWeight += weight;
+        totalWeight += weight;
+      }
+      if (previous != null) {
+        discard(previous);
+      }
+      evict();
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  public void invalidate(K key) {
+    policyLock.lock();
+    try {
+      Node<K, V> node = data.remove(key);
+      if (node != null) {
+        discard(node);
+      }
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  /** Drops every entry. Access frequencies and metrics are kept. */
+  public void clear() {
+    policyLock.lock();
+    try {
+      // Readers may still hold nodes; mark them so a late access does not relink them.
+      data.values().forEach(node -> node.removed = true);
+      data.clear();
+      window.clear();
+      probation.clear();
+      protectedQueue.clear();
+      windowWeight = 0;
+      protectedWeight = 0;
+      totalWeight = 0;
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  public long size() {
+    return data.size();
+  }
+
+  /** Total weight of the cached entries: their count, or their estimated bytes. */
+  public long weightedSize() {
+    return totalWeight;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public double getHitRatio() {
+    long hitCount = hits.sum();
+    long requests = hitCount + misses.sum();
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+
+  /** Entries dropped to stay within the budget after they had been admitted. */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /** New entries turned away because they were used less than what they would displace. */
+  public long getAdmissionRejects() {
+    return admissionRejects.sum();
+  }
+
+  /** Entries dropped on a read past their expiry. */
+  public long getExpirations() {
+    return expirations.sum();
+  }
+
+  private void onAccess(Node<K, V> node) {
+    if (node.removed) {
+      return;
+    }
+    sketch.increment(node.key.hashCode());
+    switch (node.queue) {
+      case WINDOW:
+        window.moveToLast(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedQueue.addLast(node);
+        protectedWeight += node.weight;
+        while (protectedWeight > protectedMaximum) {
+          Node<K, V> demoted = protectedQueue.pollFirst();
+          protectedWeight -= demoted.weight;
+          demoted.queue = PROBATION;
+          probation.addLast(demoted);
+        }
+        break;
+      default:
+        protectedQueue.moveToLast(node);
+    }
+  }
+
+  /**
+   * Moves the window's overflow onto probation as candidates, then, while over budget,
+   * pits the oldest candidate against the head of probation and drops the less frequent.
+   */
+  private void evict() {
+    Node<K, V> candidate = null;
+    while (windowWeight > windowMaximum) {
+      Node<K, V> node = window.pollFirst();
+      windowWeight -= node.weight;
+      node.queue = PROBATION;
+      probation.addLast(node);
+      if (candidate == null) {
+        candidate = node;
+      }
+    }
+    while (totalWeight > maximumWeight) {
+      Node<K, V> victim = probation.first();
+      if (candidate == null || victim == candidate) {
+        // Nothing left to compare against: plain LRU order, probation first.
+        Node<K, V> evicted = victim != null ? victim
+            : protectedQueue.first() != null ? protectedQueue.first() : window.first();
+        if (evicted == candidate) {
+          candidate = probation.next(candidate);
+        }
+        evictNode(evicted);
+        evictions.increment();
+        continue;
+      }
+      if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+        evictNode(victim);
+        evictions.increment();
+      } else {
+        Node<K, V> next = probation.next(candidate);
+        evictNode(candidate);
+        admissionRejects.increment();
+        candidate = next;
+      }
+    }
+  }
+
+  private void evictNode(Node<K, V> node) {
+    data.remove(node.key, node);
+    discard(node);
+  }
+
+  /** Unlinks a node already taken out of the map and gives its weight back. */
+  private void discard(Node<K, V> node) {
+    if (node.removed) {
+      return;
+    }
+    node.removed = true;
+    switch (node.queue) {
+      case WINDOW:
+        window.remove(node);
+        windowWeight -= node.weight;
+        break;
+      case PROBATION:
+        probation.remove(node);
+        break;
+      default:
+        protectedQueue.remove(node);
+        protectedWeight -= node.weight;
+    }
+    totalWeight -= node.weight;
+  }
+
+  private static final class Node<K, V> {
+    private final K key;
+    private final V value;
+    private final int weight;
+    private final long expiresAtMillis;
+    // The fields below are guarded by the policy lock.
+    private int queue;
+    private boolean removed;
+    private Node<K, V> prev;
+    private Node<K, V> next;
+
+    private Node(K key, V value, int weight, long expiresAtMillis) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+
+  /** An intrusive LRU list, least recently used first. */
+  private static final class Queue<K, V> {
+    private final Node<K, V> head = new Node<>(null, null, 0, 0);
+
+    private Queue() {
+      head.prev = head;
+      head.next = head;
+    }
+
+    Node<K, V> first() {
+      return head.next == head ? null : head.next;
+    }
+
+    Node<K, V> next(Node<K, V> node) {
+      return node.next == head ? null : node.next;
+    }
+
+    Node<K, V> pollFirst() {
+      Node<K, V> first = first();
+      if (first != null) {
+        remove(first);
+      }
+      return first;
+    }
+
+    void addLast(Node<K, V> node) {
+      node.prev = head.prev;
+      node.next = head;
+      head.prev.next = node;
+      head.prev = node;
+    }
+
+    void moveToLast(Node<K, V> node) {
+      remove(node);
+      addLast(node);
+    }
+
+    void remove(Node<K, V> node) {
+      node.prev.next = node.next;
+      node.next.prev = node.prev;
+      node.prev = null;
+      node.next = null;
+    }
+
+    void clear() {
+      head.prev = head;
+      head.next = head;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package org.url.shortener.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.url.shortener.exception.ClusterException;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+
+/**
+ * Calls the internal endpoints of other nodes. A single {@link HttpClient} speaking
+ * HTTP/1.1 keeps idle keep-alive connections per node and reuses them, so steady traffic
+ * does not pay for a TCP handshake per forwarded request.
+ */
+final class ClusterClient {
+
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+  private final HttpClient http;
+  private final ExecutorService executor;
+
+  ClusterClient() {
+    AtomicInteger threads = new AtomicInteger();
+    this.executor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "Cluster-Client-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(CONNECT_TIMEOUT)
+        .executor(executor)
+        .build();
+  }
+
+  byte[] call(ClusterNode node, String path, byte[] body) {
+    try {
+      HttpResponse<byte[]> response = http.send(request(node, path, body),
+          HttpResponse.BodyHandlers.ofByteArray());
+      return handle(node, path, response);
+    } catch (IOException e) {
+      throw new ClusterException("Node " + node.getId() + " unreachable: " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ClusterException("Interrupted while calling node " + node.getId(), e);
+    }
+  }
+
+  CompletableFuture<byte[]> callAsync(ClusterNode node, String path, byte[] body) {
+    return http.sendAsync(request(node, path, body), HttpResponse.BodyHandlers.ofByteArray())
+        .handle((response, error) -> {
+          if (error != null) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            throw new ClusterException("Node " + node.getId() + " unreachable: " + cause.getMessage(), cause);
+          }
+          return handle(node, path, response);
+        });
+  }
+
+  void close() {
+    executor.shutdownNow();
+  }
+
+  private static HttpRequest request(ClusterNode node, String path, byte[] body) {
+    return HttpRequest.newBuilder(URI.create("http://" + node.getHost() + ":" + node.getPort() + path))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/octet-stream")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+        .build();
+  }
+
+  private static byte[] handle(ClusterNode node, String path, HttpResponse<byte[]> response) {
+    switch (response.statusCode()) {
+      case ClusterProtocol.OK:
+        return response.body();
+      case ClusterProtocol.CONFLICT:
+        throw new DuplicateUrlIdentifierException(ClusterProtocol.decodeMessage(response.body()));
+      default:
+        throw new ClusterException("Node " + node.getId() + " failed " + path + " with status "
+            + response.statusCode() + ": " + ClusterProtocol.decodeMessage(response.body()));
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package org.url.shortener.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A cluster member: a stable identifier, which places it on the {@link HashRing}, and the
+ * address of its internal endpoint.
+ */
+public final class ClusterNode {
+
+  private final String id;
+  private final String host;
+  private final int port;
+
+  public ClusterNode(String id, String host, int port) {
+    if (id == null || id.isBlank()) {
+      throw new IllegalArgumentException("Node id cannot be empty");
+    }
+    if (host == null || host.isBlank()) {
+      throw new IllegalArgumentException("Node host cannot be empty");
+    }
+    if (port <= 0 || port > 65535) {
+      throw new IllegalArgumentException("Invalid port for node " + id + ": " + port);
+    }
+    this.id = id;
+    this.host = host;
+    this.port = port;
+  }
+
+  /**
+   * Parses {@code id=host:port}.
+   */
+  public static ClusterNode parse(String spec) {
+    int equals = spec.indexOf('=');
+    int colon = spec.lastIndexOf(':');
+    if (equals <= 0 || colon <= equals + 1 || colon == spec.length() - 1) {
+      throw new IllegalArgumentException("Expected id=host:port but got: " + spec);
+    }
+    try {
+      return new ClusterNode(spec.substring(0, equals).trim(),
+          spec.substring(equals + 1, colon).trim(),
+          Integer.parseInt(spec.substring(colon + 1).trim()));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid port in node spec: " + spec, e);
+    }
+  }
+
+  /**
+   * Parses a comma-separated list of {@code id=host:port} specs.
+   */
+  public static List<ClusterNode> parseAll(String specs) {
+    List<ClusterNode> nodes = new ArrayList<>();
+    for (String spec : specs.split(",")) {
+      if (!spec.isBlank()) {
+        nodes.add(parse(spec.trim()));
+      }
+    }
+    return nodes;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ClusterNode)) {
+      return false;
+    }
+    ClusterNode other = (ClusterNode) o;
+    return port == other.port && id.equals(other.id) && host.equals(other.host);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, host, port);
+  }
+
+  @Override
+  public String toString() {
+    return id + "=" + host + ":" + port;
+  }
+}
@@ -0,0 +1,188 @@
+package org.url.shortener.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Paths and binary bodies of the internal node-to-node endpoints. Every body is a count
+ * followed by length-prefixed UTF-8 strings and big-endian numbers, so single-key calls
+ * are simply batches of one.
+ */
+final class ClusterProtocol {
+
+  /** Body: mappings. Stores them at the receiving node; 409 if an identifier is taken. */
+  static final String SAVE_ALL = "/cluster/save-all";
+  /** Body: identifiers. Response: the stored mappings among them. */
+  static final String GET_ALL = "/cluster/get-all";
+  /** Body: identifiers. Response: the stored mappings among them, with their expiry. */
+  static final String GET_LINK = "/cluster/get-link";
+  /** Body: identifiers. Response: the identifiers among them that are stored. */
+  static final String EXISTS = "/cluster/exists";
+  /** Body: identifiers. Removes them from the receiving node. */
+  static final String REMOVE_ALL = "/cluster/remove-all";
+  /** Body: fingerprint entries. Response: identifiers indexed under the fingerprints. */
+  static final String REVERSE_FIND = "/cluster/reverse/find";
+  /** Body: fingerprint entries. Indexes the identifiers under their fingerprints. */
+  static final String REVERSE_PUT = "/cluster/reverse/put";
+  /** Body: fingerprint entries. Drops the entries that still point at the identifier. */
+  static final String REVERSE_REMOVE = "/cluster/reverse/remove";
+  /** Body: one node identifier. Sends that node the index entries of the receiver's mappings. */
+  static final String REVERSE_REPUBLISH = "/cluster/reverse/republish";
+
+  static final int OK = 200;
+  static final int CONFLICT = 409;
+  static final int ERROR = 500;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private ClusterProtocol() {
+  }
+
+  static byte[] encodeMappings(Map<String, LongUrl> mappings) {
+    return write(out -> {
+      out.writeInt(mappings.size());
+      for (Map.Entry<String, LongUrl> entry : mappings.entrySet()) {
+        writeString(out, entry.getKey());
+        writeString(out, entry.getValue().getUrl());
+        out.writeLong(entry.getValue().getExpiry());
+      }
+    });
+  }
+
+  static Map<String, LongUrl> decodeMappings(byte[] body) {
+    return read(body, in -> {
+      int count = in.readInt();
+      Map<String, LongUrl> mappings = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        String shortUrlIdentifier = readString(in);
+        String url = readString(in);
+        mappings.put(shortUrlIdentifier, new LongUrl(url, in.readLong()));
+      }
+      return mappings;
+    });
+  }
+
+  static byte[] encodeIds(Collection<String> shortUrlIdentifiers) {
+    return write(out -> {
+      out.writeInt(shortUrlIdentifiers.size());
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        writeString(out, shortUrlIdentifier);
+      }
+    });
+  }
+
+  static List<String> decodeIds(byte[] body) {
+    return read(body, in -> {
+      int count = in.readInt();
+      List<String> shortUrlIdentifiers = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        shortUrlIdentifiers.add(readString(in));
+      }
+      return shortUrlIdentifiers;
+    });
+  }
+
+  static byte[] encodeUrls(Map<String, String> urls) {
+    return write(out -> {
+      out.writeInt(urls.size());
+      for (Map.Entry<String, String> entry : urls.entrySet()) {
+        writeString(out, entry.getKey());
+        writeString(out, entry.getValue());
+      }
+    });
+  }
+
+  static Map<String, String> decodeUrls(byte[] body) {
+    return read(body, in -> {
+      int count = in.readInt();
+      Map<String, String> urls = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        String shortUrlIdentifier = readString(in);
+        urls.put(shortUrlIdentifier, readString(in));
+      }
+      return urls;
+    });
+  }
+
+  /** Fingerprint entries: pairs of a long URL fingerprint and an identifier, which may be empty. */
+  static byte[] encodeFingerprints(Map<Long, String> entries) {
+    return write(out -> {
+      out.writeInt(entries.size());
+      for (Map.Entry<Long, String> entry : entries.entrySet()) {
+        out.writeLong(entry.getKey());
+        writeString(out, entry.getValue());
+      }
+    });
+  }
+
+  static Map<Long, String> decodeFingerprints(byte[] body) {
+    return read(body, in -> {
+      int count = in.readInt();
+      Map<Long, String> entries = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        long fingerprint = in.readLong();
+        entries.put(fingerprint, readString(in));
+      }
+      return entries;
+    });
+  }
+
+  static byte[] encodeMessage(String message) {
+    return message != null ? message.getBytes(StandardCharsets.UTF_8) : EMPTY;
+  }
+
+  static String decodeMessage(byte[] body) {
+    return new String(body, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] write(Writer writer) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writer.write(out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static <T> T read(byte[] body, Reader<T> reader) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+      return reader.read(in);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Malformed cluster message", e);
+    }
+  }
+
+  @FunctionalInterface
+  private interface Writer {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  @FunctionalInterface
+  private interface Reader<T> {
+    T read(DataInputStream in) throws IOException;
+  }
+}
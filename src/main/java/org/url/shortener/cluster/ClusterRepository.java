@@ -0,0 +1,433 @@
+package org.url.shortener.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.URLRepository;
+import org.url.shortener.repository.UrlFingerprintIndex;
+
+/**
+ * Repository for one member of a cluster that shares a single keyspace. Short identifiers
+ * are assigned to nodes by a {@link HashRing}; this node keeps the mappings it owns in its
+ * local repository and forwards everything else to the owner through {@link ClusterClient}.
+ * Batches are split per owner and the groups are sent in parallel.
+ *
+ * <p>A long URL is indexed at the node owning the URL's hash, which maps its fingerprint to
+ * the identifier it was stored under. {@link #findByLongUrl} asks that node for a candidate
+ * and confirms it with the identifier's owner, so a stale or colliding entry is never
+ * returned.
+ *
+ * <p>The index is a heap map holding one entry per long URL the node owns, so it grows with
+ * the node's share of the links, like the local repository does. It is not persisted:
+ * a starting node rebuilds it in the background by indexing its own mappings and asking
+ * every other member to send the entries of theirs, and sends each member the entries
+ * of its own mappings in turn, in case that member restarted while this one was down.
+ * Until the rebuild completes, duplicates of older links may go undetected.
+ *
+ * <p>The expiry and iteration methods only cover this node's own mappings: every node runs
+ * its own expiry sweep over the part of the keyspace it owns.
+ */
+public class ClusterRepository implements URLRepository, Closeable {
+
+  private static final int INDEX_REBUILD_BATCH = 10_000;
+
+  private final ClusterNode self;
+  private final HashRing ring;
+  private final URLRepository local;
+  private final Map<Long, String> urlIndex;
+  private final ClusterClient client;
+  private final ClusterServer server;
+  private final LongAdder localRequests;
+  private final LongAdder forwardedRequests;
+
+  /**
+   * Starts serving the internal endpoint on the port of {@code self}, which must be one of
+   * the ring's nodes.
+   */
+  public ClusterRepository(ClusterNode self, HashRing ring, URLRepository local) {
+    if (!ring.getNodes().contains(self)) {
+      throw new IllegalArgumentException("Node " + self + " is not a member of the ring");
+    }
+    if (local == null) {
+      throw new IllegalArgumentException("URLRepository cannot be null");
+    }
+    this.self = self;
+    this.ring = ring;
+    this.local = local;
+    this.urlIndex = new ConcurrentHashMap<>();
+    this.localRequests = new LongAdder();
+    this.forwardedRequests = new LongAdder();
+    this.client = new ClusterClient();
+    this.server = new ClusterServer(self.getPort(), this);
+    server.start();
+    System.out.println("Cluster node " + self + " serving " + ring.getNodes().size()
+        + " members with " + ring.getVirtualNodes() + " virtual nodes each");
+    Thread indexRebuilder = new Thread(this::rebuildIndex, "Cluster-Index-Rebuild-Thread");
+    indexRebuilder.setDaemon(true);
+    indexRebuilder.start();
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    saveAll(Map.of(shortUrlIdentifier, longURL));
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    Map<ClusterNode, Map<String, LongUrl>> byOwner = new LinkedHashMap<>();
+    entries.forEach((shortUrlIdentifier, longURL) -> byOwner
+        .computeIfAbsent(ring.ownerOf(shortUrlIdentifier), n -> new LinkedHashMap<>())
+        .put(shortUrlIdentifier, longURL));
+    Map<ClusterNode, CompletableFuture<byte[]>> writes = new LinkedHashMap<>();
+    byOwner.forEach((owner, group) -> writes.put(owner, send(owner, group.size(),
+        () -> saveOwned(group), ClusterProtocol.SAVE_ALL, ClusterProtocol.encodeMappings(group))));
+    RuntimeException failure = null;
+    List<ClusterNode> applied = new ArrayList<>();
+    for (Map.Entry<ClusterNode, CompletableFuture<byte[]>> write : writes.entrySet()) {
+      try {
+        await(write.getValue());
+        applied.add(write.getKey());
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      // Owners are independent, so undo the groups that did go through.
+      for (ClusterNode owner : applied) {
+        List<String> group = new ArrayList<>(byOwner.get(owner).keySet());
+        await(send(owner, group.size(), () -> removeOwned(group),
+            ClusterProtocol.REMOVE_ALL, ClusterProtocol.encodeIds(group)));
+      }
+      throw failure;
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    ClusterNode owner = ring.ownerOf(shortUrlIdentifier);
+    if (owner.equals(self)) {
+      localRequests.increment();
+      return local.get(shortUrlIdentifier);
+    }
+    forwardedRequests.increment();
+    return ClusterProtocol.decodeUrls(client.call(owner, ClusterProtocol.GET_ALL,
+        ClusterProtocol.encodeIds(List.of(shortUrlIdentifier)))).get(shortUrlIdentifier);
+  }
+
+  @Override
+  public Map<String, String> getAll(Collection<String> shortUrlIdentifiers) {
+    Map<ClusterNode, List<String>> byOwner = groupByOwner(shortUrlIdentifiers);
+    List<CompletableFuture<byte[]>> reads = new ArrayList<>();
+    Map<String, String> found = new ConcurrentHashMap<>();
+    byOwner.forEach((owner, group) -> reads.add(send(owner, group.size(),
+        () -> found.putAll(getOwned(group)), ClusterProtocol.GET_ALL, ClusterProtocol.encodeIds(group))
+        .thenApply(body -> {
+          if (body != null) {
+            found.putAll(ClusterProtocol.decodeUrls(body));
+          }
+          return body;
+        })));
+    reads.forEach(ClusterRepository::await);
+    // Keep the caller's order.
+    Map<String, String> ordered = new LinkedHashMap<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      String longUrl = found.get(shortUrlIdentifier);
+      if (longUrl != null) {
+        ordered.put(shortUrlIdentifier, longUrl);
+      }
+    }
+    return ordered;
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    ClusterNode owner = ring.ownerOf(shortUrlIdentifier);
+    if (owner.equals(self)) {
+      localRequests.increment();
+      return local.exists(shortUrlIdentifier);
+    }
+    forwardedRequests.increment();
+    return !ClusterProtocol.decodeIds(client.call(owner, ClusterProtocol.EXISTS,
+        ClusterProtocol.encodeIds(List.of(shortUrlIdentifier)))).isEmpty();
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    // Only known for identifiers stored here; asking the owner would cost a round trip.
+    ClusterNode owner = ring.ownerOf(shortUrlIdentifier);
+    return owner.equals(self) ? local.getExpiry(shortUrlIdentifier) : -1;
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    ClusterNode owner = ring.ownerOf(shortUrlIdentifier);
+    if (owner.equals(self)) {
+      localRequests.increment();
+      return local.getLink(shortUrlIdentifier);
+    }
+    forwardedRequests.increment();
+    return ClusterProtocol.decodeMappings(client.call(owner, ClusterProtocol.GET_LINK,
+        ClusterProtocol.encodeIds(List.of(shortUrlIdentifier)))).get(shortUrlIdentifier);
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    removeAll(List.of(shortUrlIdentifier));
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    List<CompletableFuture<byte[]>> writes = new ArrayList<>();
+    groupByOwner(shortUrlIdentifiers).forEach((owner, group) -> writes.add(send(owner, group.size(),
+        () -> removeOwned(group), ClusterProtocol.REMOVE_ALL, ClusterProtocol.encodeIds(group))));
+    writes.forEach(ClusterRepository::await);
+  }
+
+  /** Identifiers owned by this node that are due; other nodes sweep their own. */
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    return local.getAllExpired(timeStamp);
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    return local.pollExpired(timeStamp);
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    local.rescheduleExpiry(shortUrlIdentifiers);
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    long fingerprint = UrlFingerprintIndex.fingerprint(longUrl);
+    ClusterNode indexOwner = ring.ownerOf(longUrl);
+    String candidate;
+    if (indexOwner.equals(self)) {
+      candidate = urlIndex.get(fingerprint);
+    } else {
+      forwardedRequests.increment();
+      candidate = ClusterProtocol.decodeFingerprints(client.call(indexOwner, ClusterProtocol.REVERSE_FIND,
+          ClusterProtocol.encodeFingerprints(Map.of(fingerprint, "")))).get(fingerprint);
+    }
+    if (candidate == null || candidate.isEmpty()) {
+      return Optional.empty();
+    }
+    // The index may be stale or shared by another URL with the same fingerprint.
+    return longUrl.equals(get(candidate)) ? Optional.of(candidate) : Optional.empty();
+  }
+
+  /** Mappings owned by this node. */
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    local.forEachEntry(action);
+  }
+
+  public ClusterNode getSelf() {
+    return self;
+  }
+
+  public HashRing getRing() {
+    return ring;
+  }
+
+  public long getLocalRequests() {
+    return localRequests.sum();
+  }
+
+  public long getForwardedRequests() {
+    return forwardedRequests.sum();
+  }
+
+  @Override
+  public void close() {
+    server.stop();
+    client.close();
+    if (local instanceof Closeable) {
+      try {
+        ((Closeable) local).close();
+      } catch (IOException e) {
+        System.err.println("Failed to close local repository: " + e.getMessage());
+      }
+    }
+  }
+
+  // Called for requests this node owns, whether they arrived locally or over the wire.
+
+  void saveOwned(Map<String, LongUrl> entries) {
+    local.saveAll(entries);
+    Map<String, String> urls = new LinkedHashMap<>();
+    entries.forEach((shortUrlIdentifier, longURL) -> urls.put(shortUrlIdentifier, longURL.getUrl()));
+    updateIndex(urls, ClusterProtocol.REVERSE_PUT);
+  }
+
+  Map<String, String> getOwned(Collection<String> shortUrlIdentifiers) {
+    return local.getAll(shortUrlIdentifiers);
+  }
+
+  Map<String, LongUrl> getOwnedLinks(Collection<String> shortUrlIdentifiers) {
+    Map<String, LongUrl> links = new LinkedHashMap<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      LongUrl link = local.getLink(shortUrlIdentifier);
+      if (link != null) {
+        links.put(shortUrlIdentifier, link);
+      }
+    }
+    return links;
+  }
+
+  List<String> existingOwned(Collection<String> shortUrlIdentifiers) {
+    List<String> existing = new ArrayList<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      if (local.exists(shortUrlIdentifier)) {
+        existing.add(shortUrlIdentifier);
+      }
+    }
+    return existing;
+  }
+
+  void removeOwned(Collection<String> shortUrlIdentifiers) {
+    Map<String, String> removed = local.getAll(shortUrlIdentifiers);
+    local.removeAll(shortUrlIdentifiers);
+    updateIndex(removed, ClusterProtocol.REVERSE_REMOVE);
+  }
+
+  Map<Long, String> findIndexed(Collection<Long> fingerprints) {
+    Map<Long, String> found = new LinkedHashMap<>();
+    for (Long fingerprint : fingerprints) {
+      found.put(fingerprint, urlIndex.getOrDefault(fingerprint, ""));
+    }
+    return found;
+  }
+
+  void putIndexed(Map<Long, String> entries) {
+    urlIndex.putAll(entries);
+  }
+
+  void removeIndexed(Map<Long, String> entries) {
+    entries.forEach(urlIndex::remove);
+  }
+
+  /** Sends the member with the given id the index entries of the mappings stored here. */
+  void republishIndex(String nodeId) {
+    ClusterNode indexOwner = ring.getNodes().stream()
+        .filter(node -> node.getId().equals(nodeId))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Unknown cluster node " + nodeId));
+    republishIndex(indexOwner);
+  }
+
+  private void rebuildIndex() {
+    for (ClusterNode node : ring.getNodes()) {
+      try {
+        republishIndex(node);
+        if (!node.equals(self)) {
+          client.call(node, ClusterProtocol.REVERSE_REPUBLISH, ClusterProtocol.encodeIds(List.of(self.getId())));
+        }
+      } catch (RuntimeException e) {
+        // That member rebuilds its part once it starts.
+        System.err.println("Failed to rebuild URL index with node " + node.getId() + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private void republishIndex(ClusterNode indexOwner) {
+    Map<Long, String> batch = new LinkedHashMap<>();
+    local.forEachEntry((shortUrlIdentifier, longURL) -> {
+      if (ring.ownerOf(longURL.getUrl()).equals(indexOwner)) {
+        batch.put(UrlFingerprintIndex.fingerprint(longURL.getUrl()), shortUrlIdentifier);
+        if (batch.size() >= INDEX_REBUILD_BATCH) {
+          sendIndexed(indexOwner, batch);
+          batch.clear();
+        }
+      }
+    });
+    if (!batch.isEmpty()) {
+      sendIndexed(indexOwner, batch);
+    }
+  }
+
+  private void sendIndexed(ClusterNode indexOwner, Map<Long, String> entries) {
+    if (indexOwner.equals(self)) {
+      putIndexed(entries);
+    } else {
+      client.call(indexOwner, ClusterProtocol.REVERSE_PUT, ClusterProtocol.encodeFingerprints(entries));
+    }
+  }
+
+  /**
+   * Sends index updates for identifier-to-URL mappings to the nodes owning the URLs. The
+   * index only speeds up duplicate detection, so a failed update is logged rather than
+   * failing the write that triggered it.
+   */
+  private void updateIndex(Map<String, String> urls, String path) {
+    Map<ClusterNode, Map<Long, String>> byOwner = new LinkedHashMap<>();
+    urls.forEach((shortUrlIdentifier, longUrl) -> byOwner
+        .computeIfAbsent(ring.ownerOf(longUrl), n -> new LinkedHashMap<>())
+        .put(UrlFingerprintIndex.fingerprint(longUrl), shortUrlIdentifier));
+    byOwner.forEach((owner, entries) -> {
+      if (!owner.equals(self)) {
+        try {
+          client.call(owner, path, ClusterProtocol.encodeFingerprints(entries));
+        } catch (RuntimeException e) {
+          System.err.println("Failed to update URL index on node " + owner.getId() + ": " + e.getMessage());
+        }
+      } else if (path.equals(ClusterProtocol.REVERSE_PUT)) {
+        putIndexed(entries);
+      } else {
+        removeIndexed(entries);
+      }
+    });
+  }
+
+  private Map<ClusterNode, List<String>> groupByOwner(Collection<String> shortUrlIdentifiers) {
+    Map<ClusterNode, List<String>> byOwner = new LinkedHashMap<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      byOwner.computeIfAbsent(ring.ownerOf(shortUrlIdentifier), n -> new ArrayList<>())
+          .add(shortUrlIdentifier);
+    }
+    return byOwner;
+  }
+
+  /**
+   * Runs the local action when this node owns the group and completes with null, otherwise
+   * forwards the body to the owner and completes with its response.
+   */
+  private CompletableFuture<byte[]> send(ClusterNode owner, int keys, Runnable localAction,
+                                         String path, byte[] body) {
+    if (owner.equals(self)) {
+      localRequests.add(keys);
+      try {
+        localAction.run();
+        return CompletableFuture.completedFuture(null);
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+    forwardedRequests.add(keys);
+    return client.callAsync(owner, path, body);
+  }
+
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
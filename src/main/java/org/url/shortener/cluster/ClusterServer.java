@@ -0,0 +1,130 @@
+package org.url.shortener.cluster;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+
+/**
+ * Serves the internal endpoints of {@link ClusterProtocol} on the JDK HTTP server, apart
+ * from the public API port. Requests are always applied to this node's own data and never
+ * forwarded again, so nodes with briefly different member lists cannot bounce a request
+ * between them.
+ */
+final class ClusterServer {
+
+  private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  ClusterServer(int port, ClusterRepository repository) {
+    // The server flushes headers and body separately; with Nagle's algorithm on, every
+    // response then waits for the peer's delayed ACK. Read once, before the first server.
+    if (System.getProperty(NODELAY_PROPERTY) == null) {
+      System.setProperty(NODELAY_PROPERTY, "true");
+    }
+    try {
+      this.server = HttpServer.create(new InetSocketAddress(port), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to bind cluster endpoint on port " + port, e);
+    }
+    AtomicInteger threads = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(
+        Math.max(4, Runtime.getRuntime().availableProcessors() * 2), r -> {
+          Thread thread = new Thread(r, "Cluster-Server-" + threads.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    server.setExecutor(executor);
+
+    route(ClusterProtocol.SAVE_ALL, body -> {
+      repository.saveOwned(ClusterProtocol.decodeMappings(body));
+      return new byte[0];
+    });
+    route(ClusterProtocol.GET_ALL, body ->
+        ClusterProtocol.encodeUrls(repository.getOwned(ClusterProtocol.decodeIds(body))));
+    route(ClusterProtocol.GET_LINK, body ->
+        ClusterProtocol.encodeMappings(repository.getOwnedLinks(ClusterProtocol.decodeIds(body))));
+    route(ClusterProtocol.EXISTS, body ->
+        ClusterProtocol.encodeIds(repository.existingOwned(ClusterProtocol.decodeIds(body))));
+    route(ClusterProtocol.REMOVE_ALL, body -> {
+      repository.removeOwned(ClusterProtocol.decodeIds(body));
+      return new byte[0];
+    });
+    route(ClusterProtocol.REVERSE_FIND, body -> ClusterProtocol.encodeFingerprints(
+        repository.findIndexed(ClusterProtocol.decodeFingerprints(body).keySet())));
+    route(ClusterProtocol.REVERSE_PUT, body -> {
+      repository.putIndexed(ClusterProtocol.decodeFingerprints(body));
+      return new byte[0];
+    });
+    route(ClusterProtocol.REVERSE_REMOVE, body -> {
+      repository.removeIndexed(ClusterProtocol.decodeFingerprints(body));
+      return new byte[0];
+    });
+    route(ClusterProtocol.REVERSE_REPUBLISH, body -> {
+      for (String nodeId : ClusterProtocol.decodeIds(body)) {
+        repository.republishIndex(nodeId);
+      }
+      return new byte[0];
+    });
+  }
+
+  void start() {
+    server.start();
+  }
+
+  int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  void stop() {
+    server.stop(0);
+    executor.shutdown();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void route(String path, Function<byte[], byte[]> handler) {
+    server.createContext(path, exchange -> {
+      try {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+          body = in.readAllBytes();
+        }
+        try {
+          respond(exchange, ClusterProtocol.OK, handler.apply(body));
+        } catch (DuplicateUrlIdentifierException e) {
+          respond(exchange, ClusterProtocol.CONFLICT, ClusterProtocol.encodeMessage(e.getMessage()));
+        } catch (RuntimeException e) {
+          respond(exchange, ClusterProtocol.ERROR, ClusterProtocol.encodeMessage(e.toString()));
+        }
+      } finally {
+        exchange.close();
+      }
+    });
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+    // Fixed lengths keep the connection open for the next request; -1 announces no body.
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    if (body.length > 0) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+}
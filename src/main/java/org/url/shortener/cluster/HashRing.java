@@ -0,0 +1,118 @@
+package org.url.shortener.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable consistent-hash ring. Every node is placed at a number of virtual points so
+ * that ownership is spread evenly, and adding or removing a node only moves the keys of
+ * the ranges its points cover. The points are kept in one sorted {@code long} array with a
+ * parallel owner array, so a lookup is a binary search without boxing.
+ */
+public final class HashRing {
+
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private final List<ClusterNode> nodes;
+  private final int virtualNodes;
+  private final long[] points;
+  private final ClusterNode[] owners;
+
+  public HashRing(Collection<ClusterNode> nodes) {
+    this(nodes, DEFAULT_VIRTUAL_NODES);
+  }
+
+  public HashRing(Collection<ClusterNode> nodes, int virtualNodes) {
+    if (nodes.isEmpty()) {
+      throw new IllegalArgumentException("A ring needs at least one node");
+    }
+    if (virtualNodes <= 0) {
+      throw new IllegalArgumentException("Virtual node count must be positive");
+    }
+    Set<String> ids = new HashSet<>();
+    for (ClusterNode node : nodes) {
+      if (!ids.add(node.getId())) {
+        throw new IllegalArgumentException("Duplicate node id: " + node.getId());
+      }
+    }
+    this.nodes = List.copyOf(nodes);
+    this.virtualNodes = virtualNodes;
+
+    int count = nodes.size() * virtualNodes;
+    long[] unsortedPoints = new long[count];
+    ClusterNode[] unsortedOwners = new ClusterNode[count];
+    int i = 0;
+    for (ClusterNode node : nodes) {
+      for (int v = 0; v < virtualNodes; v++) {
+        // Points depend on the id only, so every member computes the same ring.
+        unsortedPoints[i] = hash(node.getId() + "#" + v);
+        unsortedOwners[i] = node;
+        i++;
+      }
+    }
+    Integer[] order = new Integer[count];
+    for (int j = 0; j < count; j++) {
+      order[j] = j;
+    }
+    // Ties are broken by node id so the ring does not depend on member order.
+    Arrays.sort(order, (a, b) -> {
+      int byPoint = Long.compare(unsortedPoints[a], unsortedPoints[b]);
+      return byPoint != 0 ? byPoint : unsortedOwners[a].getId().compareTo(unsortedOwners[b].getId());
+    });
+    this.points = new long[count];
+    this.owners = new ClusterNode[count];
+    for (int j = 0; j < count; j++) {
+      points[j] = unsortedPoints[order[j]];
+      owners[j] = unsortedOwners[order[j]];
+    }
+  }
+
+  /**
+   * Returns the node owning the key: the first point at or after the key's hash, wrapping
+   * around to the first point of the ring.
+   */
+  public ClusterNode ownerOf(String key) {
+    int index = Arrays.binarySearch(points, hash(key));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return owners[index == points.length ? 0 : index];
+  }
+
+  public List<ClusterNode> getNodes() {
+    return nodes;
+  }
+
+  public int getVirtualNodes() {
+    return virtualNodes;
+  }
+
+  /** Returns a ring with the node added and the same number of virtual points per node. */
+  public HashRing withNode(ClusterNode node) {
+    List<ClusterNode> grown = new ArrayList<>(nodes);
+    grown.add(node);
+    return new HashRing(grown, virtualNodes);
+  }
+
+  /**
+   * 64-bit FNV-1a over the UTF-16 chars followed by the MurmurHash3 finalizer, which
+   * spreads the similar, short identifiers this ring sees across the whole range.
+   */
+  static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h ^= key.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
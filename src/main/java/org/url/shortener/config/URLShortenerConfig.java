@@ -1,5 +1,10 @@
 package org.url.shortener.config;
 
+import org.url.shortener.persistence.FsyncPolicy;
+import org.url.shortener.replication.ReplicationRole;
+import org.url.shortener.repository.RepositoryType;
+import org.url.shortener.strategy.URLStrategy;
+
 /**
  * Configuration class for URL Shortener settings.
  * All configuration values are centralized here for easy modification.
@@ -8,7 +13,14 @@ public class URLShortenerConfig {
 
   // URL Generation Settings
   private final int shortUrlLength;
+  private final int maxShortUrlLength;
+  private final double maxExpectedKeyAttempts;
   private final int maxCollisionRetryAttempts;
+  private final URLStrategy keyStrategy;
+  private final int sequenceBlockSize;
+  private final String feistelKey;
+  private final int keyPoolCapacity;
+  private final int keyPoolRefillBatchSize;
 
   // Expiry Settings (in seconds)
   private final long defaultUrlExpirySeconds;
@@ -21,17 +33,96 @@ public class URLShortenerConfig {
   private final boolean enableUrlValidation;
   private final boolean preventDuplicateLongUrls;
 
+  // Storage Settings
+  private final RepositoryType repositoryType;
+
+  // Persistence Settings (no data directory keeps everything in memory)
+  private final String dataDirectory;
+  private final FsyncPolicy fsyncPolicy;
+  private final long fsyncIntervalMillis;
+  private final long snapshotIntervalSeconds;
+
+  // Bloom Filter Settings (guards lookups of identifiers that cannot exist)
+  private final boolean bloomFilterEnabled;
+  private final long bloomFilterExpectedInsertions;
+  private final double bloomFilterFalsePositiveRate;
+
+  // Tiered Storage Settings (links idle this long, or past the hot budget, go to disk)
+  private final long tieredMaxHotEntries;
+  private final long tieredIdleSeconds;
+
+  // JDBC Settings (no URL derives an H2 database from the data directory)
+  private final String jdbcUrl;
+  private final int jdbcPoolSize;
+  private final int jdbcWriteBehindBatchSize;
+  private final long jdbcWriteBehindFlushMillis;
+
+  // Cluster Settings (no node id runs a single standalone node)
+  private final String clusterNodeId;
+  private final String clusterNodes;
+  private final int clusterVirtualNodes;
+
+  // Replication Settings (a follower serves reads shipped from its leader)
+  private final ReplicationRole replicationRole;
+  private final int replicationPort;
+  private final int replicationRetainedRecords;
+  private final String replicationLeaderAddress;
+  private final long replicationStalenessBoundMillis;
+
+  // Read Cache Settings (no entry or byte budget leaves reads uncached)
+  private final long cacheMaxEntries;
+  private final long cacheMaxBytes;
+  private final long cacheMaxTtlSeconds;
+  private final boolean readCoalescingEnabled;
+  private final long negativeCacheMaxEntries;
+  private final long negativeCacheTtlSeconds;
+
   /**
    * Creates a configuration with default values.
    */
   public URLShortenerConfig() {
     this.shortUrlLength = 6;
+    this.maxShortUrlLength = 10;
+    this.maxExpectedKeyAttempts = 1.1;
     this.maxCollisionRetryAttempts = 5;
+    this.keyStrategy = URLStrategy.RANDOM;
+    this.sequenceBlockSize = 10_000;
+    this.feistelKey = null;
+    this.keyPoolCapacity = 0; // no pool
+    this.keyPoolRefillBatchSize = 1000;
     this.defaultUrlExpirySeconds = 3600; // 1 hour
     this.cleanupFrequencySeconds = 60; // 1 minute
     this.schedulerThreadPoolSize = 2;
     this.enableUrlValidation = true;
     this.preventDuplicateLongUrls = true;
+    this.repositoryType = RepositoryType.DEFAULT;
+    this.dataDirectory = null;
+    this.fsyncPolicy = FsyncPolicy.INTERVAL;
+    this.fsyncIntervalMillis = 100;
+    this.snapshotIntervalSeconds = 300; // 5 minutes
+    this.bloomFilterEnabled = false;
+    this.bloomFilterExpectedInsertions = 1_000_000;
+    this.bloomFilterFalsePositiveRate = 0.01;
+    this.tieredMaxHotEntries = 1_000_000;
+    this.tieredIdleSeconds = 86400; // 1 day
+    this.jdbcUrl = null;
+    this.jdbcPoolSize = 4;
+    this.jdbcWriteBehindBatchSize = 0; // write-behind off
+    this.jdbcWriteBehindFlushMillis = 50;
+    this.clusterNodeId = null;
+    this.clusterNodes = null;
+    this.clusterVirtualNodes = 128;
+    this.replicationRole = ReplicationRole.NONE;
+    this.replicationPort = 9091;
+    this.replicationRetainedRecords = 100_000;
+    this.replicationLeaderAddress = null;
+    this.replicationStalenessBoundMillis = 5000;
+    this.cacheMaxEntries = 0; // no cache
+    this.cacheMaxBytes = 0;
+    this.cacheMaxTtlSeconds = 300; // 5 minutes
+    this.readCoalescingEnabled = true;
+    this.negativeCacheMaxEntries = 0; // misses not remembered
+    this.negativeCacheTtlSeconds = 30;
   }
 
   /**
@@ -42,22 +133,138 @@ public class URLShortenerConfig {
                             int schedulerThreadPoolSize, boolean enableUrlValidation,
                             boolean preventDuplicateLongUrls) {
     this.shortUrlLength = shortUrlLength;
+    this.maxShortUrlLength = Math.max(shortUrlLength, 10);
+    this.maxExpectedKeyAttempts = 1.1;
     this.maxCollisionRetryAttempts = maxCollisionRetryAttempts;
+    this.keyStrategy = URLStrategy.RANDOM;
+    this.sequenceBlockSize = 10_000;
+    this.feistelKey = null;
+    this.keyPoolCapacity = 0; // no pool
+    this.keyPoolRefillBatchSize = 1000;
     this.defaultUrlExpirySeconds = defaultUrlExpirySeconds;
     this.cleanupFrequencySeconds = cleanupFrequencySeconds;
     this.schedulerThreadPoolSize = schedulerThreadPoolSize;
     this.enableUrlValidation = enableUrlValidation;
     this.preventDuplicateLongUrls = preventDuplicateLongUrls;
+    this.repositoryType = RepositoryType.DEFAULT;
+    this.dataDirectory = null;
+    this.fsyncPolicy = FsyncPolicy.INTERVAL;
+    this.fsyncIntervalMillis = 100;
+    this.snapshotIntervalSeconds = 300; // 5 minutes
+    this.bloomFilterEnabled = false;
+    this.bloomFilterExpectedInsertions = 1_000_000;
+    this.bloomFilterFalsePositiveRate = 0.01;
+    this.tieredMaxHotEntries = 1_000_000;
+    this.tieredIdleSeconds = 86400; // 1 day
+    this.jdbcUrl = null;
+    this.jdbcPoolSize = 4;
+    this.jdbcWriteBehindBatchSize = 0; // write-behind off
+    this.jdbcWriteBehindFlushMillis = 50;
+    this.clusterNodeId = null;
+    this.clusterNodes = null;
+    this.clusterVirtualNodes = 128;
+    this.replicationRole = ReplicationRole.NONE;
+    this.replicationPort = 9091;
+    this.replicationRetainedRecords = 100_000;
+    this.replicationLeaderAddress = null;
+    this.replicationStalenessBoundMillis = 5000;
+    this.cacheMaxEntries = 0; // no cache
+    this.cacheMaxBytes = 0;
+    this.cacheMaxTtlSeconds = 300; // 5 minutes
+    this.readCoalescingEnabled = true;
+    this.negativeCacheMaxEntries = 0; // misses not remembered
+    this.negativeCacheTtlSeconds = 30;
+  }
+
+  private URLShortenerConfig(Builder builder) {
+    this.shortUrlLength = builder.shortUrlLength;
+    this.maxShortUrlLength = Math.max(builder.shortUrlLength, builder.maxShortUrlLength);
+    this.maxExpectedKeyAttempts = builder.maxExpectedKeyAttempts;
+    this.maxCollisionRetryAttempts = builder.maxCollisionRetryAttempts;
+    this.keyStrategy = builder.keyStrategy;
+    this.sequenceBlockSize = builder.sequenceBlockSize;
+    this.feistelKey = builder.feistelKey;
+    this.keyPoolCapacity = builder.keyPoolCapacity;
+    this.keyPoolRefillBatchSize = builder.keyPoolRefillBatchSize;
+    this.defaultUrlExpirySeconds = builder.defaultUrlExpirySeconds;
+    this.cleanupFrequencySeconds = builder.cleanupFrequencySeconds;
+    this.schedulerThreadPoolSize = builder.schedulerThreadPoolSize;
+    this.enableUrlValidation = builder.enableUrlValidation;
+    this.preventDuplicateLongUrls = builder.preventDuplicateLongUrls;
+    this.repositoryType = builder.repositoryType;
+    this.dataDirectory = builder.dataDirectory;
+    this.fsyncPolicy = builder.fsyncPolicy;
+    this.fsyncIntervalMillis = builder.fsyncIntervalMillis;
+    this.snapshotIntervalSeconds = builder.snapshotIntervalSeconds;
+    this.bloomFilterEnabled = builder.bloomFilterEnabled;
+    this.bloomFilterExpectedInsertions = builder.bloomFilterExpectedInsertions;
+    this.bloomFilterFalsePositiveRate = builder.bloomFilterFalsePositiveRate;
+    this.tieredMaxHotEntries = builder.tieredMaxHotEntries;
+    this.tieredIdleSeconds = builder.tieredIdleSeconds;
+    this.jdbcUrl = builder.jdbcUrl;
+    this.jdbcPoolSize = builder.jdbcPoolSize;
+    this.jdbcWriteBehindBatchSize = builder.jdbcWriteBehindBatchSize;
+    this.jdbcWriteBehindFlushMillis = builder.jdbcWriteBehindFlushMillis;
+    this.clusterNodeId = builder.clusterNodeId;
+    this.clusterNodes = builder.clusterNodes;
+    this.clusterVirtualNodes = builder.clusterVirtualNodes;
+    this.replicationRole = builder.replicationRole;
+    this.replicationPort = builder.replicationPort;
+    this.replicationRetainedRecords = builder.replicationRetainedRecords;
+    this.replicationLeaderAddress = builder.replicationLeaderAddress;
+    this.replicationStalenessBoundMillis = builder.replicationStalenessBoundMillis;
+    this.cacheMaxEntries = builder.cacheMaxEntries;
+    this.cacheMaxBytes = builder.cacheMaxBytes;
+    this.cacheMaxTtlSeconds = builder.cacheMaxTtlSeconds;
+    this.readCoalescingEnabled = builder.readCoalescingEnabled;
+    this.negativeCacheMaxEntries = builder.negativeCacheMaxEntries;
+    this.negativeCacheTtlSeconds = builder.negativeCacheTtlSeconds;
   }
 
   public int getShortUrlLength() {
     return shortUrlLength;
   }
 
+  /** Longest key length the key space manager may move up to as shorter lengths fill. */
+  public int getMaxShortUrlLength() {
+    return maxShortUrlLength;
+  }
+
+  /** Expected attempts per create past which keys get one character longer. */
+  public double getMaxExpectedKeyAttempts() {
+    return maxExpectedKeyAttempts;
+  }
+
   public int getMaxCollisionRetryAttempts() {
     return maxCollisionRetryAttempts;
   }
 
+  public URLStrategy getKeyStrategy() {
+    return keyStrategy;
+  }
+
+  /** Sequence numbers each node leases at a time when keys are sequential. */
+  public int getSequenceBlockSize() {
+    return sequenceBlockSize;
+  }
+
+  /** Secret for FEISTEL keys; null keeps a generated one in the data directory. */
+  public String getFeistelKey() {
+    return feistelKey;
+  }
+
+  public boolean isKeyPoolEnabled() {
+    return keyPoolCapacity > 0;
+  }
+
+  public int getKeyPoolCapacity() {
+    return keyPoolCapacity;
+  }
+
+  public int getKeyPoolRefillBatchSize() {
+    return keyPoolRefillBatchSize;
+  }
+
   public long getDefaultUrlExpirySeconds() {
     return defaultUrlExpirySeconds;
   }
@@ -78,25 +285,225 @@ public class URLShortenerConfig {
     return preventDuplicateLongUrls;
   }
 
+  public RepositoryType getRepositoryType() {
+    return repositoryType;
+  }
+
+  public String getDataDirectory() {
+    return dataDirectory;
+  }
+
+  public boolean isPersistenceEnabled() {
+    return dataDirectory != null;
+  }
+
+  public FsyncPolicy getFsyncPolicy() {
+    return fsyncPolicy;
+  }
+
+  public long getFsyncIntervalMillis() {
+    return fsyncIntervalMillis;
+  }
+
+  public long getSnapshotIntervalSeconds() {
+    return snapshotIntervalSeconds;
+  }
+
+  public boolean isBloomFilterEnabled() {
+    return bloomFilterEnabled;
+  }
+
+  public long getBloomFilterExpectedInsertions() {
+    return bloomFilterExpectedInsertions;
+  }
+
+  public double getBloomFilterFalsePositiveRate() {
+    return bloomFilterFalsePositiveRate;
+  }
+
+  public long getTieredMaxHotEntries() {
+    return tieredMaxHotEntries;
+  }
+
+  public long getTieredIdleSeconds() {
+    return tieredIdleSeconds;
+  }
+
+  public String getJdbcUrl() {
+    return jdbcUrl;
+  }
+
+  public int getJdbcPoolSize() {
+    return jdbcPoolSize;
+  }
+
+  public boolean isJdbcWriteBehindEnabled() {
+    return jdbcWriteBehindBatchSize > 0;
+  }
+
+  public int getJdbcWriteBehindBatchSize() {
+    return jdbcWriteBehindBatchSize;
+  }
+
+  public long getJdbcWriteBehindFlushMillis() {
+    return jdbcWriteBehindFlushMillis;
+  }
+
+  public boolean isClusterEnabled() {
+    return clusterNodeId != null;
+  }
+
+  public String getClusterNodeId() {
+    return clusterNodeId;
+  }
+
+  /** Comma-separated {@code id=host:port} list of every member, this node included. */
+  public String getClusterNodes() {
+    return clusterNodes;
+  }
+
+  public int getClusterVirtualNodes() {
+    return clusterVirtualNodes;
+  }
+
+  public ReplicationRole getReplicationRole() {
+    return replicationRole;
+  }
+
+  public int getReplicationPort() {
+    return replicationPort;
+  }
+
+  public int getReplicationRetainedRecords() {
+    return replicationRetainedRecords;
+  }
+
+  /** The leader's replication endpoint as {@code host:port}; only set on followers. */
+  public String getReplicationLeaderAddress() {
+    return replicationLeaderAddress;
+  }
+
+  public long getReplicationStalenessBoundMillis() {
+    return replicationStalenessBoundMillis;
+  }
+
+  public boolean isCacheEnabled() {
+    return cacheMaxEntries > 0 || cacheMaxBytes > 0;
+  }
+
+  public long getCacheMaxEntries() {
+    return cacheMaxEntries;
+  }
+
+  /** Budget for cached links in estimated heap bytes; when set it replaces the entry count. */
+  public long getCacheMaxBytes() {
+    return cacheMaxBytes;
+  }
+
+  /** Longest a link stays cached, even when it expires later; 0 keeps it until it expires. */
+  public long getCacheMaxTtlSeconds() {
+    return cacheMaxTtlSeconds;
+  }
+
+  /** Whether concurrent lookups of the same short URL share one load. */
+  public boolean isReadCoalescingEnabled() {
+    return readCoalescingEnabled;
+  }
+
+  public boolean isNegativeCacheEnabled() {
+    return negativeCacheMaxEntries > 0;
+  }
+
+  /** Unknown short URLs remembered at most, so repeated probes skip storage. */
+  public long getNegativeCacheMaxEntries() {
+    return negativeCacheMaxEntries;
+  }
+
+  public long getNegativeCacheTtlSeconds() {
+    return negativeCacheTtlSeconds;
+  }
+
   public static class Builder {
     private int shortUrlLength = 6;
+    private int maxShortUrlLength = 10;
+    private double maxExpectedKeyAttempts = 1.1;
     private int maxCollisionRetryAttempts = 5;
+    private URLStrategy keyStrategy = URLStrategy.RANDOM;
+    private int sequenceBlockSize = 10_000;
+    private String feistelKey;
+    private int keyPoolCapacity = 0;
+    private int keyPoolRefillBatchSize = 1000;
     private long defaultUrlExpirySeconds = 3600;
     private int cleanupFrequencySeconds = 60;
     private int schedulerThreadPoolSize = 2;
     private boolean enableUrlValidation = true;
     private boolean preventDuplicateLongUrls = true;
+    private RepositoryType repositoryType = RepositoryType.DEFAULT;
+    private String dataDirectory;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+    private long fsyncIntervalMillis = 100;
+    private long snapshotIntervalSeconds = 300;
+    private boolean bloomFilterEnabled = false;
+    private long bloomFilterExpectedInsertions = 1_000_000;
+    private double bloomFilterFalsePositiveRate = 0.01;
+    private long tieredMaxHotEntries = 1_000_000;
+    private long tieredIdleSeconds = 86400;
+    private String jdbcUrl;
+    private int jdbcPoolSize = 4;
+    private int jdbcWriteBehindBatchSize = 0;
+    private long jdbcWriteBehindFlushMillis = 50;
+    private String clusterNodeId;
+    private String clusterNodes;
+    private int clusterVirtualNodes = 128;
+    private ReplicationRole replicationRole = ReplicationRole.NONE;
+    private int replicationPort = 9091;
+    private int replicationRetainedRecords = 100_000;
+    private String replicationLeaderAddress;
+    private long replicationStalenessBoundMillis = 5000;
+    private long cacheMaxEntries = 0;
+    private long cacheMaxBytes = 0;
+    private long cacheMaxTtlSeconds = 300;
+    private boolean readCoalescingEnabled = true;
+    private long negativeCacheMaxEntries = 0;
+    private long negativeCacheTtlSeconds = 30;
 
     public Builder withShortUrlLength(int length) {
       this.shortUrlLength = length;
       return this;
     }
 
+    public Builder withAdaptiveKeyLength(int maxLength, double maxExpectedAttempts) {
+      this.maxShortUrlLength = maxLength;
+      this.maxExpectedKeyAttempts = maxExpectedAttempts;
+      return this;
+    }
+
     public Builder withMaxRetryAttempts(int attempts) {
       this.maxCollisionRetryAttempts = attempts;
       return this;
     }
 
+    public Builder withKeyStrategy(URLStrategy keyStrategy) {
+      this.keyStrategy = keyStrategy;
+      return this;
+    }
+
+    public Builder withSequenceBlockSize(int blockSize) {
+      this.sequenceBlockSize = blockSize;
+      return this;
+    }
+
+    public Builder withFeistelKey(String secret) {
+      this.feistelKey = secret;
+      return this;
+    }
+
+    public Builder withKeyPool(int capacity, int refillBatchSize) {
+      this.keyPoolCapacity = capacity;
+      this.keyPoolRefillBatchSize = refillBatchSize;
+      return this;
+    }
+
     public Builder withDefaultExpiry(long seconds) {
       this.defaultUrlExpirySeconds = seconds;
       return this;
@@ -107,13 +514,90 @@ public class URLShortenerConfig {
       return this;
     }
 
+    public Builder withRepositoryType(RepositoryType repositoryType) {
+      this.repositoryType = repositoryType;
+      return this;
+    }
+
+    public Builder withPersistence(String dataDirectory, FsyncPolicy fsyncPolicy,
+                                   long fsyncIntervalMillis) {
+      this.dataDirectory = dataDirectory;
+      this.fsyncPolicy = fsyncPolicy;
+      this.fsyncIntervalMillis = fsyncIntervalMillis;
+      return this;
+    }
+
+    public Builder withSnapshotInterval(long seconds) {
+      this.snapshotIntervalSeconds = seconds;
+      return this;
+    }
+
+    public Builder withBloomFilter(long expectedInsertions, double falsePositiveRate) {
+      this.bloomFilterEnabled = true;
+      this.bloomFilterExpectedInsertions = expectedInsertions;
+      this.bloomFilterFalsePositiveRate = falsePositiveRate;
+      return this;
+    }
+
+    public Builder withTiering(long maxHotEntries, long idleSeconds) {
+      this.tieredMaxHotEntries = maxHotEntries;
+      this.tieredIdleSeconds = idleSeconds;
+      return this;
+    }
+
+    public Builder withJdbc(String jdbcUrl, int poolSize) {
+      this.jdbcUrl = jdbcUrl;
+      this.jdbcPoolSize = poolSize;
+      return this;
+    }
+
+    public Builder withJdbcWriteBehind(int batchSize, long flushIntervalMillis) {
+      this.jdbcWriteBehindBatchSize = batchSize;
+      this.jdbcWriteBehindFlushMillis = flushIntervalMillis;
+      return this;
+    }
+
+    public Builder withCluster(String nodeId, String nodes, int virtualNodes) {
+      this.clusterNodeId = nodeId;
+      this.clusterNodes = nodes;
+      this.clusterVirtualNodes = virtualNodes;
+      return this;
+    }
+
+    public Builder asReplicationLeader(int port, int retainedRecords) {
+      this.replicationRole = ReplicationRole.LEADER;
+      this.replicationPort = port;
+      this.replicationRetainedRecords = retainedRecords;
+      return this;
+    }
+
+    public Builder asReplicationFollower(String leaderAddress, long stalenessBoundMillis) {
+      this.replicationRole = ReplicationRole.FOLLOWER;
+      this.replicationLeaderAddress = leaderAddress;
+      this.replicationStalenessBoundMillis = stalenessBoundMillis;
+      return this;
+    }
+
+    public Builder withCache(long maxEntries, long maxBytes, long maxTtlSeconds) {
+      this.cacheMaxEntries = maxEntries;
+      this.cacheMaxBytes = maxBytes;
+      this.cacheMaxTtlSeconds = maxTtlSeconds;
+      return this;
+    }
+
+    public Builder withReadCoalescing(boolean enabled) {
+      this.readCoalescingEnabled = enabled;
+      return this;
+    }
+
+    public Builder withNegativeCache(long maxEntries, long ttlSeconds) {
+      this.negativeCacheMaxEntries = maxEntries;
+      this.negativeCacheTtlSeconds = ttlSeconds;
+      return this;
+    }
+
     public URLShortenerConfig build() {
-      return new URLShortenerConfig(
-          shortUrlLength, maxCollisionRetryAttempts,
-          defaultUrlExpirySeconds, cleanupFrequencySeconds,
-          schedulerThreadPoolSize, enableUrlValidation,
-          preventDuplicateLongUrls
-      );
+      return new URLShortenerConfig(this);
     }
   }
 
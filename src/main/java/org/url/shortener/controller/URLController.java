@@ -1,7 +1,9 @@
 package org.url.shortener.controller;
 
 import jakarta.validation.Valid;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +13,8 @@ import org.url.shortener.dto.ErrorResponse;
 import org.url.shortener.dto.GetLongUrlResponse;
 import org.url.shortener.exception.InvalidUrlException;
 import org.url.shortener.exception.NotFoundException;
+import org.url.shortener.exception.NotLeaderException;
+import org.url.shortener.exception.ServiceOverloadedException;
 import org.url.shortener.service.URLService;
 
 @RestController
@@ -39,9 +43,19 @@ public class URLController {
   
 
   @GetMapping("/{shortUrl}")
-  public ResponseEntity<GetLongUrlResponse> getLongUrl(@PathVariable String shortUrl) {
-    String longUrl = urlService.getLongUrl(shortUrl);
-    GetLongUrlResponse response = new GetLongUrlResponse(shortUrl, longUrl);
+  public ResponseEntity<?> getLongUrl(@PathVariable String shortUrl) {
+    // Unknown codes are answered here rather than through NotFoundException, so probes of
+    // dead codes cost no stack trace.
+    Optional<String> longUrl = urlService.findLongUrl(shortUrl);
+    if (longUrl.isEmpty()) {
+      ErrorResponse error = new ErrorResponse(
+          HttpStatus.NOT_FOUND.value(),
+          "Not Found",
+          "Not found: " + shortUrl
+      );
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+    GetLongUrlResponse response = new GetLongUrlResponse(shortUrl, longUrl.get());
     return ResponseEntity.ok(response);
   }
   
@@ -66,6 +80,28 @@ public class URLController {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
   }
 
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<ErrorResponse> handleServiceOverloadedException(ServiceOverloadedException ex) {
+    ErrorResponse error = new ErrorResponse(
+        HttpStatus.SERVICE_UNAVAILABLE.value(),
+        "Service Unavailable",
+        ex.getMessage()
+    );
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "30")
+        .body(error);
+  }
+
+  @ExceptionHandler(NotLeaderException.class)
+  public ResponseEntity<ErrorResponse> handleNotLeaderException(NotLeaderException ex) {
+    ErrorResponse error = new ErrorResponse(
+        HttpStatus.SERVICE_UNAVAILABLE.value(),
+        "Service Unavailable",
+        ex.getMessage()
+    );
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
     ErrorResponse error = new ErrorResponse(
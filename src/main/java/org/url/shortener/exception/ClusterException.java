@@ -0,0 +1,15 @@
+package org.url.shortener.exception;
+
+/**
+ * Exception thrown when a request for a key owned by another cluster node cannot be
+ * completed, because the node is unreachable or failed to handle it.
+ */
+public class ClusterException extends RuntimeException {
+  public ClusterException(String message) {
+    super(message);
+  }
+
+  public ClusterException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,11 @@
+package org.url.shortener.exception;
+
+/**
+ * Exception thrown when a write reaches a read-only replication follower. Writes have to
+ * be sent to the leader.
+ */
+public class NotLeaderException extends RuntimeException {
+  public NotLeaderException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package org.url.shortener.exception;
+
+public class PersistenceException extends RuntimeException {
+  public PersistenceException(String message) {
+    super(message);
+  }
+
+  public PersistenceException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
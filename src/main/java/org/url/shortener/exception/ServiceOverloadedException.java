@@ -0,0 +1,11 @@
+package org.url.shortener.exception;
+
+/**
+ * Exception thrown when a request is shed to protect the service, for example while heap
+ * usage is critical. Clients should retry later.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+  public ServiceOverloadedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,74 @@
+package org.url.shortener.lsm;
+
+import java.nio.ByteBuffer;
+import org.url.shortener.repository.UrlFingerprintIndex;
+
+/**
+ * Immutable-after-build Bloom filter stored with each SSTable, so a lookup can skip files
+ * that cannot contain the key without reading them.
+ */
+final class BloomFilter {
+
+  private final long[] words;
+  private final int hashCount;
+  private final long bitMask;
+
+  private BloomFilter(long[] words, int hashCount) {
+    this.words = words;
+    this.hashCount = hashCount;
+    this.bitMask = (long) words.length * 64 - 1;
+  }
+
+  static BloomFilter create(long expectedKeys, int bitsPerKey) {
+    long bits = 64;
+    while (bits < expectedKeys * bitsPerKey) {
+      bits <<= 1;
+    }
+    int hashCount = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+    return new BloomFilter(new long[(int) Math.min(bits / 64, Integer.MAX_VALUE)], hashCount);
+  }
+
+  void add(String key) {
+    long hash = UrlFingerprintIndex.fingerprint(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((long) h1 + (long) i * h2) & bitMask;
+      words[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  boolean mightContain(String key) {
+    long hash = UrlFingerprintIndex.fingerprint(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((long) h1 + (long) i * h2) & bitMask;
+      if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  int serializedBytes() {
+    return 4 + 4 + 8 * words.length;
+  }
+
+  void writeTo(ByteBuffer buffer) {
+    buffer.putInt(hashCount);
+    buffer.putInt(words.length);
+    for (long word : words) {
+      buffer.putLong(word);
+    }
+  }
+
+  static BloomFilter readFrom(ByteBuffer buffer) {
+    int hashCount = buffer.getInt();
+    long[] words = new long[buffer.getInt()];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = buffer.getLong();
+    }
+    return new BloomFilter(words, hashCount);
+  }
+}
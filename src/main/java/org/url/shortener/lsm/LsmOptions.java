@@ -0,0 +1,107 @@
+package org.url.shortener.lsm;
+
+/**
+ * Tuning knobs of an {@link LsmTree}. The defaults suit a pod with a few hundred MiB of
+ * heap: one 64 MiB memtable, 4 KiB blocks, ten Bloom filter bits per key (about 1% false
+ * positives) and levels that grow tenfold from 256 MiB.
+ */
+public class LsmOptions {
+  private static final long DEFAULT_MEMTABLE_BYTES = 64L * 1024 * 1024;
+  private static final int DEFAULT_BLOCK_BYTES = 4096;
+  private static final int DEFAULT_LEVEL0_COMPACTION_TRIGGER = 4;
+  private static final long DEFAULT_LEVEL_BASE_BYTES = 256L * 1024 * 1024;
+  private static final int DEFAULT_LEVEL_MULTIPLIER = 10;
+  private static final long DEFAULT_TARGET_FILE_BYTES = 64L * 1024 * 1024;
+  private static final int DEFAULT_BLOOM_BITS_PER_KEY = 10;
+  private static final int DEFAULT_MAX_LEVELS = 7;
+
+  private final long memTableBytes;
+  private final int blockBytes;
+  private final int level0CompactionTrigger;
+  private final long levelBaseBytes;
+  private final int levelMultiplier;
+  private final long targetFileBytes;
+  private final int bloomBitsPerKey;
+  private final int maxLevels;
+
+  public LsmOptions() {
+    this(DEFAULT_MEMTABLE_BYTES, DEFAULT_BLOCK_BYTES, DEFAULT_LEVEL0_COMPACTION_TRIGGER,
+        DEFAULT_LEVEL_BASE_BYTES, DEFAULT_LEVEL_MULTIPLIER, DEFAULT_TARGET_FILE_BYTES,
+        DEFAULT_BLOOM_BITS_PER_KEY, DEFAULT_MAX_LEVELS);
+  }
+
+  public LsmOptions(long memTableBytes, int blockBytes, int level0CompactionTrigger,
+                    long levelBaseBytes, int levelMultiplier, long targetFileBytes,
+                    int bloomBitsPerKey, int maxLevels) {
+    if (memTableBytes <= 0) {
+      throw new IllegalArgumentException("Memtable size must be positive");
+    }
+    if (blockBytes <= 0) {
+      throw new IllegalArgumentException("Block size must be positive");
+    }
+    if (level0CompactionTrigger <= 0) {
+      throw new IllegalArgumentException("Level 0 compaction trigger must be positive");
+    }
+    if (levelBaseBytes <= 0 || levelMultiplier < 2) {
+      throw new IllegalArgumentException("Level sizes must be positive and grow at least twofold");
+    }
+    if (targetFileBytes <= 0 || targetFileBytes > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("Target file size must be positive and below 1 GiB");
+    }
+    if (bloomBitsPerKey <= 0) {
+      throw new IllegalArgumentException("Bloom filter bits per key must be positive");
+    }
+    if (maxLevels < 2) {
+      throw new IllegalArgumentException("At least two levels are required");
+    }
+    this.memTableBytes = memTableBytes;
+    this.blockBytes = blockBytes;
+    this.level0CompactionTrigger = level0CompactionTrigger;
+    this.levelBaseBytes = levelBaseBytes;
+    this.levelMultiplier = levelMultiplier;
+    this.targetFileBytes = targetFileBytes;
+    this.bloomBitsPerKey = bloomBitsPerKey;
+    this.maxLevels = maxLevels;
+  }
+
+  public long getMemTableBytes() {
+    return memTableBytes;
+  }
+
+  public int getBlockBytes() {
+    return blockBytes;
+  }
+
+  public int getLevel0CompactionTrigger() {
+    return level0CompactionTrigger;
+  }
+
+  public long getLevelBaseBytes() {
+    return levelBaseBytes;
+  }
+
+  public int getLevelMultiplier() {
+    return levelMultiplier;
+  }
+
+  public long getTargetFileBytes() {
+    return targetFileBytes;
+  }
+
+  public int getBloomBitsPerKey() {
+    return bloomBitsPerKey;
+  }
+
+  public int getMaxLevels() {
+    return maxLevels;
+  }
+
+  /** Size limit of a level from 1 upwards; level 0 is bounded by file count instead. */
+  long maxBytesForLevel(int level) {
+    long bytes = levelBaseBytes;
+    for (int i = 1; i < level; i++) {
+      bytes *= levelMultiplier;
+    }
+    return bytes;
+  }
+}
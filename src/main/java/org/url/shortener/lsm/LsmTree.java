@@ -0,0 +1,460 @@
+package org.url.shortener.lsm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.url.shortener.exception.PersistenceException;
+
+/**
+ * Log-structured merge tree of string keys.
+ *
+ * <p>Writes go to a concurrent skiplist memtable. Once it passes
+ * {@link LsmOptions#getMemTableBytes()} it is frozen and flushed to a level 0 SSTable by the
+ * background compaction thread while a fresh memtable takes new writes. When level 0
+ * collects enough files they are merged into level 1, and any level above its size limit
+ * pushes a file down into the next; compaction keeps only the newest version of each key
+ * and turns expired values into tombstones, which are dropped for good once nothing older
+ * can sit beneath them.
+ *
+ * <p>The tree does not log writes itself. The owner supplies the write-ahead log sequence
+ * each write is covered by and is told through {@code onFlushed} once everything up to a
+ * sequence is in SSTables, so it can drop that part of its log.
+ */
+public class LsmTree implements Closeable {
+
+  private final Path directory;
+  private final LsmOptions options;
+  private final LongSupplier coveredSequence;
+  private final LongConsumer onFlushed;
+  private final Manifest manifest;
+  // Writers share the read side; freezing the memtable takes the write side.
+  private final ReentrantReadWriteLock switchLock = new ReentrantReadWriteLock();
+  private final ExecutorService compactor;
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final AtomicLong nextFileNumber;
+  private final AtomicLong flushCount = new AtomicLong();
+  private final AtomicLong compactionCount = new AtomicLong();
+  private final AtomicLong droppedEntries = new AtomicLong();
+  private final String[] compactPointers;
+
+  private volatile MemTable active = new MemTable();
+  private volatile MemTable frozen;
+  private long frozenSequence;
+  private volatile Version version;
+  private volatile long flushedSequence;
+
+  /**
+   * @param coveredSequence read while writers are paused: the log sequence of the newest
+   *                        write applied so far
+   * @param onFlushed       called on the compaction thread once every write up to the given
+   *                        sequence is stored in SSTables
+   */
+  public LsmTree(Path directory, LsmOptions options,
+                 LongSupplier coveredSequence, LongConsumer onFlushed) {
+    if (directory == null) {
+      throw new IllegalArgumentException("LSM directory cannot be null");
+    }
+    if (options == null) {
+      throw new IllegalArgumentException("LsmOptions cannot be null");
+    }
+    this.directory = directory;
+    this.options = options;
+    this.coveredSequence = coveredSequence;
+    this.onFlushed = onFlushed;
+    this.manifest = new Manifest(directory);
+    Manifest.State state = manifest.load(options.getMaxLevels());
+    this.version = state.getVersion();
+    this.flushedSequence = state.getSequence();
+    this.nextFileNumber = new AtomicLong(state.getNextFileNumber());
+    this.compactPointers = new String[options.getMaxLevels()];
+    this.compactor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "LSM-Compaction-Thread");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /** Log sequence covered by the SSTables; replay the log from just after it. */
+  public long getFlushedSequence() {
+    return flushedSequence;
+  }
+
+  /**
+   * Applies the mutations to the memtable, then runs {@code then} before a flush can freeze
+   * it, so whatever {@code then} logs is covered by the sequence the flush records.
+   */
+  public <T> T write(Map<String, StoredValue> mutations, Supplier<T> then) {
+    T result;
+    boolean full;
+    switchLock.readLock().lock();
+    try {
+      MemTable table = active;
+      mutations.forEach(table::put);
+      result = then.get();
+      full = table.approximateBytes() >= options.getMemTableBytes();
+    } finally {
+      switchLock.readLock().unlock();
+    }
+    if (full && flushScheduled.compareAndSet(false, true)) {
+      compactor.execute(() -> {
+        flushScheduled.set(false);
+        flushAndCompactQuietly();
+      });
+    }
+    return result;
+  }
+
+  /**
+   * Returns the newest stored value for the key, which may be a tombstone or expired, or
+   * null if the key was never written. Each SSTable is only read when its key range and
+   * Bloom filter admit the key.
+   */
+  public StoredValue get(String key) {
+    // Newest first, in the same order a flush publishes them.
+    StoredValue value = active.get(key);
+    if (value != null) {
+      return value;
+    }
+    MemTable flushing = frozen;
+    if (flushing != null && (value = flushing.get(key)) != null) {
+      return value;
+    }
+    Version current = version;
+    for (SSTable table : current.files(0)) {
+      if ((value = table.get(key)) != null) {
+        return value;
+      }
+    }
+    for (int level = 1; level < current.levelCount(); level++) {
+      SSTable table = current.fileFor(level, key);
+      if (table != null && (value = table.get(key)) != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Visits the newest value of every key in {@code [fromKey, toKey)} in key order, skipping
+   * tombstones. Expired values are passed on; callers decide what to do with them.
+   */
+  public void scan(String fromKey, String toKey, BiConsumer<String, StoredValue> action) {
+    List<Iterator<Map.Entry<String, StoredValue>>> sources = new ArrayList<>();
+    sources.add(active.range(fromKey, toKey).entrySet().iterator());
+    MemTable flushing = frozen;
+    if (flushing != null) {
+      sources.add(flushing.range(fromKey, toKey).entrySet().iterator());
+    }
+    Version current = version;
+    for (SSTable table : current.files(0)) {
+      sources.add(table.iterator(fromKey));
+    }
+    for (int level = 1; level < current.levelCount(); level++) {
+      sources.add(new LevelIterator(current.overlapping(level, fromKey, toKey), fromKey));
+    }
+    MergingIterator merged = new MergingIterator(sources, fromKey, toKey);
+    while (merged.hasNext()) {
+      Map.Entry<String, StoredValue> entry = merged.next();
+      if (!entry.getValue().isTombstone()) {
+        action.accept(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /** Flushes the memtable and runs any compaction that is due, waiting for both. */
+  public void flush() {
+    try {
+      compactor.submit(this::flushAndCompact).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PersistenceException("Interrupted while flushing LSM tree", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof PersistenceException) {
+        throw (PersistenceException) e.getCause();
+      }
+      throw new PersistenceException("Unable to flush LSM tree", e.getCause());
+    }
+  }
+
+  public int getFileCount(int level) {
+    return version.files(level).size();
+  }
+
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+
+  public long getCompactionCount() {
+    return compactionCount.get();
+  }
+
+  /** Tombstones and expired values compaction has dropped from the bottom of the tree. */
+  public long getDroppedEntries() {
+    return droppedEntries.get();
+  }
+
+  @Override
+  public void close() {
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void flushAndCompactQuietly() {
+    try {
+      flushAndCompact();
+    } catch (Exception e) {
+      System.err.println("Error flushing LSM tree: " + e.getMessage());
+    }
+  }
+
+  /** Runs on the compaction thread, which is the only one that changes the version. */
+  private void flushAndCompact() {
+    flushMemTable();
+    Compaction compaction;
+    while ((compaction = pickCompaction()) != null) {
+      compact(compaction);
+    }
+  }
+
+  private void flushMemTable() {
+    MemTable table = frozen;
+    // A table left frozen by a failed flush is retried before anything newer.
+    if (table == null) {
+      switchLock.writeLock().lock();
+      try {
+        if (active.isEmpty()) {
+          return;
+        }
+        frozenSequence = coveredSequence.getAsLong();
+        table = active;
+        frozen = table;
+        active = new MemTable();
+      } finally {
+        switchLock.writeLock().unlock();
+      }
+    }
+    long start = System.currentTimeMillis();
+    SSTable flushed = writeTable(table.entries().iterator(), table.size());
+    Version next = version.withFlushed(flushed);
+    manifest.save(next, frozenSequence, nextFileNumber.get());
+    // Publish the table before dropping the frozen memtable so readers never miss it.
+    version = next;
+    flushedSequence = frozenSequence;
+    frozen = null;
+    flushCount.incrementAndGet();
+    System.out.println("Flushed " + table.size() + " LSM entries to level 0 in "
+        + (System.currentTimeMillis() - start) + " ms");
+    onFlushed.accept(flushedSequence);
+  }
+
+  private Compaction pickCompaction() {
+    Version current = version;
+    List<SSTable> level0 = current.files(0);
+    if (level0.size() >= options.getLevel0CompactionTrigger()) {
+      String smallest = level0.get(0).smallestKey();
+      String largest = level0.get(0).largestKey();
+      for (SSTable table : level0) {
+        smallest = table.smallestKey().compareTo(smallest) < 0 ? table.smallestKey() : smallest;
+        largest = table.largestKey().compareTo(largest) > 0 ? table.largestKey() : largest;
+      }
+      List<SSTable> inputs = new ArrayList<>(level0);
+      inputs.addAll(current.overlapping(1, smallest, largest));
+      return new Compaction(inputs, 1, smallest, largest);
+    }
+    for (int level = 1; level < current.levelCount() - 1; level++) {
+      if (current.levelBytes(level) <= options.maxBytesForLevel(level)) {
+        continue;
+      }
+      // Take turns across the key space so every file is eventually pushed down.
+      SSTable chosen = current.files(level).get(0);
+      for (SSTable table : current.files(level)) {
+        if (compactPointers[level] == null || table.smallestKey().compareTo(compactPointers[level]) > 0) {
+          chosen = table;
+          break;
+        }
+      }
+      compactPointers[level] = chosen.largestKey();
+      List<SSTable> inputs = new ArrayList<>();
+      inputs.add(chosen);
+      inputs.addAll(current.overlapping(level + 1, chosen.smallestKey(), chosen.largestKey()));
+      return new Compaction(inputs, level + 1, chosen.smallestKey(), chosen.largestKey());
+    }
+    return null;
+  }
+
+  private void compact(Compaction compaction) {
+    long start = System.currentTimeMillis();
+    Version current = version;
+    boolean bottommost = true;
+    for (int level = compaction.outputLevel + 1; level < current.levelCount(); level++) {
+      if (!current.overlapping(level, compaction.smallest, compaction.largest).isEmpty()) {
+        bottommost = false;
+      }
+    }
+    long inputEntries = 0;
+    long inputBytes = 0;
+    List<Iterator<Map.Entry<String, StoredValue>>> sources = new ArrayList<>();
+    for (SSTable table : compaction.inputs) {
+      // Inputs are listed newest first: level 0 by age, then the upper level, then the lower.
+      sources.add(table.iterator());
+      inputEntries += table.getEntryCount();
+      inputBytes += table.getSizeBytes();
+    }
+    long keysPerFile = Math.max(1, (long) Math.ceil(
+        inputEntries * Math.min(1.0, (double) options.getTargetFileBytes() / Math.max(1, inputBytes))));
+    long now = Instant.now().getEpochSecond();
+    long dropped = 0;
+    List<SSTable> outputs = new ArrayList<>();
+    MergingIterator merged = new MergingIterator(sources, null, null);
+    SSTableWriter writer = null;
+    long number = 0;
+    try {
+      while (merged.hasNext()) {
+        Map.Entry<String, StoredValue> entry = merged.next();
+        StoredValue value = entry.getValue();
+        if (value.isTombstone() || value.isExpired(now)) {
+          if (bottommost) {
+            dropped++;
+            continue;
+          }
+          // Still shadows older versions further down.
+          value = StoredValue.tombstone();
+        }
+        if (writer == null) {
+          number = nextFileNumber.getAndIncrement();
+          writer = new SSTableWriter(Manifest.tablePath(directory, number),
+              options.getBlockBytes(), keysPerFile, options.getBloomBitsPerKey());
+        }
+        writer.add(entry.getKey(), value);
+        if (writer.bytesWritten() >= options.getTargetFileBytes()) {
+          outputs.add(finish(writer, number));
+          writer = null;
+        }
+      }
+      if (writer != null) {
+        outputs.add(finish(writer, number));
+        writer = null;
+      }
+    } catch (IOException e) {
+      closeQuietly(writer);
+      throw new PersistenceException("Unable to write compaction output", e);
+    }
+    Version next = current.withCompaction(compaction.inputs, compaction.outputLevel, outputs);
+    manifest.save(next, flushedSequence, nextFileNumber.get());
+    version = next;
+    for (SSTable table : compaction.inputs) {
+      try {
+        // Readers still holding the old version keep their mapping of the deleted file.
+        Files.deleteIfExists(table.getPath());
+      } catch (IOException e) {
+        System.err.println("Unable to delete compacted SSTable " + table.getPath() + ": " + e.getMessage());
+      }
+    }
+    compactionCount.incrementAndGet();
+    droppedEntries.addAndGet(dropped);
+    System.out.println("Compacted " + compaction.inputs.size() + " LSM files into "
+        + outputs.size() + " at level " + compaction.outputLevel + ", dropping " + dropped
+        + " entries, in " + (System.currentTimeMillis() - start) + " ms");
+  }
+
+  private SSTable writeTable(Iterator<Map.Entry<String, StoredValue>> entries, long expectedKeys) {
+    long number = nextFileNumber.getAndIncrement();
+    Path path = Manifest.tablePath(directory, number);
+    SSTableWriter writer = null;
+    try {
+      writer = new SSTableWriter(path, options.getBlockBytes(), expectedKeys, options.getBloomBitsPerKey());
+      while (entries.hasNext()) {
+        Map.Entry<String, StoredValue> entry = entries.next();
+        writer.add(entry.getKey(), entry.getValue());
+      }
+      return finish(writer, number);
+    } catch (IOException e) {
+      closeQuietly(writer);
+      throw new PersistenceException("Unable to write SSTable " + path.getFileName(), e);
+    }
+  }
+
+  private SSTable finish(SSTableWriter writer, long number) throws IOException {
+    try {
+      writer.finish();
+    } finally {
+      writer.close();
+    }
+    return SSTable.open(Manifest.tablePath(directory, number), number);
+  }
+
+  private static void closeQuietly(SSTableWriter writer) {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException ignored) {
+        // The unlisted file is deleted the next time the manifest is loaded.
+      }
+    }
+  }
+
+  private static final class Compaction {
+    private final List<SSTable> inputs;
+    private final int outputLevel;
+    private final String smallest;
+    private final String largest;
+
+    private Compaction(List<SSTable> inputs, int outputLevel, String smallest, String largest) {
+      this.inputs = Collections.unmodifiableList(inputs);
+      this.outputLevel = outputLevel;
+      this.smallest = smallest;
+      this.largest = largest;
+    }
+  }
+
+  /** Walks the non-overlapping, sorted files of one level as a single sorted source. */
+  private static final class LevelIterator implements Iterator<Map.Entry<String, StoredValue>> {
+    private final Iterator<SSTable> files;
+    private final String fromKey;
+    private Iterator<Map.Entry<String, StoredValue>> current = Collections.emptyIterator();
+
+    private LevelIterator(List<SSTable> files, String fromKey) {
+      this.files = files.iterator();
+      this.fromKey = fromKey;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext() && files.hasNext()) {
+        current = files.next().iterator(fromKey);
+      }
+      return current.hasNext();
+    }
+
+    @Override
+    public Map.Entry<String, StoredValue> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package org.url.shortener.lsm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.url.shortener.exception.PersistenceException;
+
+/**
+ * The {@code MANIFEST} file: which SSTables make up the current {@link Version}, the next
+ * file number and the write-ahead log sequence every flushed table covers. It is a few
+ * lines of text, rewritten whole and moved into place atomically after each flush or
+ * compaction, so a crash leaves either the old or the new set of files.
+ */
+final class Manifest {
+
+  static final String FILE_NAME = "MANIFEST";
+  static final String TABLE_SUFFIX = ".sst";
+
+  private final Path directory;
+
+  Manifest(Path directory) {
+    this.directory = directory;
+  }
+
+  static Path tablePath(Path directory, long number) {
+    return directory.resolve(String.format("%020d", number) + TABLE_SUFFIX);
+  }
+
+  /**
+   * Loads the last saved state and deletes SSTables it does not list, which are left over
+   * from flushes or compactions interrupted before the manifest was saved.
+   */
+  State load(int levelCount) {
+    try {
+      Files.createDirectories(directory);
+      Path file = directory.resolve(FILE_NAME);
+      long sequence = 0;
+      long nextFileNumber = 1;
+      List<List<SSTable>> levels = new ArrayList<>(levelCount);
+      for (int i = 0; i < levelCount; i++) {
+        levels.add(new ArrayList<>());
+      }
+      Set<Path> live = new HashSet<>();
+      if (Files.exists(file)) {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+          String[] parts = line.trim().split(" ");
+          switch (parts[0]) {
+            case "sequence":
+              sequence = Long.parseLong(parts[1]);
+              break;
+            case "next":
+              nextFileNumber = Long.parseLong(parts[1]);
+              break;
+            case "file":
+              int level = Integer.parseInt(parts[1]);
+              long number = Long.parseLong(parts[2]);
+              Path path = tablePath(directory, number);
+              levels.get(level).add(SSTable.open(path, number));
+              live.add(path);
+              break;
+            default:
+              if (!parts[0].isEmpty()) {
+                throw new PersistenceException("Unrecognised manifest line: " + line);
+              }
+          }
+        }
+      }
+      for (Path orphan : listTables()) {
+        if (!live.contains(orphan)) {
+          Files.deleteIfExists(orphan);
+        }
+      }
+      return new State(new Version(levels), sequence, nextFileNumber);
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to load LSM manifest", e);
+    }
+  }
+
+  void save(Version version, long sequence, long nextFileNumber) {
+    StringBuilder content = new StringBuilder();
+    content.append("sequence ").append(sequence).append('\n');
+    content.append("next ").append(nextFileNumber).append('\n');
+    for (int level = 0; level < version.levelCount(); level++) {
+      for (SSTable table : version.files(level)) {
+        content.append("file ").append(level).append(' ').append(table.getNumber()).append('\n');
+      }
+    }
+    Path file = directory.resolve(FILE_NAME);
+    Path temp = directory.resolve(FILE_NAME + ".tmp");
+    try {
+      Files.write(temp, content.toString().getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to save LSM manifest", e);
+    }
+  }
+
+  private List<Path> listTables() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().endsWith(TABLE_SUFFIX))
+          .collect(Collectors.toList());
+    }
+  }
+
+  static final class State {
+    private final Version version;
+    private final long sequence;
+    private final long nextFileNumber;
+
+    private State(Version version, long sequence, long nextFileNumber) {
+      this.version = version;
+      this.sequence = sequence;
+      this.nextFileNumber = nextFileNumber;
+    }
+
+    Version getVersion() {
+      return version;
+    }
+
+    long getSequence() {
+      return sequence;
+    }
+
+    long getNextFileNumber() {
+      return nextFileNumber;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.url.shortener.lsm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, sorted write buffer backed by a concurrent skiplist. Writers and readers never
+ * block each other; the table is frozen and flushed to an SSTable once it grows past the
+ * configured size.
+ */
+final class MemTable {
+
+  // Rough per-entry overhead of a skiplist node, its index levels and the value object.
+  private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+  private final ConcurrentSkipListMap<String, StoredValue> entries = new ConcurrentSkipListMap<>();
+  private final AtomicLong approximateBytes = new AtomicLong();
+
+  void put(String key, StoredValue value) {
+    StoredValue previous = entries.put(key, value);
+    long delta = sizeOf(key, value) - (previous != null ? sizeOf(key, previous) : 0);
+    approximateBytes.addAndGet(delta);
+  }
+
+  StoredValue get(String key) {
+    return entries.get(key);
+  }
+
+  long approximateBytes() {
+    return approximateBytes.get();
+  }
+
+  boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /** Sorted view of the entries from {@code fromKey} inclusive to {@code toKey} exclusive. */
+  ConcurrentNavigableMap<String, StoredValue> range(String fromKey, String toKey) {
+    return entries.subMap(fromKey, true, toKey, false);
+  }
+
+  Iterable<Map.Entry<String, StoredValue>> entries() {
+    return entries.entrySet();
+  }
+
+  private static long sizeOf(String key, StoredValue value) {
+    return ENTRY_OVERHEAD_BYTES + 2L * key.length()
+        + (value.getValue() != null ? 2L * value.getValue().length() : 0);
+  }
+}
@@ -0,0 +1,83 @@
+package org.url.shortener.lsm;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges sorted sources into one sorted stream with a single entry per key. Sources are
+ * given newest first; when several hold the same key, the newest one's entry wins and the
+ * others are skipped. Entries outside {@code [fromKey, toKey)} are left out.
+ */
+final class MergingIterator implements Iterator<Map.Entry<String, StoredValue>> {
+
+  private final PriorityQueue<Cursor> cursors;
+  private final String toKey;
+
+  MergingIterator(List<Iterator<Map.Entry<String, StoredValue>>> newestFirst,
+                  String fromKey, String toKey) {
+    this.cursors = new PriorityQueue<>(Math.max(1, newestFirst.size()));
+    this.toKey = toKey;
+    for (int rank = 0; rank < newestFirst.size(); rank++) {
+      Cursor cursor = new Cursor(rank, newestFirst.get(rank));
+      while (cursor.advance() && fromKey != null
+          && cursor.current.getKey().compareTo(fromKey) < 0) {
+        // Skip to the start of the range.
+      }
+      if (cursor.current != null) {
+        cursors.add(cursor);
+      }
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    Cursor head = cursors.peek();
+    return head != null && (toKey == null || head.current.getKey().compareTo(toKey) < 0);
+  }
+
+  @Override
+  public Map.Entry<String, StoredValue> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Cursor head = cursors.poll();
+    Map.Entry<String, StoredValue> winner = head.current;
+    String key = winner.getKey();
+    readvance(head);
+    while (!cursors.isEmpty() && cursors.peek().current.getKey().equals(key)) {
+      readvance(cursors.poll());
+    }
+    return winner;
+  }
+
+  private void readvance(Cursor cursor) {
+    if (cursor.advance()) {
+      cursors.add(cursor);
+    }
+  }
+
+  private static final class Cursor implements Comparable<Cursor> {
+    private final int rank;
+    private final Iterator<Map.Entry<String, StoredValue>> source;
+    private Map.Entry<String, StoredValue> current;
+
+    private Cursor(int rank, Iterator<Map.Entry<String, StoredValue>> source) {
+      this.rank = rank;
+      this.source = source;
+    }
+
+    private boolean advance() {
+      current = source.hasNext() ? source.next() : null;
+      return current != null;
+    }
+
+    @Override
+    public int compareTo(Cursor other) {
+      int byKey = current.getKey().compareTo(other.current.getKey());
+      return byKey != 0 ? byKey : Integer.compare(rank, other.rank);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package org.url.shortener.lsm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.url.shortener.exception.PersistenceException;
+
+/**
+ * Immutable sorted file of key/value entries.
+ *
+ * <p>Layout: data blocks of {@code [short keyLength][key][byte flags][long expiry]
+ * [int valueLength][value]} entries; an index of {@code [int blockCount]} followed by
+ * {@code [short keyLength][firstKey][long offset][int length]} per block and the file's
+ * last key; a Bloom filter; and the footer {@code [long indexOffset][long bloomOffset]
+ * [long entryCount][int magic]}. The index and filter are kept on the heap, so a lookup
+ * touches at most one data block of the memory-mapped file. Mappings stay valid after the
+ * file is deleted by compaction, so readers holding an older version never fail.
+ */
+final class SSTable {
+
+  static final int MAGIC = 0x4C534D54; // "LSMT"
+  static final int FOOTER_BYTES = 8 + 8 + 8 + 4;
+  static final byte TOMBSTONE_FLAG = 1;
+
+  private final long number;
+  private final Path path;
+  private final long sizeBytes;
+  private final MappedByteBuffer data;
+  private final String[] firstKeys;
+  private final long[] blockOffsets;
+  private final int[] blockLengths;
+  private final String largestKey;
+  private final BloomFilter bloom;
+  private final long entryCount;
+
+  private SSTable(long number, Path path, long sizeBytes, MappedByteBuffer data, String[] firstKeys,
+                  long[] blockOffsets, int[] blockLengths, String largestKey, BloomFilter bloom,
+                  long entryCount) {
+    this.number = number;
+    this.path = path;
+    this.sizeBytes = sizeBytes;
+    this.data = data;
+    this.firstKeys = firstKeys;
+    this.blockOffsets = blockOffsets;
+    this.blockLengths = blockLengths;
+    this.largestKey = largestKey;
+    this.bloom = bloom;
+    this.entryCount = entryCount;
+  }
+
+  static SSTable open(Path path, long number) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < FOOTER_BYTES || size > Integer.MAX_VALUE) {
+        throw new PersistenceException("Invalid SSTable size: " + path.getFileName());
+      }
+      MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      int footer = (int) size - FOOTER_BYTES;
+      long indexOffset = data.getLong(footer);
+      long bloomOffset = data.getLong(footer + 8);
+      long entryCount = data.getLong(footer + 16);
+      if (data.getInt(footer + 24) != MAGIC) {
+        throw new PersistenceException("Unrecognised SSTable format: " + path.getFileName());
+      }
+      ByteBuffer index = data.slice((int) indexOffset, (int) (bloomOffset - indexOffset));
+      int blocks = index.getInt();
+      String[] firstKeys = new String[blocks];
+      long[] offsets = new long[blocks];
+      int[] lengths = new int[blocks];
+      for (int i = 0; i < blocks; i++) {
+        firstKeys[i] = readString(index, index.getShort() & 0xFFFF);
+        offsets[i] = index.getLong();
+        lengths[i] = index.getInt();
+      }
+      String largestKey = readString(index, index.getShort() & 0xFFFF);
+      BloomFilter bloom = BloomFilter.readFrom(data.slice((int) bloomOffset, footer - (int) bloomOffset));
+      return new SSTable(number, path, size, data, firstKeys, offsets, lengths, largestKey, bloom,
+          entryCount);
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to open SSTable " + path.getFileName(), e);
+    }
+  }
+
+  long getNumber() {
+    return number;
+  }
+
+  Path getPath() {
+    return path;
+  }
+
+  long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  long getEntryCount() {
+    return entryCount;
+  }
+
+  String smallestKey() {
+    return firstKeys.length > 0 ? firstKeys[0] : "";
+  }
+
+  String largestKey() {
+    return largestKey;
+  }
+
+  boolean overlaps(String smallest, String largest) {
+    return firstKeys.length > 0 && smallestKey().compareTo(largest) <= 0
+        && largestKey.compareTo(smallest) >= 0;
+  }
+
+  /**
+   * Returns the stored value (possibly a tombstone) or null if this file has no entry for
+   * the key.
+   */
+  StoredValue get(String key) {
+    if (firstKeys.length == 0 || key.compareTo(firstKeys[0]) < 0 || key.compareTo(largestKey) > 0
+        || !bloom.mightContain(key)) {
+      return null;
+    }
+    int block = Arrays.binarySearch(firstKeys, key);
+    if (block < 0) {
+      block = -block - 2;
+    }
+    byte[] wanted = key.getBytes(StandardCharsets.UTF_8);
+    int position = (int) blockOffsets[block];
+    int end = position + blockLengths[block];
+    while (position < end) {
+      int keyLength = data.getShort(position) & 0xFFFF;
+      int keyStart = position + 2;
+      int valueLengthAt = keyStart + keyLength + 1 + 8;
+      int valueLength = data.getInt(valueLengthAt);
+      if (keyLength == wanted.length && matches(keyStart, wanted)) {
+        return readValue(keyStart + keyLength, valueLength);
+      }
+      position = valueLengthAt + 4 + valueLength;
+    }
+    return null;
+  }
+
+  Iterator<Map.Entry<String, StoredValue>> iterator() {
+    return iterator(null);
+  }
+
+  /**
+   * Iterates entries in key order, starting at the block that may hold {@code fromKey}
+   * (the first block when null). Entries before {@code fromKey} in that block are still
+   * returned; callers skip them.
+   */
+  Iterator<Map.Entry<String, StoredValue>> iterator(String fromKey) {
+    int end = firstKeys.length > 0 ? (int) (blockOffsets[blockOffsets.length - 1]
+        + blockLengths[blockLengths.length - 1]) : 0;
+    int startBlock = 0;
+    if (fromKey != null && firstKeys.length > 0) {
+      startBlock = Arrays.binarySearch(firstKeys, fromKey);
+      startBlock = startBlock >= 0 ? startBlock : Math.max(0, -startBlock - 2);
+    }
+    int start = firstKeys.length > 0 ? (int) blockOffsets[startBlock] : 0;
+    return new Iterator<>() {
+      private int position = start;
+
+      @Override
+      public boolean hasNext() {
+        return position < end;
+      }
+
+      @Override
+      public Map.Entry<String, StoredValue> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int keyLength = data.getShort(position) & 0xFFFF;
+        byte[] key = new byte[keyLength];
+        data.get(position + 2, key);
+        int valueStart = position + 2 + keyLength;
+        int valueLength = data.getInt(valueStart + 1 + 8);
+        StoredValue value = readValue(valueStart, valueLength);
+        position = valueStart + 1 + 8 + 4 + valueLength;
+        return new AbstractMap.SimpleImmutableEntry<>(new String(key, StandardCharsets.UTF_8), value);
+      }
+    };
+  }
+
+  private boolean matches(int position, byte[] wanted) {
+    for (int i = 0; i < wanted.length; i++) {
+      if (data.get(position + i) != wanted[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private StoredValue readValue(int flagsAt, int valueLength) {
+    if (data.get(flagsAt) == TOMBSTONE_FLAG) {
+      return StoredValue.tombstone();
+    }
+    long expiry = data.getLong(flagsAt + 1);
+    byte[] value = new byte[valueLength];
+    data.get(flagsAt + 1 + 8 + 4, value);
+    return StoredValue.of(new String(value, StandardCharsets.UTF_8), expiry);
+  }
+
+  private static String readString(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,126 @@
+package org.url.shortener.lsm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a sorted run of entries as an SSTable: data blocks, then a block index, then a
+ * Bloom filter over every key, then a fixed footer. Keys must be added in ascending order.
+ * See {@link SSTable} for the layout.
+ */
+final class SSTableWriter implements Closeable {
+
+  private final FileChannel channel;
+  private final int blockBytes;
+  private final BloomFilter bloom;
+  private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+  private final DataOutputStream blockOut = new DataOutputStream(block);
+  private final List<String> firstKeys = new ArrayList<>();
+  private final List<long[]> blockHandles = new ArrayList<>();
+  private String blockFirstKey;
+  private String lastKey;
+  private long offset;
+  private long entryCount;
+
+  SSTableWriter(Path path, int blockBytes, long expectedKeys, int bloomBitsPerKey) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    this.blockBytes = blockBytes;
+    this.bloom = BloomFilter.create(Math.max(1, expectedKeys), bloomBitsPerKey);
+  }
+
+  void add(String key, StoredValue value) throws IOException {
+    if (blockFirstKey == null) {
+      blockFirstKey = key;
+    }
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    blockOut.writeShort(keyBytes.length);
+    blockOut.write(keyBytes);
+    blockOut.writeByte(value.isTombstone() ? SSTable.TOMBSTONE_FLAG : 0);
+    blockOut.writeLong(value.getExpiry());
+    if (value.isTombstone()) {
+      blockOut.writeInt(0);
+    } else {
+      byte[] valueBytes = value.getValue().getBytes(StandardCharsets.UTF_8);
+      blockOut.writeInt(valueBytes.length);
+      blockOut.write(valueBytes);
+    }
+    bloom.add(key);
+    lastKey = key;
+    entryCount++;
+    if (block.size() >= blockBytes) {
+      finishBlock();
+    }
+  }
+
+  /** Bytes written so far, including the block being built. */
+  long bytesWritten() {
+    return offset + block.size();
+  }
+
+  long entryCount() {
+    return entryCount;
+  }
+
+  /** Writes index, filter and footer and forces the file to disk. */
+  void finish() throws IOException {
+    finishBlock();
+    long indexOffset = offset;
+    ByteArrayOutputStream index = new ByteArrayOutputStream();
+    DataOutputStream indexOut = new DataOutputStream(index);
+    indexOut.writeInt(firstKeys.size());
+    for (int i = 0; i < firstKeys.size(); i++) {
+      byte[] key = firstKeys.get(i).getBytes(StandardCharsets.UTF_8);
+      indexOut.writeShort(key.length);
+      indexOut.write(key);
+      indexOut.writeLong(blockHandles.get(i)[0]);
+      indexOut.writeInt((int) blockHandles.get(i)[1]);
+    }
+    byte[] last = lastKey != null ? lastKey.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    indexOut.writeShort(last.length);
+    indexOut.write(last);
+    write(ByteBuffer.wrap(index.toByteArray()));
+
+    long bloomOffset = offset;
+    ByteBuffer filter = ByteBuffer.allocate(bloom.serializedBytes());
+    bloom.writeTo(filter);
+    filter.flip();
+    write(filter);
+
+    ByteBuffer footer = ByteBuffer.allocate(SSTable.FOOTER_BYTES);
+    footer.putLong(indexOffset).putLong(bloomOffset).putLong(entryCount).putInt(SSTable.MAGIC).flip();
+    write(footer);
+    channel.force(true);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void finishBlock() throws IOException {
+    if (block.size() == 0) {
+      return;
+    }
+    blockOut.flush();
+    firstKeys.add(blockFirstKey);
+    blockHandles.add(new long[] {offset, block.size()});
+    write(ByteBuffer.wrap(block.toByteArray()));
+    block.reset();
+    blockFirstKey = null;
+  }
+
+  private void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      offset += channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package org.url.shortener.lsm;
+
+/**
+ * Value of an LSM key: a string plus the expiry (epoch seconds) it stops being valid at,
+ * or a tombstone that shadows older versions of the key until compaction drops it.
+ */
+public final class StoredValue {
+
+  private static final StoredValue TOMBSTONE = new StoredValue(null, 0, true);
+
+  private final String value;
+  private final long expiry;
+  private final boolean tombstone;
+
+  private StoredValue(String value, long expiry, boolean tombstone) {
+    this.value = value;
+    this.expiry = expiry;
+    this.tombstone = tombstone;
+  }
+
+  public static StoredValue of(String value, long expiry) {
+    if (value == null) {
+      throw new IllegalArgumentException("Value cannot be null");
+    }
+    return new StoredValue(value, expiry, false);
+  }
+
+  public static StoredValue tombstone() {
+    return TOMBSTONE;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public long getExpiry() {
+    return expiry;
+  }
+
+  public boolean isTombstone() {
+    return tombstone;
+  }
+
+  public boolean isExpired(long now) {
+    return !tombstone && expiry <= now;
+  }
+
+  /** A live value: neither a tombstone nor expired at {@code now}. */
+  public boolean isLive(long now) {
+    return !tombstone && expiry > now;
+  }
+}
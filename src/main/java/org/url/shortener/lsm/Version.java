@@ -0,0 +1,102 @@
+package org.url.shortener.lsm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable set of live SSTables. Level 0 holds flushed memtables, newest first, whose key
+ * ranges may overlap; every deeper level is sorted by key and its files never overlap, so
+ * a lookup checks at most one file per level. Flushes and compactions install a new
+ * version; readers keep using whichever one they started with.
+ */
+final class Version {
+
+  private final List<List<SSTable>> levels;
+
+  Version(List<List<SSTable>> levels) {
+    List<List<SSTable>> copy = new ArrayList<>(levels.size());
+    for (List<SSTable> level : levels) {
+      copy.add(Collections.unmodifiableList(new ArrayList<>(level)));
+    }
+    this.levels = Collections.unmodifiableList(copy);
+  }
+
+  static Version empty(int levelCount) {
+    List<List<SSTable>> levels = new ArrayList<>(levelCount);
+    for (int i = 0; i < levelCount; i++) {
+      levels.add(List.of());
+    }
+    return new Version(levels);
+  }
+
+  int levelCount() {
+    return levels.size();
+  }
+
+  List<SSTable> files(int level) {
+    return levels.get(level);
+  }
+
+  long levelBytes(int level) {
+    long bytes = 0;
+    for (SSTable table : levels.get(level)) {
+      bytes += table.getSizeBytes();
+    }
+    return bytes;
+  }
+
+  /** Files of a level from 1 upwards whose key range overlaps [smallest, largest]. */
+  List<SSTable> overlapping(int level, String smallest, String largest) {
+    List<SSTable> overlapping = new ArrayList<>();
+    for (SSTable table : levels.get(level)) {
+      if (table.overlaps(smallest, largest)) {
+        overlapping.add(table);
+      }
+    }
+    return overlapping;
+  }
+
+  /** The only file of a level from 1 upwards that can hold the key, or null. */
+  SSTable fileFor(int level, String key) {
+    List<SSTable> files = levels.get(level);
+    int low = 0;
+    int high = files.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      SSTable table = files.get(mid);
+      if (table.largestKey().compareTo(key) < 0) {
+        low = mid + 1;
+      } else if (table.smallestKey().compareTo(key) > 0) {
+        high = mid - 1;
+      } else {
+        return table;
+      }
+    }
+    return null;
+  }
+
+  Version withFlushed(SSTable table) {
+    List<List<SSTable>> next = new ArrayList<>(levels);
+    List<SSTable> level0 = new ArrayList<>(levels.get(0).size() + 1);
+    level0.add(table);
+    level0.addAll(levels.get(0));
+    next.set(0, level0);
+    return new Version(next);
+  }
+
+  /** Replaces the compacted inputs with the outputs written to {@code outputLevel}. */
+  Version withCompaction(Collection<SSTable> inputs, int outputLevel, List<SSTable> outputs) {
+    List<List<SSTable>> next = new ArrayList<>(levels.size());
+    for (List<SSTable> level : levels) {
+      List<SSTable> kept = new ArrayList<>(level);
+      kept.removeAll(inputs);
+      next.add(kept);
+    }
+    next.get(outputLevel).addAll(outputs);
+    next.get(outputLevel).sort(Comparator.comparing(SSTable::smallestKey));
+    return new Version(next);
+  }
+}
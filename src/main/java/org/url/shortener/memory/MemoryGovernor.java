@@ -0,0 +1,299 @@
+package org.url.shortener.memory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+/**
+ * Watches heap usage and applies ordered responses before the JVM runs out of memory.
+ *
+ * <p>The governor arms the usage and collection-usage thresholds of the heap pools that
+ * support them (the old generation on the standard collectors) at the next level's
+ * fraction of the pool's maximum. When the JVM reports a threshold crossing, every level
+ * up to the current usage is applied in order: shrink caches, drop analytics detail,
+ * spill cold mappings to disk, and finally reject creates while reads keep serving.
+ * Notifications only fire on the way up, so a periodic check steps back down once the
+ * usage measured after the last collection is clear of a level by a small margin, undoing
+ * the responses that can be undone. Every action is logged and counted.
+ */
+public class MemoryGovernor {
+
+  private static final double DEFAULT_SHRINK_CACHES_AT = 0.70;
+  private static final double DEFAULT_DROP_ANALYTICS_AT = 0.78;
+  private static final double DEFAULT_SPILL_AT = 0.85;
+  private static final double DEFAULT_REJECT_CREATES_AT = 0.92;
+  private static final double RELIEF_MARGIN = 0.05;
+  private static final long RECHECK_SECONDS = 5;
+
+  private final EnumMap<PressureLevel, Double> thresholds = new EnumMap<>(PressureLevel.class);
+  private final EnumMap<PressureLevel, List<Action>> actions = new EnumMap<>(PressureLevel.class);
+  private final EnumMap<PressureLevel, AtomicLong> escalations = new EnumMap<>(PressureLevel.class);
+  private final AtomicLong actionsTaken = new AtomicLong();
+  private final AtomicLong rejectedCreates = new AtomicLong();
+  private final AtomicBoolean isRunning = new AtomicBoolean(false);
+  private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+  private final NotificationListener listener = this::handleNotification;
+  private volatile PressureLevel level = PressureLevel.NORMAL;
+  private ScheduledExecutorService recheckExecutor;
+
+  public MemoryGovernor() {
+    this(DEFAULT_SHRINK_CACHES_AT, DEFAULT_DROP_ANALYTICS_AT, DEFAULT_SPILL_AT,
+        DEFAULT_REJECT_CREATES_AT);
+  }
+
+  /**
+   * Thresholds are fractions of the maximum heap pool size, one per level in ascending
+   * order.
+   */
+  public MemoryGovernor(double shrinkCachesAt, double dropAnalyticsAt, double spillAt,
+                        double rejectCreatesAt) {
+    if (shrinkCachesAt <= 0 || !(shrinkCachesAt < dropAnalyticsAt && dropAnalyticsAt < spillAt
+        && spillAt < rejectCreatesAt) || rejectCreatesAt >= 1) {
+      throw new IllegalArgumentException("Pressure thresholds must ascend between 0 and 1");
+    }
+    thresholds.put(PressureLevel.SHRINK_CACHES, shrinkCachesAt);
+    thresholds.put(PressureLevel.DROP_ANALYTICS_DETAIL, dropAnalyticsAt);
+    thresholds.put(PressureLevel.SPILL_COLD_MAPPINGS, spillAt);
+    thresholds.put(PressureLevel.REJECT_CREATES, rejectCreatesAt);
+    for (PressureLevel pressureLevel : PressureLevel.values()) {
+      actions.put(pressureLevel, new CopyOnWriteArrayList<>());
+      escalations.put(pressureLevel, new AtomicLong());
+    }
+  }
+
+  /**
+   * Registers a response to run when heap usage reaches the level, and an optional one to
+   * run when it drops back below it.
+   */
+  public void register(PressureLevel pressureLevel, String description,
+                       Runnable onPressure, Runnable onRelief) {
+    if (pressureLevel == PressureLevel.NORMAL) {
+      throw new IllegalArgumentException("Responses need a pressure level above NORMAL");
+    }
+    actions.get(pressureLevel).add(new Action(description, onPressure, onRelief));
+  }
+
+  /** Arms the pool thresholds and starts the periodic relief check. */
+  public void start() {
+    if (!isRunning.compareAndSet(false, true)) {
+      return;
+    }
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+        pools.add(pool);
+      }
+    }
+    ((NotificationEmitter) ManagementFactory.getMemoryMXBean())
+        .addNotificationListener(listener, null, null);
+    armThresholds(level);
+    recheckExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "Memory-Governor-Thread");
+      thread.setDaemon(true);
+      return thread;
+    });
+    recheckExecutor.scheduleWithFixedDelay(this::recheckQuietly,
+        RECHECK_SECONDS, RECHECK_SECONDS, TimeUnit.SECONDS);
+    System.out.println("[MEMORY] Governor watching " + pools.size() + " heap pool(s), thresholds "
+        + thresholds);
+  }
+
+  public void shutdown() {
+    if (!isRunning.compareAndSet(true, false)) {
+      return;
+    }
+    recheckExecutor.shutdown();
+    try {
+      ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(listener);
+    } catch (ListenerNotFoundException ignored) {
+      // Already gone.
+    }
+  }
+
+  /**
+   * Moves to the level that matches the heap usage (a fraction of the maximum), running
+   * the responses of every level passed on the way up, or the relief of every level left
+   * on the way down. Driven by the JVM notifications once started; callable directly.
+   */
+  public synchronized void onHeapUsage(double usage) {
+    PressureLevel target = levelFor(usage);
+    PressureLevel current = level;
+    if (target.compareTo(current) > 0) {
+      PressureLevel[] levels = PressureLevel.values();
+      for (int i = current.ordinal() + 1; i <= target.ordinal(); i++) {
+        escalations.get(levels[i]).incrementAndGet();
+        level = levels[i];
+        System.out.println("[MEMORY] Heap at " + percent(usage) + ", escalating to " + levels[i]);
+        for (Action action : actions.get(levels[i])) {
+          run(levels[i], action.description, action.onPressure);
+        }
+      }
+    } else if (target.compareTo(current) < 0) {
+      PressureLevel[] levels = PressureLevel.values();
+      for (int i = current.ordinal(); i > target.ordinal() && clearOf(levels[i], usage); i--) {
+        level = levels[i - 1];
+        System.out.println("[MEMORY] Heap at " + percent(usage) + ", relieved from " + levels[i]);
+        for (Action action : actions.get(levels[i])) {
+          if (action.onRelief != null) {
+            run(levels[i], "undo " + action.description, action.onRelief);
+          }
+        }
+      }
+    }
+    if (isRunning.get()) {
+      armThresholds(level);
+    }
+  }
+
+  public PressureLevel getLevel() {
+    return level;
+  }
+
+  public boolean isAcceptingCreates() {
+    return level.compareTo(PressureLevel.REJECT_CREATES) < 0;
+  }
+
+  /** Counts a create turned away at {@link PressureLevel#REJECT_CREATES}. */
+  public void recordRejectedCreate() {
+    rejectedCreates.incrementAndGet();
+  }
+
+  public long getRejectedCreates() {
+    return rejectedCreates.get();
+  }
+
+  /** How often the governor has escalated into the level. */
+  public long getEscalationCount(PressureLevel pressureLevel) {
+    return escalations.get(pressureLevel).get();
+  }
+
+  /** Responses and reliefs run so far, including failed ones. */
+  public long getActionsTaken() {
+    return actionsTaken.get();
+  }
+
+  public void printSummary() {
+    System.out.println("\n=== MEMORY GOVERNOR SUMMARY ===");
+    System.out.println("Level:            " + level);
+    for (Map.Entry<PressureLevel, Double> threshold : thresholds.entrySet()) {
+      System.out.println(String.format("%-22s at %s, entered %d time(s)", threshold.getKey(),
+          percent(threshold.getValue()), escalations.get(threshold.getKey()).get()));
+    }
+    System.out.println("Actions taken:    " + actionsTaken.get());
+    System.out.println("Rejected creates: " + rejectedCreates.get());
+    System.out.println("===============================\n");
+  }
+
+  private PressureLevel levelFor(double usage) {
+    PressureLevel target = PressureLevel.NORMAL;
+    for (Map.Entry<PressureLevel, Double> threshold : thresholds.entrySet()) {
+      if (usage >= threshold.getValue()) {
+        target = threshold.getKey();
+      }
+    }
+    return target;
+  }
+
+  /** Hysteresis, so usage hovering at a threshold does not flap between levels. */
+  private boolean clearOf(PressureLevel pressureLevel, double usage) {
+    return usage < thresholds.get(pressureLevel) - RELIEF_MARGIN;
+  }
+
+  private void run(PressureLevel pressureLevel, String description, Runnable response) {
+    long start = System.nanoTime();
+    actionsTaken.incrementAndGet();
+    try {
+      response.run();
+      System.out.println("[MEMORY] " + pressureLevel + ": " + description + " in "
+          + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    } catch (Exception e) {
+      System.err.println("[MEMORY] " + pressureLevel + ": " + description + " failed: "
+          + e.getMessage());
+    }
+  }
+
+  private void handleNotification(Notification notification, Object handback) {
+    String type = notification.getType();
+    if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+        || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+      onHeapUsage(currentUsage(false));
+    }
+  }
+
+  private void recheckQuietly() {
+    try {
+      if (level != PressureLevel.NORMAL) {
+        // Live data after the last collection, not garbage still waiting to be collected.
+        onHeapUsage(currentUsage(true));
+      }
+    } catch (Exception e) {
+      System.err.println("[MEMORY] Error checking heap usage: " + e.getMessage());
+    }
+  }
+
+  private double currentUsage(boolean afterCollection) {
+    double usage = 0;
+    for (MemoryPoolMXBean pool : pools) {
+      MemoryUsage poolUsage = afterCollection && pool.isCollectionUsageThresholdSupported()
+          ? pool.getCollectionUsage() : pool.getUsage();
+      if (poolUsage != null && maxOf(poolUsage) > 0) {
+        usage = Math.max(usage, (double) poolUsage.getUsed() / maxOf(poolUsage));
+      }
+    }
+    return usage;
+  }
+
+  /** Arms every pool at the next level up, so the JVM reports the next crossing. */
+  private void armThresholds(PressureLevel current) {
+    if (current == PressureLevel.REJECT_CREATES) {
+      return;
+    }
+    double next = thresholds.get(PressureLevel.values()[current.ordinal() + 1]);
+    for (MemoryPoolMXBean pool : pools) {
+      long max = maxOf(pool.getUsage());
+      if (max <= 0) {
+        continue;
+      }
+      long bytes = (long) (max * next);
+      pool.setUsageThreshold(bytes);
+      if (pool.isCollectionUsageThresholdSupported()) {
+        pool.setCollectionUsageThreshold(bytes);
+      }
+    }
+  }
+
+  private static long maxOf(MemoryUsage usage) {
+    return usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+  }
+
+  private static String percent(double fraction) {
+    return Math.round(fraction * 100) + "%";
+  }
+
+  private static final class Action {
+    private final String description;
+    private final Runnable onPressure;
+    private final Runnable onRelief;
+
+    private Action(String description, Runnable onPressure, Runnable onRelief) {
+      this.description = description;
+      this.onPressure = onPressure;
+      this.onRelief = onRelief;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package org.url.shortener.memory;
+
+/**
+ * Escalating responses to heap pressure, in the order they are applied. Each level keeps
+ * the responses of the levels below it in force.
+ */
+public enum PressureLevel {
+  NORMAL,
+  SHRINK_CACHES,
+  DROP_ANALYTICS_DETAIL,
+  SPILL_COLD_MAPPINGS,
+  REJECT_CREATES
+}
@@ -1,6 +1,12 @@
 package org.url.shortener.model;
 
 public class LongUrl {
+  /**
+   * Expiry of a link read from somewhere that does not know its real expiry; readers that
+   * hold on to it fall back to their own limits.
+   */
+  public static final long UNKNOWN_EXPIRY = Long.MAX_VALUE;
+
   private final String url;
   private final Long expiry;
 
@@ -8,9 +8,13 @@ public class AnalyticsListener implements URLEventListener {
   
   private final Map<String, AtomicInteger> accessCounts = new ConcurrentHashMap<>();
   private final Map<String, Long> creationTimes = new ConcurrentHashMap<>();
+  private volatile boolean detailEnabled = true;
   
   @Override
   public void onUrlCreated(String shortUrl, String longUrl, long expiryTime) {
+    if (!detailEnabled) {
+      return;
+    }
     creationTimes.put(shortUrl, System.currentTimeMillis());
     accessCounts.put(shortUrl, new AtomicInteger(0));
     System.out.println("[ANALYTICS] Tracking new URL: " + shortUrl);
@@ -74,6 +78,24 @@ public class AnalyticsListener implements URLEventListener {
     System.out.println("=====================================\n");
   }
   
+  /**
+   * Stops tracking per-URL detail and drops what was collected, to free heap under memory
+   * pressure. URLs created while detail is off are never tracked.
+   */
+  public void dropDetail() {
+    detailEnabled = false;
+    accessCounts.clear();
+    creationTimes.clear();
+  }
+
+  public void resumeDetail() {
+    detailEnabled = true;
+  }
+
+  public boolean isDetailEnabled() {
+    return detailEnabled;
+  }
+
   /**
    * Gets the access count for a specific URL.
    */
@@ -0,0 +1,209 @@
+package org.url.shortener.observer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.url.shortener.repository.URLRepository;
+
+/**
+ * Watches how full the key space of each key length is and picks the length new keys are
+ * generated with. For the current length it estimates the attempts a create needs as the
+ * larger of {@code 1 / (1 - loadFactor)}, from the live keys of that length, and the
+ * attempts creates actually needed over the last {@value #WINDOW} creates. Once that
+ * passes the threshold the length goes up by one, and it never comes back down, so
+ * collision retries stay rare however large the table grows.
+ *
+ * <p>Counts follow the create, delete and expiry events, on top of what {@link #seed}
+ * found in the repository at startup. In cluster mode a node only sees its own events,
+ * so the load factor covers its share of the keys and the observed collision rate, which
+ * covers all of them, carries more weight.
+ *
+ * <p>Keys drawn from a counter (SEQUENTIAL, FEISTEL) never collide however full their
+ * length is, so for them the load factor estimate is skipped and only observed collisions
+ * can raise the length; the keys still widen on their own once the counter outgrows it.
+ */
+public class KeyspaceManager implements URLEventListener {
+
+  public static final double DEFAULT_MAX_EXPECTED_ATTEMPTS = 1.1;
+  /** Creates per collision-rate sample. */
+  static final int WINDOW = 1000;
+  private static final int MAX_TRACKED_LENGTH = 10;
+  private static final int ATTEMPT_BUCKETS = 16;
+
+  private final int maxLength;
+  private final double maxExpectedAttempts;
+  private final boolean collisionFree;
+  private final AtomicInteger currentLength;
+  // Indexed by key length; index 0 holds keys longer than MAX_TRACKED_LENGTH.
+  private final AtomicLongArray liveKeys;
+  private final AtomicLongArray windowCreates;
+  private final AtomicLongArray windowCollisions;
+  // Attempts per create over the last full window, as double bits
+  private final AtomicLongArray windowAttempts;
+  // collisionsAtAttempt[length * ATTEMPT_BUCKETS + n]: creates that collided at least n times
+  private final AtomicLongArray collisionsAtAttempt;
+  private final AtomicLongArray creates;
+
+  public KeyspaceManager(int initialLength, int maxLength, double maxExpectedAttempts) {
+    this(initialLength, maxLength, maxExpectedAttempts, false);
+  }
+
+  /**
+   * @param collisionFree whether keys come from a counter and never collide, so the load
+   *                      factor says nothing about the attempts a create needs
+   */
+  public KeyspaceManager(int initialLength, int maxLength, double maxExpectedAttempts,
+                         boolean collisionFree) {
+    if (initialLength <= 0 || maxLength < initialLength) {
+      throw new IllegalArgumentException("Key lengths must be positive with the maximum at least the initial one");
+    }
+    if (maxExpectedAttempts <= 1) {
+      throw new IllegalArgumentException("Expected attempts threshold must be above 1");
+    }
+    this.maxLength = maxLength;
+    this.maxExpectedAttempts = maxExpectedAttempts;
+    this.collisionFree = collisionFree;
+    this.currentLength = new AtomicInteger(initialLength);
+    this.liveKeys = new AtomicLongArray(MAX_TRACKED_LENGTH + 1);
+    this.windowCreates = new AtomicLongArray(MAX_TRACKED_LENGTH + 1);
+    this.windowCollisions = new AtomicLongArray(MAX_TRACKED_LENGTH + 1);
+    this.windowAttempts = new AtomicLongArray(MAX_TRACKED_LENGTH + 1);
+    for (int i = 0; i <= MAX_TRACKED_LENGTH; i++) {
+      windowAttempts.set(i, Double.doubleToLongBits(1.0));
+    }
+    this.collisionsAtAttempt = new AtomicLongArray((MAX_TRACKED_LENGTH + 1) * ATTEMPT_BUCKETS);
+    this.creates = new AtomicLongArray(MAX_TRACKED_LENGTH + 1);
+  }
+
+  /**
+   * Counts the keys already stored, then raises the length if they call for it.
+   */
+  public void seed(URLRepository repository) {
+    repository.forEachEntry((shortUrlIdentifier, longUrl) -> liveKeys.incrementAndGet(index(shortUrlIdentifier)));
+    int length;
+    while ((length = currentLength.get()) < maxLength && getExpectedAttempts(length) > maxExpectedAttempts) {
+      raise(length);
+    }
+  }
+
+  /** The length new keys should be generated with. */
+  public int getCurrentLength() {
+    return currentLength.get();
+  }
+
+  @Override
+  public void onUrlCreated(String shortUrl, String longUrl, long expiryTime) {
+    int index = index(shortUrl);
+    liveKeys.incrementAndGet(index);
+    creates.incrementAndGet(index);
+    if (windowCreates.incrementAndGet(index) >= WINDOW) {
+      // Racing creates may land in either window; the rate is an estimate either way.
+      long windowCreated = windowCreates.getAndSet(index, 0);
+      long collided = windowCollisions.getAndSet(index, 0);
+      if (windowCreated > 0) {
+        windowAttempts.set(index, Double.doubleToLongBits((windowCreated + collided) / (double) windowCreated));
+      }
+    }
+    int length = currentLength.get();
+    if (index == length && length < maxLength && getExpectedAttempts(length) > maxExpectedAttempts) {
+      raise(length);
+    }
+  }
+
+  @Override
+  public void onUrlAccessed(String shortUrl, String longUrl) {
+  }
+
+  @Override
+  public void onUrlDeleted(String shortUrl) {
+    liveKeys.decrementAndGet(index(shortUrl));
+  }
+
+  @Override
+  public void onUrlExpired(String shortUrl) {
+    liveKeys.decrementAndGet(index(shortUrl));
+  }
+
+  @Override
+  public void onCollisionDetected(String shortUrl, int attemptNumber) {
+    int index = index(shortUrl);
+    windowCollisions.incrementAndGet(index);
+    collisionsAtAttempt.incrementAndGet(index * ATTEMPT_BUCKETS + Math.min(Math.max(attemptNumber, 1), ATTEMPT_BUCKETS - 1));
+  }
+
+  public long getLiveKeys(int length) {
+    return Math.max(0, liveKeys.get(indexOfLength(length)));
+  }
+
+  /** Live keys of the length over the number of possible keys of that length. */
+  public double getLoadFactor(int length) {
+    if (length > MAX_TRACKED_LENGTH) {
+      return 0;
+    }
+    return getLiveKeys(length) / Math.pow(62, length);
+  }
+
+  public double getExpectedAttempts(int length) {
+    double observed = Double.longBitsToDouble(windowAttempts.get(indexOfLength(length)));
+    if (collisionFree) {
+      return observed;
+    }
+    double load = Math.min(getLoadFactor(length), 0.999_999);
+    return Math.max(1 / (1 - load), observed);
+  }
+
+  /** Load factor by key length, for every length that has live keys or is current. */
+  public Map<Integer, Double> getSaturationHistogram() {
+    Map<Integer, Double> saturation = new LinkedHashMap<>();
+    for (int length = 1; length <= MAX_TRACKED_LENGTH; length++) {
+      if (liveKeys.get(length) > 0 || length == currentLength.get()) {
+        saturation.put(length, getLoadFactor(length));
+      }
+    }
+    return saturation;
+  }
+
+  /**
+   * Creates of keys of the length by the attempts they needed: entry {@code k - 1} counts
+   * creates that succeeded on attempt {@code k}, the last entry that many or more.
+   */
+  public long[] getAttemptHistogram(int length) {
+    int index = indexOfLength(length);
+    long[] atLeast = new long[ATTEMPT_BUCKETS];
+    atLeast[0] = creates.get(index);
+    for (int n = 1; n < ATTEMPT_BUCKETS; n++) {
+      atLeast[n] = collisionsAtAttempt.get(index * ATTEMPT_BUCKETS + n);
+    }
+    long[] histogram = new long[ATTEMPT_BUCKETS];
+    for (int k = 1; k < ATTEMPT_BUCKETS; k++) {
+      histogram[k - 1] = Math.max(0, atLeast[k - 1] - atLeast[k]);
+    }
+    histogram[ATTEMPT_BUCKETS - 1] = atLeast[ATTEMPT_BUCKETS - 1];
+    return histogram;
+  }
+
+  public void printSummary() {
+    System.out.println("\n=== KEYSPACE SUMMARY ===");
+    System.out.println("Current key length: " + currentLength.get());
+    getSaturationHistogram().forEach((length, load) -> System.out.printf(
+        "Length %2d: %d live keys, load %.6f, expected attempts %.3f%n",
+        length, getLiveKeys(length), load, getExpectedAttempts(length)));
+    System.out.println("========================\n");
+  }
+
+  private void raise(int from) {
+    if (currentLength.compareAndSet(from, from + 1)) {
+      System.out.printf("[KEYSPACE] Raising key length to %d: length %d is at load %.6f, %.3f expected attempts%n",
+          from + 1, from, getLoadFactor(from), getExpectedAttempts(from));
+    }
+  }
+
+  private static int index(String shortUrl) {
+    return indexOfLength(shortUrl.length());
+  }
+
+  private static int indexOfLength(int length) {
+    return length <= MAX_TRACKED_LENGTH ? length : 0;
+  }
+}
@@ -0,0 +1,13 @@
+package org.url.shortener.persistence;
+
+/**
+ * When the write-ahead log forces appended records to stable storage.
+ */
+public enum FsyncPolicy {
+  /** Every group commit is fsynced before writers are acknowledged. */
+  EVERY_WRITE,
+  /** Writers are acknowledged once written; the log is fsynced every N milliseconds. */
+  INTERVAL,
+  /** The log is never fsynced explicitly; the OS flushes dirty pages on its own. */
+  OS_MANAGED
+}
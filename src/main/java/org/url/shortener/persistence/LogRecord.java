@@ -0,0 +1,143 @@
+package org.url.shortener.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * A single repository mutation as it is written to the write-ahead log. A batch record
+ * wraps several saves or removes so they are framed, checksummed and replayed together.
+ */
+public final class LogRecord {
+
+  public enum Type {
+    SAVE((byte) 1),
+    REMOVE((byte) 2),
+    BATCH((byte) 3);
+
+    private final byte code;
+
+    Type(byte code) {
+      this.code = code;
+    }
+
+    static Type fromCode(byte code) {
+      for (Type type : values()) {
+        if (type.code == code) {
+          return type;
+        }
+      }
+      throw new IllegalArgumentException("Unknown log record type: " + code);
+    }
+  }
+
+  private final Type type;
+  private final String shortUrlIdentifier;
+  private final LongUrl longUrl;
+  private final List<LogRecord> records;
+
+  private LogRecord(Type type, String shortUrlIdentifier, LongUrl longUrl,
+                    List<LogRecord> records) {
+    this.type = type;
+    this.shortUrlIdentifier = shortUrlIdentifier;
+    this.longUrl = longUrl;
+    this.records = records;
+  }
+
+  public static LogRecord save(String shortUrlIdentifier, LongUrl longUrl) {
+    return new LogRecord(Type.SAVE, shortUrlIdentifier, longUrl, Collections.emptyList());
+  }
+
+  public static LogRecord remove(String shortUrlIdentifier) {
+    return new LogRecord(Type.REMOVE, shortUrlIdentifier, null, Collections.emptyList());
+  }
+
+  public static LogRecord batch(List<LogRecord> records) {
+    for (LogRecord record : records) {
+      if (record.type == Type.BATCH) {
+        throw new IllegalArgumentException("Batches cannot be nested");
+      }
+    }
+    return new LogRecord(Type.BATCH, null, null, List.copyOf(records));
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getShortUrlIdentifier() {
+    return shortUrlIdentifier;
+  }
+
+  public LongUrl getLongUrl() {
+    return longUrl;
+  }
+
+  /** The records of a batch, in order; empty for other types. */
+  public List<LogRecord> getRecords() {
+    return records;
+  }
+
+  /** The record in its log and replication wire format. */
+  public byte[] encode() {
+    if (type == Type.BATCH) {
+      List<byte[]> encoded = new ArrayList<>(records.size());
+      int length = 1 + 4;
+      for (LogRecord record : records) {
+        byte[] bytes = record.encode();
+        encoded.add(bytes);
+        length += 4 + bytes.length;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      buffer.put(type.code);
+      buffer.putInt(encoded.size());
+      for (byte[] bytes : encoded) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+      }
+      return buffer.array();
+    }
+    byte[] id = shortUrlIdentifier.getBytes(StandardCharsets.UTF_8);
+    byte[] url = longUrl != null ? longUrl.getUrl().getBytes(StandardCharsets.UTF_8) : new byte[0];
+    ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + id.length
+        + (type == Type.SAVE ? 4 + url.length + 8 : 0));
+    buffer.put(type.code);
+    buffer.putShort((short) id.length);
+    buffer.put(id);
+    if (type == Type.SAVE) {
+      buffer.putInt(url.length);
+      buffer.put(url);
+      buffer.putLong(longUrl.getExpiry());
+    }
+    return buffer.array();
+  }
+
+  public static LogRecord decode(ByteBuffer buffer) {
+    Type type = Type.fromCode(buffer.get());
+    if (type == Type.BATCH) {
+      int count = buffer.getInt();
+      List<LogRecord> records = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        int length = buffer.getInt();
+        records.add(decode(buffer.slice(buffer.position(), length)));
+        buffer.position(buffer.position() + length);
+      }
+      return batch(records);
+    }
+    String id = readString(buffer, buffer.getShort() & 0xFFFF);
+    if (type == Type.REMOVE) {
+      return remove(id);
+    }
+    String url = readString(buffer, buffer.getInt());
+    return save(id, new LongUrl(url, buffer.getLong()));
+  }
+
+  private static String readString(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
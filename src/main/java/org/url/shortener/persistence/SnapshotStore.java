@@ -0,0 +1,244 @@
+package org.url.shortener.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.URLRepository;
+
+/**
+ * Compact binary snapshots of a repository, tagged with the write-ahead log sequence they
+ * cover. Layout: {@code [int magic][int version][long logSequence][long count]} followed by
+ * {@code [short idLength][id][int urlLength][url][long expiry]} per entry and a trailing
+ * CRC32 of the entries. Snapshots are loaded through memory-mapped windows so a restart
+ * decodes straight from the page cache.
+ */
+public class SnapshotStore {
+
+  private static final int MAGIC = 0x55524C53; // "URLS"
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".snap";
+  private static final int WRITE_BUFFER_BYTES = 1 << 20;
+  private static final long MAP_WINDOW_BYTES = 1L << 30;
+
+  private final Path directory;
+
+  public SnapshotStore(Path directory) {
+    if (directory == null) {
+      throw new IllegalArgumentException("Snapshot directory cannot be null");
+    }
+    this.directory = directory;
+  }
+
+  /**
+   * Writes every entry of the repository to a new snapshot and removes older snapshots.
+   * Every logged mutation up to {@code logSequence} must already be applied to the
+   * repository, and it must not show mutations that are not yet durable. The snapshot may
+   * then include mutations newer than {@code logSequence}; replaying the log from that
+   * sequence is idempotent, so the result stays consistent.
+   *
+   * @return the number of entries written
+   */
+  public long write(long logSequence, URLRepository repository) {
+    Path target = directory.resolve(
+        String.format("%s%020d%s", SNAPSHOT_PREFIX, logSequence, SNAPSHOT_SUFFIX));
+    Path temp = directory.resolve(target.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(directory);
+      long count;
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        EntryWriter writer = new EntryWriter(channel);
+        repository.forEachEntry(writer);
+        writer.finish();
+        count = writer.count;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(logSequence).putLong(count).flip();
+        channel.write(header, 0);
+        channel.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      for (Path old : listSnapshots()) {
+        if (!old.equals(target)) {
+          Files.deleteIfExists(old);
+        }
+      }
+      return count;
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to write snapshot " + target.getFileName(), e);
+    }
+  }
+
+  /**
+   * Feeds every entry of the newest snapshot to the consumer.
+   *
+   * @return the log sequence the snapshot covers, or 0 when there is no snapshot
+   */
+  public long load(BiConsumer<String, LongUrl> consumer) {
+    Path latest;
+    try {
+      if (!Files.isDirectory(directory)) {
+        return 0;
+      }
+      List<Path> snapshots = listSnapshots();
+      if (snapshots.isEmpty()) {
+        return 0;
+      }
+      latest = snapshots.get(snapshots.size() - 1);
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to list snapshots", e);
+    }
+    try (FileChannel channel = FileChannel.open(latest, StandardOpenOption.READ)) {
+      EntryReader reader = new EntryReader(channel);
+      reader.require(HEADER_BYTES);
+      if (reader.window.getInt() != MAGIC || reader.window.getInt() != VERSION) {
+        throw new PersistenceException("Unrecognised snapshot format: " + latest.getFileName());
+      }
+      long logSequence = reader.window.getLong();
+      long count = reader.window.getLong();
+      CRC32 crc = new CRC32();
+      byte[] scratch = new byte[256];
+      for (long i = 0; i < count; i++) {
+        reader.require(2);
+        int idLength = reader.window.getShort(reader.window.position()) & 0xFFFF;
+        reader.require(2 + idLength + 4);
+        int urlLength = reader.window.getInt(reader.window.position() + 2 + idLength);
+        int entryLength = 2 + idLength + 4 + urlLength + 8;
+        reader.require(entryLength);
+        int entryStart = reader.window.position();
+        crc.update(reader.window.slice(entryStart, entryLength));
+
+        reader.window.position(entryStart + 2);
+        scratch = ensureCapacity(scratch, Math.max(idLength, urlLength));
+        reader.window.get(scratch, 0, idLength);
+        String id = new String(scratch, 0, idLength, StandardCharsets.UTF_8);
+        reader.window.getInt();
+        reader.window.get(scratch, 0, urlLength);
+        String url = new String(scratch, 0, urlLength, StandardCharsets.UTF_8);
+        consumer.accept(id, new LongUrl(url, reader.window.getLong()));
+      }
+      reader.require(4);
+      if (reader.window.getInt() != (int) crc.getValue()) {
+        throw new PersistenceException("Snapshot checksum mismatch: " + latest.getFileName());
+      }
+      return logSequence;
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to load snapshot " + latest.getFileName(), e);
+    }
+  }
+
+  private List<Path> listSnapshots() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(p -> p.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+              && p.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static byte[] ensureCapacity(byte[] buffer, int length) {
+    return buffer.length >= length ? buffer : new byte[Math.max(length, buffer.length * 2)];
+  }
+
+  private static final class EntryWriter implements BiConsumer<String, LongUrl> {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+    private final CRC32 crc = new CRC32();
+    private long count;
+
+    private EntryWriter(FileChannel channel) throws IOException {
+      this.channel = channel;
+      channel.position(HEADER_BYTES);
+    }
+
+    @Override
+    public void accept(String shortUrlIdentifier, LongUrl longUrl) {
+      byte[] id = shortUrlIdentifier.getBytes(StandardCharsets.UTF_8);
+      byte[] url = longUrl.getUrl().getBytes(StandardCharsets.UTF_8);
+      int entryLength = 2 + id.length + 4 + url.length + 8;
+      try {
+        if (buffer.remaining() < entryLength) {
+          flush();
+        }
+        ByteBuffer target = buffer.remaining() >= entryLength ? buffer : ByteBuffer.allocate(entryLength);
+        int start = target.position();
+        target.putShort((short) id.length).put(id).putInt(url.length).put(url)
+            .putLong(longUrl.getExpiry());
+        crc.update(target.array(), start, entryLength);
+        if (target != buffer) {
+          target.flip();
+          writeFully(target);
+        }
+        count++;
+      } catch (IOException e) {
+        throw new PersistenceException("Unable to write snapshot entry", e);
+      }
+    }
+
+    private void finish() throws IOException {
+      if (buffer.remaining() < 4) {
+        flush();
+      }
+      buffer.putInt((int) crc.getValue());
+      flush();
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      writeFully(buffer);
+      buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+    }
+  }
+
+  private static final class EntryReader {
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    private EntryReader(FileChannel channel) throws IOException {
+      this.channel = channel;
+      this.size = channel.size();
+      map(0);
+    }
+
+    /** Makes sure the next {@code bytes} bytes are inside the mapped window. */
+    private void require(int bytes) throws IOException {
+      if (window.remaining() >= bytes) {
+        return;
+      }
+      long offset = windowStart + window.position();
+      if (offset + bytes > size) {
+        throw new PersistenceException("Snapshot is truncated");
+      }
+      map(offset);
+    }
+
+    private void map(long offset) throws IOException {
+      windowStart = offset;
+      window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+          Math.min(MAP_WINDOW_BYTES, size - offset));
+    }
+  }
+}
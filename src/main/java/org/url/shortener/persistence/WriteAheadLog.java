@@ -0,0 +1,324 @@
+package org.url.shortener.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.url.shortener.exception.PersistenceException;
+
+/**
+ * Segmented append-only log of repository mutations.
+ *
+ * <p>Writers hand encoded records to a single committer thread, which writes everything
+ * queued since its last pass with one {@link FileChannel#write} and at most one fsync, so
+ * concurrent writers share the cost of a commit. Each frame is
+ * {@code [int length][int crc32][long sequence][record]}; a torn frame at the end of the
+ * last segment is truncated on recovery.
+ */
+public class WriteAheadLog implements Closeable {
+
+  private static final String SEGMENT_PREFIX = "wal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final int FRAME_HEADER_BYTES = 4 + 4 + 8;
+  private static final int MAX_BATCH = 4096;
+  private static final long IDLE_POLL_MILLIS = 100;
+
+  private final WriteAheadLogConfig config;
+  private final BlockingQueue<PendingWrite> queue;
+  private final Thread committer;
+  private volatile boolean running;
+  private boolean recovered;
+
+  private FileChannel segment;
+  private long segmentSize;
+  private volatile long lastSequence;
+  private long lastForceMillis;
+  private boolean dirty;
+
+  public WriteAheadLog(WriteAheadLogConfig config) {
+    if (config == null) {
+      throw new IllegalArgumentException("WriteAheadLogConfig cannot be null");
+    }
+    this.config = config;
+    this.queue = new LinkedBlockingQueue<>();
+    this.committer = new Thread(this::commitLoop, "WAL-Committer-Thread");
+    this.committer.setDaemon(true);
+  }
+
+  /**
+   * Replays every record with a sequence greater than {@code afterSequence}, truncates a torn
+   * tail and opens the log for appending. Must be called once before {@link #append}.
+   *
+   * @return the sequence number of the last record in the log
+   */
+  public synchronized long recover(long afterSequence, BiConsumer<Long, LogRecord> consumer) {
+    if (recovered) {
+      throw new IllegalStateException("Write-ahead log already recovered");
+    }
+    try {
+      Files.createDirectories(config.getDirectory());
+      List<Path> segments = listSegments();
+      lastSequence = afterSequence;
+      for (int i = 0; i < segments.size(); i++) {
+        boolean last = i == segments.size() - 1;
+        lastSequence = Math.max(lastSequence,
+            replaySegment(segments.get(i), afterSequence, last, consumer));
+      }
+      if (!segments.isEmpty()) {
+        Path tail = segments.get(segments.size() - 1);
+        segment = FileChannel.open(tail, StandardOpenOption.WRITE);
+        segmentSize = segment.size();
+        segment.position(segmentSize);
+      }
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to recover write-ahead log", e);
+    }
+    recovered = true;
+    running = true;
+    lastForceMillis = System.currentTimeMillis();
+    committer.start();
+    return lastSequence;
+  }
+
+  /**
+   * Queues a record for the next group commit. The future completes with the record's
+   * sequence number once it is written (and fsynced, under {@link FsyncPolicy#EVERY_WRITE}).
+   */
+  public CompletableFuture<Long> append(LogRecord record) {
+    if (!running) {
+      throw new PersistenceException("Write-ahead log is not open");
+    }
+    PendingWrite write = new PendingWrite(record.encode());
+    queue.add(write);
+    // close() may have drained the queue between the check above and the add; nobody
+    // would complete the write then. If the close drain has it instead, it fails it.
+    if (!running && queue.remove(write)) {
+      write.future.completeExceptionally(new PersistenceException("Write-ahead log is closed"));
+    }
+    return write.future;
+  }
+
+  /**
+   * Deletes segments whose records all have sequence numbers at or below the given one.
+   */
+  public void deleteSegmentsBefore(long sequence) {
+    try {
+      List<Path> segments = listSegments();
+      // A segment is fully covered when the next one starts at or before sequence + 1.
+      for (int i = 0; i + 1 < segments.size(); i++) {
+        if (firstSequenceOf(segments.get(i + 1)) <= sequence + 1) {
+          Files.deleteIfExists(segments.get(i));
+        }
+      }
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to delete old log segments", e);
+    }
+  }
+
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  @Override
+  public void close() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    try {
+      committer.join(TimeUnit.SECONDS.toMillis(30));
+      PendingWrite orphan;
+      while ((orphan = queue.poll()) != null) {
+        orphan.future.completeExceptionally(new PersistenceException("Write-ahead log is closed"));
+      }
+      if (segment != null) {
+        segment.force(false);
+        segment.close();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      System.err.println("Error closing write-ahead log: " + e.getMessage());
+    }
+  }
+
+  private void commitLoop() {
+    long pollMillis = config.getFsyncPolicy() == FsyncPolicy.INTERVAL
+        ? config.getFsyncIntervalMillis() : IDLE_POLL_MILLIS;
+    List<PendingWrite> batch = new ArrayList<>();
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingWrite first = queue.poll(pollMillis, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch, MAX_BATCH - 1);
+          commit(batch);
+          batch.clear();
+        }
+        if (config.getFsyncPolicy() == FsyncPolicy.INTERVAL && dirty
+            && System.currentTimeMillis() - lastForceMillis >= config.getFsyncIntervalMillis()) {
+          force();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (IOException e) {
+        System.err.println("Error forcing write-ahead log: " + e.getMessage());
+      }
+    }
+  }
+
+  private void commit(List<PendingWrite> batch) {
+    int size = 0;
+    for (PendingWrite write : batch) {
+      size += FRAME_HEADER_BYTES + write.body.length;
+    }
+    try {
+      if (segment == null || (segmentSize > 0 && segmentSize + size > config.getSegmentSizeBytes())) {
+        rollSegment(lastSequence + 1);
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(size);
+      long sequence = lastSequence;
+      CRC32 crc = new CRC32();
+      for (PendingWrite write : batch) {
+        write.sequence = ++sequence;
+        crc.reset();
+        ByteBuffer sequenceBytes = ByteBuffer.allocate(8).putLong(0, write.sequence);
+        crc.update(sequenceBytes);
+        crc.update(write.body);
+        buffer.putInt(8 + write.body.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.putLong(write.sequence);
+        buffer.put(write.body);
+      }
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        segment.write(buffer);
+      }
+      segmentSize += size;
+      lastSequence = sequence;
+      dirty = true;
+      if (config.getFsyncPolicy() == FsyncPolicy.EVERY_WRITE) {
+        force();
+      }
+      for (PendingWrite write : batch) {
+        write.future.complete(write.sequence);
+      }
+    } catch (IOException e) {
+      try {
+        // Drop any partially written frames so later commits stay readable.
+        segment.truncate(segmentSize);
+        segment.position(segmentSize);
+      } catch (IOException | RuntimeException ignored) {
+        // the next recovery truncates the torn tail instead
+      }
+      PersistenceException failure = new PersistenceException("Unable to append to write-ahead log", e);
+      for (PendingWrite write : batch) {
+        write.future.completeExceptionally(failure);
+      }
+    }
+  }
+
+  private void force() throws IOException {
+    segment.force(false);
+    dirty = false;
+    lastForceMillis = System.currentTimeMillis();
+  }
+
+  private void rollSegment(long firstSequence) throws IOException {
+    if (segment != null) {
+      segment.force(false);
+      segment.close();
+    }
+    Path path = config.getDirectory().resolve(
+        String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    segmentSize = segment.size();
+    segment.position(segmentSize);
+  }
+
+  private long replaySegment(Path path, long afterSequence, boolean last,
+                             BiConsumer<Long, LogRecord> consumer) throws IOException {
+    long lastSeen = 0;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+      while (data.hasRemaining() && channel.read(data) >= 0) {
+        // keep reading until the whole segment is buffered
+      }
+      data.flip();
+      CRC32 crc = new CRC32();
+      while (data.remaining() >= FRAME_HEADER_BYTES) {
+        int frameStart = data.position();
+        int length = data.getInt();
+        int checksum = data.getInt();
+        if (length < 8 || length > data.remaining()) {
+          data.position(frameStart);
+          break;
+        }
+        ByteBuffer frame = data.slice(data.position(), length);
+        crc.reset();
+        crc.update(frame.duplicate());
+        if ((int) crc.getValue() != checksum) {
+          data.position(frameStart);
+          break;
+        }
+        long sequence = frame.getLong();
+        data.position(data.position() + length);
+        lastSeen = sequence;
+        if (sequence > afterSequence) {
+          consumer.accept(sequence, LogRecord.decode(frame));
+        }
+      }
+      if (data.hasRemaining()) {
+        if (!last) {
+          throw new PersistenceException("Corrupt record in log segment " + path.getFileName());
+        }
+        System.err.println("Truncating torn write-ahead log tail in " + path.getFileName()
+            + " at byte " + data.position());
+        channel.truncate(data.position());
+      }
+    }
+    return lastSeen;
+  }
+
+  private List<Path> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(config.getDirectory())) {
+      return files
+          .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+              && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static long firstSequenceOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+        name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private static final class PendingWrite {
+    private final byte[] body;
+    private final CompletableFuture<Long> future;
+    private long sequence;
+
+    private PendingWrite(byte[] body) {
+      this.body = body;
+      this.future = new CompletableFuture<>();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package org.url.shortener.persistence;
+
+import java.nio.file.Path;
+
+public class WriteAheadLogConfig {
+  private static final long DEFAULT_SEGMENT_SIZE_BYTES = 64L * 1024 * 1024;
+
+  private final Path directory;
+  private final FsyncPolicy fsyncPolicy;
+  private final long fsyncIntervalMillis;
+  private final long segmentSizeBytes;
+
+  public WriteAheadLogConfig(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+    this(directory, fsyncPolicy, fsyncIntervalMillis, DEFAULT_SEGMENT_SIZE_BYTES);
+  }
+
+  public WriteAheadLogConfig(Path directory, FsyncPolicy fsyncPolicy,
+                             long fsyncIntervalMillis, long segmentSizeBytes) {
+    if (directory == null) {
+      throw new IllegalArgumentException("Log directory cannot be null");
+    }
+    if (fsyncPolicy == null) {
+      throw new IllegalArgumentException("Fsync policy cannot be null");
+    }
+    if (fsyncPolicy == FsyncPolicy.INTERVAL && fsyncIntervalMillis <= 0) {
+      throw new IllegalArgumentException("Fsync interval must be positive");
+    }
+    if (segmentSizeBytes <= 0 || segmentSizeBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Segment size must be positive and below 2 GiB");
+    }
+    this.directory = directory;
+    this.fsyncPolicy = fsyncPolicy;
+    this.fsyncIntervalMillis = fsyncIntervalMillis;
+    this.segmentSizeBytes = segmentSizeBytes;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public FsyncPolicy getFsyncPolicy() {
+    return fsyncPolicy;
+  }
+
+  public long getFsyncIntervalMillis() {
+    return fsyncIntervalMillis;
+  }
+
+  public long getSegmentSizeBytes() {
+    return segmentSizeBytes;
+  }
+}
@@ -0,0 +1,450 @@
+package org.url.shortener.replication;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import org.url.shortener.exception.NotLeaderException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.persistence.LogRecord;
+import org.url.shortener.repository.URLRepository;
+
+/**
+ * Read-only replica fed by a {@link LeaderRepository}. The "Replication-Follower-Thread"
+ * long-polls the leader's log and applies it to the local repository, which then serves
+ * reads without touching the leader. Writes are refused with {@link NotLeaderException}
+ * and the expiry sweep is left to the leader, whose removes arrive through the log.
+ *
+ * <p>The follower counts as fresh while it has been caught up with the leader's head
+ * within the staleness bound. A follower staler than that answers {@link #get} from the
+ * leader, and only falls back to its own copy when the leader cannot be reached. After a
+ * failed leader read it stops asking for a backoff period and serves its own copy at once,
+ * so a dead leader costs one timeout per period rather than one per read.
+ *
+ * <p>With an offset file, the epoch and offset of the last applied record are kept next to
+ * a durable local repository, so a restarted follower resumes from that offset. It loads
+ * a snapshot instead when it has no offset, the leader was restarted, or the leader no
+ * longer retains the records it needs. Replayed records are applied idempotently.
+ */
+public class FollowerRepository implements URLRepository, Closeable {
+
+  public static final long DEFAULT_STALENESS_BOUND_MILLIS = 5000;
+
+  private static final int MAX_RECORDS_PER_POLL = 1000;
+  private static final int SNAPSHOT_BATCH = 1000;
+  private static final long RETRY_DELAY_MILLIS = 1000;
+  private static final Duration LEADER_READ_TIMEOUT = Duration.ofSeconds(1);
+  private static final long LEADER_READ_BACKOFF_MILLIS = 5000;
+
+  private final URLRepository local;
+  private final String leaderAddress;
+  private final String followerId;
+  private final long stalenessBoundMillis;
+  private final long pollWaitMillis;
+  private final Path offsetFile;
+  private final HttpClient http;
+  private final Thread replicator;
+  private final LongAdder appliedRecords;
+  private final LongAdder snapshotsLoaded;
+  private final LongAdder staleReads;
+  private final LongAdder leaderReadsSkipped;
+  private volatile boolean running;
+  private volatile String epoch;
+  private volatile long appliedOffset;
+  private volatile long leaderHeadOffset;
+  private volatile long caughtUpAtMillis;
+  private volatile long leaderReadsResumeAtMillis;
+
+  public FollowerRepository(URLRepository local, String leaderHost, int leaderPort) {
+    this(local, leaderHost, leaderPort, DEFAULT_STALENESS_BOUND_MILLIS, null);
+  }
+
+  /**
+   * @param offsetFile where the applied offset is kept across restarts, or null when the
+   *                   local repository does not survive them either
+   */
+  public FollowerRepository(URLRepository local, String leaderHost, int leaderPort,
+                            long stalenessBoundMillis, Path offsetFile) {
+    if (local == null) {
+      throw new IllegalArgumentException("URLRepository cannot be null");
+    }
+    if (stalenessBoundMillis <= 0) {
+      throw new IllegalArgumentException("Staleness bound must be positive");
+    }
+    this.local = local;
+    this.leaderAddress = "http://" + leaderHost + ":" + leaderPort;
+    this.followerId = localHostName() + "-" + ProcessHandle.current().pid();
+    this.stalenessBoundMillis = stalenessBoundMillis;
+    // Short enough that an idle leader still confirms freshness well within the bound.
+    this.pollWaitMillis = Math.max(10, Math.min(1000, stalenessBoundMillis / 2));
+    this.offsetFile = offsetFile;
+    this.http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(2))
+        .build();
+    this.appliedRecords = new LongAdder();
+    this.snapshotsLoaded = new LongAdder();
+    this.staleReads = new LongAdder();
+    this.leaderReadsSkipped = new LongAdder();
+    loadOffset();
+    this.running = true;
+    this.replicator = new Thread(this::replicate, "Replication-Follower-Thread");
+    replicator.setDaemon(true);
+    replicator.start();
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    throw notLeader();
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    if (!entries.isEmpty()) {
+      throw notLeader();
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    if (isWithinStalenessBound()) {
+      return local.get(shortUrlIdentifier);
+    }
+    staleReads.increment();
+    if (System.currentTimeMillis() < leaderReadsResumeAtMillis) {
+      leaderReadsSkipped.increment();
+      return local.get(shortUrlIdentifier);
+    }
+    try {
+      HttpResponse<byte[]> response = http.send(HttpRequest.newBuilder(URI.create(leaderAddress
+              + ReplicationProtocol.GET + "?id=" + ReplicationProtocol.encode(shortUrlIdentifier)))
+          .timeout(LEADER_READ_TIMEOUT)
+          .GET()
+          .build(), HttpResponse.BodyHandlers.ofByteArray());
+      if (response.statusCode() == ReplicationProtocol.OK) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+      }
+      if (response.statusCode() == ReplicationProtocol.NOT_FOUND) {
+        return null;
+      }
+    } catch (IOException e) {
+      // Leader unreachable: an old answer beats no answer for a redirect.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    leaderReadsResumeAtMillis = System.currentTimeMillis() + LEADER_READ_BACKOFF_MILLIS;
+    return local.get(shortUrlIdentifier);
+  }
+
+  @Override
+  public Map<String, String> getAll(Collection<String> shortUrlIdentifiers) {
+    return local.getAll(shortUrlIdentifiers);
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return local.exists(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    return local.getExpiry(shortUrlIdentifier);
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    throw notLeader();
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    if (!shortUrlIdentifiers.isEmpty()) {
+      throw notLeader();
+    }
+  }
+
+  /** Always empty: the leader sweeps and its removes are replicated. */
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    return List.of();
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    return List.of();
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    return local.findByLongUrl(longUrl);
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    local.forEachEntry(action);
+  }
+
+  public boolean isWithinStalenessBound() {
+    return System.currentTimeMillis() - caughtUpAtMillis <= stalenessBoundMillis;
+  }
+
+  public long getAppliedOffset() {
+    return appliedOffset;
+  }
+
+  public long getLeaderHeadOffset() {
+    return leaderHeadOffset;
+  }
+
+  /** Records the leader had, as of the last poll, that are not applied here yet. */
+  public long getLagRecords() {
+    return Math.max(0, leaderHeadOffset - appliedOffset);
+  }
+
+  /** Time since this follower was last caught up with the leader, or -1 if it never was. */
+  public long getLagMillis() {
+    long caughtUpAt = caughtUpAtMillis;
+    return caughtUpAt == 0 ? -1 : System.currentTimeMillis() - caughtUpAt;
+  }
+
+  public long getAppliedRecords() {
+    return appliedRecords.sum();
+  }
+
+  public long getSnapshotsLoaded() {
+    return snapshotsLoaded.sum();
+  }
+
+  /** Reads answered by the leader, or by a stale local copy, because the bound was exceeded. */
+  public long getStaleReads() {
+    return staleReads.sum();
+  }
+
+  /** Stale reads served locally without asking the leader, because a recent ask failed. */
+  public long getLeaderReadsSkipped() {
+    return leaderReadsSkipped.sum();
+  }
+
+  public String getFollowerId() {
+    return followerId;
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    replicator.interrupt();
+    try {
+      replicator.join(5000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (local instanceof Closeable) {
+      try {
+        ((Closeable) local).close();
+      } catch (IOException e) {
+        System.err.println("Failed to close replica repository: " + e.getMessage());
+      }
+    }
+  }
+
+  private void replicate() {
+    while (running) {
+      try {
+        if (epoch == null) {
+          loadSnapshot();
+        }
+        pollOnce();
+      } catch (IOException | RuntimeException e) {
+        if (!running) {
+          return;
+        }
+        System.err.println("Replication from " + leaderAddress + " failed, retrying: " + e);
+        sleepQuietly(RETRY_DELAY_MILLIS);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private void pollOnce() throws IOException, InterruptedException {
+    long from = appliedOffset;
+    URI uri = URI.create(leaderAddress + ReplicationProtocol.LOG
+        + "?follower=" + ReplicationProtocol.encode(followerId)
+        + "&epoch=" + ReplicationProtocol.encode(epoch)
+        + "&from=" + from
+        + "&max=" + MAX_RECORDS_PER_POLL
+        + "&wait=" + pollWaitMillis);
+    HttpResponse<byte[]> response = http.send(HttpRequest.newBuilder(uri)
+        .timeout(Duration.ofMillis(pollWaitMillis + 5000))
+        .GET()
+        .build(), HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() == ReplicationProtocol.GONE) {
+      System.out.println("Replication offset " + from + " of epoch " + epoch
+          + " is gone on the leader, loading a snapshot");
+      epoch = null;
+      return;
+    }
+    if (response.statusCode() != ReplicationProtocol.OK) {
+      throw new IOException("Leader answered " + response.statusCode());
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(response.body()))) {
+      in.readUTF();
+      long head = in.readLong();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        byte[] record = new byte[in.readInt()];
+        in.readFully(record);
+        apply(LogRecord.decode(ByteBuffer.wrap(record)));
+        appliedRecords.increment();
+      }
+      appliedOffset = from + count;
+      leaderHeadOffset = head;
+      if (appliedOffset >= head) {
+        caughtUpAtMillis = System.currentTimeMillis();
+      }
+      if (count > 0) {
+        saveOffset();
+      }
+    }
+  }
+
+  private void loadSnapshot() throws IOException, InterruptedException {
+    HttpResponse<InputStream> response = http.send(HttpRequest.newBuilder(
+            URI.create(leaderAddress + ReplicationProtocol.SNAPSHOT)).GET().build(),
+        HttpResponse.BodyHandlers.ofInputStream());
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(response.body(), 1 << 16))) {
+      if (response.statusCode() != ReplicationProtocol.OK) {
+        throw new IOException("Leader answered " + response.statusCode() + " for a snapshot");
+      }
+      String snapshotEpoch = in.readUTF();
+      long offset = in.readLong();
+      // Overwrite in place rather than clearing first, so reads keep working meanwhile.
+      Set<String> seen = new HashSet<>();
+      Map<String, LongUrl> batch = new LinkedHashMap<>();
+      while (in.readByte() == ReplicationProtocol.ENTRY) {
+        String shortUrlIdentifier = in.readUTF();
+        String url = in.readUTF();
+        LongUrl longUrl = new LongUrl(url, in.readLong());
+        seen.add(shortUrlIdentifier);
+        if (local.exists(shortUrlIdentifier)) {
+          upsert(shortUrlIdentifier, longUrl);
+        } else {
+          batch.put(shortUrlIdentifier, longUrl);
+          if (batch.size() == SNAPSHOT_BATCH) {
+            local.saveAll(batch);
+            batch.clear();
+          }
+        }
+      }
+      local.saveAll(batch);
+      List<String> dropped = new ArrayList<>();
+      local.forEachEntry((shortUrlIdentifier, longUrl) -> {
+        if (!seen.contains(shortUrlIdentifier)) {
+          dropped.add(shortUrlIdentifier);
+        }
+      });
+      local.removeAll(dropped);
+      epoch = snapshotEpoch;
+      appliedOffset = offset;
+      leaderHeadOffset = Math.max(leaderHeadOffset, offset);
+      snapshotsLoaded.increment();
+      saveOffset();
+      System.out.println("Loaded replication snapshot of " + seen.size() + " mappings at offset "
+          + offset + " of epoch " + snapshotEpoch + ", dropped " + dropped.size());
+    }
+  }
+
+  private void apply(LogRecord record) {
+    switch (record.getType()) {
+      case BATCH:
+        record.getRecords().forEach(this::apply);
+        break;
+      case SAVE:
+        upsert(record.getShortUrlIdentifier(), record.getLongUrl());
+        break;
+      default:
+        local.remove(record.getShortUrlIdentifier());
+    }
+  }
+
+  private void upsert(String shortUrlIdentifier, LongUrl longUrl) {
+    // A record may be replayed over a snapshot that already contains it.
+    if (local.exists(shortUrlIdentifier)) {
+      local.remove(shortUrlIdentifier);
+    }
+    local.save(shortUrlIdentifier, longUrl);
+  }
+
+  private void loadOffset() {
+    if (offsetFile == null || !Files.exists(offsetFile)) {
+      return;
+    }
+    try {
+      List<String> lines = Files.readAllLines(offsetFile, StandardCharsets.UTF_8);
+      if (lines.size() >= 2) {
+        this.epoch = lines.get(0).trim();
+        this.appliedOffset = Long.parseLong(lines.get(1).trim());
+        System.out.println("Resuming replication at offset " + appliedOffset + " of epoch " + epoch);
+      }
+    } catch (IOException | NumberFormatException e) {
+      System.err.println("Ignoring unreadable replication offset file: " + e.getMessage());
+      this.epoch = null;
+      this.appliedOffset = 0;
+    }
+  }
+
+  private void saveOffset() throws IOException {
+    if (offsetFile == null) {
+      return;
+    }
+    Files.createDirectories(offsetFile.toAbsolutePath().getParent());
+    Path temp = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+    Files.writeString(temp, epoch + "\n" + appliedOffset + "\n", StandardCharsets.UTF_8);
+    Files.move(temp, offsetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private NotLeaderException notLeader() {
+    return new NotLeaderException("This node is a read-only replica; send writes to the leader at "
+        + leaderAddress);
+  }
+
+  private static String localHostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "follower";
+    }
+  }
+
+  private static void sleepQuietly(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
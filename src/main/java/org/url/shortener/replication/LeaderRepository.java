@@ -0,0 +1,246 @@
+package org.url.shortener.replication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.persistence.LogRecord;
+import org.url.shortener.repository.LockStripes;
+import org.url.shortener.repository.URLRepository;
+
+/**
+ * Decorator for the node that accepts writes in leader–follower replication. Every
+ * mutation applied to the delegate is appended to a {@link ReplicationLog}, in the same
+ * format the write-ahead log uses, and followers pull the log from a
+ * {@link ReplicationServer}. Expired mappings are shipped as the removes the expiry sweep
+ * issues for them.
+ *
+ * <p>Writes hold their identifier's lock stripe across the delegate call and the append, so
+ * the log orders the mutations of each identifier as the delegate saw them while writes to
+ * other identifiers proceed, and share group commits, in parallel. Redirects never lock.
+ */
+public class LeaderRepository implements URLRepository, Closeable {
+
+  public static final int DEFAULT_RETAINED_RECORDS = 100_000;
+
+  private static final int LOCK_STRIPES = 64;
+
+  private final URLRepository delegate;
+  private final ReplicationLog log;
+  private final LockStripes locks;
+  private final Map<String, Long> followerOffsets;
+  private final ReplicationServer server;
+
+  public LeaderRepository(URLRepository delegate, int port) {
+    this(delegate, port, DEFAULT_RETAINED_RECORDS);
+  }
+
+  public LeaderRepository(URLRepository delegate, int port, int retainedRecords) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("URLRepository cannot be null");
+    }
+    this.delegate = delegate;
+    this.log = new ReplicationLog(retainedRecords);
+    this.locks = new LockStripes(LOCK_STRIPES);
+    this.followerOffsets = new ConcurrentHashMap<>();
+    this.server = new ReplicationServer(port, this);
+    server.start();
+    System.out.println("Replication leader serving followers on port " + server.getPort()
+        + " with epoch " + log.getEpoch());
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      delegate.save(shortUrlIdentifier, longURL);
+      log.append(LogRecord.save(shortUrlIdentifier, longURL).encode());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    List<LogRecord> records = new ArrayList<>(entries.size());
+    entries.forEach((shortUrlIdentifier, longURL) -> records.add(LogRecord.save(shortUrlIdentifier, longURL)));
+    BitSet held = locks.lockAll(entries.keySet());
+    try {
+      delegate.saveAll(entries);
+      log.append(LogRecord.batch(records).encode());
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    return delegate.get(shortUrlIdentifier);
+  }
+
+  @Override
+  public Map<String, String> getAll(Collection<String> shortUrlIdentifiers) {
+    return delegate.getAll(shortUrlIdentifiers);
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return delegate.exists(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    return delegate.getExpiry(shortUrlIdentifier);
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    return delegate.getLink(shortUrlIdentifier);
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      delegate.remove(shortUrlIdentifier);
+      log.append(LogRecord.remove(shortUrlIdentifier).encode());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    if (shortUrlIdentifiers.isEmpty()) {
+      return;
+    }
+    List<LogRecord> records = new ArrayList<>(shortUrlIdentifiers.size());
+    shortUrlIdentifiers.forEach(shortUrlIdentifier -> records.add(LogRecord.remove(shortUrlIdentifier)));
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      delegate.removeAll(shortUrlIdentifiers);
+      log.append(LogRecord.batch(records).encode());
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    return delegate.getAllExpired(timeStamp);
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    return delegate.pollExpired(timeStamp);
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    delegate.rescheduleExpiry(shortUrlIdentifiers);
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    return delegate.findByLongUrl(longUrl);
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    delegate.forEachEntry(action);
+  }
+
+  public String getEpoch() {
+    return log.getEpoch();
+  }
+
+  public long getHeadOffset() {
+    return log.getHead();
+  }
+
+  public int getPort() {
+    return server.getPort();
+  }
+
+  /**
+   * Records each follower has yet to fetch, by follower id, as of its last poll.
+   */
+  public Map<String, Long> getFollowerLag() {
+    long head = log.getHead();
+    Map<String, Long> lag = new LinkedHashMap<>();
+    followerOffsets.forEach((follower, offset) -> lag.put(follower, Math.max(0, head - offset)));
+    return lag;
+  }
+
+  @Override
+  public void close() {
+    server.stop();
+    if (delegate instanceof Closeable) {
+      try {
+        ((Closeable) delegate).close();
+      } catch (IOException e) {
+        System.err.println("Failed to close replicated repository: " + e.getMessage());
+      }
+    }
+  }
+
+  ReplicationLog getLog() {
+    return log;
+  }
+
+  void recordFollowerOffset(String follower, long offset) {
+    followerOffsets.put(follower, offset);
+  }
+
+  /**
+   * Writes a snapshot: the log offset it starts from, then every mapping. The offset is
+   * taken with every stripe held, so every mutation up to it is in the delegate; mutations
+   * after it may or may not be seen by the walk, and replaying them is idempotent.
+   */
+  void writeSnapshot(SnapshotHeader header, SnapshotEntry entry) throws IOException {
+    long offset;
+    BitSet held = locks.lockEverything();
+    try {
+      offset = log.getHead();
+    } finally {
+      locks.unlockAll(held);
+    }
+    header.write(log.getEpoch(), offset);
+    try {
+      delegate.forEachEntry((shortUrlIdentifier, longUrl) -> {
+        try {
+          entry.write(shortUrlIdentifier, longUrl);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  @FunctionalInterface
+  interface SnapshotHeader {
+    void write(String epoch, long offset) throws IOException;
+  }
+
+  @FunctionalInterface
+  interface SnapshotEntry {
+    void write(String shortUrlIdentifier, LongUrl longUrl) throws IOException;
+  }
+}
@@ -0,0 +1,91 @@
+package org.url.shortener.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The leader's ordered log of encoded mutations, numbered from 1. Only the newest records
+ * are retained, in a ring indexed by offset; a follower that falls further behind than
+ * that has to start over from a snapshot. Each log carries a random epoch, so a follower
+ * notices when the leader was restarted and its offsets no longer mean the same thing.
+ */
+final class ReplicationLog {
+
+  private final String epoch;
+  private final byte[][] records;
+  private final ReentrantLock lock;
+  private final Condition appended;
+  // Offset of the newest record; record n lives in slot (n - 1) % records.length.
+  private long head;
+
+  ReplicationLog(int retainedRecords) {
+    if (retainedRecords <= 0) {
+      throw new IllegalArgumentException("Retained record count must be positive");
+    }
+    this.epoch = UUID.randomUUID().toString();
+    this.records = new byte[retainedRecords][];
+    this.lock = new ReentrantLock();
+    this.appended = lock.newCondition();
+  }
+
+  String getEpoch() {
+    return epoch;
+  }
+
+  long append(byte[] record) {
+    lock.lock();
+    try {
+      records[(int) (head % records.length)] = record;
+      head++;
+      appended.signalAll();
+      return head;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  long getHead() {
+    lock.lock();
+    try {
+      return head;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns up to {@code max} records after the offset, waiting up to the timeout for one
+   * to be appended when there is none yet.
+   *
+   * @return the records, or null if records after the offset are no longer retained
+   */
+  List<byte[]> readAfter(long offset, int max, long waitMillis) throws InterruptedException {
+    lock.lock();
+    try {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+      while (head <= offset) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          break;
+        }
+        appended.awaitNanos(remaining);
+      }
+      long oldest = Math.max(1, head - records.length + 1);
+      if (offset + 1 < oldest || offset > head) {
+        return null;
+      }
+      long last = Math.min(head, offset + max);
+      List<byte[]> batch = new ArrayList<>((int) (last - offset));
+      for (long next = offset + 1; next <= last; next++) {
+        batch.add(records[(int) ((next - 1) % records.length)]);
+      }
+      return batch;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
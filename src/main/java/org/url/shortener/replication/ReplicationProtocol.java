@@ -0,0 +1,60 @@
+package org.url.shortener.replication;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Endpoints the leader serves to followers.
+ * <ul>
+ *   <li>{@code GET /replication/log?follower=&epoch=&from=&max=&wait=}: up to {@code max}
+ *       records after offset {@code from}, long-polling up to {@code wait} ms for the first.
+ *       Body: {@code [utf epoch][long head][int count]} then {@code [int length][record]}
+ *       per record, the first being offset {@code from + 1}. 410 when the epoch differs
+ *       or the records are no longer retained.</li>
+ *   <li>{@code GET /replication/snapshot}: every mapping, streamed as
+ *       {@code [utf epoch][long offset]} then {@code [byte 1][utf id][utf url][long expiry]}
+ *       per entry and a final {@code [byte 0]}. Replaying the log after {@code offset}
+ *       over it yields the leader's state.</li>
+ *   <li>{@code GET /replication/get?id=}: the long URL as UTF-8, or 404; used by followers
+ *       that are staler than their bound.</li>
+ * </ul>
+ */
+final class ReplicationProtocol {
+
+  static final String LOG = "/replication/log";
+  static final String SNAPSHOT = "/replication/snapshot";
+  static final String GET = "/replication/get";
+
+  static final int OK = 200;
+  static final int NOT_FOUND = 404;
+  static final int GONE = 410;
+  static final int ERROR = 500;
+
+  static final byte ENTRY = 1;
+  static final byte END = 0;
+
+  private ReplicationProtocol() {
+  }
+
+  static Map<String, String> parseQuery(String query) {
+    Map<String, String> parameters = new HashMap<>();
+    if (query == null || query.isEmpty()) {
+      return parameters;
+    }
+    for (String pair : query.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals > 0) {
+        parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+            URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return parameters;
+  }
+
+  static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,13 @@
+package org.url.shortener.replication;
+
+/**
+ * The part a node plays in leader–follower replication.
+ */
+public enum ReplicationRole {
+  /** No replication; the node serves reads and writes on its own. */
+  NONE,
+  /** Accepts writes and ships them to followers. */
+  LEADER,
+  /** Serves reads from a copy of the leader's data and refuses writes. */
+  FOLLOWER
+}
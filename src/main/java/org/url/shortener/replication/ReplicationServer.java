@@ -0,0 +1,167 @@
+package org.url.shortener.replication;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves {@link ReplicationProtocol} for a {@link LeaderRepository} on the JDK HTTP server,
+ * on a port of its own. Long polls park a server thread each, so the pool is sized for a
+ * handful of followers rather than for request throughput.
+ */
+final class ReplicationServer {
+
+  private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+  private static final int MAX_RECORDS_PER_POLL = 1000;
+  private static final long MAX_WAIT_MILLIS = 30_000;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final LeaderRepository leader;
+
+  ReplicationServer(int port, LeaderRepository leader) {
+    // See ClusterServer: without it every response waits for a delayed ACK.
+    if (System.getProperty(NODELAY_PROPERTY) == null) {
+      System.setProperty(NODELAY_PROPERTY, "true");
+    }
+    this.leader = leader;
+    try {
+      this.server = HttpServer.create(new InetSocketAddress(port), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to bind replication endpoint on port " + port, e);
+    }
+    AtomicInteger threads = new AtomicInteger();
+    this.executor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "Replication-Server-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext(ReplicationProtocol.LOG, guarded(this::serveLog));
+    server.createContext(ReplicationProtocol.SNAPSHOT, guarded(this::serveSnapshot));
+    server.createContext(ReplicationProtocol.GET, guarded(this::serveGet));
+  }
+
+  void start() {
+    server.start();
+  }
+
+  int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void serveLog(HttpExchange exchange) throws IOException {
+    Map<String, String> query = ReplicationProtocol.parseQuery(exchange.getRequestURI().getRawQuery());
+    ReplicationLog log = leader.getLog();
+    long from = Long.parseLong(query.getOrDefault("from", "0"));
+    int max = Math.min(MAX_RECORDS_PER_POLL, Integer.parseInt(query.getOrDefault("max", "100")));
+    long wait = Math.min(MAX_WAIT_MILLIS, Long.parseLong(query.getOrDefault("wait", "0")));
+    String follower = query.get("follower");
+    if (!log.getEpoch().equals(query.get("epoch"))) {
+      respond(exchange, ReplicationProtocol.GONE, new byte[0]);
+      return;
+    }
+    if (follower != null) {
+      leader.recordFollowerOffset(follower, from);
+    }
+    List<byte[]> records;
+    try {
+      records = log.readAfter(from, max, wait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      respond(exchange, ReplicationProtocol.ERROR, new byte[0]);
+      return;
+    }
+    if (records == null) {
+      respond(exchange, ReplicationProtocol.GONE, new byte[0]);
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(log.getEpoch());
+      // The head is read after the batch, so it is never behind the records sent.
+      out.writeLong(log.getHead());
+      out.writeInt(records.size());
+      for (byte[] record : records) {
+        out.writeInt(record.length);
+        out.write(record);
+      }
+    }
+    respond(exchange, ReplicationProtocol.OK, bytes.toByteArray());
+  }
+
+  private void serveSnapshot(HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+    // Chunked: the entry count is not known until the walk is over.
+    exchange.sendResponseHeaders(ReplicationProtocol.OK, 0);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(exchange.getResponseBody(), 1 << 16))) {
+      leader.writeSnapshot((epoch, offset) -> {
+        out.writeUTF(epoch);
+        out.writeLong(offset);
+      }, (shortUrlIdentifier, longUrl) -> {
+        out.writeByte(ReplicationProtocol.ENTRY);
+        out.writeUTF(shortUrlIdentifier);
+        out.writeUTF(longUrl.getUrl());
+        out.writeLong(longUrl.getExpiry());
+      });
+      out.writeByte(ReplicationProtocol.END);
+    }
+  }
+
+  private void serveGet(HttpExchange exchange) throws IOException {
+    String shortUrlIdentifier = ReplicationProtocol.parseQuery(exchange.getRequestURI().getRawQuery()).get("id");
+    String longUrl = shortUrlIdentifier != null ? leader.get(shortUrlIdentifier) : null;
+    if (longUrl == null) {
+      respond(exchange, ReplicationProtocol.NOT_FOUND, new byte[0]);
+      return;
+    }
+    respond(exchange, ReplicationProtocol.OK, longUrl.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static HttpHandler guarded(HttpHandler handler) {
+    return exchange -> {
+      try {
+        handler.handle(exchange);
+      } catch (RuntimeException e) {
+        System.err.println("Replication request " + exchange.getRequestURI() + " failed: " + e);
+        respond(exchange, ReplicationProtocol.ERROR, new byte[0]);
+      } finally {
+        exchange.close();
+      }
+    };
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    if (body.length > 0) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+}
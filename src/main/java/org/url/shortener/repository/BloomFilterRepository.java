@@ -0,0 +1,236 @@
+package org.url.shortener.repository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Decorator that answers lookups for identifiers that cannot exist without touching the
+ * delegate. A {@link CountingBloomFilter} tracks every stored identifier; a definite miss
+ * returns straight away, so random codes from scanners never reach the index, a disk tier
+ * or a remote shard. Writes to the same identifier are serialized on a lock stripe so the
+ * filter is only decremented for identifiers that were actually stored.
+ *
+ * <p>When the number of identifiers outgrows the filter it is rebuilt at twice the size
+ * from {@link URLRepository#forEachEntry}, with all stripes held.
+ */
+public class BloomFilterRepository implements URLRepository {
+
+  private static final int LOCK_STRIPES = 64;
+
+  private final URLRepository delegate;
+  private final double falsePositiveRate;
+  private final LockStripes locks;
+  private final AtomicLong size;
+  private final AtomicBoolean rebuilding;
+  private volatile CountingBloomFilter filter;
+  private volatile long capacity;
+  private final AtomicLong shortCircuited;
+
+  public BloomFilterRepository(URLRepository delegate, long expectedInsertions,
+                               double falsePositiveRate) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("URLRepository cannot be null");
+    }
+    this.delegate = delegate;
+    this.falsePositiveRate = falsePositiveRate;
+    this.locks = new LockStripes(LOCK_STRIPES);
+    this.size = new AtomicLong();
+    this.rebuilding = new AtomicBoolean();
+    this.shortCircuited = new AtomicLong();
+    AtomicLong existing = new AtomicLong();
+    delegate.forEachEntry((shortUrlIdentifier, longUrl) -> existing.incrementAndGet());
+    rebuild(Math.max(expectedInsertions, existing.get() * 2));
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      // Add first so the identifier is never invisible to a reader once it is stored.
+      filter.add(shortUrlIdentifier);
+      try {
+        delegate.save(shortUrlIdentifier, longURL);
+      } catch (RuntimeException e) {
+        filter.remove(shortUrlIdentifier);
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (size.incrementAndGet() > capacity) {
+      growIfNeeded();
+    }
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    BitSet held = locks.lockAll(entries.keySet());
+    try {
+      entries.keySet().forEach(filter::add);
+      try {
+        delegate.saveAll(entries);
+      } catch (RuntimeException e) {
+        entries.keySet().forEach(filter::remove);
+        throw e;
+      }
+    } finally {
+      locks.unlockAll(held);
+    }
+    if (size.addAndGet(entries.size()) > capacity) {
+      growIfNeeded();
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    if (!filter.mightContain(shortUrlIdentifier)) {
+      shortCircuited.incrementAndGet();
+      return null;
+    }
+    return delegate.get(shortUrlIdentifier);
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    if (!filter.mightContain(shortUrlIdentifier)) {
+      shortCircuited.incrementAndGet();
+      return false;
+    }
+    return delegate.exists(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    if (!filter.mightContain(shortUrlIdentifier)) {
+      shortCircuited.incrementAndGet();
+      return -1;
+    }
+    return delegate.getExpiry(shortUrlIdentifier);
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    if (!filter.mightContain(shortUrlIdentifier)) {
+      shortCircuited.incrementAndGet();
+      return null;
+    }
+    return delegate.getLink(shortUrlIdentifier);
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      if (!delegate.exists(shortUrlIdentifier)) {
+        return;
+      }
+      delegate.remove(shortUrlIdentifier);
+      filter.remove(shortUrlIdentifier);
+      size.decrementAndGet();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Map<String, String> getAll(Collection<String> shortUrlIdentifiers) {
+    List<String> candidates = new ArrayList<>(shortUrlIdentifiers.size());
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      if (filter.mightContain(shortUrlIdentifier)) {
+        candidates.add(shortUrlIdentifier);
+      } else {
+        shortCircuited.incrementAndGet();
+      }
+    }
+    return delegate.getAll(candidates);
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      List<String> present = new ArrayList<>(shortUrlIdentifiers.size());
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        if (delegate.exists(shortUrlIdentifier)) {
+          present.add(shortUrlIdentifier);
+        }
+      }
+      delegate.removeAll(present);
+      present.forEach(filter::remove);
+      size.addAndGet(-present.size());
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    return delegate.getAllExpired(timeStamp);
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    return delegate.pollExpired(timeStamp);
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    delegate.rescheduleExpiry(shortUrlIdentifiers);
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    return delegate.findByLongUrl(longUrl);
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    delegate.forEachEntry(action);
+  }
+
+  /** Lookups answered by the filter alone. */
+  public long getShortCircuitedLookups() {
+    return shortCircuited.get();
+  }
+
+  private void growIfNeeded() {
+    if (!rebuilding.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      if (size.get() > capacity) {
+        rebuild(capacity * 2);
+      }
+    } finally {
+      rebuilding.set(false);
+    }
+  }
+
+  private void rebuild(long newCapacity) {
+    BitSet held = locks.lockEverything();
+    try {
+      CountingBloomFilter rebuilt = new CountingBloomFilter(newCapacity, falsePositiveRate);
+      AtomicLong count = new AtomicLong();
+      delegate.forEachEntry((shortUrlIdentifier, longUrl) -> {
+        rebuilt.add(shortUrlIdentifier);
+        count.incrementAndGet();
+      });
+      size.set(count.get());
+      capacity = newCapacity;
+      filter = rebuilt;
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+}
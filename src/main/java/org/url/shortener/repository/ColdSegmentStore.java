@@ -0,0 +1,392 @@
+package org.url.shortener.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.strategy.Base62Codec;
+
+/**
+ * Cold tier of {@link TieredRepository}: records appended to fixed-size, memory-mapped
+ * segment files as {@code [byte state][long expiry][short idLength][int urlLength][id][url]}
+ * and addressed by {@code segment << 32 | offset}. The heap only holds two primitive hash
+ * tables (identifier code and URL fingerprint to address), so a cold link costs about 32
+ * bytes of heap instead of its strings; the page cache decides which records stay in RAM.
+ *
+ * <p>Segments are scratch space, not a durable store: they are deleted on open and the
+ * tier is rebuilt by whatever recovers the repository. A sealed segment whose records are
+ * mostly removed is rewritten into the active one and deleted.
+ */
+final class ColdSegmentStore implements Closeable {
+
+  private static final String SEGMENT_PREFIX = "cold-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final int HEADER_BYTES = 1 + 8 + 2 + 4;
+  private static final int EXPIRY_OFFSET = 1;
+  private static final int ID_LENGTH_OFFSET = 9;
+  private static final int URL_LENGTH_OFFSET = 11;
+  private static final byte LIVE = 1;
+  private static final byte DEAD = 0;
+  private static final long MISSING = -1;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Path directory;
+  private final int segmentBytes;
+  private final List<Segment> segments = new ArrayList<>();
+  private final LongLongHashMap byCode = new LongLongHashMap();
+  private final Map<String, Long> byOverflowId = new HashMap<>();
+  private final LongLongHashMap byFingerprint = new LongLongHashMap();
+  private int nextSegmentNumber;
+
+  ColdSegmentStore(Path directory, int segmentBytes) {
+    if (segmentBytes < 1024) {
+      throw new IllegalArgumentException("Segment size must be at least 1 KiB");
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> stale = Files.list(directory)) {
+        for (Path path : (Iterable<Path>) stale::iterator) {
+          String name = path.getFileName().toString();
+          if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+            Files.delete(path);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to prepare cold segment directory " + directory, e);
+    }
+  }
+
+  /** Appends the mapping; the caller guarantees the identifier is not already stored. */
+  void put(String shortUrlIdentifier, LongUrl longUrl) {
+    byte[] id = shortUrlIdentifier.getBytes(StandardCharsets.UTF_8);
+    byte[] url = longUrl.getUrl().getBytes(StandardCharsets.UTF_8);
+    lock.writeLock().lock();
+    try {
+      long address = append(id, url, longUrl.getExpiry());
+      indexId(shortUrlIdentifier, address);
+      long fingerprint = UrlFingerprintIndex.fingerprint(longUrl.getUrl());
+      long owner = byFingerprint.get(fingerprint, MISSING);
+      // The first live URL keeps a colliding fingerprint, as in UrlFingerprintIndex.
+      if (owner == MISSING || readUrl(owner).equals(longUrl.getUrl())) {
+        byFingerprint.put(fingerprint, address);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  LongUrl get(String shortUrlIdentifier) {
+    lock.readLock().lock();
+    try {
+      long address = addressOf(shortUrlIdentifier);
+      return address == MISSING ? null : new LongUrl(readUrl(address), expiryAt(address));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  boolean contains(String shortUrlIdentifier) {
+    lock.readLock().lock();
+    try {
+      return addressOf(shortUrlIdentifier) != MISSING;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Removes the mapping and returns it, or null if it was not stored. */
+  LongUrl remove(String shortUrlIdentifier) {
+    lock.writeLock().lock();
+    try {
+      long address = addressOf(shortUrlIdentifier);
+      if (address == MISSING) {
+        return null;
+      }
+      String url = readUrl(address);
+      long expiry = expiryAt(address);
+      unindexId(shortUrlIdentifier);
+      long fingerprint = UrlFingerprintIndex.fingerprint(url);
+      if (byFingerprint.get(fingerprint, MISSING) == address) {
+        byFingerprint.remove(fingerprint);
+      }
+      Segment segment = segments.get(segmentOf(address));
+      segment.buffer.put(offsetOf(address), DEAD);
+      segment.deadBytes += recordBytes(segment, offsetOf(address));
+      reclaimIfMostlyDead(segment);
+      return new LongUrl(url, expiry);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  Optional<String> findByLongUrl(String longUrl) {
+    lock.readLock().lock();
+    try {
+      long address = byFingerprint.get(UrlFingerprintIndex.fingerprint(longUrl), MISSING);
+      if (address == MISSING || !readUrl(address).equals(longUrl)) {
+        return Optional.empty();
+      }
+      return Optional.of(readId(address));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Identifiers of live records due at or before the timestamp. Segments whose earliest
+   * expiry is later are skipped without touching their pages.
+   */
+  List<String> expired(long timeStamp) {
+    List<String> expired = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      for (Segment segment : segments) {
+        if (segment != null && segment.minExpiry <= timeStamp) {
+          forEachLive(segment, (offset, expiry) -> {
+            if (expiry <= timeStamp) {
+              expired.add(readId(address(segment.number, offset)));
+            }
+          });
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return expired;
+  }
+
+  void forEach(BiConsumer<String, LongUrl> action) {
+    lock.readLock().lock();
+    try {
+      for (Segment segment : segments) {
+        if (segment != null) {
+          forEachLive(segment, (offset, expiry) -> {
+            long address = address(segment.number, offset);
+            action.accept(readId(address), new LongUrl(readUrl(address), expiry));
+          });
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  long size() {
+    lock.readLock().lock();
+    try {
+      return byCode.size() + byOverflowId.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Bytes of mapped segment files, including removed records not yet reclaimed. */
+  long mappedBytes() {
+    lock.readLock().lock();
+    try {
+      long bytes = 0;
+      for (Segment segment : segments) {
+        bytes += segment != null ? segment.buffer.capacity() : 0;
+      }
+      return bytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      for (Segment segment : segments) {
+        if (segment != null) {
+          deleteQuietly(segment.path);
+        }
+      }
+      segments.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private long append(byte[] id, byte[] url, long expiry) {
+    int length = HEADER_BYTES + id.length + url.length;
+    if (length > segmentBytes) {
+      throw new IllegalArgumentException("Mapping does not fit in a cold segment: " + length + " bytes");
+    }
+    Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    if (active == null || active.writeOffset + length > segmentBytes) {
+      active = openSegment();
+    }
+    int offset = active.writeOffset;
+    MappedByteBuffer buffer = active.buffer;
+    buffer.put(offset, LIVE);
+    buffer.putLong(offset + EXPIRY_OFFSET, expiry);
+    buffer.putShort(offset + ID_LENGTH_OFFSET, (short) id.length);
+    buffer.putInt(offset + URL_LENGTH_OFFSET, url.length);
+    buffer.put(offset + HEADER_BYTES, id);
+    buffer.put(offset + HEADER_BYTES + id.length, url);
+    active.writeOffset += length;
+    active.minExpiry = Math.min(active.minExpiry, expiry);
+    return address(active.number, offset);
+  }
+
+  private Segment openSegment() {
+    int number = nextSegmentNumber++;
+    Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      Segment segment = new Segment(number, path,
+          channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+      while (segments.size() < number) {
+        segments.add(null);
+      }
+      segments.add(segment);
+      return segment;
+    } catch (IOException e) {
+      throw new PersistenceException("Unable to create cold segment " + path.getFileName(), e);
+    }
+  }
+
+  /** Moves the live records of a sealed, mostly removed segment and deletes its file. */
+  private void reclaimIfMostlyDead(Segment segment) {
+    boolean sealed = segment.number != segments.size() - 1;
+    if (!sealed || segment.deadBytes * 2 < segment.writeOffset) {
+      return;
+    }
+    forEachLive(segment, (offset, expiry) -> {
+      long from = address(segment.number, offset);
+      String shortUrlIdentifier = readId(from);
+      String url = readUrl(from);
+      long to = append(shortUrlIdentifier.getBytes(StandardCharsets.UTF_8),
+          url.getBytes(StandardCharsets.UTF_8), expiry);
+      indexId(shortUrlIdentifier, to);
+      long fingerprint = UrlFingerprintIndex.fingerprint(url);
+      if (byFingerprint.get(fingerprint, MISSING) == from) {
+        byFingerprint.put(fingerprint, to);
+      }
+    });
+    segments.set(segment.number, null);
+    deleteQuietly(segment.path);
+  }
+
+  private void forEachLive(Segment segment, RecordVisitor visitor) {
+    int offset = 0;
+    while (offset < segment.writeOffset) {
+      int length = recordBytes(segment, offset);
+      if (segment.buffer.get(offset) == LIVE) {
+        visitor.visit(offset, segment.buffer.getLong(offset + EXPIRY_OFFSET));
+      }
+      offset += length;
+    }
+  }
+
+  private long addressOf(String shortUrlIdentifier) {
+    long code = Base62Codec.encode(shortUrlIdentifier);
+    if (code == Base62Codec.NOT_ENCODABLE) {
+      return byOverflowId.getOrDefault(shortUrlIdentifier, MISSING);
+    }
+    return byCode.get(code, MISSING);
+  }
+
+  private void indexId(String shortUrlIdentifier, long address) {
+    long code = Base62Codec.encode(shortUrlIdentifier);
+    if (code == Base62Codec.NOT_ENCODABLE) {
+      byOverflowId.put(shortUrlIdentifier, address);
+    } else {
+      byCode.put(code, address);
+    }
+  }
+
+  private void unindexId(String shortUrlIdentifier) {
+    long code = Base62Codec.encode(shortUrlIdentifier);
+    if (code == Base62Codec.NOT_ENCODABLE) {
+      byOverflowId.remove(shortUrlIdentifier);
+    } else {
+      byCode.remove(code);
+    }
+  }
+
+  private long expiryAt(long address) {
+    return segments.get(segmentOf(address)).buffer.getLong(offsetOf(address) + EXPIRY_OFFSET);
+  }
+
+  private String readId(long address) {
+    MappedByteBuffer buffer = segments.get(segmentOf(address)).buffer;
+    int offset = offsetOf(address);
+    byte[] id = new byte[buffer.getShort(offset + ID_LENGTH_OFFSET)];
+    buffer.get(offset + HEADER_BYTES, id);
+    return new String(id, StandardCharsets.UTF_8);
+  }
+
+  private String readUrl(long address) {
+    MappedByteBuffer buffer = segments.get(segmentOf(address)).buffer;
+    int offset = offsetOf(address);
+    short idLength = buffer.getShort(offset + ID_LENGTH_OFFSET);
+    byte[] url = new byte[buffer.getInt(offset + URL_LENGTH_OFFSET)];
+    buffer.get(offset + HEADER_BYTES + idLength, url);
+    return new String(url, StandardCharsets.UTF_8);
+  }
+
+  private static int recordBytes(Segment segment, int offset) {
+    return HEADER_BYTES + segment.buffer.getShort(offset + ID_LENGTH_OFFSET)
+        + segment.buffer.getInt(offset + URL_LENGTH_OFFSET);
+  }
+
+  private static long address(int segment, int offset) {
+    return (long) segment << 32 | offset;
+  }
+
+  private static int segmentOf(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int offsetOf(long address) {
+    return (int) address;
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      System.err.println("Unable to delete cold segment " + path.getFileName() + ": " + e.getMessage());
+    }
+  }
+
+  @FunctionalInterface
+  private interface RecordVisitor {
+    void visit(int offset, long expiry);
+  }
+
+  private static final class Segment {
+    private final int number;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private int writeOffset;
+    private int deadBytes;
+    private long minExpiry = Long.MAX_VALUE;
+
+    private Segment(int number, Path path, MappedByteBuffer buffer) {
+      this.number = number;
+      this.path = path;
+      this.buffer = buffer;
+    }
+  }
+}
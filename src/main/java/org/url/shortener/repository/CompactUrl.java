@@ -0,0 +1,33 @@
+package org.url.shortener.repository;
+
+/**
+ * Stored form of a long URL: the id of a shared prefix in a {@link UrlDictionary} plus the
+ * UTF-8 bytes of the remainder. Use the dictionary that created it to rebuild the URL.
+ */
+public final class CompactUrl {
+  private final int prefixId;
+  private final byte[] suffix;
+  private final long expiry;
+
+  CompactUrl(int prefixId, byte[] suffix, long expiry) {
+    this.prefixId = prefixId;
+    this.suffix = suffix;
+    this.expiry = expiry;
+  }
+
+  public int getPrefixId() {
+    return prefixId;
+  }
+
+  public long getExpiry() {
+    return expiry;
+  }
+
+  int getSuffixLength() {
+    return suffix.length;
+  }
+
+  byte[] suffix() {
+    return suffix;
+  }
+}
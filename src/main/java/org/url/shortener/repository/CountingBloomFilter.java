@@ -0,0 +1,111 @@
+package org.url.shortener.repository;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter with 4-bit counters instead of bits, so keys can be removed again when
+ * links are deleted or expire. Sixteen counters are packed per {@code long} and updated
+ * with compare-and-set, so adds, removes and lookups run concurrently without locks.
+ *
+ * <p>A counter that reaches 15 sticks there: decrementing it could produce false negatives
+ * for other keys sharing it. Callers must only remove keys they previously added.
+ */
+public class CountingBloomFilter {
+
+  private static final int COUNTERS_PER_WORD = 16;
+  private static final long MAX_COUNT = 15;
+
+  private final AtomicLongArray words;
+  private final long counterMask;
+  private final int hashCount;
+
+  /**
+   * @param expectedInsertions number of keys the filter is sized for
+   * @param falsePositiveRate target false-positive probability at that size
+   */
+  public CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions <= 0) {
+      throw new IllegalArgumentException("Expected insertions must be positive");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+    }
+    double optimalCounters = -expectedInsertions * Math.log(falsePositiveRate)
+        / (Math.log(2) * Math.log(2));
+    long counters = COUNTERS_PER_WORD;
+    while (counters < optimalCounters) {
+      counters <<= 1;
+    }
+    if (counters / COUNTERS_PER_WORD > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter too large for " + expectedInsertions + " keys");
+    }
+    this.words = new AtomicLongArray((int) (counters / COUNTERS_PER_WORD));
+    this.counterMask = counters - 1;
+    this.hashCount = Math.max(1, (int) Math.round(optimalCounters / expectedInsertions * Math.log(2)));
+  }
+
+  public void add(CharSequence key) {
+    long hash = UrlFingerprintIndex.fingerprint(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      update(counterIndex(h1, h2, i), 1);
+    }
+  }
+
+  public void remove(CharSequence key) {
+    long hash = UrlFingerprintIndex.fingerprint(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      update(counterIndex(h1, h2, i), -1);
+    }
+  }
+
+  /** False means the key was definitely never added (or has been removed). */
+  public boolean mightContain(CharSequence key) {
+    long hash = UrlFingerprintIndex.fingerprint(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      long index = counterIndex(h1, h2, i);
+      if (counter(words.get((int) (index >>> 4)), index) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int getHashCount() {
+    return hashCount;
+  }
+
+  public long getCounterCount() {
+    return counterMask + 1;
+  }
+
+  private long counterIndex(int h1, int h2, int i) {
+    // Kirsch-Mitzenmacher double hashing; the odd increment visits distinct counters.
+    return ((long) h1 + (long) i * (h2 | 1)) & counterMask;
+  }
+
+  private void update(long index, int delta) {
+    int word = (int) (index >>> 4);
+    int shift = (int) (index & (COUNTERS_PER_WORD - 1)) * 4;
+    while (true) {
+      long current = words.get(word);
+      long count = (current >>> shift) & MAX_COUNT;
+      if (count == MAX_COUNT || (delta < 0 && count == 0)) {
+        return;
+      }
+      long updated = current + ((long) delta << shift);
+      if (words.compareAndSet(word, current, updated)) {
+        return;
+      }
+    }
+  }
+
+  private static long counter(long word, long index) {
+    return (word >>> ((index & (COUNTERS_PER_WORD - 1)) * 4)) & MAX_COUNT;
+  }
+}
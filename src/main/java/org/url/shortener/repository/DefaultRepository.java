@@ -1,14 +1,10 @@
 package org.url.shortener.repository;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import org.springframework.stereotype.Repository;
 import org.url.shortener.exception.DuplicateUrlIdentifierException;
 import org.url.shortener.model.LongUrl;
@@ -16,36 +12,51 @@ import org.url.shortener.model.LongUrl;
 @Repository
 public class DefaultRepository implements URLRepository {
 
-  private final Map<String, LongUrl> shortToLongMap;
-  private final Map<String, String> longToShortMap;
-  private final TreeMap<Long, Set<String>> expiryMap;
+  private final ShortIdIndex<CompactUrl> shortToLongMap;
+  private final UrlDictionary dictionary;
+  private final UrlFingerprintIndex longToShortIndex;
+  private final ExpiryTimingWheel expiryWheel;
 
   public DefaultRepository() {
-    this.shortToLongMap = new ConcurrentHashMap<>();
-    this.longToShortMap = new ConcurrentHashMap<>();
-    this.expiryMap = new TreeMap<>();
+    this.shortToLongMap = new ShortIdIndex<>();
+    this.dictionary = new UrlDictionary();
+    this.longToShortIndex = new UrlFingerprintIndex(this::get);
+    this.expiryWheel = new ExpiryTimingWheel();
   }
 
   @Override
   public void save(String shortUrlIdentifier, LongUrl longURL) {
-    synchronized (expiryMap) {
-      if (shortToLongMap.containsKey(shortUrlIdentifier)) {
+    synchronized (expiryWheel) {
+      if (shortToLongMap.putIfAbsent(shortUrlIdentifier, dictionary.compress(longURL)) != null) {
         throw new DuplicateUrlIdentifierException(
             "URL identifier already exists: " + shortUrlIdentifier);
       }
-      shortToLongMap.put(shortUrlIdentifier, longURL);
-      longToShortMap.put(longURL.getUrl(), shortUrlIdentifier);
-      
-      Set<String> urlsAtExpiry = expiryMap.getOrDefault(longURL.getExpiry(), new HashSet<>());
-      urlsAtExpiry.add(shortUrlIdentifier);
-      expiryMap.put(longURL.getExpiry(), urlsAtExpiry);
+      longToShortIndex.put(longURL.getUrl(), shortUrlIdentifier);
+      expiryWheel.schedule(shortUrlIdentifier, longURL.getExpiry());
+    }
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    synchronized (expiryWheel) {
+      for (String shortUrlIdentifier : entries.keySet()) {
+        if (shortToLongMap.containsKey(shortUrlIdentifier)) {
+          throw new DuplicateUrlIdentifierException(
+              "URL identifier already exists: " + shortUrlIdentifier);
+        }
+      }
+      entries.forEach((shortUrlIdentifier, longURL) -> {
+        shortToLongMap.putIfAbsent(shortUrlIdentifier, dictionary.compress(longURL));
+        longToShortIndex.put(longURL.getUrl(), shortUrlIdentifier);
+        expiryWheel.schedule(shortUrlIdentifier, longURL.getExpiry());
+      });
     }
   }
 
   @Override
   public String get(String shortUrlIdentifier) {
-    LongUrl longUrl = shortToLongMap.get(shortUrlIdentifier);
-    return longUrl != null ? longUrl.getUrl() : null;
+    CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+    return compactUrl != null ? dictionary.expand(compactUrl) : null;
   }
 
   @Override
@@ -53,40 +64,82 @@ public class DefaultRepository implements URLRepository {
     return shortToLongMap.containsKey(shortUrlIdentifier);
   }
 
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+    return compactUrl != null ? compactUrl.getExpiry() : -1;
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+    return compactUrl != null ? new LongUrl(dictionary.expand(compactUrl), compactUrl.getExpiry()) : null;
+  }
+
   @Override
   public void remove(String shortUrlIdentifier) {
-    synchronized (expiryMap) {
-      if (!exists(shortUrlIdentifier)) {
-        return;
-      }
-      LongUrl removedUrl = shortToLongMap.remove(shortUrlIdentifier);
-      longToShortMap.remove(removedUrl.getUrl());
-      
-      Set<String> urlsAtExpiry = expiryMap.get(removedUrl.getExpiry());
-      if (urlsAtExpiry != null) {
-        urlsAtExpiry.remove(shortUrlIdentifier);
-        if (urlsAtExpiry.isEmpty()) {
-          expiryMap.remove(removedUrl.getExpiry());
-        }
+    synchronized (expiryWheel) {
+      removeLocked(shortUrlIdentifier);
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    synchronized (expiryWheel) {
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        removeLocked(shortUrlIdentifier);
       }
     }
   }
 
   @Override
   public List<String> getAllExpired(long timeStamp) {
-    synchronized (expiryMap) {
-      List<String> expiredUrls = new ArrayList<>();
-      SortedMap<Long, Set<String>> expiredEntries = expiryMap.headMap(timeStamp, true);
-      for (Set<String> urls : expiredEntries.values()) {
-        expiredUrls.addAll(urls);
+    synchronized (expiryWheel) {
+      return expiryWheel.peekExpired(timeStamp);
+    }
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    synchronized (expiryWheel) {
+      return expiryWheel.advance(timeStamp);
+    }
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    synchronized (expiryWheel) {
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+        if (compactUrl != null) {
+          expiryWheel.schedule(shortUrlIdentifier, compactUrl.getExpiry());
+        }
       }
-      return expiredUrls;
     }
   }
   
   @Override
   public Optional<String> findByLongUrl(String longUrl) {
-    return Optional.ofNullable(longToShortMap.get(longUrl));
+    return longToShortIndex.find(longUrl);
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    shortToLongMap.forEach((id, compactUrl) -> action.accept(id, dictionary.toLongUrl(compactUrl)));
   }
 
+  /** The stored mapping including its expiry, or null. */
+  LongUrl getLongUrl(String shortUrlIdentifier) {
+    CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+    return compactUrl != null ? dictionary.toLongUrl(compactUrl) : null;
+  }
+
+  private void removeLocked(String shortUrlIdentifier) {
+    CompactUrl removedUrl = shortToLongMap.remove(shortUrlIdentifier);
+    if (removedUrl == null) {
+      return;
+    }
+    longToShortIndex.remove(dictionary.expand(removedUrl), shortUrlIdentifier);
+    expiryWheel.cancel(shortUrlIdentifier);
+  }
 }
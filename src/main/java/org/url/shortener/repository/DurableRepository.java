@@ -0,0 +1,308 @@
+package org.url.shortener.repository;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.persistence.LogRecord;
+import org.url.shortener.persistence.SnapshotStore;
+import org.url.shortener.persistence.WriteAheadLog;
+
+/**
+ * Decorator that makes an in-memory repository durable through a write-ahead log.
+ * Mutations are appended to the log and applied to the delegate once the record is
+ * group-committed, so the delegate never shows a write the log may still lose; a write
+ * holds its identifier's lock stripe until then. On construction the delegate is rebuilt from the
+ * newest snapshot plus the log records written after it; periodic snapshots let old log
+ * segments be deleted so restarts only replay a short tail. Batches are written as a
+ * single log record, so a batch is recovered entirely or not at all.
+ */
+public class DurableRepository implements URLRepository, Closeable {
+
+  private static final int LOCK_STRIPES = 64;
+
+  private final URLRepository delegate;
+  private final WriteAheadLog log;
+  private final LockStripes locks;
+  private final ReadWriteLock settling = new ReentrantReadWriteLock();
+  private final SnapshotStore snapshots;
+  private final ScheduledExecutorService snapshotScheduler;
+  private final long recoveryMillis;
+
+  public DurableRepository(URLRepository delegate, WriteAheadLog log) {
+    this(delegate, log, null, 0);
+  }
+
+  public DurableRepository(URLRepository delegate, WriteAheadLog log,
+                           SnapshotStore snapshots, long snapshotIntervalSeconds) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("URLRepository cannot be null");
+    }
+    if (log == null) {
+      throw new IllegalArgumentException("WriteAheadLog cannot be null");
+    }
+    this.delegate = delegate;
+    this.log = log;
+    this.locks = new LockStripes(LOCK_STRIPES);
+    this.snapshots = snapshots;
+    long start = System.currentTimeMillis();
+    long snapshotSequence = snapshots != null ? snapshots.load(delegate::save) : 0;
+    long lastSequence = log.recover(snapshotSequence, (sequence, record) -> apply(record));
+    this.recoveryMillis = System.currentTimeMillis() - start;
+    System.out.println("Recovered URL repository from snapshot at " + snapshotSequence
+        + " and log up to " + lastSequence + " in " + recoveryMillis + " ms");
+
+    if (snapshots != null && snapshotIntervalSeconds > 0) {
+      this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Snapshot-Thread");
+        thread.setDaemon(true);
+        return thread;
+      });
+      snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+          snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    } else {
+      this.snapshotScheduler = null;
+    }
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    // Per-identifier ordering keeps the log in the same order as the in-memory state.
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    settling.readLock().lock();
+    lock.lock();
+    try {
+      requireAbsent(shortUrlIdentifier);
+      LogRecord record = LogRecord.save(shortUrlIdentifier, longURL);
+      awaitDurable(append(record));
+      applyLogged(record, () -> delegate.save(shortUrlIdentifier, longURL));
+    } finally {
+      lock.unlock();
+      settling.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    List<LogRecord> records = new ArrayList<>(entries.size());
+    entries.forEach((shortUrlIdentifier, longURL) ->
+        records.add(LogRecord.save(shortUrlIdentifier, longURL)));
+    settling.readLock().lock();
+    BitSet held = locks.lockAll(entries.keySet());
+    try {
+      entries.keySet().forEach(this::requireAbsent);
+      LogRecord record = LogRecord.batch(records);
+      awaitDurable(append(record));
+      applyLogged(record, () -> delegate.saveAll(entries));
+    } finally {
+      locks.unlockAll(held);
+      settling.readLock().unlock();
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    return delegate.get(shortUrlIdentifier);
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return delegate.exists(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    return delegate.getExpiry(shortUrlIdentifier);
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    return delegate.getLink(shortUrlIdentifier);
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    settling.readLock().lock();
+    lock.lock();
+    try {
+      if (!delegate.exists(shortUrlIdentifier)) {
+        return;
+      }
+      awaitDurable(append(LogRecord.remove(shortUrlIdentifier)));
+      delegate.remove(shortUrlIdentifier);
+    } finally {
+      lock.unlock();
+      settling.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    settling.readLock().lock();
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      List<String> removed = new ArrayList<>(shortUrlIdentifiers.size());
+      List<LogRecord> records = new ArrayList<>(shortUrlIdentifiers.size());
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        if (delegate.exists(shortUrlIdentifier)) {
+          removed.add(shortUrlIdentifier);
+          records.add(LogRecord.remove(shortUrlIdentifier));
+        }
+      }
+      if (removed.isEmpty()) {
+        return;
+      }
+      awaitDurable(append(LogRecord.batch(records)));
+      delegate.removeAll(removed);
+    } finally {
+      locks.unlockAll(held);
+      settling.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    return delegate.getAllExpired(timeStamp);
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    return delegate.pollExpired(timeStamp);
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    delegate.rescheduleExpiry(shortUrlIdentifiers);
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    return delegate.findByLongUrl(longUrl);
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    delegate.forEachEntry(action);
+  }
+
+  /**
+   * Writes a snapshot of the current state and drops log segments it makes redundant.
+   * Writes only pause while the log sequence is read; the walk itself runs alongside them,
+   * since anything it sees past that sequence is durable and replayed again on recovery.
+   */
+  public synchronized void snapshot() {
+    if (snapshots == null) {
+      throw new IllegalStateException("No snapshot store configured");
+    }
+    long start = System.currentTimeMillis();
+    long sequence;
+    // Wait out writes in flight so everything up to this sequence is applied to the delegate.
+    settling.writeLock().lock();
+    try {
+      sequence = log.getLastSequence();
+    } finally {
+      settling.writeLock().unlock();
+    }
+    long count = snapshots.write(sequence, delegate);
+    log.deleteSegmentsBefore(sequence);
+    System.out.println("Wrote snapshot of " + count + " URLs at log sequence " + sequence
+        + " in " + (System.currentTimeMillis() - start) + " ms");
+  }
+
+  public long getRecoveryMillis() {
+    return recoveryMillis;
+  }
+
+  @Override
+  public void close() {
+    if (snapshotScheduler != null) {
+      snapshotScheduler.shutdown();
+    }
+    log.close();
+  }
+
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (Exception e) {
+      System.err.println("Error writing snapshot: " + e.getMessage());
+    }
+  }
+
+  private void apply(LogRecord record) {
+    if (record.getType() == LogRecord.Type.BATCH) {
+      record.getRecords().forEach(this::apply);
+      return;
+    }
+    String shortUrlIdentifier = record.getShortUrlIdentifier();
+    if (delegate.exists(shortUrlIdentifier)) {
+      delegate.remove(shortUrlIdentifier);
+    }
+    if (record.getType() == LogRecord.Type.SAVE) {
+      delegate.save(shortUrlIdentifier, record.getLongUrl());
+    }
+  }
+
+  /** Appends to the log, turning a log that refuses the record into a failed write. */
+  private CompletableFuture<Long> append(LogRecord record) {
+    try {
+      return log.append(record);
+    } catch (PersistenceException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void requireAbsent(String shortUrlIdentifier) {
+    if (delegate.exists(shortUrlIdentifier)) {
+      throw new DuplicateUrlIdentifierException(
+          "URL identifier already exists: " + shortUrlIdentifier);
+    }
+  }
+
+  /** Applies a logged save, logging its undo if the delegate refuses it after all. */
+  private void applyLogged(LogRecord record, Runnable mutation) {
+    try {
+      mutation.run();
+    } catch (RuntimeException e) {
+      List<LogRecord> undo = new ArrayList<>();
+      (record.getType() == LogRecord.Type.BATCH ? record.getRecords() : List.of(record))
+          .forEach(save -> undo.add(LogRecord.remove(save.getShortUrlIdentifier())));
+      try {
+        awaitDurable(append(LogRecord.batch(undo)));
+      } catch (PersistenceException logFailure) {
+        e.addSuppressed(logFailure);
+      }
+      throw e;
+    }
+  }
+
+  private static void awaitDurable(CompletableFuture<Long> written) {
+    try {
+      written.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof PersistenceException) {
+        throw (PersistenceException) e.getCause();
+      }
+      throw new PersistenceException("Unable to persist URL mapping", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package org.url.shortener.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel of URL expiries with one-second ticks.
+ * Four levels of 64 slots cover about 194 days ahead; anything further out waits in an
+ * overflow list. Scheduling and cancelling are O(1), and each entry is cascaded at most
+ * once per level before it becomes due, so draining is amortized O(1) per entry.
+ * Not thread-safe: callers guard it with their own lock.
+ */
+public class ExpiryTimingWheel {
+
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int SLOT_MASK = SLOTS - 1;
+  private static final int LEVELS = 4;
+  // Past this gap walking tick by tick costs more than re-bucketing everything once.
+  private static final long FAST_FORWARD_TICKS = (long) SLOTS * SLOTS;
+
+  private final Node[][] wheels;
+  private final Node overflow;
+  private final Node due;
+  private final Map<String, Node> handles;
+  private long currentTime;
+
+  public ExpiryTimingWheel() {
+    this(Instant.now().getEpochSecond());
+  }
+
+  public ExpiryTimingWheel(long startTime) {
+    this.wheels = new Node[LEVELS][SLOTS];
+    for (int level = 0; level < LEVELS; level++) {
+      for (int slot = 0; slot < SLOTS; slot++) {
+        wheels[level][slot] = Node.sentinel();
+      }
+    }
+    this.overflow = Node.sentinel();
+    this.due = Node.sentinel();
+    this.handles = new HashMap<>();
+    this.currentTime = startTime;
+  }
+
+  /**
+   * Schedules an identifier to come due at the given epoch second, replacing any
+   * previous schedule for it.
+   */
+  public void schedule(String shortUrlIdentifier, long expiry) {
+    Node node = new Node(shortUrlIdentifier, expiry);
+    Node previous = handles.put(shortUrlIdentifier, node);
+    if (previous != null) {
+      previous.unlink();
+    }
+    place(node);
+  }
+
+  public boolean cancel(String shortUrlIdentifier) {
+    Node node = handles.remove(shortUrlIdentifier);
+    if (node == null) {
+      return false;
+    }
+    node.unlink();
+    return true;
+  }
+
+  /**
+   * Advances the wheel to {@code now} and removes every identifier due at or before it.
+   */
+  public List<String> advance(long now) {
+    if (now > currentTime) {
+      if (now - currentTime > FAST_FORWARD_TICKS) {
+        rebuild(now);
+      } else {
+        while (currentTime < now) {
+          tick();
+        }
+      }
+    }
+    List<String> expired = new ArrayList<>();
+    Node node = due.next;
+    while (node != due) {
+      Node next = node.next;
+      if (node.expiry <= now) {
+        node.unlink();
+        handles.remove(node.id);
+        expired.add(node.id);
+      }
+      node = next;
+    }
+    return expired;
+  }
+
+  /**
+   * Lists identifiers due at or before the timestamp without removing them.
+   * This walks every scheduled entry; sweeps should use {@link #advance(long)}.
+   */
+  public List<String> peekExpired(long timeStamp) {
+    List<String> expired = new ArrayList<>();
+    for (Node node : handles.values()) {
+      if (node.expiry <= timeStamp) {
+        expired.add(node.id);
+      }
+    }
+    return expired;
+  }
+
+  public int size() {
+    return handles.size();
+  }
+
+  private void tick() {
+    long time = ++currentTime;
+    if ((time & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+      cascade(overflow);
+    }
+    int aligned = 0;
+    while (aligned + 1 < LEVELS
+        && (time & ((1L << (SLOT_BITS * (aligned + 1))) - 1)) == 0) {
+      aligned++;
+    }
+    // Cascade from the coarsest aligned level down so entries can fall all the way through.
+    for (int level = aligned; level >= 1; level--) {
+      cascade(wheels[level][(int) ((time >>> (SLOT_BITS * level)) & SLOT_MASK)]);
+    }
+    Node slot = wheels[0][(int) (time & SLOT_MASK)];
+    while (slot.next != slot) {
+      Node node = slot.next;
+      node.unlink();
+      node.linkBefore(due);
+    }
+  }
+
+  private void cascade(Node slot) {
+    Node node = slot.next;
+    slot.next = slot;
+    slot.prev = slot;
+    while (node != slot) {
+      Node next = node.next;
+      node.prev = node;
+      node.next = node;
+      place(node);
+      node = next;
+    }
+  }
+
+  private void rebuild(long now) {
+    List<Node> nodes = new ArrayList<>(handles.values());
+    for (Node node : nodes) {
+      node.unlink();
+    }
+    currentTime = now;
+    for (Node node : nodes) {
+      place(node);
+    }
+  }
+
+  private void place(Node node) {
+    if (node.expiry <= currentTime) {
+      node.linkBefore(due);
+      return;
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = SLOT_BITS * (level + 1);
+      if ((node.expiry >>> shift) == (currentTime >>> shift)) {
+        node.linkBefore(wheels[level][(int) ((node.expiry >>> (SLOT_BITS * level)) & SLOT_MASK)]);
+        return;
+      }
+    }
+    node.linkBefore(overflow);
+  }
+
+  private static final class Node {
+    private final String id;
+    private final long expiry;
+    private Node prev;
+    private Node next;
+
+    private Node(String id, long expiry) {
+      this.id = id;
+      this.expiry = expiry;
+      this.prev = this;
+      this.next = this;
+    }
+
+    private static Node sentinel() {
+      return new Node(null, 0);
+    }
+
+    private void linkBefore(Node head) {
+      prev = head.prev;
+      next = head;
+      head.prev.next = this;
+      head.prev = this;
+    }
+
+    private void unlink() {
+      prev.next = next;
+      next.prev = prev;
+      prev = this;
+      next = this;
+    }
+  }
+}
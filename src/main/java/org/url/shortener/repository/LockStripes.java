@@ -0,0 +1,73 @@
+package org.url.shortener.repository;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks that identifiers hash onto. Batches lock every stripe they touch in
+ * ascending order, so batch and single-key writers can never deadlock each other.
+ */
+public final class LockStripes {
+
+  private final ReentrantLock[] locks;
+  private final int mask;
+
+  public LockStripes(int stripeCount) {
+    int size = 1;
+    while (size < stripeCount) {
+      size <<= 1;
+    }
+    this.locks = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    this.mask = size - 1;
+  }
+
+  public int indexFor(String shortUrlIdentifier) {
+    int h = shortUrlIdentifier.hashCode();
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  public ReentrantLock lockFor(String shortUrlIdentifier) {
+    return locks[indexFor(shortUrlIdentifier)];
+  }
+
+  public ReentrantLock lockAt(int index) {
+    return locks[index];
+  }
+
+  public int size() {
+    return locks.length;
+  }
+
+  /**
+   * Locks the stripes of all identifiers; pass the result to {@link #unlockAll(BitSet)}.
+   */
+  public BitSet lockAll(Collection<String> shortUrlIdentifiers) {
+    BitSet held = new BitSet(locks.length);
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      held.set(indexFor(shortUrlIdentifier));
+    }
+    for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+      locks[i].lock();
+    }
+    return held;
+  }
+
+  public BitSet lockEverything() {
+    BitSet held = new BitSet(locks.length);
+    held.set(0, locks.length);
+    for (ReentrantLock lock : locks) {
+      lock.lock();
+    }
+    return held;
+  }
+
+  public void unlockAll(BitSet held) {
+    for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+      locks[i].unlock();
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package org.url.shortener.repository;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to primitive {@code long}
+ * values: 16 bytes per slot and nothing else on the heap. Same probing, deletion and
+ * racing-reader guarantees as {@link LongObjectHashMap}.
+ */
+public class LongLongHashMap {
+
+  private static final long EMPTY = 0;
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private long[] keys;
+  private long[] values;
+  private int size;
+  private int resizeAt;
+  private boolean hasZeroKey;
+  private long zeroValue;
+
+  public LongLongHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongLongHashMap(int expectedSize) {
+    int capacity = DEFAULT_CAPACITY;
+    while (capacity * LOAD_FACTOR < expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  /** Returns the value for the key, or {@code missingValue} when it is absent. */
+  public long get(long key, long missingValue) {
+    if (key == EMPTY) {
+      return hasZeroKey ? zeroValue : missingValue;
+    }
+    long[] k = keys;
+    long[] v = values;
+    if (k.length != v.length) {
+      return missingValue;
+    }
+    int mask = k.length - 1;
+    for (int slot = LongObjectHashMap.mix(key) & mask, probes = 0; probes <= mask;
+         slot = (slot + 1) & mask, probes++) {
+      long current = k[slot];
+      if (current == key) {
+        return v[slot];
+      }
+      if (current == EMPTY) {
+        return missingValue;
+      }
+    }
+    return missingValue;
+  }
+
+  public boolean containsKey(long key) {
+    if (key == EMPTY) {
+      return hasZeroKey;
+    }
+    int mask = keys.length - 1;
+    for (int slot = LongObjectHashMap.mix(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void put(long key, long value) {
+    if (key == EMPTY) {
+      if (!hasZeroKey) {
+        size++;
+      }
+      hasZeroKey = true;
+      zeroValue = value;
+      return;
+    }
+    int mask = keys.length - 1;
+    int slot = LongObjectHashMap.mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    values[slot] = value;
+    keys[slot] = key;
+    if (++size > resizeAt) {
+      allocateAndRehash(keys.length << 1);
+    }
+  }
+
+  /** Removes the key and returns whether it was present. */
+  public boolean remove(long key) {
+    if (key == EMPTY) {
+      if (!hasZeroKey) {
+        return false;
+      }
+      hasZeroKey = false;
+      size--;
+      return true;
+    }
+    int mask = keys.length - 1;
+    int slot = LongObjectHashMap.mix(key) & mask;
+    while (keys[slot] != key) {
+      if (keys[slot] == EMPTY) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = LongObjectHashMap.mix(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = EMPTY;
+    size--;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Bytes held by the backing arrays. */
+  public long capacityBytes() {
+    return 16L * keys.length;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    hasZeroKey = false;
+    size = 0;
+  }
+
+  private void allocate(int capacity) {
+    this.keys = new long[capacity];
+    this.values = new long[capacity];
+    this.resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private void allocateAndRehash(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    long[] newKeys = new long[capacity];
+    long[] newValues = new long[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = LongObjectHashMap.mix(oldKeys[i]) & mask;
+        while (newKeys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        newKeys[slot] = oldKeys[i];
+        newValues[slot] = oldValues[i];
+      }
+    }
+    this.values = newValues;
+    this.keys = newKeys;
+    this.resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+}
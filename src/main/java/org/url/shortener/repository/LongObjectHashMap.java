@@ -0,0 +1,205 @@
+package org.url.shortener.repository;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to objects: two flat arrays,
+ * linear probing and backward-shift deletion, so there are no boxed keys, entry objects
+ * or tombstones.
+ *
+ * <p>Not thread-safe for writers. A reader racing a writer never fails with an exception
+ * but may miss or see a stale entry, which lets callers use it under a
+ * {@link java.util.concurrent.locks.StampedLock} optimistic read and retry on validation
+ * failure.
+ */
+public class LongObjectHashMap<V> {
+
+  private static final long EMPTY = 0;
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+  private int resizeAt;
+  // Key 0 marks empty slots, so its entry lives outside the arrays.
+  private boolean hasZeroKey;
+  private Object zeroValue;
+
+  public LongObjectHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongObjectHashMap(int expectedSize) {
+    int capacity = DEFAULT_CAPACITY;
+    while (capacity * LOAD_FACTOR < expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    if (key == EMPTY) {
+      return hasZeroKey ? (V) zeroValue : null;
+    }
+    long[] k = keys;
+    Object[] v = values;
+    if (k.length != v.length) {
+      // Caught mid-resize; only possible for an unsynchronized reader.
+      return null;
+    }
+    int mask = k.length - 1;
+    for (int slot = mix(key) & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+      long current = k[slot];
+      if (current == key) {
+        return (V) v[slot];
+      }
+      if (current == EMPTY) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Associates the value with the key and returns the previous value, if any.
+   * Null values are not allowed.
+   */
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Value cannot be null");
+    }
+    if (key == EMPTY) {
+      V previous = (V) zeroValue;
+      if (!hasZeroKey) {
+        size++;
+      }
+      hasZeroKey = true;
+      zeroValue = value;
+      return previous;
+    }
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    // Publish the value before the key so a racing reader never sees a key without it.
+    values[slot] = value;
+    keys[slot] = key;
+    if (++size > resizeAt) {
+      allocateAndRehash(keys.length << 1);
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    if (key == EMPTY) {
+      if (!hasZeroKey) {
+        return null;
+      }
+      V previous = (V) zeroValue;
+      hasZeroKey = false;
+      zeroValue = null;
+      size--;
+      return previous;
+    }
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != key) {
+      if (keys[slot] == EMPTY) {
+        return null;
+      }
+      slot = (slot + 1) & mask;
+    }
+    V previous = (V) values[slot];
+    // Shift later members of the probe chain back so lookups never stop early.
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = mix(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = EMPTY;
+    values[gap] = null;
+    size--;
+    return previous;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(LongObjectConsumer<? super V> action) {
+    if (hasZeroKey) {
+      action.accept(EMPTY, (V) zeroValue);
+    }
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != EMPTY) {
+        action.accept(keys[slot], (V) values[slot]);
+      }
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    Arrays.fill(values, null);
+    hasZeroKey = false;
+    zeroValue = null;
+    size = 0;
+  }
+
+  private void allocate(int capacity) {
+    this.keys = new long[capacity];
+    this.values = new Object[capacity];
+    this.resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private void allocateAndRehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    long[] newKeys = new long[capacity];
+    Object[] newValues = new Object[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = mix(oldKeys[i]) & mask;
+        while (newKeys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        newKeys[slot] = oldKeys[i];
+        newValues[slot] = oldValues[i];
+      }
+    }
+    this.values = newValues;
+    this.keys = newKeys;
+    this.resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+
+  static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  @FunctionalInterface
+  public interface LongObjectConsumer<V> {
+    void accept(long key, V value);
+  }
+}
@@ -0,0 +1,426 @@
+package org.url.shortener.repository;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.lsm.LsmOptions;
+import org.url.shortener.lsm.LsmTree;
+import org.url.shortener.lsm.StoredValue;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.persistence.LogRecord;
+import org.url.shortener.persistence.WriteAheadLog;
+
+/**
+ * Repository on an embedded {@link LsmTree}, for more mappings than fit in memory. Three
+ * key families share the tree:
+ * <ul>
+ *   <li>{@code S<id>}: the long URL and its expiry;</li>
+ *   <li>{@code F<fingerprint>}: the identifier a long URL was last stored under, verified
+ *       against {@code S} on lookup;</li>
+ *   <li>{@code E<expiry><id>}: the expiry index, scanned in order by {@link #pollExpired}.</li>
+ * </ul>
+ * Mutations are logged to the write-ahead log exactly like {@link DurableRepository}; the
+ * log is only replayed from the sequence the last flushed SSTable covers, and segments are
+ * dropped as flushes cover them. Expired mappings read as absent even before compaction
+ * drops them, and an identifier whose mapping expired may be stored again.
+ */
+public class LsmRepository implements URLRepository, Closeable {
+
+  private static final int LOCK_STRIPES = 64;
+  private static final String ID_PREFIX = "S";
+  private static final String FINGERPRINT_PREFIX = "F";
+  private static final String EXPIRY_PREFIX = "E";
+  private static final int EXPIRY_DIGITS = 19;
+  // Expiry index entries must outlive the mapping so the sweep still sees them.
+  private static final StoredValue EXPIRY_MARKER = StoredValue.of("", Long.MAX_VALUE);
+
+  private final WriteAheadLog log;
+  private final LsmTree tree;
+  private final LockStripes locks;
+  private final long recoveryMillis;
+
+  public LsmRepository(Path directory, WriteAheadLog log) {
+    this(directory, log, new LsmOptions());
+  }
+
+  public LsmRepository(Path directory, WriteAheadLog log, LsmOptions options) {
+    if (log == null) {
+      throw new IllegalArgumentException("WriteAheadLog cannot be null");
+    }
+    this.log = log;
+    this.locks = new LockStripes(LOCK_STRIPES);
+    this.tree = new LsmTree(directory, options, log::getLastSequence, log::deleteSegmentsBefore);
+    long start = System.currentTimeMillis();
+    long flushedSequence = tree.getFlushedSequence();
+    long lastSequence = log.recover(flushedSequence, (sequence, record) -> apply(record));
+    this.recoveryMillis = System.currentTimeMillis() - start;
+    System.out.println("Recovered LSM repository flushed up to " + flushedSequence
+        + " and log up to " + lastSequence + " in " + recoveryMillis + " ms");
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    CompletableFuture<Long> written;
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      StoredValue current = tree.get(idKey(shortUrlIdentifier));
+      if (isLive(current)) {
+        throw new DuplicateUrlIdentifierException("URL identifier already exists: " + shortUrlIdentifier);
+      }
+      Map<String, StoredValue> mutations = new LinkedHashMap<>();
+      addRemoval(mutations, shortUrlIdentifier, current);
+      addSave(mutations, shortUrlIdentifier, longURL);
+      written = tree.write(mutations, () -> log.append(LogRecord.save(shortUrlIdentifier, longURL)));
+    } finally {
+      lock.unlock();
+    }
+    try {
+      awaitDurable(written);
+    } catch (PersistenceException e) {
+      lock.lock();
+      try {
+        removeUnlogged(List.of(shortUrlIdentifier));
+      } finally {
+        lock.unlock();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    CompletableFuture<Long> written;
+    BitSet held = locks.lockAll(entries.keySet());
+    try {
+      Map<String, StoredValue> current = new LinkedHashMap<>();
+      for (String shortUrlIdentifier : entries.keySet()) {
+        StoredValue value = tree.get(idKey(shortUrlIdentifier));
+        if (isLive(value)) {
+          throw new DuplicateUrlIdentifierException("URL identifier already exists: " + shortUrlIdentifier);
+        }
+        current.put(shortUrlIdentifier, value);
+      }
+      Map<String, StoredValue> mutations = new LinkedHashMap<>();
+      List<LogRecord> records = new ArrayList<>(entries.size());
+      entries.forEach((shortUrlIdentifier, longURL) -> {
+        addRemoval(mutations, shortUrlIdentifier, current.get(shortUrlIdentifier));
+        addSave(mutations, shortUrlIdentifier, longURL);
+        records.add(LogRecord.save(shortUrlIdentifier, longURL));
+      });
+      written = tree.write(mutations, () -> log.append(LogRecord.batch(records)));
+    } finally {
+      locks.unlockAll(held);
+    }
+    try {
+      awaitDurable(written);
+    } catch (PersistenceException e) {
+      held = locks.lockAll(entries.keySet());
+      try {
+        removeUnlogged(entries.keySet());
+      } finally {
+        locks.unlockAll(held);
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    StoredValue value = tree.get(idKey(shortUrlIdentifier));
+    return isLive(value) ? value.getValue() : null;
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return isLive(tree.get(idKey(shortUrlIdentifier)));
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    StoredValue value = tree.get(idKey(shortUrlIdentifier));
+    return isLive(value) ? value.getExpiry() : -1;
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    StoredValue value = tree.get(idKey(shortUrlIdentifier));
+    return isLive(value) ? new LongUrl(value.getValue(), value.getExpiry()) : null;
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    removeAll(List.of(shortUrlIdentifier));
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    CompletableFuture<Long> written;
+    Map<String, StoredValue> removed = new LinkedHashMap<>();
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      Map<String, StoredValue> mutations = new LinkedHashMap<>();
+      List<LogRecord> records = new ArrayList<>(shortUrlIdentifiers.size());
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        StoredValue current = tree.get(idKey(shortUrlIdentifier));
+        // Expired mappings are removed too, along with their index entries.
+        if (addRemoval(mutations, shortUrlIdentifier, current)) {
+          removed.put(shortUrlIdentifier, current);
+          records.add(LogRecord.remove(shortUrlIdentifier));
+        }
+      }
+      if (records.isEmpty()) {
+        return;
+      }
+      LogRecord record = records.size() == 1 ? records.get(0) : LogRecord.batch(records);
+      try {
+        written = tree.write(mutations, () -> log.append(record));
+      } catch (PersistenceException e) {
+        restoreUnlogged(removed);
+        throw e;
+      }
+    } finally {
+      locks.unlockAll(held);
+    }
+    try {
+      awaitDurable(written);
+    } catch (PersistenceException e) {
+      held = locks.lockAll(removed.keySet());
+      try {
+        restoreUnlogged(removed);
+      } finally {
+        locks.unlockAll(held);
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    List<String> expired = new ArrayList<>();
+    scanExpired(timeStamp, (key, shortUrlIdentifier) -> expired.add(shortUrlIdentifier));
+    return expired;
+  }
+
+  /**
+   * Walks the expiry index up to the timestamp and deletes the entries it hands over. The
+   * deletions are not logged: after a crash the sweep may see an identifier again, and
+   * removing it a second time is a no-op.
+   */
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    Map<String, String> due = new LinkedHashMap<>();
+    scanExpired(timeStamp, due::put);
+    if (due.isEmpty()) {
+      return List.of();
+    }
+    Map<String, StoredValue> mutations = new LinkedHashMap<>();
+    due.keySet().forEach(key -> mutations.put(key, StoredValue.tombstone()));
+    tree.write(mutations, () -> null);
+    return new ArrayList<>(due.values());
+  }
+
+  /**
+   * Writes the expiry index entry back for each identifier whose mapping is still stored.
+   * Not logged, like the deletions of {@link #pollExpired} it undoes.
+   */
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      Map<String, StoredValue> mutations = new LinkedHashMap<>();
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        StoredValue stored = tree.get(idKey(shortUrlIdentifier));
+        if (stored != null && !stored.isTombstone()) {
+          mutations.put(expiryKey(stored.getExpiry(), shortUrlIdentifier), EXPIRY_MARKER);
+        }
+      }
+      if (!mutations.isEmpty()) {
+        tree.write(mutations, () -> null);
+      }
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    StoredValue candidate = tree.get(fingerprintKey(longUrl));
+    if (!isLive(candidate)) {
+      return Optional.empty();
+    }
+    StoredValue stored = tree.get(idKey(candidate.getValue()));
+    // A fingerprint may be shared by another URL or outlive a removed mapping.
+    return isLive(stored) && stored.getValue().equals(longUrl)
+        ? Optional.of(candidate.getValue())
+        : Optional.empty();
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    long now = Instant.now().getEpochSecond();
+    tree.scan(ID_PREFIX, nextPrefix(ID_PREFIX), (key, value) -> {
+      if (value.isLive(now)) {
+        action.accept(key.substring(ID_PREFIX.length()), new LongUrl(value.getValue(), value.getExpiry()));
+      }
+    });
+  }
+
+  /** Flushes the memtable to disk, letting the log drop everything written so far. */
+  public void flush() {
+    tree.flush();
+  }
+
+  public LsmTree getTree() {
+    return tree;
+  }
+
+  public long getRecoveryMillis() {
+    return recoveryMillis;
+  }
+
+  @Override
+  public void close() {
+    tree.close();
+    log.close();
+  }
+
+  private void scanExpired(long timeStamp, BiConsumer<String, String> action) {
+    String end = EXPIRY_PREFIX + formatExpiry(timeStamp + 1);
+    tree.scan(EXPIRY_PREFIX, end, (key, marker) -> {
+      long expiry = Long.parseLong(key.substring(EXPIRY_PREFIX.length(), EXPIRY_PREFIX.length() + EXPIRY_DIGITS));
+      String shortUrlIdentifier = key.substring(EXPIRY_PREFIX.length() + EXPIRY_DIGITS);
+      StoredValue stored = tree.get(idKey(shortUrlIdentifier));
+      // Skip entries left behind when an expired identifier was stored again; a mapping
+      // already dropped by compaction is still reported once.
+      if (stored == null || stored.isTombstone() || stored.getExpiry() == expiry) {
+        action.accept(key, shortUrlIdentifier);
+      }
+    });
+  }
+
+  private void apply(LogRecord record) {
+    if (record.getType() == LogRecord.Type.BATCH) {
+      record.getRecords().forEach(this::apply);
+      return;
+    }
+    String shortUrlIdentifier = record.getShortUrlIdentifier();
+    Map<String, StoredValue> mutations = new LinkedHashMap<>();
+    // Replay may repeat writes that are already flushed; rewriting the final state is harmless.
+    addRemoval(mutations, shortUrlIdentifier, tree.get(idKey(shortUrlIdentifier)));
+    if (record.getType() == LogRecord.Type.SAVE) {
+      addSave(mutations, shortUrlIdentifier, record.getLongUrl());
+    }
+    tree.write(mutations, () -> null);
+  }
+
+  private void removeUnlogged(Collection<String> shortUrlIdentifiers) {
+    Map<String, StoredValue> mutations = new LinkedHashMap<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      addRemoval(mutations, shortUrlIdentifier, tree.get(idKey(shortUrlIdentifier)));
+    }
+    tree.write(mutations, () -> null);
+  }
+
+  /** Puts back mappings whose logged removal failed, unless something replaced them since. */
+  private void restoreUnlogged(Map<String, StoredValue> removed) {
+    Map<String, StoredValue> mutations = new LinkedHashMap<>();
+    removed.forEach((shortUrlIdentifier, previous) -> {
+      StoredValue current = tree.get(idKey(shortUrlIdentifier));
+      if (current == null || current.isTombstone()) {
+        addSave(mutations, shortUrlIdentifier, new LongUrl(previous.getValue(), previous.getExpiry()));
+      }
+    });
+    if (!mutations.isEmpty()) {
+      tree.write(mutations, () -> null);
+    }
+  }
+
+  private void addSave(Map<String, StoredValue> mutations, String shortUrlIdentifier, LongUrl longURL) {
+    String url = longURL.getUrl();
+    long expiry = longURL.getExpiry();
+    mutations.put(idKey(shortUrlIdentifier), StoredValue.of(url, expiry));
+    mutations.put(expiryKey(expiry, shortUrlIdentifier), EXPIRY_MARKER);
+    String fingerprintKey = fingerprintKey(url);
+    StoredValue owner = mutations.containsKey(fingerprintKey) ? null : tree.get(fingerprintKey);
+    if (isLive(owner) && !owner.getValue().equals(shortUrlIdentifier)) {
+      StoredValue ownerUrl = tree.get(idKey(owner.getValue()));
+      if (isLive(ownerUrl) && !ownerUrl.getValue().equals(url)) {
+        // Fingerprint collision with a different live URL: the first one keeps the slot.
+        return;
+      }
+    }
+    mutations.put(fingerprintKey, StoredValue.of(shortUrlIdentifier, expiry));
+  }
+
+  /**
+   * Adds the deletes for a stored mapping, live or expired.
+   *
+   * @return false if there is no mapping to delete
+   */
+  private boolean addRemoval(Map<String, StoredValue> mutations, String shortUrlIdentifier,
+                             StoredValue current) {
+    if (current == null || current.isTombstone()) {
+      return false;
+    }
+    mutations.put(idKey(shortUrlIdentifier), StoredValue.tombstone());
+    mutations.put(expiryKey(current.getExpiry(), shortUrlIdentifier), StoredValue.tombstone());
+    String fingerprintKey = fingerprintKey(current.getValue());
+    StoredValue owner = tree.get(fingerprintKey);
+    if (owner != null && shortUrlIdentifier.equals(owner.getValue())) {
+      mutations.put(fingerprintKey, StoredValue.tombstone());
+    }
+    return true;
+  }
+
+  private static boolean isLive(StoredValue value) {
+    return value != null && value.isLive(Instant.now().getEpochSecond());
+  }
+
+  private static String idKey(String shortUrlIdentifier) {
+    return ID_PREFIX + shortUrlIdentifier;
+  }
+
+  private static String fingerprintKey(String longUrl) {
+    return FINGERPRINT_PREFIX + String.format("%016x", UrlFingerprintIndex.fingerprint(longUrl));
+  }
+
+  private static String expiryKey(long expiry, String shortUrlIdentifier) {
+    return EXPIRY_PREFIX + formatExpiry(expiry) + shortUrlIdentifier;
+  }
+
+  private static String formatExpiry(long expiry) {
+    return String.format("%0" + EXPIRY_DIGITS + "d", Math.max(0, expiry));
+  }
+
+  private static String nextPrefix(String prefix) {
+    return prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1);
+  }
+
+  private static void awaitDurable(CompletableFuture<Long> written) {
+    try {
+      written.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof PersistenceException) {
+        throw (PersistenceException) e.getCause();
+      }
+      throw new PersistenceException("Unable to persist URL mapping", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,814 @@
+package org.url.shortener.repository;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Repository that keeps identifiers, long URLs and expiries outside the Java heap.
+ *
+ * <p>Records are appended to direct-buffer chunks as {@code [long expiry][int urlLength]
+ * [short idLength][byte state][byte pad][int wheelSlot][long prev][long next][id chars]
+ * [url utf-8]} and addressed by {@code chunk << 32 | offset}. Two open-addressing tables,
+ * also off-heap, map the 64-bit hash of an identifier or URL to a record address.
+ *
+ * <p>Expiry sweeps use a hashed timing wheel of one-second slots kept off-heap as well: a
+ * direct array of list heads, one per slot, with each record linked into the list of its
+ * slot through its own {@code prev}/{@code next} fields. The heap therefore only holds a
+ * handful of buffer objects regardless of how many links are stored.
+ *
+ * <p>Once dead bytes outweigh live ones, a background thread compacts the arena one sealed
+ * chunk at a time: live records are copied to the tail, indexes are repointed and the chunk
+ * is dropped. It takes the write lock for a bounded batch of records at a time, so readers
+ * never wait for a whole chunk, and every record move leaves the arena consistent, so a
+ * failed allocation part way through loses nothing.
+ */
+public class OffHeapRepository implements URLRepository, Closeable {
+
+  private static final int DEFAULT_CHUNK_BYTES = 16 << 20;
+  private static final int INITIAL_SLOTS = 1 << 16;
+  private static final int HEADER_BYTES = 8 + 4 + 2 + 1 + 1 + 4 + 8 + 8;
+  private static final int STATE_OFFSET = 14;
+  private static final int WHEEL_SLOT_OFFSET = 16;
+  private static final int PREV_OFFSET = 20;
+  private static final int NEXT_OFFSET = 28;
+  private static final int WHEEL_SLOTS = 1 << 16;
+  private static final int WHEEL_MASK = WHEEL_SLOTS - 1;
+  // Extra list for records that were already due when scheduled.
+  private static final int DUE_SLOT = WHEEL_SLOTS;
+  private static final int UNSCHEDULED = -1;
+  // Records moved per write-lock hold while compacting.
+  private static final int COMPACTION_BATCH = 1024;
+  private static final byte LIVE = 1;
+  private static final byte DEAD = 0;
+  private static final long EMPTY = 0;
+  private static final long TOMBSTONE = -1;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final int chunkBytes;
+  private final ByteBuffer wheelHeads;
+  private final ExecutorService compactor;
+  private boolean compactionScheduled;
+  private long wheelTime;
+  private final List<ByteBuffer> chunks;
+  // Dead bytes per chunk index, and indexes of dropped chunks free for reuse.
+  private long[] chunkDeadBytes;
+  private final Deque<Integer> freeChunks;
+  private int tail;
+  private Table byId;
+  private Table byUrl;
+  private long liveBytes;
+  private long deadBytes;
+
+  public OffHeapRepository() {
+    this(DEFAULT_CHUNK_BYTES);
+  }
+
+  public OffHeapRepository(int chunkBytes) {
+    if (chunkBytes < 1024) {
+      throw new IllegalArgumentException("Chunk size must be at least 1 KiB");
+    }
+    this.chunkBytes = chunkBytes;
+    this.wheelHeads = ByteBuffer.allocateDirect((WHEEL_SLOTS + 1) * 8);
+    this.wheelTime = Instant.now().getEpochSecond();
+    this.compactor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "Off-Heap-Compaction-Thread");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.chunks = new ArrayList<>();
+    this.chunkDeadBytes = new long[16];
+    this.freeChunks = new ArrayDeque<>();
+    this.tail = -1;
+    this.byId = new Table(INITIAL_SLOTS);
+    this.byUrl = new Table(INITIAL_SLOTS);
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    long idHash = hashChars(shortUrlIdentifier);
+    byte[] url = longURL.getUrl().getBytes(StandardCharsets.UTF_8);
+    long urlHash = hashBytes(url, 0, url.length);
+    lock.writeLock().lock();
+    try {
+      if (findIdSlot(shortUrlIdentifier, idHash) >= 0) {
+        throw new DuplicateUrlIdentifierException(
+            "URL identifier already exists: " + shortUrlIdentifier);
+      }
+      insertLocked(shortUrlIdentifier, idHash, url, urlHash, longURL.getExpiry());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    lock.writeLock().lock();
+    try {
+      for (String shortUrlIdentifier : entries.keySet()) {
+        if (findIdSlot(shortUrlIdentifier, hashChars(shortUrlIdentifier)) >= 0) {
+          throw new DuplicateUrlIdentifierException(
+              "URL identifier already exists: " + shortUrlIdentifier);
+        }
+      }
+      entries.forEach((shortUrlIdentifier, longURL) -> {
+        byte[] url = longURL.getUrl().getBytes(StandardCharsets.UTF_8);
+        insertLocked(shortUrlIdentifier, hashChars(shortUrlIdentifier), url,
+            hashBytes(url, 0, url.length), longURL.getExpiry());
+      });
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    long idHash = hashChars(shortUrlIdentifier);
+    lock.readLock().lock();
+    try {
+      int slot = findIdSlot(shortUrlIdentifier, idHash);
+      return slot >= 0 ? readUrl(byId.address(slot)) : null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    long idHash = hashChars(shortUrlIdentifier);
+    lock.readLock().lock();
+    try {
+      return findIdSlot(shortUrlIdentifier, idHash) >= 0;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    long idHash = hashChars(shortUrlIdentifier);
+    lock.readLock().lock();
+    try {
+      int slot = findIdSlot(shortUrlIdentifier, idHash);
+      if (slot < 0) {
+        return -1;
+      }
+      long address = byId.address(slot);
+      return chunk(address).getLong(offset(address));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    long idHash = hashChars(shortUrlIdentifier);
+    lock.readLock().lock();
+    try {
+      int slot = findIdSlot(shortUrlIdentifier, idHash);
+      if (slot < 0) {
+        return null;
+      }
+      long address = byId.address(slot);
+      return new LongUrl(readUrl(address), chunk(address).getLong(offset(address)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(shortUrlIdentifier);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    lock.writeLock().lock();
+    try {
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        removeLocked(shortUrlIdentifier);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Walks the whole arena; sweeps should use {@link #pollExpired}. */
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    List<String> expired = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      forEachLiveRecord((chunk, offset) -> {
+        if (chunk.getLong(offset) <= timeStamp) {
+          expired.add(readId(chunk, offset));
+        }
+      });
+      return expired;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Drains the due list and every wheel slot from the last sweep up to the timestamp;
+   * records in those slots that are due a later round stay linked.
+   */
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    List<String> expired = new ArrayList<>();
+    lock.writeLock().lock();
+    try {
+      drainSlot(DUE_SLOT, timeStamp, expired);
+      if (timeStamp > wheelTime) {
+        long ticks = Math.min(timeStamp - wheelTime, WHEEL_SLOTS);
+        for (long t = 1; t <= ticks; t++) {
+          drainSlot((int) ((wheelTime + t) & WHEEL_MASK), timeStamp, expired);
+        }
+        wheelTime = timeStamp;
+      }
+      return expired;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    lock.writeLock().lock();
+    try {
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        int slot = findIdSlot(shortUrlIdentifier, hashChars(shortUrlIdentifier));
+        if (slot >= 0) {
+          long address = byId.address(slot);
+          if (chunk(address).getInt(offset(address) + WHEEL_SLOT_OFFSET) == UNSCHEDULED) {
+            schedule(address);
+          }
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    byte[] url = longUrl.getBytes(StandardCharsets.UTF_8);
+    long urlHash = hashBytes(url, 0, url.length);
+    lock.readLock().lock();
+    try {
+      int slot = findUrlSlot(url, urlHash);
+      if (slot < 0) {
+        return Optional.empty();
+      }
+      long address = byUrl.address(slot);
+      return Optional.of(readId(chunk(address), offset(address)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    lock.readLock().lock();
+    try {
+      forEachLiveRecord((chunk, offset) -> action.accept(readId(chunk, offset),
+          new LongUrl(readUrl(chunk, offset), chunk.getLong(offset))));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return byId.live;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Bytes of native memory reserved for records and index tables.
+   */
+  public long getOffHeapBytes() {
+    lock.readLock().lock();
+    try {
+      long bytes = byId.bytes() + byUrl.bytes() + wheelHeads.capacity();
+      for (ByteBuffer chunk : chunks) {
+        if (chunk != null) {
+          bytes += chunk.capacity();
+        }
+      }
+      return bytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Stops the compaction thread; arena memory is released with the buffers. */
+  @Override
+  public void close() {
+    // Under the lock, so a remove cannot hand the executor a compaction as it shuts down.
+    lock.writeLock().lock();
+    try {
+      compactor.shutdown();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    try {
+      compactor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void insertLocked(String shortUrlIdentifier, long idHash, byte[] url, long urlHash,
+                            long expiry) {
+    long address = append(shortUrlIdentifier, url, expiry);
+    schedule(address);
+    byId = byId.ensureCapacity();
+    byId.insert(idHash, address);
+    int urlSlot = findUrlSlot(url, urlHash);
+    if (urlSlot >= 0) {
+      byUrl.setAddress(urlSlot, address);
+    } else {
+      byUrl = byUrl.ensureCapacity();
+      byUrl.insert(urlHash, address);
+    }
+  }
+
+  private void removeLocked(String shortUrlIdentifier) {
+    int slot = findIdSlot(shortUrlIdentifier, hashChars(shortUrlIdentifier));
+    if (slot < 0) {
+      return;
+    }
+    long address = byId.address(slot);
+    byId.setAddress(slot, TOMBSTONE);
+    unschedule(address);
+    // Only drop the reverse entry if it still points at this record.
+    repointUrl(address, TOMBSTONE);
+    markDead(address);
+    if (compactionDue() && !compactionScheduled && !compactor.isShutdown()) {
+      compactionScheduled = true;
+      compactor.execute(this::compactInBackground);
+    }
+  }
+
+  private void markDead(long address) {
+    ByteBuffer chunk = chunk(address);
+    int offset = offset(address);
+    chunk.put(offset + STATE_OFFSET, DEAD);
+    int length = recordLength(chunk, offset);
+    liveBytes -= length;
+    deadBytes += length;
+    chunkDeadBytes[(int) (address >>> 32)] += length;
+  }
+
+  /** Points the reverse entry that holds {@code from} at {@code to} instead. */
+  private void repointUrl(long from, long to) {
+    ByteBuffer chunk = chunk(from);
+    int offset = offset(from);
+    int urlStart = offset + HEADER_BYTES + 2 * chunk.getShort(offset + 12);
+    long urlHash = hashBuffer(chunk, urlStart, chunk.getInt(offset + 8));
+    for (int s = byUrl.home(urlHash); byUrl.address(s) != EMPTY; s = byUrl.next(s)) {
+      if (byUrl.address(s) == from) {
+        byUrl.setAddress(s, to);
+        return;
+      }
+    }
+  }
+
+  private boolean compactionDue() {
+    return deadBytes > liveBytes && deadBytes > chunkBytes;
+  }
+
+  private void compactInBackground() {
+    try {
+      int index;
+      while ((index = nextCompactionCandidate()) >= 0) {
+        compactChunk(index);
+      }
+    } catch (RuntimeException | OutOfMemoryError e) {
+      // Every record move leaves the arena consistent, so a failure only ends this pass.
+      System.err.println("Off-heap compaction stopped: " + e);
+      lock.writeLock().lock();
+      try {
+        compactionScheduled = false;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /** A sealed chunk at least half dead, or -1 once compaction is no longer due. */
+  private int nextCompactionCandidate() {
+    lock.writeLock().lock();
+    try {
+      // Saves since the request may have tipped the balance back.
+      if (compactionDue() && !compactor.isShutdown()) {
+        for (int i = 0; i < chunks.size(); i++) {
+          ByteBuffer chunk = chunks.get(i);
+          if (i != tail && chunk != null && chunkDeadBytes[i] * 2 >= chunk.position() - 8) {
+            return i;
+          }
+        }
+      }
+      compactionScheduled = false;
+      return -1;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Moves the chunk's live records to the tail in batches, then drops the chunk. */
+  private void compactChunk(int index) {
+    int offset = 8;
+    while (true) {
+      lock.writeLock().lock();
+      try {
+        // Sealed: nothing is appended to it, only records in it marked dead.
+        ByteBuffer chunk = chunks.get(index);
+        int end = chunk.position();
+        for (int n = 0; offset < end && n < COMPACTION_BATCH; n++) {
+          int length = recordLength(chunk, offset);
+          if (chunk.get(offset + STATE_OFFSET) == LIVE) {
+            move(((long) index << 32) | offset);
+          }
+          offset += length;
+        }
+        if (offset >= end) {
+          chunks.set(index, null);
+          deadBytes -= chunkDeadBytes[index];
+          chunkDeadBytes[index] = 0;
+          freeChunks.push(index);
+          return;
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Copies a live record to the tail and repoints both tables and its wheel neighbours at
+   * the copy. The copy is complete before anything points at it, so if appending fails
+   * the original is still the record every index uses.
+   */
+  private void move(long from) {
+    ByteBuffer chunk = chunk(from);
+    int offset = offset(from);
+    String id = readId(chunk, offset);
+    byte[] url = new byte[chunk.getInt(offset + 8)];
+    chunk.get(offset + HEADER_BYTES + 2 * id.length(), url);
+    long to = append(id, url, chunk.getLong(offset));
+    byId.setAddress(findIdSlot(id, hashChars(id)), to);
+    repointUrl(from, to);
+    int slot = chunk.getInt(offset + WHEEL_SLOT_OFFSET);
+    if (slot != UNSCHEDULED) {
+      long prev = chunk.getLong(offset + PREV_OFFSET);
+      long next = chunk.getLong(offset + NEXT_OFFSET);
+      link(to, slot, prev, next);
+      if (prev == EMPTY) {
+        wheelHeads.putLong(slot * 8, to);
+      } else {
+        chunk(prev).putLong(offset(prev) + NEXT_OFFSET, to);
+      }
+      if (next != EMPTY) {
+        chunk(next).putLong(offset(next) + PREV_OFFSET, to);
+      }
+      chunk.putInt(offset + WHEEL_SLOT_OFFSET, UNSCHEDULED);
+    }
+    markDead(from);
+  }
+
+  /** Links a record at the head of the wheel slot its expiry falls in. */
+  private void schedule(long address) {
+    long expiry = chunk(address).getLong(offset(address));
+    int slot = expiry <= wheelTime ? DUE_SLOT : (int) (expiry & WHEEL_MASK);
+    long head = wheelHeads.getLong(slot * 8);
+    link(address, slot, EMPTY, head);
+    if (head != EMPTY) {
+      chunk(head).putLong(offset(head) + PREV_OFFSET, address);
+    }
+    wheelHeads.putLong(slot * 8, address);
+  }
+
+  private void unschedule(long address) {
+    ByteBuffer chunk = chunk(address);
+    int offset = offset(address);
+    int slot = chunk.getInt(offset + WHEEL_SLOT_OFFSET);
+    if (slot == UNSCHEDULED) {
+      return;
+    }
+    long prev = chunk.getLong(offset + PREV_OFFSET);
+    long next = chunk.getLong(offset + NEXT_OFFSET);
+    if (prev == EMPTY) {
+      wheelHeads.putLong(slot * 8, next);
+    } else {
+      chunk(prev).putLong(offset(prev) + NEXT_OFFSET, next);
+    }
+    if (next != EMPTY) {
+      chunk(next).putLong(offset(next) + PREV_OFFSET, prev);
+    }
+    chunk.putInt(offset + WHEEL_SLOT_OFFSET, UNSCHEDULED);
+  }
+
+  private void link(long address, int slot, long prev, long next) {
+    ByteBuffer chunk = chunk(address);
+    int offset = offset(address);
+    chunk.putInt(offset + WHEEL_SLOT_OFFSET, slot);
+    chunk.putLong(offset + PREV_OFFSET, prev);
+    chunk.putLong(offset + NEXT_OFFSET, next);
+  }
+
+  /** Unlinks and collects the slot's records due at or before the timestamp. */
+  private void drainSlot(int slot, long timeStamp, List<String> expired) {
+    long address = wheelHeads.getLong(slot * 8);
+    while (address != EMPTY) {
+      ByteBuffer chunk = chunk(address);
+      int offset = offset(address);
+      long next = chunk.getLong(offset + NEXT_OFFSET);
+      if (chunk.getLong(offset) <= timeStamp) {
+        unschedule(address);
+        expired.add(readId(chunk, offset));
+      }
+      address = next;
+    }
+  }
+
+  private long append(String id, byte[] url, long expiry) {
+    int length = HEADER_BYTES + 2 * id.length() + url.length;
+    ByteBuffer chunk = tail >= 0 ? chunks.get(tail) : null;
+    if (chunk == null || chunk.remaining() < length) {
+      // Offset 0 of chunk 0 would encode as the EMPTY address, so every chunk starts at 8.
+      chunk = ByteBuffer.allocateDirect(Math.max(chunkBytes, length + 8));
+      chunk.position(8);
+      if (freeChunks.isEmpty()) {
+        tail = chunks.size();
+        chunks.add(chunk);
+        if (tail == chunkDeadBytes.length) {
+          chunkDeadBytes = Arrays.copyOf(chunkDeadBytes, tail * 2);
+        }
+      } else {
+        tail = freeChunks.pop();
+        chunks.set(tail, chunk);
+      }
+    }
+    int offset = chunk.position();
+    chunk.putLong(offset, expiry);
+    chunk.putInt(offset + 8, url.length);
+    chunk.putShort(offset + 12, (short) id.length());
+    chunk.put(offset + STATE_OFFSET, LIVE);
+    chunk.putInt(offset + WHEEL_SLOT_OFFSET, UNSCHEDULED);
+    int idStart = offset + HEADER_BYTES;
+    for (int i = 0; i < id.length(); i++) {
+      chunk.putChar(idStart + 2 * i, id.charAt(i));
+    }
+    chunk.put(idStart + 2 * id.length(), url);
+    chunk.position(offset + length);
+    liveBytes += length;
+    return ((long) tail << 32) | offset;
+  }
+
+  private int findIdSlot(String id, long idHash) {
+    Table table = byId;
+    for (int s = table.home(idHash); table.address(s) != EMPTY; s = table.next(s)) {
+      long address = table.address(s);
+      if (address != TOMBSTONE && table.hash(s) == idHash && idEquals(address, id)) {
+        return s;
+      }
+    }
+    return -1;
+  }
+
+  private int findUrlSlot(byte[] url, long urlHash) {
+    Table table = byUrl;
+    for (int s = table.home(urlHash); table.address(s) != EMPTY; s = table.next(s)) {
+      long address = table.address(s);
+      if (address != TOMBSTONE && table.hash(s) == urlHash && urlEquals(address, url)) {
+        return s;
+      }
+    }
+    return -1;
+  }
+
+  private boolean idEquals(long address, String id) {
+    ByteBuffer chunk = chunk(address);
+    int offset = offset(address);
+    if (chunk.getShort(offset + 12) != id.length()) {
+      return false;
+    }
+    int idStart = offset + HEADER_BYTES;
+    for (int i = 0; i < id.length(); i++) {
+      if (chunk.getChar(idStart + 2 * i) != id.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean urlEquals(long address, byte[] url) {
+    ByteBuffer chunk = chunk(address);
+    int offset = offset(address);
+    if (chunk.getInt(offset + 8) != url.length) {
+      return false;
+    }
+    int urlStart = offset + HEADER_BYTES + 2 * chunk.getShort(offset + 12);
+    for (int i = 0; i < url.length; i++) {
+      if (chunk.get(urlStart + i) != url[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String readUrl(long address) {
+    return readUrl(chunk(address), offset(address));
+  }
+
+  private static String readUrl(ByteBuffer chunk, int offset) {
+    byte[] url = new byte[chunk.getInt(offset + 8)];
+    chunk.get(offset + HEADER_BYTES + 2 * chunk.getShort(offset + 12), url);
+    return new String(url, StandardCharsets.UTF_8);
+  }
+
+  private static String readId(ByteBuffer chunk, int offset) {
+    char[] id = new char[chunk.getShort(offset + 12)];
+    int idStart = offset + HEADER_BYTES;
+    for (int i = 0; i < id.length; i++) {
+      id[i] = chunk.getChar(idStart + 2 * i);
+    }
+    return new String(id);
+  }
+
+  private static int recordLength(ByteBuffer chunk, int offset) {
+    return HEADER_BYTES + 2 * chunk.getShort(offset + 12) + chunk.getInt(offset + 8);
+  }
+
+  private void forEachLiveRecord(RecordVisitor visitor) {
+    for (ByteBuffer chunk : chunks) {
+      if (chunk == null) {
+        continue;
+      }
+      int offset = 8;
+      while (offset < chunk.position()) {
+        if (chunk.get(offset + STATE_OFFSET) == LIVE) {
+          visitor.visit(chunk, offset);
+        }
+        offset += recordLength(chunk, offset);
+      }
+    }
+  }
+
+  private ByteBuffer chunk(long address) {
+    return chunks.get((int) (address >>> 32));
+  }
+
+  private static int offset(long address) {
+    return (int) address;
+  }
+
+  private static long hashChars(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  private static long hashBytes(byte[] value, int from, int length) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = from; i < from + length; i++) {
+      h = (h ^ (value[i] & 0xFF)) * 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  private static long hashBuffer(ByteBuffer buffer, int from, int length) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = from; i < from + length; i++) {
+      h = (h ^ (buffer.get(i) & 0xFF)) * 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    return h ^ (h >>> 33);
+  }
+
+  private interface RecordVisitor {
+    void visit(ByteBuffer chunk, int offset);
+  }
+
+  /**
+   * Linear-probing table of {@code [long address][long hash]} slots in native memory,
+   * split into pages because a single direct buffer tops out at 2 GiB.
+   */
+  private static final class Table {
+    private static final int SLOT_BYTES = 16;
+    private static final int PAGE_SHIFT = 26;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    private final ByteBuffer[] pages;
+    private final int mask;
+    private int used;
+    private int live;
+
+    private Table(int capacity) {
+      int pageSlots = Math.min(capacity, 1 << PAGE_SHIFT);
+      this.pages = new ByteBuffer[capacity / pageSlots];
+      for (int i = 0; i < pages.length; i++) {
+        pages[i] = ByteBuffer.allocateDirect(pageSlots * SLOT_BYTES);
+      }
+      this.mask = capacity - 1;
+    }
+
+    private int capacity() {
+      return mask + 1;
+    }
+
+    private long bytes() {
+      return (long) capacity() * SLOT_BYTES;
+    }
+
+    private int home(long hash) {
+      return (int) hash & mask;
+    }
+
+    private int next(int slot) {
+      return (slot + 1) & mask;
+    }
+
+    private long address(int slot) {
+      return pages[slot >>> PAGE_SHIFT].getLong((slot & PAGE_MASK) * SLOT_BYTES);
+    }
+
+    private long hash(int slot) {
+      return pages[slot >>> PAGE_SHIFT].getLong((slot & PAGE_MASK) * SLOT_BYTES + 8);
+    }
+
+    private void setAddress(int slot, long address) {
+      if (address == TOMBSTONE) {
+        live--;
+      }
+      pages[slot >>> PAGE_SHIFT].putLong((slot & PAGE_MASK) * SLOT_BYTES, address);
+    }
+
+    private void insert(long hash, long address) {
+      int slot = home(hash);
+      while (address(slot) != EMPTY && address(slot) != TOMBSTONE) {
+        slot = next(slot);
+      }
+      if (address(slot) == EMPTY) {
+        used++;
+      }
+      ByteBuffer page = pages[slot >>> PAGE_SHIFT];
+      page.putLong((slot & PAGE_MASK) * SLOT_BYTES, address);
+      page.putLong((slot & PAGE_MASK) * SLOT_BYTES + 8, hash);
+      live++;
+    }
+
+    /** Returns a table with room for one more entry, rehashing when 3/4 of slots are used. */
+    private Table ensureCapacity() {
+      int capacity = capacity();
+      if ((used + 1) * 4L <= capacity * 3L) {
+        return this;
+      }
+      int newCapacity = (live + 1) * 2L > capacity ? capacity * 2 : capacity;
+      Table resized = new Table(newCapacity);
+      for (int s = 0; s < capacity; s++) {
+        long address = address(s);
+        if (address != EMPTY && address != TOMBSTONE) {
+          resized.insert(hash(s), address);
+        }
+      }
+      return resized;
+    }
+  }
+}
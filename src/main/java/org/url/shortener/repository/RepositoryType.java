@@ -0,0 +1,11 @@
+package org.url.shortener.repository;
+
+public enum RepositoryType {
+  DEFAULT,
+  STRIPED,
+  OFF_HEAP,
+  SHARDED,
+  LSM,
+  TIERED,
+  JDBC
+}
@@ -0,0 +1,299 @@
+package org.url.shortener.repository;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Shared-nothing repository: the keyspace is split into partitions by hash of the short
+ * identifier, one per core by default. Each shard owns its index, prefix dictionary,
+ * reverse index and expiry wheel, and every mutation of a shard runs on that shard's
+ * single writer thread, so writers never contend and the expiry wheel needs no lock.
+ * Reads go straight to the shard's index without taking a lock.
+ *
+ * <p>{@code findByLongUrl} cannot know which shard owns a URL and probes all of them.
+ */
+public class ShardedRepository implements URLRepository, Closeable {
+
+  private final Shard[] shards;
+
+  public ShardedRepository() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public ShardedRepository(int shardCount) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("Shard count must be positive");
+    }
+    this.shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(i);
+    }
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    Shard shard = shardFor(shortUrlIdentifier);
+    await(shard.submit(() -> {
+      shard.insert(shortUrlIdentifier, longURL);
+      return null;
+    }));
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    Map<Shard, Map<String, LongUrl>> byShard = new LinkedHashMap<>();
+    entries.forEach((shortUrlIdentifier, longURL) -> byShard
+        .computeIfAbsent(shardFor(shortUrlIdentifier), s -> new LinkedHashMap<>())
+        .put(shortUrlIdentifier, longURL));
+    Map<Shard, CompletableFuture<Void>> writes = new LinkedHashMap<>();
+    byShard.forEach((shard, group) -> writes.put(shard, shard.submit(() -> {
+      shard.insertAll(group);
+      return null;
+    })));
+    RuntimeException failure = null;
+    List<Shard> applied = new ArrayList<>();
+    for (Map.Entry<Shard, CompletableFuture<Void>> write : writes.entrySet()) {
+      try {
+        await(write.getValue());
+        applied.add(write.getKey());
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      // Shards are independent, so undo the groups that did go through.
+      for (Shard shard : applied) {
+        Collection<String> group = byShard.get(shard).keySet();
+        await(shard.submit(() -> {
+          group.forEach(shard::delete);
+          return null;
+        }));
+      }
+      throw failure;
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    Shard shard = shardFor(shortUrlIdentifier);
+    CompactUrl compactUrl = shard.index.get(shortUrlIdentifier);
+    return compactUrl != null ? shard.dictionary.expand(compactUrl) : null;
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return shardFor(shortUrlIdentifier).index.containsKey(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    CompactUrl compactUrl = shardFor(shortUrlIdentifier).index.get(shortUrlIdentifier);
+    return compactUrl != null ? compactUrl.getExpiry() : -1;
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    Shard shard = shardFor(shortUrlIdentifier);
+    CompactUrl compactUrl = shard.index.get(shortUrlIdentifier);
+    return compactUrl != null ? new LongUrl(shard.dictionary.expand(compactUrl), compactUrl.getExpiry()) : null;
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    Shard shard = shardFor(shortUrlIdentifier);
+    await(shard.submit(() -> {
+      shard.delete(shortUrlIdentifier);
+      return null;
+    }));
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    Map<Shard, List<String>> byShard = new LinkedHashMap<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      byShard.computeIfAbsent(shardFor(shortUrlIdentifier), s -> new ArrayList<>())
+          .add(shortUrlIdentifier);
+    }
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    byShard.forEach((shard, group) -> writes.add(shard.submit(() -> {
+      group.forEach(shard::delete);
+      return null;
+    })));
+    writes.forEach(ShardedRepository::await);
+  }
+
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    return collect(shard -> shard.submit(() -> shard.expiryWheel.peekExpired(timeStamp)));
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    return collect(shard -> shard.submit(() -> shard.expiryWheel.advance(timeStamp)));
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    Map<Shard, List<String>> byShard = new LinkedHashMap<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      byShard.computeIfAbsent(shardFor(shortUrlIdentifier), s -> new ArrayList<>())
+          .add(shortUrlIdentifier);
+    }
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    byShard.forEach((shard, group) -> writes.add(shard.submit(() -> {
+      group.forEach(shard::reschedule);
+      return null;
+    })));
+    writes.forEach(ShardedRepository::await);
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    for (Shard shard : shards) {
+      Optional<String> found = shard.reverseIndex.find(longUrl);
+      if (found.isPresent()) {
+        return found;
+      }
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    for (Shard shard : shards) {
+      shard.index.forEach((shortUrlIdentifier, compactUrl) ->
+          action.accept(shortUrlIdentifier, shard.dictionary.toLongUrl(compactUrl)));
+    }
+  }
+
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  @Override
+  public void close() {
+    for (Shard shard : shards) {
+      shard.writer.shutdown();
+    }
+    for (Shard shard : shards) {
+      try {
+        shard.writer.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private List<String> collect(Function<Shard, CompletableFuture<List<String>>> task) {
+    List<CompletableFuture<List<String>>> results = new ArrayList<>(shards.length);
+    for (Shard shard : shards) {
+      results.add(task.apply(shard));
+    }
+    List<String> expired = new ArrayList<>();
+    for (CompletableFuture<List<String>> result : results) {
+      expired.addAll(await(result));
+    }
+    return expired;
+  }
+
+  private Shard shardFor(String shortUrlIdentifier) {
+    int h = shortUrlIdentifier.hashCode();
+    return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+  }
+
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static final class Shard {
+    private final ShortIdIndex<CompactUrl> index;
+    private final UrlDictionary dictionary;
+    private final UrlFingerprintIndex reverseIndex;
+    private final ExpiryTimingWheel expiryWheel;
+    private final ExecutorService writer;
+
+    private Shard(int number) {
+      // One segment: the writer thread is the only one that ever takes its write lock.
+      this.index = new ShortIdIndex<>(1);
+      this.dictionary = new UrlDictionary();
+      this.reverseIndex = new UrlFingerprintIndex(this::lookup, 1);
+      this.expiryWheel = new ExpiryTimingWheel();
+      this.writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Shard-Writer-" + number);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+      return CompletableFuture.supplyAsync(task, writer);
+    }
+
+    /** Runs on the writer thread. */
+    private void insert(String shortUrlIdentifier, LongUrl longURL) {
+      if (index.putIfAbsent(shortUrlIdentifier, dictionary.compress(longURL)) != null) {
+        throw new DuplicateUrlIdentifierException(
+            "URL identifier already exists: " + shortUrlIdentifier);
+      }
+      reverseIndex.put(longURL.getUrl(), shortUrlIdentifier);
+      expiryWheel.schedule(shortUrlIdentifier, longURL.getExpiry());
+    }
+
+    /** Runs on the writer thread. */
+    private void insertAll(Map<String, LongUrl> entries) {
+      for (String shortUrlIdentifier : entries.keySet()) {
+        if (index.containsKey(shortUrlIdentifier)) {
+          throw new DuplicateUrlIdentifierException(
+              "URL identifier already exists: " + shortUrlIdentifier);
+        }
+      }
+      entries.forEach(this::insert);
+    }
+
+    /** Runs on the writer thread. */
+    private void delete(String shortUrlIdentifier) {
+      CompactUrl removed = index.remove(shortUrlIdentifier);
+      if (removed == null) {
+        return;
+      }
+      reverseIndex.remove(dictionary.expand(removed), shortUrlIdentifier);
+      expiryWheel.cancel(shortUrlIdentifier);
+    }
+
+    /** Runs on the writer thread. */
+    private void reschedule(String shortUrlIdentifier) {
+      CompactUrl compactUrl = index.get(shortUrlIdentifier);
+      if (compactUrl != null) {
+        expiryWheel.schedule(shortUrlIdentifier, compactUrl.getExpiry());
+      }
+    }
+
+    private String lookup(String shortUrlIdentifier) {
+      CompactUrl compactUrl = index.get(shortUrlIdentifier);
+      return compactUrl != null ? dictionary.expand(compactUrl) : null;
+    }
+  }
+}
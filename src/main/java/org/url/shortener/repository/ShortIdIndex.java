@@ -0,0 +1,146 @@
+package org.url.shortener.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.strategy.Base62Codec;
+
+/**
+ * Thread-safe index keyed by short identifier. Identifiers that {@link Base62Codec} can
+ * pack are stored under their {@code long} code in segmented {@link LongObjectHashMap}s,
+ * so a lookup hashes a primitive instead of a String and allocates nothing; anything else
+ * (custom aliases with other characters or longer than ten characters) falls back to a
+ * concurrent map. Reads use optimistic stamps and only take the read lock when they race
+ * a writer on the same segment.
+ */
+public class ShortIdIndex<V> {
+
+  private static final int DEFAULT_SEGMENTS = 16;
+
+  private final Segment<V>[] segments;
+  private final int segmentMask;
+  private final Map<String, V> overflow;
+
+  public ShortIdIndex() {
+    this(DEFAULT_SEGMENTS);
+  }
+
+  @SuppressWarnings("unchecked")
+  public ShortIdIndex(int segmentCount) {
+    if (segmentCount <= 0) {
+      throw new IllegalArgumentException("Segment count must be positive");
+    }
+    int size = 1;
+    while (size < segmentCount) {
+      size <<= 1;
+    }
+    this.segments = new Segment[size];
+    for (int i = 0; i < size; i++) {
+      segments[i] = new Segment<>();
+    }
+    this.segmentMask = size - 1;
+    this.overflow = new ConcurrentHashMap<>();
+  }
+
+  public V get(String shortUrlIdentifier) {
+    long code = Base62Codec.encode(shortUrlIdentifier);
+    if (code == Base62Codec.NOT_ENCODABLE) {
+      return overflow.get(shortUrlIdentifier);
+    }
+    Segment<V> segment = segmentFor(code);
+    StampedLock lock = segment.lock;
+    long stamp = lock.tryOptimisticRead();
+    V value = segment.map.get(code);
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        value = segment.map.get(code);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return value;
+  }
+
+  public boolean containsKey(String shortUrlIdentifier) {
+    return get(shortUrlIdentifier) != null;
+  }
+
+  /**
+   * Stores the value unless the identifier is already present.
+   *
+   * @return the existing value, or null if the value was stored
+   */
+  public V putIfAbsent(String shortUrlIdentifier, V value) {
+    long code = Base62Codec.encode(shortUrlIdentifier);
+    if (code == Base62Codec.NOT_ENCODABLE) {
+      return overflow.putIfAbsent(shortUrlIdentifier, value);
+    }
+    Segment<V> segment = segmentFor(code);
+    long stamp = segment.lock.writeLock();
+    try {
+      V existing = segment.map.get(code);
+      if (existing != null) {
+        return existing;
+      }
+      segment.map.put(code, value);
+      return null;
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  public V remove(String shortUrlIdentifier) {
+    long code = Base62Codec.encode(shortUrlIdentifier);
+    if (code == Base62Codec.NOT_ENCODABLE) {
+      return overflow.remove(shortUrlIdentifier);
+    }
+    Segment<V> segment = segmentFor(code);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.remove(code);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  public long size() {
+    long size = overflow.size();
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        size += segment.map.size();
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Visits every entry, one segment at a time under its read lock. Identifiers are decoded
+   * back to Strings, so this is meant for snapshots and scans rather than hot paths.
+   */
+  public void forEach(BiConsumer<String, ? super V> action) {
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        segment.map.forEach((code, value) -> action.accept(Base62Codec.decode(code), value));
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    overflow.forEach(action);
+  }
+
+  private Segment<V> segmentFor(long code) {
+    // High bits of the mix, so segments and in-map slots use different parts of the hash.
+    return segments[(LongObjectHashMap.mix(code) >>> 16) & segmentMask];
+  }
+
+  private static final class Segment<V> {
+    private final StampedLock lock = new StampedLock();
+    private final LongObjectHashMap<V> map = new LongObjectHashMap<>();
+  }
+}
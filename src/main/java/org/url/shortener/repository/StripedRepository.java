@@ -0,0 +1,201 @@
+package org.url.shortener.repository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Repository that partitions writes across lock stripes instead of a single monitor.
+ * Lookups go to a {@link ShortIdIndex} keyed by the packed identifier and only fall back
+ * to a read lock when they race a writer; each stripe owns the
+ * expiry wheel for the identifiers hashed to it, so a cleanup sweep only ever blocks
+ * one stripe at a time.
+ */
+public class StripedRepository implements URLRepository {
+
+  private static final int DEFAULT_STRIPES = 64;
+
+  private final ShortIdIndex<CompactUrl> shortToLongMap;
+  private final UrlDictionary dictionary;
+  private final UrlFingerprintIndex longToShortIndex;
+  private final LockStripes locks;
+  // One per stripe, guarded by that stripe's lock.
+  private final ExpiryTimingWheel[] expiryWheels;
+
+  public StripedRepository() {
+    this(DEFAULT_STRIPES);
+  }
+
+  public StripedRepository(int stripeCount) {
+    if (stripeCount <= 0) {
+      throw new IllegalArgumentException("Stripe count must be positive");
+    }
+    this.locks = new LockStripes(stripeCount);
+    int size = locks.size();
+    this.shortToLongMap = new ShortIdIndex<>(size);
+    this.dictionary = new UrlDictionary();
+    this.longToShortIndex = new UrlFingerprintIndex(this::get, size);
+    this.expiryWheels = new ExpiryTimingWheel[size];
+    for (int i = 0; i < size; i++) {
+      expiryWheels[i] = new ExpiryTimingWheel();
+    }
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      if (shortToLongMap.putIfAbsent(shortUrlIdentifier, dictionary.compress(longURL)) != null) {
+        throw new DuplicateUrlIdentifierException(
+            "URL identifier already exists: " + shortUrlIdentifier);
+      }
+      longToShortIndex.put(longURL.getUrl(), shortUrlIdentifier);
+      expiryWheelFor(shortUrlIdentifier).schedule(shortUrlIdentifier, longURL.getExpiry());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    BitSet held = locks.lockAll(entries.keySet());
+    try {
+      for (String shortUrlIdentifier : entries.keySet()) {
+        if (shortToLongMap.containsKey(shortUrlIdentifier)) {
+          throw new DuplicateUrlIdentifierException(
+              "URL identifier already exists: " + shortUrlIdentifier);
+        }
+      }
+      entries.forEach((shortUrlIdentifier, longURL) -> {
+        shortToLongMap.putIfAbsent(shortUrlIdentifier, dictionary.compress(longURL));
+        longToShortIndex.put(longURL.getUrl(), shortUrlIdentifier);
+        expiryWheelFor(shortUrlIdentifier).schedule(shortUrlIdentifier, longURL.getExpiry());
+      });
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+    return compactUrl != null ? dictionary.expand(compactUrl) : null;
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return shortToLongMap.containsKey(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+    return compactUrl != null ? compactUrl.getExpiry() : -1;
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+    return compactUrl != null ? new LongUrl(dictionary.expand(compactUrl), compactUrl.getExpiry()) : null;
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      removeLocked(shortUrlIdentifier);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        removeLocked(shortUrlIdentifier);
+      }
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    List<String> expiredUrls = new ArrayList<>();
+    for (int i = 0; i < expiryWheels.length; i++) {
+      ReentrantLock lock = locks.lockAt(i);
+      lock.lock();
+      try {
+        expiredUrls.addAll(expiryWheels[i].peekExpired(timeStamp));
+      } finally {
+        lock.unlock();
+      }
+    }
+    return expiredUrls;
+  }
+
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    List<String> expiredUrls = new ArrayList<>();
+    for (int i = 0; i < expiryWheels.length; i++) {
+      ReentrantLock lock = locks.lockAt(i);
+      lock.lock();
+      try {
+        expiredUrls.addAll(expiryWheels[i].advance(timeStamp));
+      } finally {
+        lock.unlock();
+      }
+    }
+    return expiredUrls;
+  }
+
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        CompactUrl compactUrl = shortToLongMap.get(shortUrlIdentifier);
+        if (compactUrl != null) {
+          expiryWheelFor(shortUrlIdentifier).schedule(shortUrlIdentifier, compactUrl.getExpiry());
+        }
+      }
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    return longToShortIndex.find(longUrl);
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    shortToLongMap.forEach((id, compactUrl) -> action.accept(id, dictionary.toLongUrl(compactUrl)));
+  }
+
+  private void removeLocked(String shortUrlIdentifier) {
+    CompactUrl removedUrl = shortToLongMap.remove(shortUrlIdentifier);
+    if (removedUrl == null) {
+      return;
+    }
+    // Another identifier may have been saved for the same long URL since.
+    longToShortIndex.remove(dictionary.expand(removedUrl), shortUrlIdentifier);
+    expiryWheelFor(shortUrlIdentifier).cancel(shortUrlIdentifier);
+  }
+
+  private ExpiryTimingWheel expiryWheelFor(String shortUrlIdentifier) {
+    return expiryWheels[locks.indexFor(shortUrlIdentifier)];
+  }
+}
@@ -0,0 +1,474 @@
+package org.url.shortener.repository;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Two-tier repository: recently used links live on the heap in a {@link DefaultRepository},
+ * the rest in memory-mapped segment files ({@link ColdSegmentStore}).
+ *
+ * <p>Every hot link carries the epoch second it was last read or written. A background
+ * pass demotes links idle for longer than the configured time, and when the hot tier is
+ * over its entry budget or the heap is above the usage threshold it also demotes the least
+ * recently used links until the tier is back under budget (a quarter of it under heap
+ * pressure). A read that finds a link in the cold tier promotes it back. Demotion writes
+ * the cold copy before dropping the hot one and promotion the reverse, so a concurrent
+ * reader always finds the link in one of the tiers.
+ */
+public class TieredRepository implements URLRepository, Closeable {
+
+  private static final int LOCK_STRIPES = 64;
+  private static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+  private static final long DEFAULT_DEMOTION_INTERVAL_SECONDS = 30;
+  private static final double HEAP_USAGE_THRESHOLD = 0.8;
+  private static final double PRESSURE_DEMOTION_FRACTION = 0.25;
+
+  private final DefaultRepository hot;
+  private final ShortIdIndex<AtomicLong> lastAccess;
+  private final ColdSegmentStore cold;
+  private final LockStripes locks;
+  private final long maxHotEntries;
+  private final long idleSecondsBeforeDemotion;
+  private final LongSupplier clock;
+  private final DoubleSupplier heapUsage;
+  private final ScheduledExecutorService demoter;
+  private final AtomicBoolean demotionPending = new AtomicBoolean();
+  private final AtomicLong hotEntries = new AtomicLong();
+  private final LongAdder hotHits = new LongAdder();
+  private final LongAdder coldHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final AtomicLong promotions = new AtomicLong();
+  private final AtomicLong demotions = new AtomicLong();
+  private final AtomicLong pressureDemotions = new AtomicLong();
+
+  public TieredRepository(Path coldDirectory, long maxHotEntries, long idleSecondsBeforeDemotion) {
+    this(coldDirectory, maxHotEntries, idleSecondsBeforeDemotion, DEFAULT_SEGMENT_BYTES,
+        DEFAULT_DEMOTION_INTERVAL_SECONDS);
+  }
+
+  public TieredRepository(Path coldDirectory, long maxHotEntries, long idleSecondsBeforeDemotion,
+                          int segmentBytes, long demotionIntervalSeconds) {
+    this(coldDirectory, maxHotEntries, idleSecondsBeforeDemotion, segmentBytes,
+        demotionIntervalSeconds, () -> Instant.now().getEpochSecond(), TieredRepository::heapUsage);
+  }
+
+  TieredRepository(Path coldDirectory, long maxHotEntries, long idleSecondsBeforeDemotion,
+                   int segmentBytes, long demotionIntervalSeconds,
+                   LongSupplier clock, DoubleSupplier heapUsage) {
+    if (coldDirectory == null) {
+      throw new IllegalArgumentException("Cold tier directory cannot be null");
+    }
+    if (maxHotEntries <= 0) {
+      throw new IllegalArgumentException("Hot tier size must be positive");
+    }
+    if (idleSecondsBeforeDemotion <= 0) {
+      throw new IllegalArgumentException("Idle time before demotion must be positive");
+    }
+    this.hot = new DefaultRepository();
+    this.lastAccess = new ShortIdIndex<>();
+    this.cold = new ColdSegmentStore(coldDirectory, segmentBytes);
+    this.locks = new LockStripes(LOCK_STRIPES);
+    this.maxHotEntries = maxHotEntries;
+    this.idleSecondsBeforeDemotion = idleSecondsBeforeDemotion;
+    this.clock = clock;
+    this.heapUsage = heapUsage;
+    if (demotionIntervalSeconds > 0) {
+      this.demoter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Tier-Demotion-Thread");
+        thread.setDaemon(true);
+        return thread;
+      });
+      demoter.scheduleWithFixedDelay(this::demoteQuietly,
+          demotionIntervalSeconds, demotionIntervalSeconds, TimeUnit.SECONDS);
+    } else {
+      this.demoter = null;
+    }
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      if (cold.contains(shortUrlIdentifier)) {
+        throw new DuplicateUrlIdentifierException(
+            "URL identifier already exists: " + shortUrlIdentifier);
+      }
+      hot.save(shortUrlIdentifier, longURL);
+      lastAccess.putIfAbsent(shortUrlIdentifier, new AtomicLong(clock.getAsLong()));
+    } finally {
+      lock.unlock();
+    }
+    addedToHot(1);
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    BitSet held = locks.lockAll(entries.keySet());
+    try {
+      for (String shortUrlIdentifier : entries.keySet()) {
+        if (cold.contains(shortUrlIdentifier)) {
+          throw new DuplicateUrlIdentifierException(
+              "URL identifier already exists: " + shortUrlIdentifier);
+        }
+      }
+      hot.saveAll(entries);
+      long now = clock.getAsLong();
+      for (String shortUrlIdentifier : entries.keySet()) {
+        lastAccess.putIfAbsent(shortUrlIdentifier, new AtomicLong(now));
+      }
+    } finally {
+      locks.unlockAll(held);
+    }
+    addedToHot(entries.size());
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    String longUrl = hot.get(shortUrlIdentifier);
+    if (longUrl != null) {
+      hotHits.increment();
+      touch(shortUrlIdentifier);
+      return longUrl;
+    }
+    LongUrl coldUrl = cold.get(shortUrlIdentifier);
+    if (coldUrl == null) {
+      // A promotion may have moved it between the two lookups.
+      longUrl = hot.get(shortUrlIdentifier);
+      if (longUrl != null) {
+        hotHits.increment();
+        return longUrl;
+      }
+      misses.increment();
+      return null;
+    }
+    coldHits.increment();
+    promote(shortUrlIdentifier);
+    return coldUrl.getUrl();
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return hot.exists(shortUrlIdentifier) || cold.contains(shortUrlIdentifier)
+        || hot.exists(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    long expiry = hot.getExpiry(shortUrlIdentifier);
+    if (expiry >= 0) {
+      return expiry;
+    }
+    LongUrl coldUrl = cold.get(shortUrlIdentifier);
+    // As in get, a promotion may have moved it between the two lookups.
+    return coldUrl != null ? coldUrl.getExpiry() : hot.getExpiry(shortUrlIdentifier);
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      removeLocked(shortUrlIdentifier);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    BitSet held = locks.lockAll(shortUrlIdentifiers);
+    try {
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        removeLocked(shortUrlIdentifier);
+      }
+    } finally {
+      locks.unlockAll(held);
+    }
+  }
+
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    List<String> expired = new ArrayList<>(hot.getAllExpired(timeStamp));
+    expired.addAll(cold.expired(timeStamp));
+    return expired;
+  }
+
+  /**
+   * Drains the hot tier's expiry wheel. Cold links have no wheel; they are found by a scan
+   * of the segments that hold anything due and reported until they are removed.
+   */
+  @Override
+  public List<String> pollExpired(long timeStamp) {
+    List<String> expired = new ArrayList<>(hot.pollExpired(timeStamp));
+    expired.addAll(cold.expired(timeStamp));
+    return expired;
+  }
+
+  /** Cold links are reported until removed, so only the hot tier's wheel needs them back. */
+  @Override
+  public void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+    hot.rescheduleExpiry(shortUrlIdentifiers);
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    Optional<String> found = hot.findByLongUrl(longUrl);
+    return found.isPresent() ? found : cold.findByLongUrl(longUrl);
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    hot.forEachEntry(action);
+    cold.forEach(action);
+  }
+
+  /**
+   * Runs one demotion pass: links idle past the configured time always move to the cold
+   * tier, and the least recently used ones too while the hot tier is over budget or the
+   * heap is under pressure.
+   *
+   * @return the number of links demoted
+   */
+  public int demote() {
+    long hotSize = hotEntries.get();
+    long target = Math.max(0, hotSize - maxHotEntries);
+    double usage = heapUsage.getAsDouble();
+    boolean pressure = usage > HEAP_USAGE_THRESHOLD;
+    if (pressure) {
+      target = Math.max(target, (long) (hotSize * PRESSURE_DEMOTION_FRACTION));
+    }
+    return demote(target, pressure, usage);
+  }
+
+  /**
+   * Demotes the given share of the hot tier, least recently used first, on top of the
+   * idle links; for callers that detect memory pressure themselves.
+   *
+   * @return the number of links demoted
+   */
+  public int spill(double fraction) {
+    if (fraction <= 0 || fraction > 1) {
+      throw new IllegalArgumentException("Fraction must be in (0, 1]");
+    }
+    return demote((long) Math.ceil(hotEntries.get() * fraction), true, heapUsage.getAsDouble());
+  }
+
+  public long getHotEntries() {
+    return hotEntries.get();
+  }
+
+  public long getColdEntries() {
+    return cold.size();
+  }
+
+  public long getHotHits() {
+    return hotHits.sum();
+  }
+
+  public long getColdHits() {
+    return coldHits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getPromotions() {
+    return promotions.get();
+  }
+
+  public long getDemotions() {
+    return demotions.get();
+  }
+
+  /** Demotions made under heap pressure, detected here or signalled through {@link #spill}. */
+  public long getPressureDemotions() {
+    return pressureDemotions.get();
+  }
+
+  /** Share of lookups answered from the heap, out of all lookups including misses. */
+  public double getHotHitRate() {
+    long hits = hotHits.sum();
+    long total = hits + coldHits.sum() + misses.sum();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  public double getColdHitRate() {
+    long hits = coldHits.sum();
+    long total = hotHits.sum() + hits + misses.sum();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  public void printSummary() {
+    System.out.println("\n=== TIERED STORAGE SUMMARY ===");
+    System.out.println("Hot entries:     " + getHotEntries());
+    System.out.println("Cold entries:    " + getColdEntries());
+    System.out.println("Cold mapped:     " + cold.mappedBytes() + " bytes");
+    System.out.println("Hot hits:        " + getHotHits()
+        + " (" + Math.round(getHotHitRate() * 100) + "%)");
+    System.out.println("Cold hits:       " + getColdHits()
+        + " (" + Math.round(getColdHitRate() * 100) + "%)");
+    System.out.println("Misses:          " + getMisses());
+    System.out.println("Promotions:      " + getPromotions());
+    System.out.println("Demotions:       " + getDemotions()
+        + " (" + getPressureDemotions() + " under heap pressure)");
+    System.out.println("==============================\n");
+  }
+
+  @Override
+  public void close() {
+    if (demoter != null) {
+      demoter.shutdown();
+      try {
+        demoter.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    cold.close();
+  }
+
+  private int demote(long target, boolean pressure, double usage) {
+    long idleCutoff = clock.getAsLong() - idleSecondsBeforeDemotion;
+    List<Candidate> candidates = new ArrayList<>();
+    int[] idle = {0};
+    lastAccess.forEach((shortUrlIdentifier, stamp) -> {
+      long accessed = stamp.get();
+      candidates.add(new Candidate(shortUrlIdentifier, accessed));
+      if (accessed <= idleCutoff) {
+        idle[0]++;
+      }
+    });
+    // Idle links sort first, so taking the oldest covers them plus enough to meet the target.
+    // Links touched in the same second are cut by count, not all taken because they tie.
+    candidates.sort(Comparator.comparingLong(candidate -> candidate.accessed));
+    List<Candidate> victims = candidates.subList(0, (int) Math.min(candidates.size(), Math.max(idle[0], target)));
+    int demoted = 0;
+    for (Candidate victim : victims) {
+      if (demote(victim.shortUrlIdentifier, victim.accessed)) {
+        demoted++;
+      }
+    }
+    if (pressure) {
+      pressureDemotions.addAndGet(demoted);
+    }
+    if (demoted > 0) {
+      System.out.println("Demoted " + demoted + " links to the cold tier (hot: " + hotEntries.get()
+          + ", cold: " + cold.size() + ", heap usage: " + Math.round(usage * 100) + "%)");
+    }
+    return demoted;
+  }
+
+  private void touch(String shortUrlIdentifier) {
+    AtomicLong stamp = lastAccess.get(shortUrlIdentifier);
+    if (stamp != null) {
+      long now = clock.getAsLong();
+      // At most one write per link per second keeps hot links from bouncing cache lines.
+      if (stamp.get() != now) {
+        stamp.set(now);
+      }
+    }
+  }
+
+  private void promote(String shortUrlIdentifier) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      LongUrl longUrl = cold.get(shortUrlIdentifier);
+      if (longUrl == null) {
+        return;
+      }
+      hot.save(shortUrlIdentifier, longUrl);
+      lastAccess.putIfAbsent(shortUrlIdentifier, new AtomicLong(clock.getAsLong()));
+      cold.remove(shortUrlIdentifier);
+    } finally {
+      lock.unlock();
+    }
+    promotions.incrementAndGet();
+    addedToHot(1);
+  }
+
+  private boolean demote(String shortUrlIdentifier, long accessedWhenPicked) {
+    ReentrantLock lock = locks.lockFor(shortUrlIdentifier);
+    lock.lock();
+    try {
+      AtomicLong stamp = lastAccess.get(shortUrlIdentifier);
+      LongUrl longUrl = hot.getLongUrl(shortUrlIdentifier);
+      // Skip links read again since the pass picked them.
+      if (stamp == null || stamp.get() > accessedWhenPicked || longUrl == null) {
+        return false;
+      }
+      cold.put(shortUrlIdentifier, longUrl);
+      hot.remove(shortUrlIdentifier);
+      lastAccess.remove(shortUrlIdentifier);
+    } finally {
+      lock.unlock();
+    }
+    hotEntries.decrementAndGet();
+    demotions.incrementAndGet();
+    return true;
+  }
+
+  private void removeLocked(String shortUrlIdentifier) {
+    if (lastAccess.remove(shortUrlIdentifier) != null) {
+      hot.remove(shortUrlIdentifier);
+      hotEntries.decrementAndGet();
+    } else {
+      cold.remove(shortUrlIdentifier);
+    }
+  }
+
+  private void addedToHot(long count) {
+    if (hotEntries.addAndGet(count) > maxHotEntries && demoter != null
+        && demotionPending.compareAndSet(false, true)) {
+      demoter.execute(() -> {
+        demotionPending.set(false);
+        demoteQuietly();
+      });
+    }
+  }
+
+  private void demoteQuietly() {
+    try {
+      demote();
+    } catch (Exception e) {
+      System.err.println("Error demoting links to the cold tier: " + e.getMessage());
+    }
+  }
+
+  private static double heapUsage() {
+    Runtime runtime = Runtime.getRuntime();
+    return (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+  }
+
+  private static final class Candidate {
+    private final String shortUrlIdentifier;
+    private final long accessed;
+
+    private Candidate(String shortUrlIdentifier, long accessed) {
+      this.shortUrlIdentifier = shortUrlIdentifier;
+      this.accessed = accessed;
+    }
+  }
+}
@@ -1,7 +1,11 @@
 package org.url.shortener.repository;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import org.url.shortener.model.LongUrl;
 
 public interface URLRepository {
@@ -11,4 +15,82 @@ public interface URLRepository {
   void remove(String shortUrlIdentifier);
   List<String> getAllExpired(long timeStamp);
   Optional<String> findByLongUrl(String longUrl);
+
+  /**
+   * Visits every stored mapping. The view is weakly consistent: mappings changed during
+   * the walk may or may not be seen.
+   */
+  void forEachEntry(BiConsumer<String, LongUrl> action);
+
+  /**
+   * Hands over identifiers due at or before the timestamp for removal, dropping them from
+   * the expiry index so the next sweep only sees newly due entries.
+   */
+  default List<String> pollExpired(long timeStamp) {
+    return getAllExpired(timeStamp);
+  }
+
+  /**
+   * Puts identifiers handed over by {@link #pollExpired} back into the expiry index after
+   * removing them failed, so the next sweep hands them over again. Identifiers no longer
+   * stored are skipped. This default does nothing, which suits repositories whose
+   * {@link #pollExpired} leaves the index as it is.
+   */
+  default void rescheduleExpiry(Collection<String> shortUrlIdentifiers) {
+  }
+
+  /**
+   * Stores every mapping of the batch. Implementations take their locks once per batch and
+   * check all identifiers before storing any, so a
+   * {@link org.url.shortener.exception.DuplicateUrlIdentifierException} leaves the
+   * repository unchanged. This default falls back to one {@link #save} per entry.
+   */
+  default void saveAll(Map<String, LongUrl> entries) {
+    entries.forEach(this::save);
+  }
+
+  /**
+   * Looks up a batch of identifiers; identifiers that are not stored are left out of the
+   * result.
+   */
+  default Map<String, String> getAll(Collection<String> shortUrlIdentifiers) {
+    Map<String, String> found = new LinkedHashMap<>();
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      String longUrl = get(shortUrlIdentifier);
+      if (longUrl != null) {
+        found.put(shortUrlIdentifier, longUrl);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * The expiry of a stored identifier in epoch seconds, or -1 when it is not stored or the
+   * implementation cannot tell without extra work.
+   */
+  default long getExpiry(String shortUrlIdentifier) {
+    return -1;
+  }
+
+  /**
+   * The stored mapping of an identifier together with its expiry, or null when it is not
+   * stored. Implementations that keep both side by side answer in one lookup; this default
+   * combines {@link #get} and {@link #getExpiry}, reporting {@link LongUrl#UNKNOWN_EXPIRY}
+   * when the expiry cannot be told.
+   */
+  default LongUrl getLink(String shortUrlIdentifier) {
+    String longUrl = get(shortUrlIdentifier);
+    if (longUrl == null) {
+      return null;
+    }
+    long expiry = getExpiry(shortUrlIdentifier);
+    return new LongUrl(longUrl, expiry > 0 ? expiry : LongUrl.UNKNOWN_EXPIRY);
+  }
+
+  /**
+   * Removes a batch of identifiers, ignoring those that are not stored.
+   */
+  default void removeAll(Collection<String> shortUrlIdentifiers) {
+    shortUrlIdentifiers.forEach(this::remove);
+  }
 }
@@ -0,0 +1,154 @@
+package org.url.shortener.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.url.shortener.model.LongUrl;
+
+/**
+ * Interns the scheme-and-host part of long URLs, and the first path segment beneath it,
+ * so each stored URL keeps only a prefix id and the UTF-8 bytes of what follows. The host
+ * ends at the first {@code /}, {@code ?} or {@code #}, and a segment only counts when a
+ * {@code /} closes it before any query or fragment. Prefixes are always literal leading
+ * substrings, so rebuilding is exact whatever the URL looks like.
+ *
+ * <p>The dictionary is bounded. Host prefixes may use all of it, first-segment prefixes
+ * only the first half, and a segment is only interned the second time it is seen, so
+ * URLs with one-off leading segments such as user ids cannot crowd out hosts. Sightings
+ * are remembered in a fixed table of hashes, where a newer segment may displace one seen
+ * once before. Once full, new URLs are stored against an existing host prefix or none.
+ */
+public class UrlDictionary {
+
+  public static final int NO_PREFIX = 0;
+  private static final int DEFAULT_MAX_PREFIXES = 1 << 16;
+  private static final byte[] EMPTY = new byte[0];
+
+  private final int maxPrefixes;
+  private final Map<String, Integer> ids;
+  // Grown by doubling and republished, so readers index it without locking. Slot 0 is the
+  // empty prefix.
+  private volatile byte[][] prefixes;
+  private int size;
+  // Hashes of segment prefixes seen once, guarded by this.
+  private final int[] sightings;
+
+  public UrlDictionary() {
+    this(DEFAULT_MAX_PREFIXES);
+  }
+
+  public UrlDictionary(int maxPrefixes) {
+    if (maxPrefixes <= 0) {
+      throw new IllegalArgumentException("Max prefixes must be positive");
+    }
+    this.maxPrefixes = maxPrefixes;
+    this.ids = new ConcurrentHashMap<>();
+    this.prefixes = new byte[16][];
+    prefixes[0] = EMPTY;
+    this.size = 1;
+    this.sightings = new int[Math.min(maxPrefixes, DEFAULT_MAX_PREFIXES)];
+  }
+
+  public CompactUrl compress(LongUrl longUrl) {
+    return compress(longUrl.getUrl(), longUrl.getExpiry());
+  }
+
+  public CompactUrl compress(String url, long expiry) {
+    int prefixId = NO_PREFIX;
+    int prefixLength = 0;
+    int schemeEnd = url.indexOf("://");
+    if (schemeEnd > 0) {
+      int hostEnd = componentEnd(url, schemeEnd + 3);
+      boolean pathFollows = hostEnd < url.length() && url.charAt(hostEnd) == '/';
+      int hostLength = pathFollows ? hostEnd + 1 : hostEnd;
+      int segmentEnd = pathFollows ? componentEnd(url, hostEnd + 1) : url.length();
+      if (segmentEnd < url.length() && url.charAt(segmentEnd) == '/') {
+        prefixId = segmentIdFor(url.substring(0, segmentEnd + 1));
+        prefixLength = segmentEnd + 1;
+      }
+      if (prefixId == NO_PREFIX) {
+        prefixId = idFor(url.substring(0, hostLength), maxPrefixes);
+        prefixLength = hostLength;
+      }
+    }
+    byte[] suffix = prefixId == NO_PREFIX
+        ? url.getBytes(StandardCharsets.UTF_8)
+        : url.substring(prefixLength).getBytes(StandardCharsets.UTF_8);
+    return new CompactUrl(prefixId, suffix, expiry);
+  }
+
+  /** Rebuilds the URL with a single copy into the resulting String. */
+  public String expand(CompactUrl compactUrl) {
+    byte[] prefix = prefixes[compactUrl.getPrefixId()];
+    byte[] suffix = compactUrl.suffix();
+    if (prefix.length == 0) {
+      return new String(suffix, StandardCharsets.UTF_8);
+    }
+    byte[] url = new byte[prefix.length + suffix.length];
+    System.arraycopy(prefix, 0, url, 0, prefix.length);
+    System.arraycopy(suffix, 0, url, prefix.length, suffix.length);
+    return new String(url, StandardCharsets.UTF_8);
+  }
+
+  public LongUrl toLongUrl(CompactUrl compactUrl) {
+    return new LongUrl(expand(compactUrl), compactUrl.getExpiry());
+  }
+
+  /** Number of interned prefixes, including the empty one. */
+  public synchronized int size() {
+    return size;
+  }
+
+  /** Index of the first {@code /}, {@code ?} or {@code #} at or after from, or the length. */
+  private static int componentEnd(String url, int from) {
+    for (int i = from; i < url.length(); i++) {
+      char c = url.charAt(i);
+      if (c == '/' || c == '?' || c == '#') {
+        return i;
+      }
+    }
+    return url.length();
+  }
+
+  private int segmentIdFor(String prefix) {
+    Integer id = ids.get(prefix);
+    if (id != null) {
+      return id;
+    }
+    // Nonzero, so an empty slot never matches.
+    int hash = prefix.hashCode() | 1;
+    synchronized (this) {
+      int slot = Math.floorMod(hash * 0x9E3779B9, sightings.length);
+      if (sightings[slot] != hash) {
+        sightings[slot] = hash;
+        return NO_PREFIX;
+      }
+      sightings[slot] = 0;
+    }
+    return idFor(prefix, maxPrefixes / 2);
+  }
+
+  private int idFor(String prefix, int limit) {
+    Integer id = ids.get(prefix);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = ids.get(prefix);
+      if (id != null) {
+        return id;
+      }
+      if (size >= limit) {
+        return NO_PREFIX;
+      }
+      if (size == prefixes.length) {
+        prefixes = Arrays.copyOf(prefixes, Math.min(size * 2, maxPrefixes));
+      }
+      // Store the bytes before the id becomes reachable through the map.
+      prefixes[size] = prefix.getBytes(StandardCharsets.UTF_8);
+      ids.put(prefix, size);
+      return size++;
+    }
+  }
+}
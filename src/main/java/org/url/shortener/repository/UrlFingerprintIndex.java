@@ -0,0 +1,166 @@
+package org.url.shortener.repository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import org.url.shortener.strategy.Base62Codec;
+
+/**
+ * Reverse index from long URL to short identifier that never stores the URL itself. Each
+ * URL is reduced to a 64-bit fingerprint mapped to the packed identifier code, about 21
+ * bytes per entry at the 3/4 load factor. Because fingerprints can collide, every hit is
+ * verified against the primary record through {@code lookup}; on a genuine collision the
+ * first URL keeps the slot and the second simply is not deduplicated.
+ */
+public class UrlFingerprintIndex {
+
+  private static final int DEFAULT_SEGMENTS = 16;
+  private static final long ABSENT = -1;
+
+  private final Function<String, String> lookup;
+  private final Segment[] segments;
+  private final int segmentMask;
+  // Identifiers the codec cannot pack, keyed by fingerprint.
+  private final Map<Long, String> overflow;
+
+  /**
+   * @param lookup resolves a short identifier to its current long URL, or null
+   */
+  public UrlFingerprintIndex(Function<String, String> lookup) {
+    this(lookup, DEFAULT_SEGMENTS);
+  }
+
+  public UrlFingerprintIndex(Function<String, String> lookup, int segmentCount) {
+    if (lookup == null) {
+      throw new IllegalArgumentException("Lookup function cannot be null");
+    }
+    if (segmentCount <= 0) {
+      throw new IllegalArgumentException("Segment count must be positive");
+    }
+    int size = 1;
+    while (size < segmentCount) {
+      size <<= 1;
+    }
+    this.lookup = lookup;
+    this.segments = new Segment[size];
+    for (int i = 0; i < size; i++) {
+      segments[i] = new Segment();
+    }
+    this.segmentMask = size - 1;
+    this.overflow = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Points the URL at the identifier, replacing a stale mapping for the same URL. Call after
+   * the primary record for {@code shortUrlIdentifier} is visible to {@code lookup}.
+   */
+  public void put(String longUrl, String shortUrlIdentifier) {
+    long fingerprint = fingerprint(longUrl);
+    long code = Base62Codec.encode(shortUrlIdentifier);
+    Segment segment = segmentFor(fingerprint);
+    long stamp = segment.lock.writeLock();
+    try {
+      String current = currentIdentifier(segment, fingerprint);
+      if (current != null && !current.equals(shortUrlIdentifier)) {
+        String currentUrl = lookup.apply(current);
+        if (currentUrl != null && !currentUrl.equals(longUrl)) {
+          // Fingerprint collision with a different live URL.
+          return;
+        }
+      }
+      if (code == Base62Codec.NOT_ENCODABLE) {
+        segment.map.remove(fingerprint);
+        overflow.put(fingerprint, shortUrlIdentifier);
+      } else {
+        overflow.remove(fingerprint);
+        segment.map.put(fingerprint, code);
+      }
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Drops the mapping for the URL if it still points at {@code shortUrlIdentifier}.
+   */
+  public void remove(String longUrl, String shortUrlIdentifier) {
+    long fingerprint = fingerprint(longUrl);
+    Segment segment = segmentFor(fingerprint);
+    long stamp = segment.lock.writeLock();
+    try {
+      if (shortUrlIdentifier.equals(currentIdentifier(segment, fingerprint))) {
+        segment.map.remove(fingerprint);
+        overflow.remove(fingerprint);
+      }
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  public Optional<String> find(String longUrl) {
+    long fingerprint = fingerprint(longUrl);
+    Segment segment = segmentFor(fingerprint);
+    StampedLock lock = segment.lock;
+    long stamp = lock.tryOptimisticRead();
+    long code = segment.map.get(fingerprint, ABSENT);
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        code = segment.map.get(fingerprint, ABSENT);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    String candidate = code != ABSENT ? Base62Codec.decode(code) : overflow.get(fingerprint);
+    if (candidate == null || !longUrl.equals(lookup.apply(candidate))) {
+      return Optional.empty();
+    }
+    return Optional.of(candidate);
+  }
+
+  public long size() {
+    long size = overflow.size();
+    for (Segment segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        size += segment.map.size();
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * 64-bit FNV-1a over the UTF-16 code units followed by the MurmurHash3 finalizer, so the
+   * fingerprint is computed without encoding or copying the URL.
+   */
+  public static long fingerprint(CharSequence value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private String currentIdentifier(Segment segment, long fingerprint) {
+    long code = segment.map.get(fingerprint, ABSENT);
+    return code != ABSENT ? Base62Codec.decode(code) : overflow.get(fingerprint);
+  }
+
+  private Segment segmentFor(long fingerprint) {
+    return segments[(int) (fingerprint >>> 48) & segmentMask];
+  }
+
+  private static final class Segment {
+    private final StampedLock lock = new StampedLock();
+    private final LongLongHashMap map = new LongLongHashMap();
+  }
+}
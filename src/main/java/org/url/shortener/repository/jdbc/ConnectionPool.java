@@ -0,0 +1,110 @@
+package org.url.shortener.repository.jdbc;
+
+import java.io.Closeable;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.url.shortener.exception.PersistenceException;
+
+/**
+ * Fixed-size pool of {@link PooledConnection}s. Connections are opened lazily up to the
+ * pool size and handed out from an idle queue; a borrower that finds the pool exhausted
+ * waits up to the borrow timeout. A connection that failed while borrowed is closed on
+ * release and replaced on demand, so a broken connection never goes back to the queue.
+ */
+final class ConnectionPool implements Closeable {
+
+  private static final long BORROW_TIMEOUT_MILLIS = 5000;
+
+  private final String jdbcUrl;
+  private final int size;
+  private final BlockingQueue<PooledConnection> idle;
+  private final List<PooledConnection> all;
+  private boolean closed;
+
+  ConnectionPool(String jdbcUrl, int size) {
+    if (jdbcUrl == null || jdbcUrl.isBlank()) {
+      throw new IllegalArgumentException("JDBC URL cannot be empty");
+    }
+    if (size <= 0) {
+      throw new IllegalArgumentException("Pool size must be positive");
+    }
+    this.jdbcUrl = jdbcUrl;
+    this.size = size;
+    this.idle = new ArrayBlockingQueue<>(size);
+    this.all = new ArrayList<>(size);
+  }
+
+  PooledConnection borrow() {
+    PooledConnection connection = idle.poll();
+    if (connection != null) {
+      return connection;
+    }
+    connection = openIfBelowSize();
+    if (connection != null) {
+      return connection;
+    }
+    try {
+      connection = idle.poll(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PersistenceException("Interrupted while waiting for a database connection", e);
+    }
+    if (connection == null) {
+      throw new PersistenceException("No database connection available after "
+          + BORROW_TIMEOUT_MILLIS + " ms");
+    }
+    return connection;
+  }
+
+  void release(PooledConnection connection) {
+    if (connection.isBroken() || isClosed()) {
+      discard(connection);
+      return;
+    }
+    idle.offer(connection);
+  }
+
+  synchronized int getOpenConnections() {
+    return all.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    for (PooledConnection connection : all) {
+      connection.close();
+    }
+    all.clear();
+    idle.clear();
+  }
+
+  private synchronized PooledConnection openIfBelowSize() {
+    if (closed) {
+      throw new PersistenceException("Connection pool is closed");
+    }
+    if (all.size() >= size) {
+      return null;
+    }
+    try {
+      PooledConnection connection = new PooledConnection(DriverManager.getConnection(jdbcUrl));
+      all.add(connection);
+      return connection;
+    } catch (SQLException e) {
+      throw new PersistenceException("Unable to connect to " + jdbcUrl, e);
+    }
+  }
+
+  private synchronized void discard(PooledConnection connection) {
+    all.remove(connection);
+    connection.close();
+  }
+
+  private synchronized boolean isClosed() {
+    return closed;
+  }
+}
@@ -0,0 +1,586 @@
+package org.url.shortener.repository.jdbc;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.URLRepository;
+import org.url.shortener.repository.UrlFingerprintIndex;
+
+/**
+ * Repository on an embedded relational database reached through JDBC (H2 in file or
+ * memory mode by default). Connections come from a small {@link ConnectionPool} and each
+ * keeps its prepared statements, so every query is parsed once per connection. Inserts and
+ * deletes of the batch APIs go out as JDBC batches in one transaction; a duplicate
+ * identifier rolls the whole batch back. Expiries are indexed, so {@link #getAllExpired}
+ * is a range scan capped at the sweep limit, and long URLs are found through an indexed
+ * fingerprint column rather than by comparing the URL text.
+ *
+ * <p>With write-behind enabled, {@link #save} and {@link #saveAll} return once the mapping
+ * is queued. Queued mappings are visible to reads at once and are inserted by the
+ * "JDBC-Write-Behind-Thread" in batches of the configured size, whenever a full batch is
+ * waiting or the flush interval passes. Mappings queued but not yet flushed are lost if
+ * the process dies; removals, scans and {@link #close} flush the queue first.
+ */
+public class JdbcRepository implements URLRepository, Closeable {
+
+  public static final int DEFAULT_POOL_SIZE = 4;
+  public static final int DEFAULT_EXPIRY_SWEEP_LIMIT = 10_000;
+
+  private static final int INSERT_CHUNK = 500;
+  // Lookups use a fixed arity, padded with the last identifier, so one statement serves all.
+  private static final int IN_LIST_SIZE = 32;
+  // Past this many queued batches, writers flush themselves instead of queueing more.
+  private static final int MAX_PENDING_BATCHES = 64;
+
+  private static final String[] SCHEMA = {
+      "CREATE TABLE IF NOT EXISTS url_mapping ("
+          + "short_id VARCHAR(255) PRIMARY KEY, "
+          + "long_url VARCHAR(8192) NOT NULL, "
+          + "url_fingerprint BIGINT NOT NULL, "
+          + "expiry BIGINT NOT NULL)",
+      "CREATE INDEX IF NOT EXISTS url_mapping_expiry ON url_mapping (expiry)",
+      "CREATE INDEX IF NOT EXISTS url_mapping_fingerprint ON url_mapping (url_fingerprint)"
+  };
+  private static final String INSERT =
+      "INSERT INTO url_mapping (short_id, long_url, url_fingerprint, expiry) VALUES (?, ?, ?, ?)";
+  private static final String SELECT_URL = "SELECT long_url FROM url_mapping WHERE short_id = ?";
+  private static final String SELECT_URLS = "SELECT short_id, long_url FROM url_mapping WHERE short_id IN ("
+      + String.join(", ", Collections.nCopies(IN_LIST_SIZE, "?")) + ")";
+  private static final String SELECT_LINK = "SELECT long_url, expiry FROM url_mapping WHERE short_id = ?";
+  private static final String SELECT_EXPIRY = "SELECT expiry FROM url_mapping WHERE short_id = ?";
+  private static final String EXISTS = "SELECT 1 FROM url_mapping WHERE short_id = ?";
+  private static final String DELETE = "DELETE FROM url_mapping WHERE short_id = ?";
+  private static final String SELECT_EXPIRED =
+      "SELECT short_id FROM url_mapping WHERE expiry <= ? ORDER BY expiry LIMIT ?";
+  private static final String SELECT_BY_FINGERPRINT =
+      "SELECT short_id FROM url_mapping WHERE url_fingerprint = ? AND long_url = ? LIMIT 1";
+  private static final String SELECT_ALL = "SELECT short_id, long_url, expiry FROM url_mapping";
+
+  private final ConnectionPool pool;
+  private final int expirySweepLimit;
+  private final int writeBehindBatchSize;
+  private final Map<String, LongUrl> pending;
+  private final Map<String, String> pendingByUrl;
+  private final ReentrantLock flushLock;
+  private final AtomicBoolean flushRequested;
+  private final ScheduledExecutorService flusher;
+  private final LongAdder flushedBatches;
+  private final LongAdder flushedWrites;
+  private final LongAdder droppedWrites;
+
+  public JdbcRepository(String jdbcUrl) {
+    this(jdbcUrl, DEFAULT_POOL_SIZE, 0, 0);
+  }
+
+  /**
+   * @param writeBehindBatchSize    mappings per write-behind batch; 0 writes synchronously
+   * @param writeBehindFlushMillis  longest a queued mapping waits for its batch to fill
+   */
+  public JdbcRepository(String jdbcUrl, int poolSize, int writeBehindBatchSize,
+                        long writeBehindFlushMillis) {
+    this(jdbcUrl, poolSize, writeBehindBatchSize, writeBehindFlushMillis, DEFAULT_EXPIRY_SWEEP_LIMIT);
+  }
+
+  public JdbcRepository(String jdbcUrl, int poolSize, int writeBehindBatchSize,
+                        long writeBehindFlushMillis, int expirySweepLimit) {
+    if (writeBehindBatchSize < 0) {
+      throw new IllegalArgumentException("Write-behind batch size cannot be negative");
+    }
+    if (writeBehindBatchSize > 0 && writeBehindFlushMillis <= 0) {
+      throw new IllegalArgumentException("Write-behind flush interval must be positive");
+    }
+    if (expirySweepLimit <= 0) {
+      throw new IllegalArgumentException("Expiry sweep limit must be positive");
+    }
+    this.pool = new ConnectionPool(jdbcUrl, poolSize);
+    this.expirySweepLimit = expirySweepLimit;
+    this.writeBehindBatchSize = writeBehindBatchSize;
+    this.pending = new ConcurrentHashMap<>();
+    this.pendingByUrl = new ConcurrentHashMap<>();
+    this.flushLock = new ReentrantLock();
+    this.flushRequested = new AtomicBoolean();
+    this.flushedBatches = new LongAdder();
+    this.flushedWrites = new LongAdder();
+    this.droppedWrites = new LongAdder();
+    createSchema();
+
+    if (writeBehindBatchSize > 0) {
+      this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "JDBC-Write-Behind-Thread");
+        thread.setDaemon(true);
+        return thread;
+      });
+      flusher.scheduleWithFixedDelay(this::flushQuietly,
+          writeBehindFlushMillis, writeBehindFlushMillis, TimeUnit.MILLISECONDS);
+    } else {
+      this.flusher = null;
+    }
+  }
+
+  @Override
+  public void save(String shortUrlIdentifier, LongUrl longURL) {
+    if (!isWriteBehind()) {
+      insertAll(Map.of(shortUrlIdentifier, longURL));
+      return;
+    }
+    enqueue(Map.of(shortUrlIdentifier, longURL));
+  }
+
+  @Override
+  public void saveAll(Map<String, LongUrl> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    if (!isWriteBehind()) {
+      insertAll(entries);
+      return;
+    }
+    enqueue(entries);
+  }
+
+  @Override
+  public String get(String shortUrlIdentifier) {
+    LongUrl queued = pending.get(shortUrlIdentifier);
+    if (queued != null) {
+      return queued.getUrl();
+    }
+    return withConnection(connection -> {
+      PreparedStatement statement = connection.prepare(SELECT_URL);
+      statement.setString(1, shortUrlIdentifier);
+      try (ResultSet rows = statement.executeQuery()) {
+        return rows.next() ? rows.getString(1) : null;
+      }
+    });
+  }
+
+  @Override
+  public Map<String, String> getAll(Collection<String> shortUrlIdentifiers) {
+    Map<String, String> found = new LinkedHashMap<>();
+    List<String> stored = new ArrayList<>(shortUrlIdentifiers.size());
+    for (String shortUrlIdentifier : shortUrlIdentifiers) {
+      LongUrl queued = pending.get(shortUrlIdentifier);
+      if (queued != null) {
+        found.put(shortUrlIdentifier, queued.getUrl());
+      } else {
+        stored.add(shortUrlIdentifier);
+      }
+    }
+    if (stored.isEmpty()) {
+      return found;
+    }
+    Map<String, String> rows = withConnection(connection -> {
+      Map<String, String> result = new HashMap<>();
+      PreparedStatement statement = connection.prepare(SELECT_URLS);
+      for (int from = 0; from < stored.size(); from += IN_LIST_SIZE) {
+        int to = Math.min(from + IN_LIST_SIZE, stored.size());
+        for (int i = 0; i < IN_LIST_SIZE; i++) {
+          statement.setString(i + 1, stored.get(Math.min(from + i, to - 1)));
+        }
+        try (ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            result.put(resultSet.getString(1), resultSet.getString(2));
+          }
+        }
+      }
+      return result;
+    });
+    // Keep the caller's order.
+    for (String shortUrlIdentifier : stored) {
+      String longUrl = rows.get(shortUrlIdentifier);
+      if (longUrl != null) {
+        found.put(shortUrlIdentifier, longUrl);
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public boolean exists(String shortUrlIdentifier) {
+    return pending.containsKey(shortUrlIdentifier) || existsStored(shortUrlIdentifier);
+  }
+
+  @Override
+  public long getExpiry(String shortUrlIdentifier) {
+    LongUrl queued = pending.get(shortUrlIdentifier);
+    if (queued != null) {
+      return queued.getExpiry();
+    }
+    return withConnection(connection -> {
+      PreparedStatement statement = connection.prepare(SELECT_EXPIRY);
+      statement.setString(1, shortUrlIdentifier);
+      try (ResultSet rows = statement.executeQuery()) {
+        return rows.next() ? rows.getLong(1) : -1L;
+      }
+    });
+  }
+
+  @Override
+  public LongUrl getLink(String shortUrlIdentifier) {
+    LongUrl queued = pending.get(shortUrlIdentifier);
+    if (queued != null) {
+      return queued;
+    }
+    return withConnection(connection -> {
+      PreparedStatement statement = connection.prepare(SELECT_LINK);
+      statement.setString(1, shortUrlIdentifier);
+      try (ResultSet rows = statement.executeQuery()) {
+        return rows.next() ? new LongUrl(rows.getString(1), rows.getLong(2)) : null;
+      }
+    });
+  }
+
+  @Override
+  public void remove(String shortUrlIdentifier) {
+    removeAll(List.of(shortUrlIdentifier));
+  }
+
+  @Override
+  public void removeAll(Collection<String> shortUrlIdentifiers) {
+    if (shortUrlIdentifiers.isEmpty()) {
+      return;
+    }
+    // Queued inserts must land before the deletes, or they would bring the rows back.
+    flush();
+    withTransaction(connection -> {
+      PreparedStatement statement = connection.prepare(DELETE);
+      int batched = 0;
+      for (String shortUrlIdentifier : shortUrlIdentifiers) {
+        statement.setString(1, shortUrlIdentifier);
+        statement.addBatch();
+        if (++batched % INSERT_CHUNK == 0) {
+          statement.executeBatch();
+        }
+      }
+      if (batched % INSERT_CHUNK != 0) {
+        statement.executeBatch();
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Returns at most the sweep limit of identifiers due at or before the timestamp, oldest
+   * first; the scheduler picks up the rest on its next run.
+   */
+  @Override
+  public List<String> getAllExpired(long timeStamp) {
+    flush();
+    return withConnection(connection -> {
+      PreparedStatement statement = connection.prepare(SELECT_EXPIRED);
+      statement.setLong(1, timeStamp);
+      statement.setInt(2, expirySweepLimit);
+      List<String> expired = new ArrayList<>();
+      try (ResultSet rows = statement.executeQuery()) {
+        while (rows.next()) {
+          expired.add(rows.getString(1));
+        }
+      }
+      return expired;
+    });
+  }
+
+  @Override
+  public Optional<String> findByLongUrl(String longUrl) {
+    String queued = pendingByUrl.get(longUrl);
+    if (queued != null) {
+      return Optional.of(queued);
+    }
+    return withConnection(connection -> {
+      PreparedStatement statement = connection.prepare(SELECT_BY_FINGERPRINT);
+      statement.setLong(1, UrlFingerprintIndex.fingerprint(longUrl));
+      statement.setString(2, longUrl);
+      try (ResultSet rows = statement.executeQuery()) {
+        return rows.next() ? Optional.of(rows.getString(1)) : Optional.<String>empty();
+      }
+    });
+  }
+
+  @Override
+  public void forEachEntry(BiConsumer<String, LongUrl> action) {
+    flush();
+    withConnection(connection -> {
+      try (Statement statement = connection.getConnection().createStatement()) {
+        statement.setFetchSize(INSERT_CHUNK);
+        try (ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+          while (rows.next()) {
+            action.accept(rows.getString(1), new LongUrl(rows.getString(2), rows.getLong(3)));
+          }
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Inserts every queued mapping before returning. A no-op when write-behind is off.
+   */
+  public void flush() {
+    if (!isWriteBehind()) {
+      return;
+    }
+    flushLock.lock();
+    try {
+      while (!pending.isEmpty()) {
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, LongUrl> entry : pending.entrySet()) {
+          batch.put(entry.getKey(), entry.getValue());
+          if (batch.size() == writeBehindBatchSize) {
+            break;
+          }
+        }
+        writeQueued(batch);
+        // Only drop them from the queue once the rows are readable.
+        batch.forEach((shortUrlIdentifier, longURL) -> {
+          pending.remove(shortUrlIdentifier, longURL);
+          pendingByUrl.remove(longURL.getUrl(), shortUrlIdentifier);
+        });
+        flushedBatches.increment();
+        flushedWrites.add(batch.size());
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  public boolean isWriteBehind() {
+    return writeBehindBatchSize > 0;
+  }
+
+  public int getPendingWrites() {
+    return pending.size();
+  }
+
+  public long getFlushedBatches() {
+    return flushedBatches.sum();
+  }
+
+  public long getFlushedWrites() {
+    return flushedWrites.sum();
+  }
+
+  /** Queued mappings that could not be inserted because the identifier was taken meanwhile. */
+  public long getDroppedWrites() {
+    return droppedWrites.sum();
+  }
+
+  int getOpenConnections() {
+    return pool.getOpenConnections();
+  }
+
+  @Override
+  public void close() {
+    if (flusher != null) {
+      flusher.shutdown();
+      try {
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      flushQuietly();
+    }
+    pool.close();
+  }
+
+  private void enqueue(Map<String, LongUrl> entries) {
+    List<String> queued = new ArrayList<>(entries.size());
+    try {
+      for (Map.Entry<String, LongUrl> entry : entries.entrySet()) {
+        String shortUrlIdentifier = entry.getKey();
+        if (pending.putIfAbsent(shortUrlIdentifier, entry.getValue()) != null) {
+          throw new DuplicateUrlIdentifierException("URL identifier already exists: " + shortUrlIdentifier);
+        }
+        queued.add(shortUrlIdentifier);
+        if (existsStored(shortUrlIdentifier)) {
+          throw new DuplicateUrlIdentifierException("URL identifier already exists: " + shortUrlIdentifier);
+        }
+      }
+    } catch (RuntimeException e) {
+      queued.forEach(shortUrlIdentifier -> pending.remove(shortUrlIdentifier, entries.get(shortUrlIdentifier)));
+      throw e;
+    }
+    entries.forEach((shortUrlIdentifier, longURL) ->
+        pendingByUrl.putIfAbsent(longURL.getUrl(), shortUrlIdentifier));
+
+    int size = pending.size();
+    if (size >= writeBehindBatchSize * MAX_PENDING_BATCHES) {
+      // The database is not keeping up; make this writer wait instead of growing the queue.
+      flush();
+    } else if (size >= writeBehindBatchSize && flushRequested.compareAndSet(false, true)) {
+      flusher.execute(() -> {
+        flushRequested.set(false);
+        flushQuietly();
+      });
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      System.err.println("Write-behind flush failed, " + pending.size()
+          + " mappings still queued: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Inserts a queued batch. If an identifier was stored by someone else after it was queued,
+   * the batch is retried row by row and the losing mappings are dropped.
+   */
+  private void writeQueued(Map<String, LongUrl> batch) {
+    try {
+      insertAll(batch);
+    } catch (DuplicateUrlIdentifierException e) {
+      batch.forEach((shortUrlIdentifier, longURL) -> {
+        try {
+          insertAll(Map.of(shortUrlIdentifier, longURL));
+        } catch (DuplicateUrlIdentifierException duplicate) {
+          droppedWrites.increment();
+          System.err.println("Dropped queued mapping for " + shortUrlIdentifier
+              + ": identifier already stored");
+        }
+      });
+    }
+  }
+
+  private void insertAll(Map<String, LongUrl> entries) {
+    try {
+      withTransaction(connection -> {
+        PreparedStatement statement = connection.prepare(INSERT);
+        int batched = 0;
+        for (Map.Entry<String, LongUrl> entry : entries.entrySet()) {
+          String url = entry.getValue().getUrl();
+          statement.setString(1, entry.getKey());
+          statement.setString(2, url);
+          statement.setLong(3, UrlFingerprintIndex.fingerprint(url));
+          statement.setLong(4, entry.getValue().getExpiry());
+          statement.addBatch();
+          if (++batched % INSERT_CHUNK == 0) {
+            statement.executeBatch();
+          }
+        }
+        if (batched % INSERT_CHUNK != 0) {
+          statement.executeBatch();
+        }
+        return null;
+      });
+    } catch (PersistenceException e) {
+      if (!isIntegrityViolation(e.getCause())) {
+        throw e;
+      }
+      String taken = entries.keySet().stream()
+          .filter(this::existsStored)
+          .findFirst()
+          .orElse(entries.keySet().iterator().next());
+      throw new DuplicateUrlIdentifierException("URL identifier already exists: " + taken);
+    }
+  }
+
+  private boolean existsStored(String shortUrlIdentifier) {
+    return withConnection(connection -> {
+      PreparedStatement statement = connection.prepare(EXISTS);
+      statement.setString(1, shortUrlIdentifier);
+      try (ResultSet rows = statement.executeQuery()) {
+        return rows.next();
+      }
+    });
+  }
+
+  private void createSchema() {
+    withConnection(connection -> {
+      try (Statement statement = connection.getConnection().createStatement()) {
+        for (String ddl : SCHEMA) {
+          statement.execute(ddl);
+        }
+      }
+      return null;
+    });
+  }
+
+  private <T> T withTransaction(SqlWork<T> work) {
+    return withConnection(connection -> {
+      Connection jdbc = connection.getConnection();
+      jdbc.setAutoCommit(false);
+      try {
+        T result = work.run(connection);
+        jdbc.commit();
+        return result;
+      } catch (SQLException | RuntimeException e) {
+        jdbc.rollback();
+        throw e;
+      } finally {
+        jdbc.setAutoCommit(true);
+      }
+    });
+  }
+
+  private <T> T withConnection(SqlWork<T> work) {
+    PooledConnection connection = pool.borrow();
+    try {
+      return work.run(connection);
+    } catch (SQLException e) {
+      if (!isIntegrityViolation(e) && !isValid(connection)) {
+        connection.markBroken();
+      }
+      throw new PersistenceException("Database operation failed: " + e.getMessage(), e);
+    } finally {
+      pool.release(connection);
+    }
+  }
+
+  private static boolean isValid(PooledConnection connection) {
+    try {
+      return connection.getConnection().isValid(1);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private static boolean isIntegrityViolation(Throwable error) {
+    // Batch failures wrap the cause differently per driver, so walk both chains.
+    while (error != null) {
+      if (error instanceof SQLIntegrityConstraintViolationException) {
+        return true;
+      }
+      if (error instanceof SQLException) {
+        SQLException sqlError = (SQLException) error;
+        String state = sqlError.getSQLState();
+        if (state != null && state.startsWith("23")) {
+          return true;
+        }
+        if (sqlError.getNextException() != null && isIntegrityViolation(sqlError.getNextException())) {
+          return true;
+        }
+      }
+      error = error.getCause();
+    }
+    return false;
+  }
+
+  @FunctionalInterface
+  private interface SqlWork<T> {
+    T run(PooledConnection connection) throws SQLException;
+  }
+}
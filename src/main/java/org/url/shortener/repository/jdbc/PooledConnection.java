@@ -0,0 +1,86 @@
+package org.url.shortener.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pooled connection with its own prepared statement cache. Statements are keyed by SQL
+ * text and kept in access order, so the least recently used one is closed once the cache
+ * is full. Only the thread that borrowed the connection touches it, so nothing here is
+ * synchronized.
+ */
+final class PooledConnection {
+
+  private static final int STATEMENT_CACHE_SIZE = 32;
+
+  private final Connection connection;
+  private final Map<String, PreparedStatement> statements;
+  private boolean broken;
+
+  PooledConnection(Connection connection) {
+    this.connection = connection;
+    this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+        if (size() <= STATEMENT_CACHE_SIZE) {
+          return false;
+        }
+        closeQuietly(eldest.getValue());
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached statement for the SQL, preparing it on first use. Parameters left
+   * from the previous use are cleared.
+   */
+  PreparedStatement prepare(String sql) throws SQLException {
+    PreparedStatement statement = statements.get(sql);
+    if (statement == null) {
+      statement = connection.prepareStatement(sql);
+      statements.put(sql, statement);
+    } else {
+      statement.clearParameters();
+    }
+    return statement;
+  }
+
+  Connection getConnection() {
+    return connection;
+  }
+
+  /** Marks the connection for disposal instead of reuse when it is released. */
+  void markBroken() {
+    this.broken = true;
+  }
+
+  boolean isBroken() {
+    return broken;
+  }
+
+  int getCachedStatements() {
+    return statements.size();
+  }
+
+  void close() {
+    statements.values().forEach(PooledConnection::closeQuietly);
+    statements.clear();
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      System.err.println("Failed to close database connection: " + e.getMessage());
+    }
+  }
+
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // The statement is being dropped either way.
+    }
+  }
+}
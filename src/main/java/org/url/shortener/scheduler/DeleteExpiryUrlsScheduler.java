@@ -11,6 +11,9 @@ import org.url.shortener.repository.URLRepository;
 
 public class DeleteExpiryUrlsScheduler {
 
+  // Bounds how long one removeAll holds the repository's locks during a large sweep.
+  static final int REMOVE_BATCH_SIZE = 1000;
+
   private final URLRepository urlRepository;
   private final SchedulerConfig schedulerConfig;
   private ScheduledExecutorService scheduledExecutorService;
@@ -80,11 +83,21 @@ public class DeleteExpiryUrlsScheduler {
   private void deleteExpiredUrls() {
     try {
       long currentTime = Instant.now().getEpochSecond();
-      List<String> expiredUrls = urlRepository.getAllExpired(currentTime);
+      List<String> expiredUrls = urlRepository.pollExpired(currentTime);
       
-      if (!expiredUrls.isEmpty()) {
-        for (String shortUrl : expiredUrls) {
-          urlRepository.remove(shortUrl);
+      // Fixed-size batches instead of a lock round-trip per identifier
+      for (int from = 0; from < expiredUrls.size(); from += REMOVE_BATCH_SIZE) {
+        List<String> batch = expiredUrls.subList(from, Math.min(from + REMOVE_BATCH_SIZE, expiredUrls.size()));
+        try {
+          urlRepository.removeAll(batch);
+        } catch (RuntimeException e) {
+          // pollExpired already dropped them from the expiry index; put back what is still stored.
+          System.err.println("Error removing " + batch.size() + " expired URLs, retrying next sweep: "
+              + e.getMessage());
+          urlRepository.rescheduleExpiry(batch);
+          continue;
+        }
+        for (String shortUrl : batch) {
           // Publish expiration event asynchronously
           eventPublisher.publishUrlExpired(shortUrl);
         }
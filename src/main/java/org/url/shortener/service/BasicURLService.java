@@ -8,6 +8,7 @@ import org.url.shortener.exception.DuplicateUrlIdentifierException;
 import org.url.shortener.exception.MaxAttemptReachedException;
 import org.url.shortener.exception.NotFoundException;
 import org.url.shortener.model.LongUrl;
+import org.url.shortener.observer.KeyspaceManager;
 import org.url.shortener.observer.URLEventPublisher;
 import org.url.shortener.repository.URLRepository;
 import org.url.shortener.strategy.StrategyFactory;
@@ -26,19 +27,33 @@ public class BasicURLService implements URLService {
   private final URLValidator urlValidator;
   private final URLShortenerConfig config;
   private final URLEventPublisher eventPublisher;
+  private final KeyspaceManager keyspaceManager;
 
 
   @Autowired
   public BasicURLService(URLRepository urlRepository,
                          StrategyFactory strategyFactory,
-                         URLEventPublisher eventPublisher) {
-    this(urlRepository, strategyFactory, new URLShortenerConfig(), eventPublisher);
+                         URLEventPublisher eventPublisher,
+                         KeyspaceManager keyspaceManager) {
+    this(urlRepository, strategyFactory, new URLShortenerConfig(), eventPublisher, keyspaceManager);
   }
 
   public BasicURLService(URLRepository urlRepository,
                          StrategyFactory strategyFactory,
                          URLShortenerConfig config,
                          URLEventPublisher eventPublisher) {
+    this(urlRepository, strategyFactory, config, eventPublisher, null);
+  }
+
+  /**
+   * @param keyspaceManager picks the key length as the key space fills, or null to always
+   *                        use the configured length
+   */
+  public BasicURLService(URLRepository urlRepository,
+                         StrategyFactory strategyFactory,
+                         URLShortenerConfig config,
+                         URLEventPublisher eventPublisher,
+                         KeyspaceManager keyspaceManager) {
     if (urlRepository == null) {
       throw new IllegalArgumentException("URLRepository cannot be null");
     }
@@ -53,6 +68,7 @@ public class BasicURLService implements URLService {
     this.strategyFactory = strategyFactory;
     this.config = config;
     this.eventPublisher = eventPublisher;
+    this.keyspaceManager = keyspaceManager;
     this.calculateUrlExpiry = new CalculateUrlExpiry(config.getDefaultUrlExpirySeconds());
     this.urlValidator = new NullCheckValidator();
     this.urlValidator.setNext(new LengthValidator())
@@ -82,7 +98,8 @@ public class BasicURLService implements URLService {
           "Unable to generate unique identifier after " + attemptCount + " attempts. Please try again.");
     }
 
-    String shortIdentifier = strategyFactory.getDefaultStrategy().generateUniqueKey(longUrl, config.getShortUrlLength());
+    int keyLength = keyspaceManager != null ? keyspaceManager.getCurrentLength() : config.getShortUrlLength();
+    String shortIdentifier = strategyFactory.getDefaultStrategy().generateUniqueKey(longUrl, keyLength);
 
     try {
       Long expiryTime = calculateUrlExpiry.getDefaultExpiry();
@@ -99,15 +116,33 @@ public class BasicURLService implements URLService {
 
   @Override
   public String getLongUrl(String shortUrlIdentifier) {
+    return findLongUrl(shortUrlIdentifier).orElseThrow(() -> new NotFoundException(shortUrlIdentifier));
+  }
+
+  @Override
+  public Optional<String> findLongUrl(String shortUrlIdentifier) {
     if (shortUrlIdentifier == null || shortUrlIdentifier.trim().isEmpty()) {
       throw new IllegalArgumentException("Short URL identifier cannot be null or empty");
     }
     String longUrl = urlRepository.get(shortUrlIdentifier);
     if (longUrl == null) {
-      throw new NotFoundException(shortUrlIdentifier);
+      return Optional.empty();
     }
     eventPublisher.publishUrlAccessed(shortUrlIdentifier, longUrl);
-    return longUrl;
+    return Optional.of(longUrl);
+  }
+
+  @Override
+  public Optional<LongUrl> findLink(String shortUrlIdentifier) {
+    if (shortUrlIdentifier == null || shortUrlIdentifier.trim().isEmpty()) {
+      throw new IllegalArgumentException("Short URL identifier cannot be null or empty");
+    }
+    LongUrl link = urlRepository.getLink(shortUrlIdentifier);
+    if (link == null) {
+      return Optional.empty();
+    }
+    eventPublisher.publishUrlAccessed(shortUrlIdentifier, link.getUrl());
+    return Optional.of(link);
   }
 
   public boolean deleteUrl(String shortUrlIdentifier) {
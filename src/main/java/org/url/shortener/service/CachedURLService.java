@@ -1,25 +1,155 @@
 package org.url.shortener.service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.url.shortener.cache.WTinyLfuCache;
+import org.url.shortener.config.URLShortenerConfig;
+import org.url.shortener.exception.NotFoundException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.observer.URLEventListener;
+import org.url.shortener.observer.URLEventPublisher;
+
+/**
+ * Serves lookups of popular links from a bounded {@link WTinyLfuCache} in front of another
+ * service. An entry is kept until its link expires, as far as the delegate can tell with
+ * {@link URLService#findLink}, and never longer than the maximum TTL. Subscribed to the
+ * event publisher, it caches links as their creation is published, with the expiry the
+ * event carries, and drops them as soon as they are deleted or swept as expired.
+ *
+ * <p>A delete racing with the lookup that loads the same link can leave it cached; the
+ * maximum TTL bounds how long. Hits publish an access event, as the delegate would have.
+ */
+public class CachedURLService implements URLService, URLEventListener {
+  public static final long DEFAULT_MAX_ENTRIES = 10_000;
+  /** Rough heap cost of an entry besides the characters: node, map entry and two strings. */
+  static final int ENTRY_OVERHEAD_BYTES = 160;
+  // Assumed average entry size when sizing the frequency sketch of a byte-bounded cache.
+  private static final int TYPICAL_ENTRY_BYTES = 256;
 
-public class CachedURLService implements URLService {
   private final URLService delegate;
-  private final Map<String, String> cache = new ConcurrentHashMap<>();
+  private final URLEventPublisher eventPublisher;
+  private final WTinyLfuCache<String, String> cache;
+  private final long maxTtlMillis;
 
   public CachedURLService(URLService delegate) {
+    this(delegate, null, new WTinyLfuCache<>(DEFAULT_MAX_ENTRIES), 0);
+  }
+
+  /**
+   * Sizes the cache from the configuration: by estimated bytes when a byte budget is set,
+   * by entries otherwise.
+   */
+  public CachedURLService(URLService delegate, URLEventPublisher eventPublisher,
+                          URLShortenerConfig config) {
+    this(delegate, eventPublisher, newCache(config),
+        TimeUnit.SECONDS.toMillis(config.getCacheMaxTtlSeconds()));
+  }
+
+  /**
+   * @param eventPublisher where hits are published as accesses, or null not to
+   * @param maxTtlMillis   longest an entry is kept, or 0 for as long as its link lives
+   */
+  public CachedURLService(URLService delegate, URLEventPublisher eventPublisher,
+                          WTinyLfuCache<String, String> cache, long maxTtlMillis) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("URLService cannot be null");
+    }
+    if (cache == null) {
+      throw new IllegalArgumentException("Cache cannot be null");
+    }
     this.delegate = delegate;
+    this.eventPublisher = eventPublisher;
+    this.cache = cache;
+    this.maxTtlMillis = maxTtlMillis;
+  }
+
+  /** Heap estimate of a cached mapping; strings of ASCII characters take a byte each. */
+  public static int estimateBytes(String shortUrl, String longUrl) {
+    return ENTRY_OVERHEAD_BYTES + shortUrl.length() + longUrl.length();
   }
 
   @Override
   public String getLongUrl(String shortUrl) {
-    return cache.computeIfAbsent(shortUrl, delegate::getLongUrl);
+    return findLongUrl(shortUrl).orElseThrow(() -> new NotFoundException(shortUrl));
+  }
+
+  @Override
+  public Optional<String> findLongUrl(String shortUrl) {
+    String longUrl = shortUrl != null ? cache.get(shortUrl) : null;
+    if (longUrl != null) {
+      if (eventPublisher != null) {
+        eventPublisher.publishUrlAccessed(shortUrl, longUrl);
+      }
+      return Optional.of(longUrl);
+    }
+    Optional<LongUrl> loaded = delegate.findLink(shortUrl);
+    loaded.ifPresent(link -> cache.put(shortUrl, link.getUrl(), expiresAt(link.getExpiry())));
+    return loaded.map(LongUrl::getUrl);
   }
 
+  /** Creates pass through; the link is cached once its creation event arrives. */
   @Override
   public String shortenUrl(String longUrl) {
-    String result = delegate.shortenUrl(longUrl);
-    cache.put(result, longUrl);
-    return result;
+    return delegate.shortenUrl(longUrl);
+  }
+
+  /** Drops every cached entry; they are reloaded from the delegate on demand. */
+  public void clear() {
+    cache.clear();
+  }
+
+  public WTinyLfuCache<String, String> getCache() {
+    return cache;
+  }
+
+  @Override
+  public void onUrlCreated(String shortUrl, String longUrl, long expiryTime) {
+    cache.put(shortUrl, longUrl, expiresAt(expiryTime));
+  }
+
+  @Override
+  public void onUrlAccessed(String shortUrl, String longUrl) {
+  }
+
+  @Override
+  public void onUrlDeleted(String shortUrl) {
+    cache.invalidate(shortUrl);
+  }
+
+  @Override
+  public void onUrlExpired(String shortUrl) {
+    cache.invalidate(shortUrl);
+  }
+
+  @Override
+  public void onCollisionDetected(String shortUrl, int attemptNumber) {
+  }
+
+  public void printSummary() {
+    System.out.println("\n=== URL CACHE SUMMARY ===");
+    System.out.println("Entries:          " + cache.size()
+        + " (weight " + cache.weightedSize() + " of " + cache.getMaximumWeight() + ")");
+    System.out.println("Hits:             " + cache.getHits()
+        + " (" + Math.round(cache.getHitRatio() * 100) + "%)");
+    System.out.println("Misses:           " + cache.getMisses());
+    System.out.println("Evictions:        " + cache.getEvictions());
+    System.out.println("Admission rejects: " + cache.getAdmissionRejects());
+    System.out.println("Expirations:      " + cache.getExpirations());
+    System.out.println("=========================\n");
+  }
+
+  /** When an entry for a link expiring at the given epoch second must be dropped. */
+  private long expiresAt(long expirySeconds) {
+    long cap = maxTtlMillis > 0 ? System.currentTimeMillis() + maxTtlMillis : WTinyLfuCache.NEVER;
+    // Saturates, so an unknown expiry leaves the cap alone.
+    return Math.min(cap, TimeUnit.SECONDS.toMillis(expirySeconds));
+  }
+
+  private static WTinyLfuCache<String, String> newCache(URLShortenerConfig config) {
+    if (config.getCacheMaxBytes() > 0) {
+      return new WTinyLfuCache<>(config.getCacheMaxBytes(), CachedURLService::estimateBytes,
+          config.getCacheMaxBytes() / TYPICAL_ENTRY_BYTES);
+    }
+    return new WTinyLfuCache<>(config.getCacheMaxEntries());
   }
 }
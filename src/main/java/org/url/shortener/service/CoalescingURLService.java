@@ -0,0 +1,123 @@
+package org.url.shortener.service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.url.shortener.exception.NotFoundException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.observer.URLEventPublisher;
+
+/**
+ * Collapses concurrent lookups of the same short URL into one call to the delegate. The
+ * first caller loads it and publishes a {@link CompletableFuture} that callers arriving
+ * while the load is in flight wait on, so a burst of misses for a link that just went
+ * viral reaches storage once. Misses and failures are shared too: every waiter gets the
+ * loader's empty result or exception, so an unknown code probed in a burst is also only
+ * looked up once.
+ *
+ * <p>Nothing is remembered once the load completes; put a {@link CachedURLService} in
+ * front for that. Creates pass straight through.
+ */
+public class CoalescingURLService implements URLService {
+  private final URLService delegate;
+  private final URLEventPublisher eventPublisher;
+  private final ConcurrentHashMap<String, CompletableFuture<Optional<LongUrl>>> inFlight;
+  private final LongAdder loads;
+  private final LongAdder coalescedWaiters;
+
+  public CoalescingURLService(URLService delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * @param eventPublisher where lookups answered by another caller's load are published as
+   *                       accesses, as the delegate publishes its own; null not to
+   */
+  public CoalescingURLService(URLService delegate, URLEventPublisher eventPublisher) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("URLService cannot be null");
+    }
+    this.delegate = delegate;
+    this.eventPublisher = eventPublisher;
+    this.inFlight = new ConcurrentHashMap<>();
+    this.loads = new LongAdder();
+    this.coalescedWaiters = new LongAdder();
+  }
+
+  @Override
+  public String shortenUrl(String longUrl) {
+    return delegate.shortenUrl(longUrl);
+  }
+
+  @Override
+  public String getLongUrl(String shortUrlIdentifier) {
+    return findLongUrl(shortUrlIdentifier).orElseThrow(() -> new NotFoundException(shortUrlIdentifier));
+  }
+
+  @Override
+  public Optional<String> findLongUrl(String shortUrlIdentifier) {
+    return findLink(shortUrlIdentifier).map(LongUrl::getUrl);
+  }
+
+  /** Loads the link with its expiry, so a cache in front learns both from one load. */
+  @Override
+  public Optional<LongUrl> findLink(String shortUrlIdentifier) {
+    if (shortUrlIdentifier == null) {
+      return delegate.findLink(null);
+    }
+    CompletableFuture<Optional<LongUrl>> load = new CompletableFuture<>();
+    CompletableFuture<Optional<LongUrl>> existing = inFlight.putIfAbsent(shortUrlIdentifier, load);
+    if (existing != null) {
+      coalescedWaiters.increment();
+      Optional<LongUrl> link = await(existing);
+      if (eventPublisher != null) {
+        link.ifPresent(found -> eventPublisher.publishUrlAccessed(shortUrlIdentifier, found.getUrl()));
+      }
+      return link;
+    }
+    loads.increment();
+    try {
+      Optional<LongUrl> link = delegate.findLink(shortUrlIdentifier);
+      load.complete(link);
+      return link;
+    } catch (RuntimeException | Error e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(shortUrlIdentifier, load);
+    }
+  }
+
+  /** Lookups that went to the delegate. */
+  public long getLoads() {
+    return loads.sum();
+  }
+
+  /** Lookups that waited on another caller's load instead of going to the delegate. */
+  public long getCoalescedWaiters() {
+    return coalescedWaiters.sum();
+  }
+
+  /** Short URLs being loaded right now. */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+
+  private static Optional<LongUrl> await(CompletableFuture<Optional<LongUrl>> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      // Rethrow what the loader saw, so waiters fail exactly as it did.
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package org.url.shortener.service;
+
+import java.util.Optional;
+import org.url.shortener.exception.ServiceOverloadedException;
+import org.url.shortener.memory.MemoryGovernor;
+
+/**
+ * Turns away new short URLs while the {@link MemoryGovernor} is rejecting creates, so
+ * the heap stops growing; lookups always go through.
+ */
+public class LoadSheddingURLService implements URLService {
+  private final URLService delegate;
+  private final MemoryGovernor memoryGovernor;
+
+  public LoadSheddingURLService(URLService delegate, MemoryGovernor memoryGovernor) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("URLService cannot be null");
+    }
+    if (memoryGovernor == null) {
+      throw new IllegalArgumentException("MemoryGovernor cannot be null");
+    }
+    this.delegate = delegate;
+    this.memoryGovernor = memoryGovernor;
+  }
+
+  @Override
+  public String shortenUrl(String longUrl) {
+    if (!memoryGovernor.isAcceptingCreates()) {
+      memoryGovernor.recordRejectedCreate();
+      throw new ServiceOverloadedException(
+          "Short URL creation is paused while memory is low. Please try again later.");
+    }
+    return delegate.shortenUrl(longUrl);
+  }
+
+  @Override
+  public String getLongUrl(String shortUrlIdentifier) {
+    return delegate.getLongUrl(shortUrlIdentifier);
+  }
+
+  @Override
+  public Optional<String> findLongUrl(String shortUrlIdentifier) {
+    return delegate.findLongUrl(shortUrlIdentifier);
+  }
+}
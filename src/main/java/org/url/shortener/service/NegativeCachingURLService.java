@@ -0,0 +1,98 @@
+package org.url.shortener.service;
+
+import java.util.Optional;
+import org.url.shortener.cache.WTinyLfuCache;
+import org.url.shortener.exception.NotFoundException;
+import org.url.shortener.observer.URLEventListener;
+
+/**
+ * Remembers short URLs that were just looked up and not found, for a short TTL, so bots
+ * probing the same dead codes over and over get their answer from one cache lookup
+ * instead of a trip to storage. Misses are remembered in a bounded {@link WTinyLfuCache},
+ * so codes probed often are the ones kept.
+ *
+ * <p>Creating a code through this service forgets it at once; subscribed to the event
+ * publisher, it also forgets codes created through other paths as their events arrive.
+ * A code created on another node, or by a create that races with the lookup recording
+ * the miss, can still be reported missing until the TTL runs out.
+ */
+public class NegativeCachingURLService implements URLService, URLEventListener {
+  private final URLService delegate;
+  private final WTinyLfuCache<String, Boolean> missing;
+  private final long ttlMillis;
+
+  public NegativeCachingURLService(URLService delegate, long maxEntries, long ttlMillis) {
+    this(delegate, new WTinyLfuCache<>(maxEntries), ttlMillis);
+  }
+
+  public NegativeCachingURLService(URLService delegate, WTinyLfuCache<String, Boolean> missing,
+                                   long ttlMillis) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("URLService cannot be null");
+    }
+    if (missing == null) {
+      throw new IllegalArgumentException("Cache cannot be null");
+    }
+    if (ttlMillis <= 0) {
+      throw new IllegalArgumentException("Negative cache TTL must be positive");
+    }
+    this.delegate = delegate;
+    this.missing = missing;
+    this.ttlMillis = ttlMillis;
+  }
+
+  @Override
+  public String shortenUrl(String longUrl) {
+    String shortUrl = delegate.shortenUrl(longUrl);
+    missing.invalidate(shortUrl);
+    return shortUrl;
+  }
+
+  @Override
+  public String getLongUrl(String shortUrlIdentifier) {
+    return findLongUrl(shortUrlIdentifier).orElseThrow(() -> new NotFoundException(shortUrlIdentifier));
+  }
+
+  @Override
+  public Optional<String> findLongUrl(String shortUrlIdentifier) {
+    if (shortUrlIdentifier != null && missing.get(shortUrlIdentifier) != null) {
+      return Optional.empty();
+    }
+    Optional<String> longUrl = delegate.findLongUrl(shortUrlIdentifier);
+    if (longUrl.isEmpty()) {
+      missing.put(shortUrlIdentifier, Boolean.TRUE, System.currentTimeMillis() + ttlMillis);
+    }
+    return longUrl;
+  }
+
+  /** Forgets every remembered miss. */
+  public void clear() {
+    missing.clear();
+  }
+
+  /** The remembered misses; its hits are lookups answered without reaching storage. */
+  public WTinyLfuCache<String, Boolean> getCache() {
+    return missing;
+  }
+
+  @Override
+  public void onUrlCreated(String shortUrl, String longUrl, long expiryTime) {
+    missing.invalidate(shortUrl);
+  }
+
+  @Override
+  public void onUrlAccessed(String shortUrl, String longUrl) {
+  }
+
+  @Override
+  public void onUrlDeleted(String shortUrl) {
+  }
+
+  @Override
+  public void onUrlExpired(String shortUrl) {
+  }
+
+  @Override
+  public void onCollisionDetected(String shortUrl, int attemptNumber) {
+  }
+}
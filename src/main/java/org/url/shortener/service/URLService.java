@@ -1,7 +1,33 @@
 package org.url.shortener.service;
 
+import java.util.Optional;
+import org.url.shortener.exception.NotFoundException;
+import org.url.shortener.model.LongUrl;
+
 public interface URLService {
   String shortenUrl(String longUrl);
   String getLongUrl(String shortUrlIdentifier);
-}
 
+  /**
+   * Looks a short URL up like {@link #getLongUrl}, but answers an unknown one with an empty
+   * result instead of a {@link NotFoundException}, which is costly to build for every
+   * probe of a dead code. Decorators pass it through; this default falls back to
+   * {@link #getLongUrl}.
+   */
+  default Optional<String> findLongUrl(String shortUrlIdentifier) {
+    try {
+      return Optional.of(getLongUrl(shortUrlIdentifier));
+    } catch (NotFoundException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Looks a short URL up like {@link #findLongUrl}, also answering when its link expires,
+   * so callers that keep the result know how long it stays valid without asking storage
+   * again. This default cannot tell and reports {@link LongUrl#UNKNOWN_EXPIRY}.
+   */
+  default Optional<LongUrl> findLink(String shortUrlIdentifier) {
+    return findLongUrl(shortUrlIdentifier).map(longUrl -> new LongUrl(longUrl, LongUrl.UNKNOWN_EXPIRY));
+  }
+}
@@ -0,0 +1,98 @@
+package org.url.shortener.strategy;
+
+/**
+ * Packs short identifiers of up to 10 base62 characters into a non-negative {@code long}
+ * and back. Each length gets its own range of codes (bijective numeration), so "a" and
+ * "aa" stay distinct even though 'a' is the zero digit.
+ */
+public final class Base62Codec {
+
+  public static final String ALPHABET =
+      "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+  public static final int MAX_LENGTH = 10;
+  /** Returned by {@link #encode} for identifiers that cannot be packed. */
+  public static final long NOT_ENCODABLE = -1;
+
+  private static final int BASE = 62;
+  private static final long[] POWERS = new long[MAX_LENGTH + 1];
+  // OFFSETS[n] is the first code of identifiers with n characters.
+  private static final long[] OFFSETS = new long[MAX_LENGTH + 2];
+  private static final byte[] DIGITS = new byte[128];
+
+  static {
+    POWERS[0] = 1;
+    for (int i = 1; i <= MAX_LENGTH; i++) {
+      POWERS[i] = POWERS[i - 1] * BASE;
+    }
+    OFFSETS[1] = 0;
+    for (int n = 2; n <= MAX_LENGTH + 1; n++) {
+      OFFSETS[n] = OFFSETS[n - 1] + POWERS[n - 1];
+    }
+    java.util.Arrays.fill(DIGITS, (byte) -1);
+    for (int i = 0; i < BASE; i++) {
+      DIGITS[ALPHABET.charAt(i)] = (byte) i;
+    }
+  }
+
+  private Base62Codec() {
+  }
+
+  /**
+   * Returns the code for the identifier, or {@link #NOT_ENCODABLE} when it is empty,
+   * longer than {@link #MAX_LENGTH} or contains characters outside the alphabet.
+   */
+  public static long encode(CharSequence identifier) {
+    int length = identifier.length();
+    if (length == 0 || length > MAX_LENGTH) {
+      return NOT_ENCODABLE;
+    }
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      char c = identifier.charAt(i);
+      int digit = c < 128 ? DIGITS[c] : -1;
+      if (digit < 0) {
+        return NOT_ENCODABLE;
+      }
+      value = value * BASE + digit;
+    }
+    return OFFSETS[length] + value;
+  }
+
+  public static String decode(long code) {
+    if (code < 0 || code >= OFFSETS[MAX_LENGTH + 1]) {
+      throw new IllegalArgumentException("Not a short identifier code: " + code);
+    }
+    int length = 1;
+    while (code >= OFFSETS[length + 1]) {
+      length++;
+    }
+    long value = code - OFFSETS[length];
+    char[] chars = new char[length];
+    for (int i = length - 1; i >= 0; i--) {
+      chars[i] = ALPHABET.charAt((int) (value % BASE));
+      value /= BASE;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Writes a non-negative number in plain positional base62, left-padded with the zero
+   * digit to at least {@code length} characters. Numbers that need more digits come out
+   * longer, so distinct numbers always give distinct keys.
+   */
+  public static String toPaddedString(long value, int length) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must not be negative: " + value);
+    }
+    // 11 digits cover Long.MAX_VALUE.
+    char[] chars = new char[Math.max(length, 11)];
+    int position = chars.length;
+    do {
+      chars[--position] = ALPHABET.charAt((int) (value % BASE));
+      value /= BASE;
+    } while (value > 0);
+    int start = Math.min(position, chars.length - length);
+    java.util.Arrays.fill(chars, start, position, ALPHABET.charAt(0));
+    return new String(chars, start, chars.length - start);
+  }
+}
@@ -0,0 +1,49 @@
+package org.url.shortener.strategy;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns random bits into base62 keys. Each 64-bit draw is cut into ten 6-bit digits;
+ * digits of 62 or 63 are dropped rather than folded onto others, so every character is
+ * equally likely. Ten digits per draw, of which about 9.7 survive, cover a six-character
+ * key with one draw almost always.
+ *
+ * <p>Characters are written into a per-thread scratch buffer, so the returned string is
+ * the only allocation.
+ */
+public final class Base62KeyEncoder {
+
+  private static final byte[] ALPHABET = Base62Codec.ALPHABET.getBytes(StandardCharsets.US_ASCII);
+  private static final int DIGITS_PER_DRAW = 10;
+  private static final int SCRATCH_LENGTH = 64;
+
+  private final EntropySource entropy;
+  private final ThreadLocal<byte[]> scratch;
+
+  public Base62KeyEncoder(EntropySource entropy) {
+    if (entropy == null) {
+      throw new IllegalArgumentException("EntropySource cannot be null");
+    }
+    this.entropy = entropy;
+    this.scratch = ThreadLocal.withInitial(() -> new byte[SCRATCH_LENGTH]);
+  }
+
+  public String nextKey(int length) {
+    if (length <= 0) {
+      throw new IllegalArgumentException("Key length must be positive");
+    }
+    byte[] chars = length <= SCRATCH_LENGTH ? scratch.get() : new byte[length];
+    int written = 0;
+    while (written < length) {
+      long bits = entropy.nextLong();
+      for (int i = 0; i < DIGITS_PER_DRAW && written < length; i++) {
+        int digit = (int) (bits & 0x3F);
+        bits >>>= 6;
+        if (digit < 62) {
+          chars[written++] = ALPHABET[digit];
+        }
+      }
+    }
+    return new String(chars, 0, length, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -0,0 +1,35 @@
+package org.url.shortener.strategy;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.security.SecureRandom;
+
+/**
+ * {@link EntropySource#secure()}: a {@link SecureRandom} per thread, read 32 longs at a
+ * time.
+ */
+final class BufferedSecureEntropySource implements EntropySource {
+
+  private static final int LONGS_PER_REFILL = 32;
+
+  private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+  @Override
+  public long nextLong() {
+    Buffer buffer = buffers.get();
+    if (!buffer.longs.hasRemaining()) {
+      buffer.random.nextBytes(buffer.bytes);
+      buffer.longs.clear();
+    }
+    return buffer.longs.get();
+  }
+
+  private static final class Buffer {
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] bytes = new byte[LONGS_PER_REFILL * Long.BYTES];
+    // Starts exhausted, so the first read fills it.
+    private final LongBuffer longs = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder())
+        .asLongBuffer().position(LONGS_PER_REFILL);
+  }
+}
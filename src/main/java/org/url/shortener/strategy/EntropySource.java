@@ -0,0 +1,33 @@
+package org.url.shortener.strategy;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+
+/**
+ * Random bits for keys, 64 at a time. Implementations must be safe to call from many
+ * threads at once, preferably without those threads waiting on each other.
+ */
+@FunctionalInterface
+public interface EntropySource {
+
+  long nextLong();
+
+  /**
+   * Unpredictable bits: each thread has its own {@link SecureRandom} and draws from it
+   * in bulk, so threads neither contend on one generator nor pay for a call per key.
+   */
+  static EntropySource secure() {
+    return new BufferedSecureEntropySource();
+  }
+
+  /**
+   * Fast bits from a per-thread {@link SplittableRandom} seeded from {@link SecureRandom}.
+   * Keys can be predicted by anyone who recovers a seed, so only use this when key
+   * secrecy does not matter.
+   */
+  static EntropySource fast() {
+    SecureRandom seeds = new SecureRandom();
+    ThreadLocal<SplittableRandom> randoms = ThreadLocal.withInitial(() -> new SplittableRandom(seeds.nextLong()));
+    return () -> randoms.get().nextLong();
+  }
+}
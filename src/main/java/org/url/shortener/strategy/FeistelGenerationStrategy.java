@@ -0,0 +1,110 @@
+package org.url.shortener.strategy;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keys that look random but never collide: each key is a number from a leased counter
+ * (see {@link SequentialGenerationStrategy}) run through a keyed permutation of the
+ * {@code 62^length} keys, written in base62. Distinct numbers always give distinct keys,
+ * so creating a link needs no collision check against the repository.
+ *
+ * <p>The permutation is a balanced Feistel network over the smallest even number of bits
+ * that covers the key space. Results outside the key space are encrypted again (cycle
+ * walking) until they land inside it, which takes fewer than four rounds on average.
+ * Once the counter passes {@code 62^length}, keys grow by a character rather than wrap.
+ *
+ * <p>The key only has to stay the same for as long as the keys it produced are stored.
+ * Every node sharing a keyspace must use the same one, or two nodes may map different
+ * numbers onto the same key. The round function is a fast mixer rather than a cipher, so
+ * this hides the order in which links were created from casual guessing, nothing more.
+ */
+public class FeistelGenerationStrategy implements URLGenerationStrategy {
+
+  private static final int ROUNDS = 6;
+  private static final long[] POWERS = new long[Base62Codec.MAX_LENGTH + 1];
+  // Half of the Feistel block width for each key length.
+  private static final int[] HALF_BITS = new int[Base62Codec.MAX_LENGTH + 1];
+
+  static {
+    POWERS[0] = 1;
+    for (int length = 1; length <= Base62Codec.MAX_LENGTH; length++) {
+      POWERS[length] = POWERS[length - 1] * 62;
+      int bits = 64 - Long.numberOfLeadingZeros(POWERS[length] - 1);
+      HALF_BITS[length] = (bits + 1) / 2;
+    }
+  }
+
+  private final SequentialGenerationStrategy counter;
+  private final long[] roundKeys;
+
+  public FeistelGenerationStrategy(IdBlockAllocator allocator, long key) {
+    this.counter = new SequentialGenerationStrategy(allocator);
+    this.roundKeys = new long[ROUNDS];
+    long state = key;
+    for (int round = 0; round < ROUNDS; round++) {
+      state += 0x9E3779B97F4A7C15L;
+      roundKeys[round] = mix(state);
+    }
+  }
+
+  /**
+   * Derives a key from a configured secret of any length.
+   */
+  public static long keyOf(String secret) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : secret.getBytes(StandardCharsets.UTF_8)) {
+      h = (h ^ (b & 0xff)) * 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  @Override
+  public String generateUniqueKey(String longUrl, int length) {
+    if (length <= 0) {
+      throw new IllegalArgumentException("Key length must be positive");
+    }
+    long id = counter.nextId();
+    int width = Math.min(length, Base62Codec.MAX_LENGTH);
+    while (id >= POWERS[width]) {
+      if (width == Base62Codec.MAX_LENGTH) {
+        throw new IllegalStateException("Counter " + id + " is past the largest key space");
+      }
+      width++;
+    }
+    return Base62Codec.toPaddedString(permute(id, width), Math.max(length, width));
+  }
+
+  /**
+   * Maps {@code value}, which must be below {@code 62^length}, onto another number below
+   * {@code 62^length}; distinct values give distinct results.
+   */
+  long permute(long value, int length) {
+    long domain = POWERS[length];
+    int half = HALF_BITS[length];
+    do {
+      value = encrypt(value, half);
+    } while (value >= domain);
+    return value;
+  }
+
+  private long encrypt(long value, int half) {
+    long mask = (1L << half) - 1;
+    long left = value >>> half;
+    long right = value & mask;
+    for (long roundKey : roundKeys) {
+      long next = left ^ (mix(right ^ roundKey) & mask);
+      left = right;
+      right = next;
+    }
+    return (left << half) | right;
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
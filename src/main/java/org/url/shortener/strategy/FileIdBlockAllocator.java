@@ -0,0 +1,75 @@
+package org.url.shortener.strategy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Leases blocks from a counter file that is fsynced before a block is handed out, so a
+ * restarted node never reuses a number; at most the rest of its last block is skipped.
+ *
+ * <p>Nodes sharing one keyspace take blocks in turn: block {@code b} belongs to the node
+ * with index {@code b % nodeCount}, so every node leases from its own file without asking
+ * the others. The file holds the first block number not yet leased, and a node takes the
+ * next block of its own at or after it. The file is locked while it is updated, so
+ * processes sharing a data directory do not lease the same block either.
+ */
+public class FileIdBlockAllocator implements IdBlockAllocator {
+
+  private final Path counterFile;
+  private final int blockSize;
+  private final int nodeIndex;
+  private final int nodeCount;
+
+  public FileIdBlockAllocator(Path counterFile, int blockSize) {
+    this(counterFile, blockSize, 0, 1);
+  }
+
+  public FileIdBlockAllocator(Path counterFile, int blockSize, int nodeIndex, int nodeCount) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size must be positive");
+    }
+    if (nodeCount <= 0 || nodeIndex < 0 || nodeIndex >= nodeCount) {
+      throw new IllegalArgumentException("Invalid node " + nodeIndex + " of " + nodeCount);
+    }
+    this.counterFile = counterFile;
+    this.blockSize = blockSize;
+    this.nodeIndex = nodeIndex;
+    this.nodeCount = nodeCount;
+  }
+
+  @Override
+  public synchronized IdRange lease() {
+    try {
+      Path parent = counterFile.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      try (FileChannel channel = FileChannel.open(counterFile,
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+           FileLock lock = channel.lock()) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        long firstFree = 0;
+        if (channel.read(buffer, 0) == Long.BYTES) {
+          firstFree = buffer.flip().getLong();
+        }
+        long block = firstFree + Math.floorMod(nodeIndex - firstFree, nodeCount);
+        buffer.clear();
+        buffer.putLong(block + 1).flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer, buffer.position());
+        }
+        channel.force(true);
+        long start = Math.multiplyExact(block, (long) blockSize);
+        return new IdRange(start, start + blockSize);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to lease an id block from " + counterFile, e);
+    }
+  }
+}
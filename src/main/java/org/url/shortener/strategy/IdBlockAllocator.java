@@ -0,0 +1,11 @@
+package org.url.shortener.strategy;
+
+/**
+ * Source of blocks of sequence numbers for {@link SequentialGenerationStrategy}. A block,
+ * once leased, is never handed out again, not even after a restart, so numbers left unused
+ * in it are skipped rather than reused.
+ */
+public interface IdBlockAllocator {
+
+  IdRange lease();
+}
@@ -0,0 +1,35 @@
+package org.url.shortener.strategy;
+
+/**
+ * A half-open range {@code [start, end)} of sequence numbers leased to one node.
+ */
+public final class IdRange {
+
+  private final long start;
+  private final long end;
+
+  public IdRange(long start, long end) {
+    if (start < 0 || end <= start) {
+      throw new IllegalArgumentException("Invalid id range [" + start + ", " + end + ")");
+    }
+    this.start = start;
+    this.end = end;
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  public long getEnd() {
+    return end;
+  }
+
+  public long size() {
+    return end - start;
+  }
+
+  @Override
+  public String toString() {
+    return "[" + start + ", " + end + ")";
+  }
+}
@@ -0,0 +1,233 @@
+package org.url.shortener.strategy;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+import org.url.shortener.repository.URLRepository;
+
+/**
+ * Keeps a bounded ring of generated keys that were not in the repository when they were
+ * generated, so creating a link pops a key instead of generating one and retrying on
+ * collisions. The "Key-Pool-Refill-Thread" tops the ring up in batches, checking each
+ * batch with a single {@link URLRepository#getAll} call and dropping keys already taken.
+ *
+ * <p>When the ring runs dry the key is generated on the spot, as without a pool, and the
+ * starvation is counted. A pooled key can still collide with one created elsewhere after
+ * the check; saving it then fails as before and the caller retries with the next key.
+ */
+public class KeyPool implements URLGenerationStrategy, Closeable {
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long RETRY_DELAY_MILLIS = 1000;
+  private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final URLGenerationStrategy generator;
+  private final URLRepository repository;
+  private final IntSupplier keyLength;
+  private final int capacity;
+  private final int refillBatchSize;
+  private final ArrayBlockingQueue<String> keys;
+  // Keys in the ring, so one refill does not queue a key another already did.
+  private final Set<String> pooled;
+  private final Thread refiller;
+  private final LongAdder keysServed;
+  private final LongAdder starvations;
+  private final LongAdder refilledKeys;
+  private final LongAdder rejectedKeys;
+  private final LongAdder refillBatches;
+  private volatile boolean running;
+  private volatile boolean starved;
+  private volatile double refillRatePerSecond;
+
+  public KeyPool(URLGenerationStrategy generator, URLRepository repository, int keyLength,
+                 int capacity, int refillBatchSize) {
+    this(generator, repository, fixedLength(keyLength), capacity, refillBatchSize);
+  }
+
+  /**
+   * @param keyLength the length keys are pooled at; when it changes, keys of the old length
+   *                  still pooled are dropped as they come up
+   */
+  public KeyPool(URLGenerationStrategy generator, URLRepository repository, IntSupplier keyLength,
+                 int capacity, int refillBatchSize) {
+    if (generator == null || repository == null || keyLength == null) {
+      throw new IllegalArgumentException("Generator, repository and key length cannot be null");
+    }
+    if (capacity <= 0 || refillBatchSize <= 0 || refillBatchSize > capacity) {
+      throw new IllegalArgumentException("Refill batch size must be positive and at most the capacity");
+    }
+    this.generator = generator;
+    this.repository = repository;
+    this.keyLength = keyLength;
+    this.capacity = capacity;
+    this.refillBatchSize = refillBatchSize;
+    this.keys = new ArrayBlockingQueue<>(capacity);
+    this.pooled = ConcurrentHashMap.newKeySet(capacity);
+    this.keysServed = new LongAdder();
+    this.starvations = new LongAdder();
+    this.refilledKeys = new LongAdder();
+    this.rejectedKeys = new LongAdder();
+    this.refillBatches = new LongAdder();
+    this.running = true;
+    this.refiller = new Thread(this::refillLoop, "Key-Pool-Refill-Thread");
+    refiller.setDaemon(true);
+    refiller.start();
+  }
+
+  /**
+   * Pops a pooled key. Keys of another length than the pool's are generated directly.
+   */
+  @Override
+  public String generateUniqueKey(String longUrl, int length) {
+    if (length != keyLength.getAsInt()) {
+      return generator.generateUniqueKey(longUrl, length);
+    }
+    String key = keys.poll();
+    while (key != null && key.length() != length) {
+      pooled.remove(key);
+      rejectedKeys.increment();
+      key = keys.poll();
+    }
+    if (key == null) {
+      starvations.increment();
+      if (!starved) {
+        starved = true;
+        System.out.println("Key pool is empty, generating keys on the request path until it refills");
+      }
+      LockSupport.unpark(refiller);
+      return generator.generateUniqueKey(longUrl, length);
+    }
+    pooled.remove(key);
+    keysServed.increment();
+    if (keys.remainingCapacity() >= refillBatchSize) {
+      LockSupport.unpark(refiller);
+    }
+    return key;
+  }
+
+  public int getDepth() {
+    return keys.size();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public long getKeysServed() {
+    return keysServed.sum();
+  }
+
+  /** Requests that found the pool empty and generated their key themselves. */
+  public long getStarvations() {
+    return starvations.sum();
+  }
+
+  public long getRefilledKeys() {
+    return refilledKeys.sum();
+  }
+
+  /** Generated keys dropped because the repository or the pool already had them. */
+  public long getRejectedKeys() {
+    return rejectedKeys.sum();
+  }
+
+  public long getRefillBatches() {
+    return refillBatches.sum();
+  }
+
+  /** Keys added to the pool per second over the last second or so. */
+  public double getRefillRatePerSecond() {
+    return refillRatePerSecond;
+  }
+
+  /**
+   * Waits up to the timeout for the pool to be full. Meant for warming up at startup.
+   */
+  public boolean awaitFull(long timeoutMillis) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    while (keys.remainingCapacity() >= refillBatchSize) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(10);
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(refiller);
+    try {
+      refiller.join(5000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static IntSupplier fixedLength(int keyLength) {
+    if (keyLength <= 0) {
+      throw new IllegalArgumentException("Key length must be positive");
+    }
+    return () -> keyLength;
+  }
+
+  private void refillLoop() {
+    long windowStart = System.nanoTime();
+    long windowRefilled = 0;
+    while (running) {
+      try {
+        if (keys.remainingCapacity() >= refillBatchSize) {
+          refill();
+        } else {
+          starved = false;
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+      } catch (RuntimeException e) {
+        System.err.println("Key pool refill failed, retrying: " + e.getMessage());
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MILLIS));
+      }
+      long now = System.nanoTime();
+      if (now - windowStart >= RATE_WINDOW_NANOS) {
+        long refilled = refilledKeys.sum();
+        refillRatePerSecond = (refilled - windowRefilled) * 1e9 / (now - windowStart);
+        windowRefilled = refilled;
+        windowStart = now;
+      }
+    }
+  }
+
+  private void refill() {
+    List<String> candidates = new ArrayList<>(refillBatchSize);
+    int length = keyLength.getAsInt();
+    for (int i = 0; i < refillBatchSize; i++) {
+      String key = generator.generateUniqueKey(null, length);
+      if (pooled.contains(key)) {
+        rejectedKeys.increment();
+      } else {
+        candidates.add(key);
+      }
+    }
+    Map<String, String> taken = repository.getAll(candidates);
+    for (String key : candidates) {
+      if (taken.containsKey(key) || !pooled.add(key)) {
+        rejectedKeys.increment();
+        continue;
+      }
+      if (!keys.offer(key)) {
+        pooled.remove(key);
+        break;
+      }
+      refilledKeys.increment();
+    }
+    refillBatches.increment();
+  }
+}
@@ -0,0 +1,30 @@
+package org.url.shortener.strategy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leases consecutive blocks from an in-process counter. Nothing survives a restart, so it
+ * only suits a single node whose mappings do not survive one either.
+ */
+public class MemoryIdBlockAllocator implements IdBlockAllocator {
+
+  private final AtomicLong next;
+  private final int blockSize;
+
+  public MemoryIdBlockAllocator(long first, int blockSize) {
+    if (first < 0) {
+      throw new IllegalArgumentException("First id must not be negative");
+    }
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size must be positive");
+    }
+    this.next = new AtomicLong(first);
+    this.blockSize = blockSize;
+  }
+
+  @Override
+  public IdRange lease() {
+    long start = next.getAndAdd(blockSize);
+    return new IdRange(start, start + blockSize);
+  }
+}
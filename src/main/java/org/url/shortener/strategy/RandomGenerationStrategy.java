@@ -10,6 +10,10 @@ public class RandomGenerationStrategy implements URLGenerationStrategy {
         this.uniqueKeyGenerator = new UniqueKeyGenerator();
     }
 
+    public RandomGenerationStrategy(EntropySource entropy) {
+        this.uniqueKeyGenerator = new UniqueKeyGenerator(entropy);
+    }
+
     @Override
     public String generateUniqueKey(String longUrl, int length) {
         return uniqueKeyGenerator.generateUniqueKey(length);
@@ -2,18 +2,86 @@ package org.url.shortener.strategy;
 
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Hands out numbers from blocks leased by an {@link IdBlockAllocator}, so keys never
+ * collide and need no retries. Each thread carves a small sub-range out of the current
+ * block and counts through it without synchronising; only running out of the block itself
+ * takes a lock, once per block.
+ *
+ * <p>Keys are the numbers in base62, padded to the requested length. The no-argument form
+ * keeps the original decimal keys from an in-process counter starting after 10000.
+ */
 public class SequentialGenerationStrategy implements URLGenerationStrategy {
 
-    private final AtomicLong counter;
+    public static final int DEFAULT_SUB_RANGE_SIZE = 64;
+
+    private final IdBlockAllocator allocator;
+    private final int subRangeSize;
+    private final boolean base62;
+    private final ThreadLocal<long[]> subRanges;
+    private volatile Block block;
 
     public SequentialGenerationStrategy() {
-        this.counter = new AtomicLong(10000);
+        this(new MemoryIdBlockAllocator(10001, 10_000), DEFAULT_SUB_RANGE_SIZE, false);
+    }
+
+    public SequentialGenerationStrategy(IdBlockAllocator allocator) {
+        this(allocator, DEFAULT_SUB_RANGE_SIZE, true);
+    }
+
+    SequentialGenerationStrategy(IdBlockAllocator allocator, int subRangeSize, boolean base62) {
+        if (allocator == null) {
+            throw new IllegalArgumentException("IdBlockAllocator cannot be null");
+        }
+        if (subRangeSize <= 0) {
+            throw new IllegalArgumentException("Sub-range size must be positive");
+        }
+        this.allocator = allocator;
+        this.subRangeSize = subRangeSize;
+        this.base62 = base62;
+        // [next, end) of the calling thread's sub-range
+        this.subRanges = ThreadLocal.withInitial(() -> new long[2]);
+        this.block = new Block(allocator.lease());
     }
 
     @Override
     public String generateUniqueKey(String longUrl, int length) {
-        long id  = counter.incrementAndGet();
-        return String.valueOf(id);
+        long id = nextId();
+        return base62 ? Base62Codec.toPaddedString(id, length) : String.valueOf(id);
+    }
+
+    long nextId() {
+        long[] subRange = subRanges.get();
+        if (subRange[0] >= subRange[1]) {
+            refill(subRange);
+        }
+        return subRange[0]++;
+    }
+
+    private void refill(long[] subRange) {
+        while (true) {
+            Block current = block;
+            long start = current.next.getAndAdd(subRangeSize);
+            if (start < current.end) {
+                subRange[0] = start;
+                subRange[1] = Math.min(start + subRangeSize, current.end);
+                return;
+            }
+            synchronized (this) {
+                if (block == current) {
+                    block = new Block(allocator.lease());
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(IdRange range) {
+            this.next = new AtomicLong(range.getStart());
+            this.end = range.getEnd();
+        }
     }
-    
 }
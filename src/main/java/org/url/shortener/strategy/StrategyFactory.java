@@ -1,26 +1,144 @@
 package org.url.shortener.strategy;
 
-import java.util.ArrayList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.url.shortener.cluster.ClusterNode;
+import org.url.shortener.config.URLShortenerConfig;
+import org.url.shortener.observer.KeyspaceManager;
+import org.url.shortener.repository.RepositoryType;
+import org.url.shortener.repository.URLRepository;
 
 @Service
-public class StrategyFactory {
+public class StrategyFactory implements Closeable {
   Map<URLStrategy, URLGenerationStrategy> strategyList;
+  private final URLStrategy defaultStrategy;
+  private final KeyPool keyPool;
 
   public StrategyFactory() {
     strategyList = new HashMap<>();
     strategyList.put(URLStrategy.RANDOM, new RandomGenerationStrategy());
+    strategyList.put(URLStrategy.SEQUENTIAL, new SequentialGenerationStrategy());
+    strategyList.put(URLStrategy.FEISTEL, new FeistelGenerationStrategy(
+        new MemoryIdBlockAllocator(0, 10_000), new SecureRandom().nextLong()));
+    defaultStrategy = URLStrategy.RANDOM;
+    keyPool = null;
   }
+
+  @Autowired
+  public StrategyFactory(URLShortenerConfig config, URLRepository repository, KeyspaceManager keyspaceManager) {
+    strategyList = new HashMap<>();
+    defaultStrategy = config.getKeyStrategy();
+    if (config.isKeyPoolEnabled()) {
+      // Sequential keys never collide, so only random ones are pooled.
+      // Pools keys at whatever length the key space manager currently asks for.
+      keyPool = new KeyPool(new RandomGenerationStrategy(), repository, keyspaceManager::getCurrentLength,
+          config.getKeyPoolCapacity(), config.getKeyPoolRefillBatchSize());
+      strategyList.put(URLStrategy.RANDOM, keyPool);
+    } else {
+      keyPool = null;
+      strategyList.put(URLStrategy.RANDOM, new RandomGenerationStrategy());
+    }
+    if (defaultStrategy == URLStrategy.SEQUENTIAL) {
+      // Leased only when chosen: leasing reserves a block in the counter file.
+      strategyList.put(URLStrategy.SEQUENTIAL, new SequentialGenerationStrategy(idBlockAllocator(config)));
+    } else {
+      strategyList.put(URLStrategy.SEQUENTIAL, new SequentialGenerationStrategy());
+    }
+    if (defaultStrategy == URLStrategy.FEISTEL) {
+      strategyList.put(URLStrategy.FEISTEL,
+          new FeistelGenerationStrategy(idBlockAllocator(config), feistelKey(config)));
+    } else {
+      strategyList.put(URLStrategy.FEISTEL, new FeistelGenerationStrategy(
+          new MemoryIdBlockAllocator(0, config.getSequenceBlockSize()), new SecureRandom().nextLong()));
+    }
+  }
+
   public URLGenerationStrategy getStrategy(URLStrategy strategy) {
     return strategyList.get(strategy);
   }
   public URLGenerationStrategy getDefaultStrategy() {
-    return strategyList.get(URLStrategy.RANDOM);
+    return strategyList.get(defaultStrategy);
+  }
+
+  /** The pool behind random keys, or null when keys are generated on demand. */
+  public KeyPool getKeyPool() {
+    return keyPool;
   }
 
+  @Override
+  public void close() {
+    if (keyPool != null) {
+      keyPool.close();
+    }
+  }
+
+  private static IdBlockAllocator idBlockAllocator(URLShortenerConfig config) {
+    if (!config.isPersistenceEnabled()) {
+      // Keys that outlive this process would collide with a counter that restarts at zero.
+      if (config.isClusterEnabled()) {
+        throw new IllegalStateException(
+            "Sequential keys in cluster mode need url-shortener.data-dir: other members keep this node's keys across its restarts");
+      }
+      if (config.getRepositoryType() == RepositoryType.JDBC
+          && config.getJdbcUrl() != null && !config.getJdbcUrl().isBlank()) {
+        throw new IllegalStateException(
+            "Sequential keys with url-shortener.jdbc.url need url-shortener.data-dir: the database keeps keys across restarts");
+      }
+      System.out.println("Sequential keys without url-shortener.data-dir restart from the first block on every boot");
+      return new MemoryIdBlockAllocator(0, config.getSequenceBlockSize());
+    }
+    int nodeIndex = 0;
+    int nodeCount = 1;
+    if (config.isClusterEnabled()) {
+      // Members take blocks in turn, in the order url-shortener.cluster.nodes lists them.
+      List<ClusterNode> members = ClusterNode.parseAll(config.getClusterNodes());
+      nodeCount = members.size();
+      while (nodeIndex < nodeCount && !members.get(nodeIndex).getId().equals(config.getClusterNodeId())) {
+        nodeIndex++;
+      }
+      if (nodeIndex == nodeCount) {
+        throw new IllegalStateException("Cluster node id " + config.getClusterNodeId()
+            + " is not listed in url-shortener.cluster.nodes");
+      }
+    }
+    return new FileIdBlockAllocator(Paths.get(config.getDataDirectory(), "sequence.counter"),
+        config.getSequenceBlockSize(), nodeIndex, nodeCount);
+  }
+
+  private static long feistelKey(URLShortenerConfig config) {
+    if (config.getFeistelKey() != null && !config.getFeistelKey().isBlank()) {
+      return FeistelGenerationStrategy.keyOf(config.getFeistelKey());
+    }
+    if (config.isClusterEnabled()) {
+      // Members generating with different keys could produce the same short code.
+      throw new IllegalStateException("FEISTEL keys in cluster mode need a shared url-shortener.feistel.key");
+    }
+    if (!config.isPersistenceEnabled()) {
+      return new SecureRandom().nextLong();
+    }
+    Path keyFile = Paths.get(config.getDataDirectory(), "feistel.key");
+    try {
+      if (!Files.exists(keyFile)) {
+        Files.createDirectories(keyFile.toAbsolutePath().getParent());
+        Path temp = keyFile.resolveSibling("feistel.key.tmp");
+        Files.writeString(temp, Long.toHexString(new SecureRandom().nextLong()) + "\n", StandardCharsets.UTF_8);
+        Files.move(temp, keyFile, StandardCopyOption.ATOMIC_MOVE);
+      }
+      return Long.parseUnsignedLong(Files.readString(keyFile, StandardCharsets.UTF_8).trim(), 16);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read or create " + keyFile, e);
+    }
+  }
 }
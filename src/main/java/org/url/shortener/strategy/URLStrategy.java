@@ -2,5 +2,6 @@ package org.url.shortener.strategy;
 
 public enum URLStrategy {
   RANDOM,
-  SEQUENTIAL
+  SEQUENTIAL,
+  FEISTEL
 }
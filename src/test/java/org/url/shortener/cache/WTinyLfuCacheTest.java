@@ -0,0 +1,157 @@
+package org.url.shortener.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WTinyLfuCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    void testPutGetAndInvalidate() {
+        // Given
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100);
+        cache.put("abc123", "https://www.example.com", WTinyLfuCache.NEVER);
+
+        // When
+        String hit = cache.get("abc123");
+        String miss = cache.get("missing");
+        cache.invalidate("abc123");
+
+        // Then
+        assertEquals("https://www.example.com", hit);
+        assertNull(miss);
+        assertNull(cache.get("abc123"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1.0 / 3, cache.getHitRatio(), 1e-9);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedSize());
+    }
+
+    @Test
+    void testReplacingAValueKeepsOneEntry() {
+        // Given
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100);
+        cache.put("abc123", "https://www.example.com", WTinyLfuCache.NEVER);
+
+        // When
+        cache.put("abc123", "https://www.google.com", WTinyLfuCache.NEVER);
+
+        // Then
+        assertEquals("https://www.google.com", cache.get("abc123"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.weightedSize());
+    }
+
+    @Test
+    void testStaysWithinEntryBound() {
+        // Given
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, "https://www.example.com/" + i, WTinyLfuCache.NEVER);
+        }
+
+        // Then
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.weightedSize());
+        assertEquals(900, cache.getEvictions() + cache.getAdmissionRejects());
+    }
+
+    @Test
+    void testFrequentlyReadEntriesSurviveAScan() {
+        // Given
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot" + i, "https://www.example.com/hot/" + i, WTinyLfuCache.NEVER);
+            for (int read = 0; read < 5; read++) {
+                cache.get("hot" + i);
+            }
+        }
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("cold" + i, "https://www.example.com/cold/" + i, WTinyLfuCache.NEVER);
+            if (i % 10 == 0) {
+                cache.get("hot" + (i / 10) % 50);
+            }
+        }
+
+        // Then
+        int survivors = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot" + i) != null) {
+                survivors++;
+            }
+        }
+        assertEquals(50, survivors);
+        assertTrue(cache.getAdmissionRejects() > 0);
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    void testEntriesExpire() {
+        // Given
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100, (key, value) -> 1, 100, clock::get);
+        cache.put("abc123", "https://www.example.com", clock.get() + 1000);
+        cache.put("def456", "https://www.google.com", WTinyLfuCache.NEVER);
+
+        // When
+        clock.addAndGet(999);
+        String beforeExpiry = cache.get("abc123");
+        clock.addAndGet(1);
+        String atExpiry = cache.get("abc123");
+
+        // Then
+        assertEquals("https://www.example.com", beforeExpiry);
+        assertNull(atExpiry);
+        assertEquals("https://www.google.com", cache.get("def456"));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testStaysWithinWeightBound() {
+        // Given
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100, (key, value) -> value.length(), 10);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, "x".repeat(30), WTinyLfuCache.NEVER);
+        }
+        cache.put("huge", "x".repeat(101), WTinyLfuCache.NEVER);
+
+        // Then
+        assertTrue(cache.weightedSize() <= 100);
+        assertEquals(3, cache.size());
+        assertNull(cache.get("huge"));
+    }
+
+    @Test
+    void testClear() {
+        // Given
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100);
+        cache.put("abc123", "https://www.example.com", WTinyLfuCache.NEVER);
+        cache.get("abc123");
+
+        // When
+        cache.clear();
+
+        // Then
+        assertNull(cache.get("abc123"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedSize());
+        cache.put("abc123", "https://www.example.com", WTinyLfuCache.NEVER);
+        assertEquals("https://www.example.com", cache.get("abc123"));
+    }
+
+    @Test
+    void testRejectsNonPositiveBound() {
+        assertThrows(IllegalArgumentException.class, () -> new WTinyLfuCache<String, String>(0));
+    }
+}
@@ -0,0 +1,310 @@
+package org.url.shortener.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.url.shortener.exception.ClusterException;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several cluster members in one JVM, each with its own in-memory repository and
+ * internal endpoint on a free localhost port.
+ */
+class ClusterRepositoryTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    private final List<ClusterRepository> members = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        members.forEach(ClusterRepository::close);
+    }
+
+    @Test
+    void testLinkCreatedOnOneNodeResolvesOnEvery() {
+        // Given
+        startCluster(3);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            members.get(i % 3).save("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+
+        // Then
+        for (ClusterRepository member : members) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals("https://example.com/" + i, member.get("id" + i));
+                assertTrue(member.exists("id" + i));
+            }
+            assertNull(member.get("missing"));
+            assertFalse(member.exists("missing"));
+        }
+    }
+
+    @Test
+    void testGetLink_CarriesTheExpiryFromAnyNode() {
+        // Given
+        startCluster(2);
+        String remoteKey = firstKeyOwnedBy(members.get(0).getRing(), members.get(1).getSelf());
+        members.get(1).save(remoteKey, new LongUrl("https://www.example.com", FUTURE));
+
+        // When
+        LongUrl forwarded = members.get(0).getLink(remoteKey);
+        LongUrl owned = members.get(1).getLink(remoteKey);
+
+        // Then
+        assertEquals("https://www.example.com", forwarded.getUrl());
+        assertEquals(FUTURE, forwarded.getExpiry());
+        assertEquals(FUTURE, owned.getExpiry());
+        assertNull(members.get(0).getLink("missing"));
+        assertNull(members.get(1).getLink("missing"));
+    }
+
+    @Test
+    void testEachMappingIsStoredOnlyAtItsOwner() {
+        // Given
+        startCluster(3);
+
+        // When
+        for (int i = 0; i < 300; i++) {
+            members.get(0).save("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+
+        // Then
+        int total = 0;
+        for (ClusterRepository member : members) {
+            int[] owned = new int[1];
+            member.forEachEntry((shortUrlIdentifier, longUrl) -> {
+                assertEquals(member.getSelf(), member.getRing().ownerOf(shortUrlIdentifier));
+                owned[0]++;
+            });
+            assertTrue(owned[0] > 0);
+            total += owned[0];
+        }
+        assertEquals(300, total);
+        assertTrue(members.get(0).getForwardedRequests() > 0);
+        assertTrue(members.get(0).getLocalRequests() > 0);
+    }
+
+    @Test
+    void testDuplicateIdentifierDetectedAcrossNodes() {
+        // Given
+        startCluster(3);
+        members.get(0).save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // When / Then
+        for (ClusterRepository member : members) {
+            assertThrows(DuplicateUrlIdentifierException.class,
+                    () -> member.save("abc123", new LongUrl("https://www.google.com", FUTURE)));
+        }
+        assertEquals("https://www.example.com", members.get(2).get("abc123"));
+    }
+
+    @Test
+    void testSaveAll_DuplicateUndoesOtherOwners() {
+        // Given
+        startCluster(3);
+        members.get(0).save("taken", new LongUrl("https://www.example.com", FUTURE));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        for (int i = 0; i < 30; i++) {
+            batch.put("new" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+        batch.put("taken", new LongUrl("https://www.google.com", FUTURE));
+
+        // When
+        assertThrows(DuplicateUrlIdentifierException.class, () -> members.get(1).saveAll(batch));
+
+        // Then
+        for (int i = 0; i < 30; i++) {
+            assertFalse(members.get(2).exists("new" + i));
+        }
+        assertEquals("https://www.example.com", members.get(0).get("taken"));
+    }
+
+    @Test
+    void testFindByLongUrlFromAnyNode() {
+        // Given
+        startCluster(3);
+        members.get(0).save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // When / Then
+        for (ClusterRepository member : members) {
+            assertEquals(Optional.of("abc123"), member.findByLongUrl("https://www.example.com"));
+            assertEquals(Optional.empty(), member.findByLongUrl("https://www.google.com"));
+        }
+
+        members.get(1).remove("abc123");
+        for (ClusterRepository member : members) {
+            assertEquals(Optional.empty(), member.findByLongUrl("https://www.example.com"));
+        }
+    }
+
+    @Test
+    void testRestartedNodeRebuildsItsUrlIndex() throws InterruptedException {
+        // Given
+        List<ClusterNode> nodes = List.of(
+                new ClusterNode("node-0", "localhost", freePort()),
+                new ClusterNode("node-1", "localhost", freePort()));
+        HashRing ring = new HashRing(nodes);
+        DefaultRepository survivingData = new DefaultRepository();
+        members.add(new ClusterRepository(nodes.get(0), ring, survivingData));
+        members.add(new ClusterRepository(nodes.get(1), ring, new DefaultRepository()));
+        for (int i = 0; i < 100; i++) {
+            members.get(i % 2).save("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+
+        // When node-0 restarts with its data but an empty index
+        members.remove(0).close();
+        members.add(0, new ClusterRepository(nodes.get(0), ring, survivingData));
+
+        // Then every link is found again by its long URL, whichever node indexes it
+        long deadline = System.currentTimeMillis() + 10_000;
+        int found = 0;
+        while (found < 100 && System.currentTimeMillis() < deadline) {
+            found = 0;
+            for (int i = 0; i < 100; i++) {
+                if (members.get(0).findByLongUrl("https://example.com/" + i).isPresent()) {
+                    found++;
+                }
+            }
+            Thread.sleep(10);
+        }
+        assertEquals(100, found);
+    }
+
+    @Test
+    void testBatchReadsAndRemovesSpanNodes() {
+        // Given
+        startCluster(3);
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            batch.put("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+        members.get(0).saveAll(batch);
+
+        // When
+        Map<String, String> found = members.get(1).getAll(List.of("id49", "missing", "id0", "id7"));
+        members.get(2).removeAll(List.of("id0", "id1", "id2", "missing"));
+
+        // Then
+        assertEquals(List.of("id49", "id0", "id7"), List.copyOf(found.keySet()));
+        assertEquals("https://example.com/7", found.get("id7"));
+        assertNull(members.get(0).get("id0"));
+        assertNull(members.get(1).get("id2"));
+        assertEquals("https://example.com/3", members.get(1).get("id3"));
+    }
+
+    @Test
+    void testExpirySweepCoversOwnedMappingsOnly() {
+        // Given
+        startCluster(2);
+        for (int i = 0; i < 40; i++) {
+            members.get(0).save("id" + i, new LongUrl("https://example.com/" + i, 100L));
+        }
+
+        // When
+        List<String> expired = new ArrayList<>();
+        for (ClusterRepository member : members) {
+            List<String> due = member.pollExpired(1000);
+            due.forEach(id -> assertEquals(member.getSelf(), member.getRing().ownerOf(id)));
+            expired.addAll(due);
+        }
+
+        // Then
+        assertEquals(40, expired.size());
+    }
+
+    @Test
+    void testUnreachableOwnerFailsWithClusterException() {
+        // Given a ring with a member that was never started
+        List<ClusterNode> nodes = List.of(
+                new ClusterNode("node-0", "localhost", freePort()),
+                new ClusterNode("node-1", "localhost", freePort()));
+        HashRing ring = new HashRing(nodes);
+        members.add(new ClusterRepository(nodes.get(0), ring, new DefaultRepository()));
+        String remoteKey = firstKeyOwnedBy(ring, nodes.get(1));
+
+        // When / Then
+        assertThrows(ClusterException.class, () -> members.get(0).get(remoteKey));
+    }
+
+    @Test
+    void testConcurrentThroughput() throws Exception {
+        // Given
+        startCluster(3);
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+
+        // When
+        long start = System.nanoTime();
+        List<Future<?>> work = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            work.add(clients.submit(() -> {
+                ClusterRepository member = members.get(thread % members.size());
+                for (int i = 0; i < perThread; i++) {
+                    String id = "t" + thread + "i" + i;
+                    member.save(id, new LongUrl("https://example.com/" + id, FUTURE));
+                    assertEquals("https://example.com/" + id, member.get(id));
+                }
+            }));
+        }
+        for (Future<?> future : work) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        clients.shutdown();
+
+        // Then
+        int operations = threads * perThread * 2;
+        System.out.println("Cluster of 3: " + operations + " operations in " + elapsedMillis + " ms ("
+                + operations * 1000L / elapsedMillis + " ops/s)");
+        for (int t = 0; t < threads; t++) {
+            assertTrue(members.get(0).exists("t" + t + "i" + (perThread - 1)));
+        }
+    }
+
+    private void startCluster(int size) {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            nodes.add(new ClusterNode("node-" + i, "localhost", freePort()));
+        }
+        HashRing ring = new HashRing(nodes);
+        for (ClusterNode node : nodes) {
+            members.add(new ClusterRepository(node, ring, new DefaultRepository()));
+        }
+    }
+
+    private static String firstKeyOwnedBy(HashRing ring, ClusterNode node) {
+        for (int i = 0; ; i++) {
+            if (ring.ownerOf("key" + i).equals(node)) {
+                return "key" + i;
+            }
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.url.shortener.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+
+    @Test
+    void testOwnershipIsIndependentOfMemberOrder() {
+        // Given
+        List<ClusterNode> nodes = nodes(4);
+        List<ClusterNode> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+
+        // When
+        HashRing ring = new HashRing(nodes);
+        HashRing other = new HashRing(reversed);
+
+        // Then
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.ownerOf("key" + i), other.ownerOf("key" + i));
+        }
+    }
+
+    @Test
+    void testKeysAreSpreadEvenly() {
+        // Given
+        HashRing ring = new HashRing(nodes(4));
+        Map<ClusterNode, Integer> counts = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(ring.ownerOf("id" + i), 1, Integer::sum);
+        }
+
+        // Then
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 15_000 && count < 35_000, "Unbalanced ring: " + counts);
+        }
+    }
+
+    @Test
+    void testAddingNodeOnlyMovesKeysToIt() {
+        // Given
+        HashRing ring = new HashRing(nodes(3));
+        ClusterNode added = new ClusterNode("node-3", "localhost", 9003);
+        HashRing grown = ring.withNode(added);
+
+        // When
+        int moved = 0;
+        for (int i = 0; i < 30_000; i++) {
+            ClusterNode before = ring.ownerOf("id" + i);
+            ClusterNode after = grown.ownerOf("id" + i);
+            if (!before.equals(after)) {
+                assertEquals(added, after);
+                moved++;
+            }
+        }
+
+        // Then about a quarter of the keys move, all of them to the new node
+        assertTrue(moved > 4_500 && moved < 10_500, "Moved " + moved);
+    }
+
+    @Test
+    void testDuplicateNodeIdRejected() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of(
+                new ClusterNode("a", "localhost", 9000), new ClusterNode("a", "localhost", 9001))));
+    }
+
+    @Test
+    void testParseNodes() {
+        // When
+        List<ClusterNode> nodes = ClusterNode.parseAll("a=host-a:9000, b=10.0.0.2:9001");
+
+        // Then
+        assertEquals(List.of(new ClusterNode("a", "host-a", 9000), new ClusterNode("b", "10.0.0.2", 9001)), nodes);
+        assertThrows(IllegalArgumentException.class, () -> ClusterNode.parse("missing-port"));
+    }
+
+    private static List<ClusterNode> nodes(int count) {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new ClusterNode("node-" + i, "localhost", 9000 + i));
+        }
+        return nodes;
+    }
+}
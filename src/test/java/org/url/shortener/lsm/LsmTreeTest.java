@@ -0,0 +1,168 @@
+package org.url.shortener.lsm;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LsmTreeTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private LsmTree tree;
+
+    @AfterEach
+    void tearDown() {
+        if (tree != null) {
+            tree.close();
+        }
+    }
+
+    @Test
+    void testFlushedValuesAreReadFromSSTables() {
+        // Given
+        tree = open();
+        put("k1", StoredValue.of("v1", FUTURE));
+        put("k2", StoredValue.of("v2", FUTURE));
+
+        // When
+        tree.flush();
+
+        // Then
+        assertEquals(1, tree.getFileCount(0));
+        assertEquals("v1", tree.get("k1").getValue());
+        assertEquals(FUTURE, tree.get("k2").getExpiry());
+        assertNull(tree.get("k3"));
+    }
+
+    @Test
+    void testNewerVersionsShadowOlderFiles() {
+        // Given
+        tree = open();
+        put("k1", StoredValue.of("old", FUTURE));
+        put("k2", StoredValue.of("gone", FUTURE));
+        tree.flush();
+
+        // When
+        put("k1", StoredValue.of("new", FUTURE));
+        put("k2", StoredValue.tombstone());
+
+        // Then
+        assertEquals("new", tree.get("k1").getValue());
+        assertTrue(tree.get("k2").isTombstone());
+        // The second file triggers a merge into the bottom level, which drops the tombstone.
+        tree.flush();
+        assertEquals("new", tree.get("k1").getValue());
+        assertNull(tree.get("k2"));
+    }
+
+    @Test
+    void testCompactionMergesLevel0AndDropsDeadEntries() {
+        // Given
+        tree = open();
+        put("dead", StoredValue.of("v", FUTURE));
+        put("expired", StoredValue.of("v", 1000L));
+        put("live", StoredValue.of("v", FUTURE));
+        tree.flush();
+        put("dead", StoredValue.tombstone());
+        put("other", StoredValue.of("v", FUTURE));
+
+        // When
+        tree.flush();
+
+        // Then
+        assertEquals(0, tree.getFileCount(0));
+        assertEquals(1, tree.getFileCount(1));
+        assertEquals(1, tree.getCompactionCount());
+        assertEquals(2, tree.getDroppedEntries());
+        assertNull(tree.get("dead"));
+        assertNull(tree.get("expired"));
+        assertEquals("v", tree.get("live").getValue());
+    }
+
+    @Test
+    void testCompactionSplitsOutputAndKeepsAllKeys() throws Exception {
+        // Given
+        tree = open();
+        for (int round = 0; round < 4; round++) {
+            for (int i = round; i < 3000; i += 4) {
+                put(String.format("key%05d", i), StoredValue.of("value-" + i, FUTURE));
+            }
+            tree.flush();
+        }
+
+        // When
+        List<String> keys = new ArrayList<>();
+        tree.scan("key", "kez", (key, value) -> keys.add(key));
+
+        // Then
+        assertEquals(3000, keys.size());
+        assertEquals("key00000", keys.get(0));
+        assertEquals("key02999", keys.get(2999));
+        assertTrue(tree.getFileCount(1) + tree.getFileCount(2) > 1);
+        assertEquals("value-1234", tree.get("key01234").getValue());
+        try (Stream<Path> files = Files.list(directory)) {
+            long tables = files.filter(path -> path.toString().endsWith(".sst")).count();
+            long live = 0;
+            for (int level = 0; level < 4; level++) {
+                live += tree.getFileCount(level);
+            }
+            assertEquals(live, tables);
+        }
+    }
+
+    @Test
+    void testStateSurvivesReopen() {
+        // Given
+        tree = open();
+        put("k1", StoredValue.of("v1", FUTURE));
+        tree.flush();
+        tree.close();
+
+        // When
+        tree = open();
+
+        // Then
+        assertEquals("v1", tree.get("k1").getValue());
+        assertEquals(7, tree.getFlushedSequence());
+    }
+
+    @Test
+    void testScanSkipsTombstonesAndRespectsRange() {
+        // Given
+        tree = open();
+        put("a", StoredValue.of("1", FUTURE));
+        put("b", StoredValue.of("2", FUTURE));
+        tree.flush();
+        put("b", StoredValue.tombstone());
+        put("c", StoredValue.of("3", FUTURE));
+        put("d", StoredValue.of("4", FUTURE));
+
+        // When
+        List<String> keys = new ArrayList<>();
+        tree.scan("a", "d", (key, value) -> keys.add(key));
+
+        // Then
+        assertEquals(List.of("a", "c"), keys);
+    }
+
+    private void put(String key, StoredValue value) {
+        tree.write(Map.of(key, value), () -> null);
+    }
+
+    private LsmTree open() {
+        LsmOptions options = new LsmOptions(1024 * 1024, 256, 2, 8 * 1024, 4, 8 * 1024, 10, 4);
+        return new LsmTree(directory, options, () -> 7, sequence -> { });
+    }
+}
@@ -0,0 +1,106 @@
+package org.url.shortener.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryGovernorTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private final MemoryGovernor governor = new MemoryGovernor(0.5, 0.6, 0.7, 0.8);
+
+    @Test
+    void testResponsesRunInOrderUpToTheUsageLevel() {
+        // Given
+        registerAll();
+
+        // When
+        governor.onHeapUsage(0.72);
+
+        // Then
+        assertEquals(List.of("shrink", "analytics", "spill"), calls);
+        assertEquals(PressureLevel.SPILL_COLD_MAPPINGS, governor.getLevel());
+        assertTrue(governor.isAcceptingCreates());
+        assertEquals(3, governor.getActionsTaken());
+        assertEquals(1, governor.getEscalationCount(PressureLevel.SHRINK_CACHES));
+    }
+
+    @Test
+    void testResponsesAreNotRepeatedAtTheSameLevel() {
+        // Given
+        registerAll();
+        governor.onHeapUsage(0.55);
+
+        // When
+        governor.onHeapUsage(0.58);
+        governor.onHeapUsage(0.65);
+
+        // Then
+        assertEquals(List.of("shrink", "analytics"), calls);
+    }
+
+    @Test
+    void testCriticalUsageRejectsCreates() {
+        // When
+        governor.onHeapUsage(0.9);
+
+        // Then
+        assertEquals(PressureLevel.REJECT_CREATES, governor.getLevel());
+        assertFalse(governor.isAcceptingCreates());
+    }
+
+    @Test
+    void testReliefUndoesResponsesOnceClearOfTheMargin() {
+        // Given
+        registerAll();
+        governor.onHeapUsage(0.85);
+        calls.clear();
+
+        // When
+        governor.onHeapUsage(0.78);
+
+        // Then
+        assertEquals(PressureLevel.REJECT_CREATES, governor.getLevel());
+        governor.onHeapUsage(0.56);
+        assertEquals(PressureLevel.DROP_ANALYTICS_DETAIL, governor.getLevel());
+        assertTrue(governor.isAcceptingCreates());
+        assertEquals(List.of("accept"), calls);
+        governor.onHeapUsage(0.1);
+        assertEquals(PressureLevel.NORMAL, governor.getLevel());
+        assertEquals(List.of("accept", "resume analytics"), calls);
+    }
+
+    @Test
+    void testFailingResponseDoesNotStopTheOthers() {
+        // Given
+        governor.register(PressureLevel.SHRINK_CACHES, "broken", () -> {
+            throw new IllegalStateException("boom");
+        }, null);
+        governor.register(PressureLevel.SHRINK_CACHES, "shrink", () -> calls.add("shrink"), null);
+
+        // When
+        governor.onHeapUsage(0.5);
+
+        // Then
+        assertEquals(List.of("shrink"), calls);
+        assertEquals(2, governor.getActionsTaken());
+    }
+
+    @Test
+    void testConstructor_RejectsUnorderedThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryGovernor(0.7, 0.6, 0.8, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryGovernor(0.5, 0.6, 0.7, 1.0));
+    }
+
+    private void registerAll() {
+        governor.register(PressureLevel.SHRINK_CACHES, "shrink", () -> calls.add("shrink"), null);
+        governor.register(PressureLevel.DROP_ANALYTICS_DETAIL, "analytics",
+                () -> calls.add("analytics"), () -> calls.add("resume analytics"));
+        governor.register(PressureLevel.SPILL_COLD_MAPPINGS, "spill", () -> calls.add("spill"), null);
+        governor.register(PressureLevel.REJECT_CREATES, "reject", () -> calls.add("reject"),
+                () -> calls.add("accept"));
+    }
+}
@@ -81,5 +81,25 @@ class AnalyticsListenerTest {
         // When & Then - should not throw exception
         assertDoesNotThrow(() -> listener.printTopUrls(2));
     }
-}
 
+    @Test
+    void testDropDetail_StopsTrackingUntilResumed() {
+        // Given
+        listener.onUrlCreated("url1", "https://example1.com", 3600L);
+        listener.onUrlAccessed("url1", "https://example1.com");
+
+        // When
+        listener.dropDetail();
+        listener.onUrlCreated("url2", "https://example2.com", 3600L);
+        listener.onUrlAccessed("url2", "https://example2.com");
+
+        // Then
+        assertFalse(listener.isDetailEnabled());
+        assertEquals(0, listener.getAccessCount("url1"));
+        assertEquals(0, listener.getAccessCount("url2"));
+        listener.resumeDetail();
+        listener.onUrlCreated("url3", "https://example3.com", 3600L);
+        listener.onUrlAccessed("url3", "https://example3.com");
+        assertEquals(1, listener.getAccessCount("url3"));
+    }
+}
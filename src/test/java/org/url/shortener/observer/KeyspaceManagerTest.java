@@ -0,0 +1,142 @@
+package org.url.shortener.observer;
+
+import org.junit.jupiter.api.Test;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+import org.url.shortener.strategy.Base62Codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyspaceManagerTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    @Test
+    void testLengthGrowsOnceLoadFactorPassesThreshold() {
+        // Given: 1.1 expected attempts is a load factor of 1/11, six of the 62 one-character keys
+        KeyspaceManager manager = new KeyspaceManager(1, 3, 1.1);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            manager.onUrlCreated(key(i, 1), "https://example.com", FUTURE);
+        }
+        int beforeSixth = manager.getCurrentLength();
+        manager.onUrlCreated(key(5, 1), "https://example.com", FUTURE);
+
+        // Then
+        assertEquals(1, beforeSixth);
+        assertEquals(2, manager.getCurrentLength());
+        assertEquals(6, manager.getLiveKeys(1));
+    }
+
+    @Test
+    void testRemovedKeysFreeTheirSpace() {
+        // Given
+        KeyspaceManager manager = new KeyspaceManager(1, 3, 1.1);
+        for (int i = 0; i < 5; i++) {
+            manager.onUrlCreated(key(i, 1), "https://example.com", FUTURE);
+        }
+
+        // When
+        manager.onUrlDeleted(key(0, 1));
+        manager.onUrlExpired(key(1, 1));
+        manager.onUrlCreated(key(5, 1), "https://example.com", FUTURE);
+
+        // Then
+        assertEquals(4, manager.getLiveKeys(1));
+        assertEquals(1, manager.getCurrentLength());
+    }
+
+    @Test
+    void testSeedCountsStoredKeys() {
+        // Given
+        DefaultRepository repository = new DefaultRepository();
+        for (int i = 0; i < 10; i++) {
+            repository.save(key(i, 1), new LongUrl("https://example.com/" + i, FUTURE));
+        }
+        repository.save("abcdef", new LongUrl("https://example.com/long", FUTURE));
+        KeyspaceManager manager = new KeyspaceManager(1, 6, 1.1);
+
+        // When
+        manager.seed(repository);
+
+        // Then
+        assertEquals(2, manager.getCurrentLength());
+        assertEquals(10, manager.getLiveKeys(1));
+        assertEquals(1, manager.getLiveKeys(6));
+    }
+
+    @Test
+    void testObservedCollisionsGrowLengthEvenWhenNearlyEmpty() {
+        // Given
+        KeyspaceManager manager = new KeyspaceManager(6, 10, 1.5);
+
+        // When: every create collides once before succeeding
+        for (int i = 0; i < KeyspaceManager.WINDOW; i++) {
+            manager.onCollisionDetected(key(i, 6), 1);
+            manager.onUrlCreated(key(i + KeyspaceManager.WINDOW, 6), "https://example.com", FUTURE);
+        }
+
+        // Then
+        assertEquals(2.0, manager.getExpectedAttempts(6), 1e-9);
+        assertEquals(7, manager.getCurrentLength());
+    }
+
+    @Test
+    void testLengthNeverPassesMaximum() {
+        // Given
+        KeyspaceManager manager = new KeyspaceManager(1, 1, 1.1);
+
+        // When
+        for (int i = 0; i < 62; i++) {
+            manager.onUrlCreated(key(i, 1), "https://example.com", FUTURE);
+        }
+
+        // Then
+        assertEquals(1, manager.getCurrentLength());
+        assertEquals(1.0, manager.getSaturationHistogram().get(1), 1e-9);
+    }
+
+    @Test
+    void testCollisionFreeKeysSkipTheLoadFactorEstimate() {
+        // Given
+        KeyspaceManager manager = new KeyspaceManager(1, 3, 1.1, true);
+
+        // When: well past the six one-character keys that raise the length for random keys
+        for (int i = 0; i < 30; i++) {
+            manager.onUrlCreated(key(i, 1), "https://example.com", FUTURE);
+        }
+
+        // Then
+        assertEquals(1, manager.getCurrentLength());
+        assertEquals(1.0, manager.getExpectedAttempts(1), 1e-9);
+        assertEquals(30, manager.getLiveKeys(1));
+    }
+
+    @Test
+    void testAttemptHistogram() {
+        // Given
+        KeyspaceManager manager = new KeyspaceManager(6, 10, 1.1);
+
+        // When: ten creates, three colliding once and one of those twice
+        for (int i = 0; i < 10; i++) {
+            manager.onUrlCreated(key(i, 6), "https://example.com", FUTURE);
+        }
+        for (int i = 0; i < 3; i++) {
+            manager.onCollisionDetected(key(100 + i, 6), 1);
+        }
+        manager.onCollisionDetected(key(200, 6), 2);
+
+        // Then
+        long[] histogram = manager.getAttemptHistogram(6);
+        assertEquals(7, histogram[0]);
+        assertEquals(2, histogram[1]);
+        assertEquals(1, histogram[2]);
+        assertEquals(0, histogram[3]);
+        assertDoesNotThrow(manager::printSummary);
+    }
+
+    private static String key(int value, int length) {
+        return Base62Codec.toPaddedString(value, length);
+    }
+}
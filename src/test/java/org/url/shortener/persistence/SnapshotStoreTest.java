@@ -0,0 +1,98 @@
+package org.url.shortener.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteAndLoad() {
+        // Given
+        DefaultRepository repository = new DefaultRepository();
+        for (int i = 0; i < 1000; i++) {
+            repository.save("k" + i, new LongUrl("https://example.com/" + i, 3600L + i));
+        }
+        SnapshotStore store = new SnapshotStore(directory);
+
+        // When
+        long written = store.write(42, repository);
+        Map<String, LongUrl> loaded = new HashMap<>();
+        long sequence = store.load(loaded::put);
+
+        // Then
+        assertEquals(1000, written);
+        assertEquals(42, sequence);
+        assertEquals(1000, loaded.size());
+        assertEquals("https://example.com/7", loaded.get("k7").getUrl());
+        assertEquals(3607L, loaded.get("k7").getExpiry());
+    }
+
+    @Test
+    void testLoad_WithoutSnapshotReturnsZero() {
+        // When
+        long sequence = new SnapshotStore(directory.resolve("missing")).load((id, url) -> fail("no entries"));
+
+        // Then
+        assertEquals(0, sequence);
+    }
+
+    @Test
+    void testWrite_KeepsOnlyNewestSnapshot() throws IOException {
+        // Given
+        DefaultRepository repository = new DefaultRepository();
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+        SnapshotStore store = new SnapshotStore(directory);
+
+        // When
+        store.write(1, repository);
+        repository.save("def456", new LongUrl("https://www.google.com", 3600L));
+        store.write(2, repository);
+
+        // Then
+        assertEquals(1, files().size());
+        Map<String, LongUrl> loaded = new HashMap<>();
+        assertEquals(2, store.load(loaded::put));
+        assertEquals(2, loaded.size());
+    }
+
+    @Test
+    void testLoad_DetectsCorruption() throws IOException {
+        // Given
+        DefaultRepository repository = new DefaultRepository();
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+        SnapshotStore store = new SnapshotStore(directory);
+        store.write(1, repository);
+        try (FileChannel channel = FileChannel.open(files().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 30);
+        }
+
+        // When & Then
+        assertThrows(PersistenceException.class, () -> store.load((id, url) -> { }));
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+}
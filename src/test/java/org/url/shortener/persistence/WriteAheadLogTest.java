@@ -0,0 +1,184 @@
+package org.url.shortener.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.model.LongUrl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog log;
+
+    @AfterEach
+    void tearDown() {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    @Test
+    void testAppendAndRecover() {
+        // Given
+        log = open(FsyncPolicy.EVERY_WRITE, 1024 * 1024);
+        log.recover(0, (sequence, record) -> fail("empty log should not replay"));
+        log.append(LogRecord.save("abc123", new LongUrl("https://www.example.com", 3600L))).join();
+        long last = log.append(LogRecord.remove("abc123")).join();
+        log.close();
+
+        // When
+        List<LogRecord> replayed = new ArrayList<>();
+        log = open(FsyncPolicy.EVERY_WRITE, 1024 * 1024);
+        long recovered = log.recover(0, (sequence, record) -> replayed.add(record));
+
+        // Then
+        assertEquals(2, last);
+        assertEquals(2, recovered);
+        assertEquals(2, replayed.size());
+        assertEquals(LogRecord.Type.SAVE, replayed.get(0).getType());
+        assertEquals("https://www.example.com", replayed.get(0).getLongUrl().getUrl());
+        assertEquals(3600L, replayed.get(0).getLongUrl().getExpiry());
+        assertEquals(LogRecord.Type.REMOVE, replayed.get(1).getType());
+        assertEquals("abc123", replayed.get(1).getShortUrlIdentifier());
+    }
+
+    @Test
+    void testConcurrentAppends_AreGroupCommittedWithUniqueSequences() {
+        // Given
+        log = open(FsyncPolicy.EVERY_WRITE, 1024 * 1024);
+        log.recover(0, (sequence, record) -> { });
+
+        // When
+        List<CompletableFuture<Long>> writes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            writes.add(log.append(LogRecord.save("k" + i, new LongUrl("https://example.com/" + i, 3600L))));
+        }
+
+        // Then
+        List<Long> sequences = writes.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        assertEquals(500, sequences.stream().distinct().count());
+        assertEquals(500L, log.getLastSequence());
+    }
+
+    @Test
+    void testRecover_TruncatesTornTail() throws IOException {
+        // Given
+        log = open(FsyncPolicy.OS_MANAGED, 1024 * 1024);
+        log.recover(0, (sequence, record) -> { });
+        log.append(LogRecord.save("abc123", new LongUrl("https://www.example.com", 3600L))).join();
+        log.close();
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // When
+        List<LogRecord> replayed = new ArrayList<>();
+        log = open(FsyncPolicy.OS_MANAGED, 1024 * 1024);
+        long recovered = log.recover(0, (sequence, record) -> replayed.add(record));
+        log.append(LogRecord.save("def456", new LongUrl("https://www.google.com", 3600L))).join();
+
+        // Then
+        assertEquals(0, recovered);
+        assertTrue(replayed.isEmpty());
+        assertEquals(1L, log.getLastSequence());
+    }
+
+    @Test
+    void testSegmentsRollAndOldOnesCanBeDeleted() throws IOException {
+        // Given
+        log = open(FsyncPolicy.INTERVAL, 256);
+        log.recover(0, (sequence, record) -> { });
+        for (int i = 0; i < 20; i++) {
+            log.append(LogRecord.save("k" + i, new LongUrl("https://example.com/" + i, 3600L))).join();
+        }
+        int before = segments().size();
+
+        // When
+        log.deleteSegmentsBefore(log.getLastSequence());
+
+        // Then
+        assertTrue(before > 1);
+        assertEquals(1, segments().size());
+    }
+
+    @Test
+    void testRecover_SkipsRecordsAtOrBeforeSequence() {
+        // Given
+        log = open(FsyncPolicy.EVERY_WRITE, 1024 * 1024);
+        log.recover(0, (sequence, record) -> { });
+        for (int i = 0; i < 5; i++) {
+            log.append(LogRecord.remove("k" + i)).join();
+        }
+        log.close();
+
+        // When
+        List<Long> replayed = new ArrayList<>();
+        log = open(FsyncPolicy.EVERY_WRITE, 1024 * 1024);
+        log.recover(3, (sequence, record) -> replayed.add(sequence));
+
+        // Then
+        assertEquals(List.of(4L, 5L), replayed);
+    }
+
+    @Test
+    void testAppendsRacingWithClose_AllComplete() throws InterruptedException {
+        // Given
+        log = open(FsyncPolicy.OS_MANAGED, 1024 * 1024);
+        log.recover(0, (sequence, record) -> { });
+        List<CompletableFuture<Long>> writes = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100_000; i++) {
+                        writes.add(log.append(LogRecord.remove("k" + i)));
+                    }
+                } catch (PersistenceException closed) {
+                    // Rejected up front once the log is closed.
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        // When
+        Thread.sleep(20);
+        log.close();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Then every accepted write either committed or failed; none is left hanging
+        for (CompletableFuture<Long> write : new ArrayList<>(writes)) {
+            assertTrue(write.isDone());
+        }
+    }
+
+    private WriteAheadLog open(FsyncPolicy policy, long segmentSize) {
+        return new WriteAheadLog(new WriteAheadLogConfig(directory, policy, 10, segmentSize));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package org.url.shortener.replication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.url.shortener.exception.NotLeaderException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+import org.url.shortener.repository.URLRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a leader and its followers in one JVM, the leader serving its log on a free
+ * localhost port.
+ */
+class ReplicationTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<AutoCloseable> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    void testFollowerServesWritesMadeOnLeader() {
+        // Given
+        LeaderRepository leader = leader(new DefaultRepository(), 1000);
+        for (int i = 0; i < 50; i++) {
+            leader.save("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+        FollowerRepository follower = follower(leader, new DefaultRepository(), null);
+
+        // When
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        for (int i = 50; i < 100; i++) {
+            batch.put("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+        leader.saveAll(batch);
+        leader.remove("id0");
+        leader.removeAll(List.of("id1", "id2"));
+        awaitCaughtUp(leader, follower);
+
+        // Then
+        assertNull(follower.get("id0"));
+        assertNull(follower.get("id2"));
+        for (int i = 3; i < 100; i++) {
+            assertEquals("https://example.com/" + i, follower.get("id" + i));
+        }
+        assertEquals(1, follower.getSnapshotsLoaded());
+        assertEquals(0, follower.getLagRecords());
+        assertTrue(follower.isWithinStalenessBound());
+        await(() -> leader.getFollowerLag().containsKey(follower.getFollowerId())
+            && leader.getFollowerLag().get(follower.getFollowerId()) == 0);
+    }
+
+    @Test
+    void testFollowerRejectsWrites() {
+        // Given
+        LeaderRepository leader = leader(new DefaultRepository(), 1000);
+        FollowerRepository follower = follower(leader, new DefaultRepository(), null);
+
+        // When / Then
+        assertThrows(NotLeaderException.class,
+            () -> follower.save("id", new LongUrl("https://example.com", FUTURE)));
+        assertThrows(NotLeaderException.class,
+            () -> follower.saveAll(Map.of("id", new LongUrl("https://example.com", FUTURE))));
+        assertThrows(NotLeaderException.class, () -> follower.remove("id"));
+        assertThrows(NotLeaderException.class, () -> follower.removeAll(List.of("id")));
+        assertTrue(follower.pollExpired(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void testRestartedFollowerResumesFromItsOffset() throws Exception {
+        // Given: a replica whose data survives the restart, as a durable one would
+        LeaderRepository leader = leader(new DefaultRepository(), 1000);
+        URLRepository replica = new DefaultRepository();
+        Path offsetFile = tempDir.resolve("replication.offset");
+        FollowerRepository first = new FollowerRepository(replica, "localhost", leader.getPort(), 5000, offsetFile);
+        leader.save("before", new LongUrl("https://example.com/before", FUTURE));
+        awaitCaughtUp(leader, first);
+        first.close();
+
+        // When
+        leader.save("after", new LongUrl("https://example.com/after", FUTURE));
+        leader.remove("before");
+        FollowerRepository second = follower(leader, replica, offsetFile);
+        awaitCaughtUp(leader, second);
+
+        // Then
+        assertEquals(0, second.getSnapshotsLoaded());
+        assertEquals("https://example.com/after", second.get("after"));
+        assertNull(second.get("before"));
+    }
+
+    @Test
+    void testFollowerLoadsSnapshotOnceLogHasMovedPastItsOffset() throws Exception {
+        // Given: the leader only retains ten records
+        LeaderRepository leader = leader(new DefaultRepository(), 10);
+        URLRepository replica = new DefaultRepository();
+        Path offsetFile = tempDir.resolve("replication.offset");
+        FollowerRepository first = new FollowerRepository(replica, "localhost", leader.getPort(), 5000, offsetFile);
+        leader.save("dropped", new LongUrl("https://example.com/dropped", FUTURE));
+        awaitCaughtUp(leader, first);
+        first.close();
+
+        // When
+        leader.remove("dropped");
+        for (int i = 0; i < 50; i++) {
+            leader.save("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+        FollowerRepository second = follower(leader, replica, offsetFile);
+        awaitCaughtUp(leader, second);
+
+        // Then
+        assertEquals(1, second.getSnapshotsLoaded());
+        assertNull(second.get("dropped"));
+        for (int i = 0; i < 50; i++) {
+            assertEquals("https://example.com/" + i, second.get("id" + i));
+        }
+    }
+
+    @Test
+    void testStaleFollowerReadsFromLeader() throws Exception {
+        // Given: a follower stuck loading its first snapshot
+        CountDownLatch snapshotReleased = new CountDownLatch(1);
+        DefaultRepository slowSnapshots = new DefaultRepository() {
+            @Override
+            public void forEachEntry(BiConsumer<String, LongUrl> action) {
+                try {
+                    snapshotReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.forEachEntry(action);
+            }
+        };
+        LeaderRepository leader = leader(slowSnapshots, 1000);
+        leader.save("id", new LongUrl("https://example.com", FUTURE));
+        FollowerRepository follower = follower(leader, new DefaultRepository(), null);
+
+        // When
+        String longUrl = follower.get("id");
+        String missing = follower.get("missing");
+
+        // Then
+        assertFalse(follower.isWithinStalenessBound());
+        assertEquals(-1, follower.getLagMillis());
+        assertEquals("https://example.com", longUrl);
+        assertNull(missing);
+        assertEquals(2, follower.getStaleReads());
+        snapshotReleased.countDown();
+        awaitCaughtUp(leader, follower);
+        assertEquals("https://example.com", follower.get("id"));
+        assertEquals(2, follower.getStaleReads());
+    }
+
+    @Test
+    void testFollowerFallsBackToItsOwnCopyWhenLeaderIsGone() throws Exception {
+        // Given
+        LeaderRepository leader = new LeaderRepository(new DefaultRepository(), 0, 1000);
+        FollowerRepository follower = follower(leader, new DefaultRepository(), null, 200);
+        leader.save("id", new LongUrl("https://example.com", FUTURE));
+        awaitCaughtUp(leader, follower);
+
+        // When
+        leader.close();
+        await(() -> !follower.isWithinStalenessBound());
+
+        // Then: the first read gives up on the leader, the next skips it
+        assertEquals("https://example.com", follower.get("id"));
+        assertEquals(1, follower.getStaleReads());
+        assertEquals(0, follower.getLeaderReadsSkipped());
+        assertEquals("https://example.com", follower.get("id"));
+        assertEquals(2, follower.getStaleReads());
+        assertEquals(1, follower.getLeaderReadsSkipped());
+        assertTrue(follower.getLagMillis() > 200);
+    }
+
+    @Test
+    void testLeaderWritesToDifferentIdentifiersDoNotWaitForEachOther() throws Exception {
+        // Given: a delegate whose save of "slow" blocks until "fast" has been saved
+        CountDownLatch fastSaved = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        DefaultRepository blocking = new DefaultRepository() {
+            @Override
+            public void save(String shortUrlIdentifier, LongUrl longURL) {
+                super.save(shortUrlIdentifier, longURL);
+                if (shortUrlIdentifier.equals("fast")) {
+                    fastSaved.countDown();
+                    return;
+                }
+                try {
+                    overlapped.set(fastSaved.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        LeaderRepository leader = leader(blocking, 1000);
+        Thread slow = new Thread(() -> leader.save("slow", new LongUrl("https://example.com/slow", FUTURE)));
+        slow.start();
+        await(() -> blocking.exists("slow"));
+
+        // When
+        leader.save("fast", new LongUrl("https://example.com/fast", FUTURE));
+
+        // Then
+        slow.join();
+        assertTrue(overlapped.get());
+        assertEquals(2, leader.getHeadOffset());
+    }
+
+    private LeaderRepository leader(URLRepository delegate, int retainedRecords) {
+        LeaderRepository leader = new LeaderRepository(delegate, 0, retainedRecords);
+        nodes.add(leader);
+        return leader;
+    }
+
+    private FollowerRepository follower(LeaderRepository leader, URLRepository local, Path offsetFile) {
+        return follower(leader, local, offsetFile, 5000);
+    }
+
+    private FollowerRepository follower(LeaderRepository leader, URLRepository local, Path offsetFile,
+                                        long stalenessBoundMillis) {
+        FollowerRepository follower = new FollowerRepository(local, "localhost", leader.getPort(),
+            stalenessBoundMillis, offsetFile);
+        // Closed before the leader, so its last poll does not outlive the server.
+        nodes.add(0, follower);
+        return follower;
+    }
+
+    private static void awaitCaughtUp(LeaderRepository leader, FollowerRepository follower) {
+        await(() -> follower.getAppliedOffset() == leader.getHeadOffset() && follower.isWithinStalenessBound());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
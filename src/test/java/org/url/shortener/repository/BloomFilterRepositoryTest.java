@@ -0,0 +1,105 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterRepositoryTest {
+
+    private DefaultRepository delegate;
+    private BloomFilterRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new DefaultRepository();
+        repository = new BloomFilterRepository(delegate, 100, 0.01);
+    }
+
+    @Test
+    void testSaveAndGet() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+
+        // When & Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+        assertTrue(repository.exists("abc123"));
+    }
+
+    @Test
+    void testGet_UnknownIdentifier_ShortCircuits() {
+        // When
+        assertNull(repository.get("zzzzzz"));
+        assertFalse(repository.exists("yyyyyy"));
+
+        // Then
+        assertEquals(2, repository.getShortCircuitedLookups());
+    }
+
+    @Test
+    void testRemove_IdentifierFilteredAgain() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+
+        // When
+        repository.remove("abc123");
+
+        // Then
+        assertNull(repository.get("abc123"));
+        assertEquals(1, repository.getShortCircuitedLookups());
+    }
+
+    @Test
+    void testSave_DuplicateIdentifier_KeepsExistingVisible() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+
+        // When
+        assertThrows(DuplicateUrlIdentifierException.class,
+            () -> repository.save("abc123", new LongUrl("https://www.google.com", 3600L)));
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testConstructor_IncludesExistingEntriesAndGrows() {
+        // Given entries already in the delegate
+        delegate.save("existing", new LongUrl("https://www.example.com", 3600L));
+        BloomFilterRepository rebuilt = new BloomFilterRepository(delegate, 10, 0.01);
+
+        // When saving well past the expected insertions
+        for (int i = 0; i < 1_000; i++) {
+            rebuilt.save("id" + i, new LongUrl("https://www.example.com/" + i, 3600L));
+        }
+
+        // Then
+        assertEquals("https://www.example.com", rebuilt.get("existing"));
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(rebuilt.exists("id" + i));
+        }
+    }
+
+    @Test
+    void testBatchOperations_KeepFilterInStep() {
+        // Given
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("abc123", new LongUrl("https://www.example.com", 3600L));
+        batch.put("def456", new LongUrl("https://www.google.com", 3600L));
+        repository.saveAll(batch);
+
+        // When
+        repository.removeAll(List.of("abc123", "missing"));
+
+        // Then
+        assertEquals(Map.of("def456", "https://www.google.com"),
+            repository.getAll(List.of("abc123", "def456", "zzzzzz")));
+        assertEquals(2, repository.getShortCircuitedLookups());
+    }
+}
@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.url.shortener.exception.DuplicateUrlIdentifierException;
 import org.url.shortener.model.LongUrl;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,6 +88,39 @@ class DefaultRepositoryTest {
         assertFalse(expiredUrls.contains(validUrl));
     }
 
+    @Test
+    void testPollExpired_HandsOutEachIdentifierOnce() {
+        // Given
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("exp1", new LongUrl("https://example1.com", currentTime - 100));
+        repository.save("valid", new LongUrl("https://valid.com", currentTime + 1000));
+
+        // When
+        List<String> firstSweep = repository.pollExpired(currentTime);
+        List<String> secondSweep = repository.pollExpired(currentTime);
+
+        // Then
+        assertEquals(List.of("exp1"), firstSweep);
+        assertTrue(secondSweep.isEmpty());
+        assertTrue(repository.exists("exp1"));
+    }
+
+    @Test
+    void testRescheduleExpiry_HandsStoredIdentifiersOverAgain() {
+        // Given: a sweep whose removal failed
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("exp1", new LongUrl("https://example1.com", currentTime - 100));
+        repository.save("exp2", new LongUrl("https://example2.com", currentTime - 50));
+        List<String> polled = repository.pollExpired(currentTime);
+        repository.remove("exp2");
+
+        // When
+        repository.rescheduleExpiry(polled);
+
+        // Then
+        assertEquals(List.of("exp1"), repository.pollExpired(currentTime));
+    }
+
     @Test
     void testFindByLongUrl() {
         // Given
@@ -112,5 +147,66 @@ class DefaultRepositoryTest {
         // Then
         assertFalse(result.isPresent());
     }
-}
 
+    @Test
+    void testSaveAllGetAllRemoveAll() {
+        // Given
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("abc123", new LongUrl("https://www.example.com", 3600L));
+        batch.put("def456", new LongUrl("https://www.google.com", 3600L));
+        batch.put("my-alias", new LongUrl("https://www.wikipedia.org", 3600L));
+
+        // When
+        repository.saveAll(batch);
+
+        // Then
+        assertEquals(Map.of("abc123", "https://www.example.com", "my-alias", "https://www.wikipedia.org"),
+            repository.getAll(List.of("abc123", "missing", "my-alias")));
+        assertEquals(Optional.of("def456"), repository.findByLongUrl("https://www.google.com"));
+
+        repository.removeAll(List.of("abc123", "def456", "missing"));
+        assertFalse(repository.exists("abc123"));
+        assertFalse(repository.exists("def456"));
+        assertTrue(repository.exists("my-alias"));
+    }
+
+    @Test
+    void testSaveAll_DuplicateIdentifier_StoresNothing() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("def456", new LongUrl("https://www.google.com", 3600L));
+        batch.put("abc123", new LongUrl("https://www.wikipedia.org", 3600L));
+
+        // When & Then
+        assertThrows(DuplicateUrlIdentifierException.class, () -> repository.saveAll(batch));
+        assertFalse(repository.exists("def456"));
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testGetExpiry() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 1_700_000_000L));
+
+        // When / Then
+        assertEquals(1_700_000_000L, repository.getExpiry("abc123"));
+        assertEquals(-1, repository.getExpiry("missing"));
+        repository.remove("abc123");
+        assertEquals(-1, repository.getExpiry("abc123"));
+    }
+
+    @Test
+    void testGetLink() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 1_700_000_000L));
+
+        // When
+        LongUrl link = repository.getLink("abc123");
+
+        // Then
+        assertEquals("https://www.example.com", link.getUrl());
+        assertEquals(1_700_000_000L, link.getExpiry());
+        assertNull(repository.getLink("missing"));
+    }
+}
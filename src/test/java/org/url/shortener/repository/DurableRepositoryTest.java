@@ -0,0 +1,184 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.persistence.FsyncPolicy;
+import org.url.shortener.persistence.SnapshotStore;
+import org.url.shortener.persistence.WriteAheadLog;
+import org.url.shortener.persistence.WriteAheadLogConfig;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private DurableRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void testMappingsSurviveRestart() {
+        // Given
+        repository = open();
+        repository.save("abc123", new LongUrl("https://www.example.com", 4_000_000_000L));
+        repository.save("def456", new LongUrl("https://www.google.com", 4_000_000_000L));
+        repository.remove("def456");
+        repository.close();
+
+        // When
+        repository = open();
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+        assertEquals(Optional.of("abc123"), repository.findByLongUrl("https://www.example.com"));
+        assertFalse(repository.exists("def456"));
+    }
+
+    @Test
+    void testSave_DuplicateIdentifierIsNotLogged() {
+        // Given
+        repository = open();
+        repository.save("abc123", new LongUrl("https://www.example.com", 4_000_000_000L));
+
+        // When
+        assertThrows(DuplicateUrlIdentifierException.class,
+            () -> repository.save("abc123", new LongUrl("https://www.google.com", 4_000_000_000L)));
+        repository.close();
+        repository = open();
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testBatchesSurviveRestart() {
+        // Given
+        repository = open();
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("abc123", new LongUrl("https://www.example.com", 4_000_000_000L));
+        batch.put("def456", new LongUrl("https://www.google.com", 4_000_000_000L));
+        batch.put("ghi789", new LongUrl("https://www.wikipedia.org", 4_000_000_000L));
+        repository.saveAll(batch);
+        repository.removeAll(List.of("def456", "missing"));
+        repository.close();
+
+        // When
+        repository = open();
+
+        // Then
+        assertEquals(Map.of("abc123", "https://www.example.com", "ghi789", "https://www.wikipedia.org"),
+            repository.getAll(List.of("abc123", "def456", "ghi789")));
+    }
+
+    @Test
+    void testRestart_LoadsSnapshotAndReplaysLogTail() {
+        // Given
+        repository = openWithSnapshots();
+        repository.save("abc123", new LongUrl("https://www.example.com", 4_000_000_000L));
+        repository.save("def456", new LongUrl("https://www.google.com", 4_000_000_000L));
+        repository.snapshot();
+        repository.remove("abc123");
+        repository.save("ghi789", new LongUrl("https://www.wikipedia.org", 4_000_000_000L));
+        repository.close();
+
+        // When
+        repository = openWithSnapshots();
+
+        // Then
+        assertFalse(repository.exists("abc123"));
+        assertEquals("https://www.google.com", repository.get("def456"));
+        assertEquals("https://www.wikipedia.org", repository.get("ghi789"));
+    }
+
+    @Test
+    void testRemovesThatFailToLog_AreRolledBack() {
+        // Given
+        WriteAheadLog log = new WriteAheadLog(new WriteAheadLogConfig(directory, FsyncPolicy.INTERVAL, 10));
+        repository = new DurableRepository(new DefaultRepository(), log);
+        repository.save("abc123", new LongUrl("https://www.example.com", 4_000_000_000L));
+        repository.save("def456", new LongUrl("https://www.google.com", 4_000_000_000L));
+        log.close();
+
+        // When
+        assertThrows(PersistenceException.class, () -> repository.remove("abc123"));
+        assertThrows(PersistenceException.class, () -> repository.removeAll(List.of("abc123", "def456")));
+
+        // Then - still there now, as the log will have it after a restart
+        assertEquals("https://www.example.com", repository.get("abc123"));
+        assertEquals(4_000_000_000L, repository.getExpiry("abc123"));
+        assertEquals(Optional.of("def456"), repository.findByLongUrl("https://www.google.com"));
+    }
+
+    @Test
+    void testSaveThatFailsToLog_IsNeverVisible() {
+        // Given
+        WriteAheadLog log = new WriteAheadLog(new WriteAheadLogConfig(directory, FsyncPolicy.INTERVAL, 10));
+        repository = new DurableRepository(new DefaultRepository(), log);
+        log.close();
+
+        // When
+        assertThrows(PersistenceException.class,
+            () -> repository.save("abc123", new LongUrl("https://www.example.com", 4_000_000_000L)));
+
+        // Then - a snapshot walking the delegate could never have copied it
+        assertFalse(repository.exists("abc123"));
+        assertEquals(Optional.empty(), repository.findByLongUrl("https://www.example.com"));
+    }
+
+    @Test
+    void testSnapshotTakenDuringWrites_SurvivesRestart() throws InterruptedException {
+        // Given
+        repository = openWithSnapshots();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                repository.save("id" + i, new LongUrl("https://www.example.com/" + i, 4_000_000_000L));
+                if (i % 2 == 1) {
+                    repository.remove("id" + (i - 1));
+                }
+            }
+        });
+        writer.start();
+
+        // When
+        while (writer.isAlive()) {
+            repository.snapshot();
+        }
+        writer.join();
+        repository.close();
+        repository = openWithSnapshots();
+
+        // Then
+        for (int i = 0; i < 2_000; i++) {
+            assertEquals(i % 2 == 1, repository.exists("id" + i), "id" + i);
+        }
+    }
+
+    private DurableRepository open() {
+        WriteAheadLogConfig config = new WriteAheadLogConfig(directory, FsyncPolicy.INTERVAL, 10);
+        return new DurableRepository(new DefaultRepository(), new WriteAheadLog(config));
+    }
+
+    private DurableRepository openWithSnapshots() {
+        WriteAheadLogConfig config = new WriteAheadLogConfig(
+            directory.resolve("wal"), FsyncPolicy.INTERVAL, 10, 128);
+        return new DurableRepository(new DefaultRepository(), new WriteAheadLog(config),
+            new SnapshotStore(directory.resolve("snapshots")), 0);
+    }
+}
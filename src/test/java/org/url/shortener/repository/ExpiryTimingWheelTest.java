@@ -0,0 +1,117 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiryTimingWheelTest {
+
+    private static final long START = 1_700_000_000L;
+
+    private ExpiryTimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new ExpiryTimingWheel(START);
+    }
+
+    @Test
+    void testAdvance_ReturnsOnlyDueEntries() {
+        // Given
+        wheel.schedule("soon", START + 5);
+        wheel.schedule("later", START + 10);
+
+        // When
+        List<String> first = wheel.advance(START + 5);
+        List<String> second = wheel.advance(START + 9);
+        List<String> third = wheel.advance(START + 10);
+
+        // Then
+        assertEquals(List.of("soon"), first);
+        assertTrue(second.isEmpty());
+        assertEquals(List.of("later"), third);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testSchedule_PastExpiryIsImmediatelyDue() {
+        // Given
+        wheel.schedule("old", 3600L);
+
+        // When & Then
+        assertEquals(List.of("old"), wheel.peekExpired(START));
+        assertEquals(List.of("old"), wheel.advance(START));
+    }
+
+    @Test
+    void testCancel_RemovesEntry() {
+        // Given
+        wheel.schedule("abc123", START + 100);
+
+        // When
+        boolean cancelled = wheel.cancel("abc123");
+
+        // Then
+        assertTrue(cancelled);
+        assertFalse(wheel.cancel("abc123"));
+        assertTrue(wheel.advance(START + 200).isEmpty());
+    }
+
+    @Test
+    void testSchedule_ReplacesPreviousExpiry() {
+        // Given
+        wheel.schedule("abc123", START + 10);
+
+        // When
+        wheel.schedule("abc123", START + 5000);
+
+        // Then
+        assertTrue(wheel.advance(START + 10).isEmpty());
+        assertEquals(List.of("abc123"), wheel.advance(START + 5000));
+    }
+
+    @Test
+    void testAdvance_CascadesAcrossLevelsAndOverflow() {
+        // Given - one entry per level plus one beyond the wheel's range
+        long[] offsets = {3, 70, 5_000, 300_000, 20_000_000};
+        for (long offset : offsets) {
+            wheel.schedule("e" + offset, START + offset);
+        }
+
+        // When & Then
+        for (long offset : offsets) {
+            assertTrue(wheel.advance(START + offset - 1).isEmpty());
+            assertEquals(List.of("e" + offset), wheel.advance(START + offset));
+        }
+    }
+
+    @Test
+    void testAdvance_MatchesBruteForceTickByTick() {
+        // Given
+        Random random = new Random(42);
+        List<Long> expiries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long expiry = START + 1 + random.nextInt(10_000);
+            expiries.add(expiry);
+            wheel.schedule("k" + i, expiry);
+        }
+
+        // When & Then
+        int drained = 0;
+        for (long now = START; now <= START + 10_001; now += 1 + random.nextInt(50)) {
+            List<String> popped = wheel.advance(now);
+            for (String id : popped) {
+                assertTrue(expiries.get(Integer.parseInt(id.substring(1))) <= now);
+            }
+            drained += popped.size();
+            assertTrue(wheel.peekExpired(now).isEmpty());
+        }
+        drained += wheel.advance(START + 20_000).size();
+        assertEquals(2000, drained);
+    }
+}
@@ -0,0 +1,233 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.exception.PersistenceException;
+import org.url.shortener.lsm.LsmOptions;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.persistence.FsyncPolicy;
+import org.url.shortener.persistence.WriteAheadLog;
+import org.url.shortener.persistence.WriteAheadLogConfig;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LsmRepositoryTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private LsmRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void testSaveAndGet() {
+        // Given
+        repository = open();
+
+        // When
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+        assertTrue(repository.exists("abc123"));
+        assertEquals(Optional.of("abc123"), repository.findByLongUrl("https://www.example.com"));
+        assertNull(repository.get("missing"));
+    }
+
+    @Test
+    void testSave_DuplicateIdentifier() {
+        // Given
+        repository = open();
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // When / Then
+        assertThrows(DuplicateUrlIdentifierException.class,
+                () -> repository.save("abc123", new LongUrl("https://www.google.com", FUTURE)));
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testRemove() {
+        // Given
+        repository = open();
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+        repository.flush();
+
+        // When
+        repository.remove("abc123");
+
+        // Then
+        assertNull(repository.get("abc123"));
+        assertFalse(repository.exists("abc123"));
+        assertEquals(Optional.empty(), repository.findByLongUrl("https://www.example.com"));
+    }
+
+    @Test
+    void testReadsSpanMemtableAndFlushedFiles() {
+        // Given
+        repository = open();
+        for (int i = 0; i < 2000; i++) {
+            repository.save("id" + i, new LongUrl("https://www.example.com/page/" + i, FUTURE));
+        }
+        repository.flush();
+
+        // When
+        repository.remove("id7");
+        repository.save("new", new LongUrl("https://www.example.com/new", FUTURE));
+
+        // Then
+        assertTrue(repository.getTree().getFlushCount() > 1);
+        assertTrue(repository.getTree().getCompactionCount() > 0);
+        assertEquals("https://www.example.com/page/1999", repository.get("id1999"));
+        assertEquals(Optional.of("id42"), repository.findByLongUrl("https://www.example.com/page/42"));
+        assertNull(repository.get("id7"));
+        assertEquals("https://www.example.com/new", repository.get("new"));
+        Map<String, LongUrl> all = new HashMap<>();
+        repository.forEachEntry(all::put);
+        assertEquals(2000, all.size());
+    }
+
+    @Test
+    void testMappingsSurviveRestart() {
+        // Given
+        repository = open();
+        for (int i = 0; i < 500; i++) {
+            repository.save("id" + i, new LongUrl("https://www.example.com/page/" + i, FUTURE));
+        }
+        repository.flush();
+        repository.save("tail", new LongUrl("https://www.example.com/tail", FUTURE));
+        repository.remove("id3");
+        repository.close();
+
+        // When
+        repository = open();
+
+        // Then
+        assertEquals("https://www.example.com/page/499", repository.get("id499"));
+        assertEquals("https://www.example.com/tail", repository.get("tail"));
+        assertFalse(repository.exists("id3"));
+        assertEquals(Optional.of("tail"), repository.findByLongUrl("https://www.example.com/tail"));
+    }
+
+    @Test
+    void testExpiredMappingsAreHiddenAndPolledOnce() {
+        // Given
+        repository = open();
+        repository.save("old", new LongUrl("https://www.example.com/old", 1000L));
+        repository.save("live", new LongUrl("https://www.example.com/live", FUTURE));
+
+        // When
+        List<String> expired = repository.pollExpired(2000L);
+
+        // Then
+        assertEquals(List.of("old"), expired);
+        assertNull(repository.get("old"));
+        assertEquals(List.of(), repository.pollExpired(2000L));
+        assertEquals("https://www.example.com/live", repository.get("live"));
+    }
+
+    @Test
+    void testRescheduleExpiry_HandsStoredIdentifiersOverAgain() {
+        // Given: a sweep whose removal failed
+        repository = open();
+        repository.save("old", new LongUrl("https://www.example.com/old", 1000L));
+        repository.save("gone", new LongUrl("https://www.example.com/gone", 1500L));
+        List<String> polled = repository.pollExpired(2000L);
+        repository.remove("gone");
+
+        // When
+        repository.rescheduleExpiry(polled);
+
+        // Then
+        assertEquals(List.of("old"), repository.pollExpired(2000L));
+    }
+
+    @Test
+    void testFailedRemoveKeepsTheMapping() {
+        // Given
+        WriteAheadLog log = new WriteAheadLog(new WriteAheadLogConfig(
+                directory.resolve("wal"), FsyncPolicy.INTERVAL, 10));
+        repository = new LsmRepository(directory.resolve("lsm"), log);
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+        log.close();
+
+        // When
+        assertThrows(PersistenceException.class, () -> repository.remove("abc123"));
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+        assertEquals(Optional.of("abc123"), repository.findByLongUrl("https://www.example.com"));
+        assertEquals(List.of("abc123"), repository.getAllExpired(FUTURE));
+    }
+
+    @Test
+    void testExpiredIdentifierCanBeReused() {
+        // Given
+        repository = open();
+        repository.save("abc123", new LongUrl("https://www.example.com/old", 1000L));
+
+        // When
+        repository.save("abc123", new LongUrl("https://www.example.com/new", FUTURE));
+
+        // Then
+        assertEquals("https://www.example.com/new", repository.get("abc123"));
+        assertEquals(List.of(), repository.getAllExpired(2000L));
+    }
+
+    @Test
+    void testSaveAll_RejectsWholeBatchOnDuplicate() {
+        // Given
+        repository = open();
+        repository.save("b", new LongUrl("https://www.example.com/b", FUTURE));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("a", new LongUrl("https://www.example.com/a", FUTURE));
+        batch.put("b", new LongUrl("https://www.example.com/other", FUTURE));
+
+        // When / Then
+        assertThrows(DuplicateUrlIdentifierException.class, () -> repository.saveAll(batch));
+        assertFalse(repository.exists("a"));
+    }
+
+    @Test
+    void testBatchesSurviveRestart() {
+        // Given
+        repository = open();
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("a", new LongUrl("https://www.example.com/a", FUTURE));
+        batch.put("b", new LongUrl("https://www.example.com/b", FUTURE));
+        batch.put("c", new LongUrl("https://www.example.com/c", FUTURE));
+        repository.saveAll(batch);
+        repository.removeAll(List.of("a", "c"));
+        repository.close();
+
+        // When
+        repository = open();
+
+        // Then
+        assertEquals(Map.of("b", "https://www.example.com/b"), repository.getAll(List.of("a", "b", "c")));
+    }
+
+    private LsmRepository open() {
+        WriteAheadLogConfig config = new WriteAheadLogConfig(
+                directory.resolve("wal"), FsyncPolicy.INTERVAL, 10);
+        LsmOptions options = new LsmOptions(16 * 1024, 512, 2, 32 * 1024, 4, 16 * 1024, 10, 4);
+        return new LsmRepository(directory.resolve("lsm"), new WriteAheadLog(config), options);
+    }
+}
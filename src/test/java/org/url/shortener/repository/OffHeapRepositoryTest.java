@@ -0,0 +1,242 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapRepositoryTest {
+
+    private OffHeapRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new OffHeapRepository(4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void testSaveAndGet() {
+        // Given
+        String longUrl = "https://www.example.com/päth?q=1";
+
+        // When
+        repository.save("abc123", new LongUrl(longUrl, 3600L));
+
+        // Then
+        assertEquals(longUrl, repository.get("abc123"));
+        assertTrue(repository.exists("abc123"));
+        assertEquals(Optional.of("abc123"), repository.findByLongUrl(longUrl));
+        assertNull(repository.get("abc124"));
+    }
+
+    @Test
+    void testSave_DuplicateIdentifier_ThrowsException() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+
+        // When & Then
+        assertThrows(DuplicateUrlIdentifierException.class,
+            () -> repository.save("abc123", new LongUrl("https://www.google.com", 3600L)));
+    }
+
+    @Test
+    void testRemove() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+
+        // When
+        repository.remove("abc123");
+
+        // Then
+        assertFalse(repository.exists("abc123"));
+        assertFalse(repository.findByLongUrl("https://www.example.com").isPresent());
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void testGetAllExpired() {
+        // Given
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("exp1", new LongUrl("https://example1.com", currentTime - 100));
+        repository.save("valid", new LongUrl("https://valid.com", currentTime + 1000));
+
+        // When
+        List<String> expiredUrls = repository.getAllExpired(currentTime);
+
+        // Then
+        assertEquals(List.of("exp1"), expiredUrls);
+    }
+
+    @Test
+    void testPollExpired_HandsEachExpiredIdentifierOverOnce() {
+        // Given
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("exp1", new LongUrl("https://example1.com", currentTime - 100));
+        repository.save("exp2", new LongUrl("https://example2.com", currentTime - 50));
+        repository.save("valid", new LongUrl("https://valid.com", currentTime + 1000));
+        repository.remove("exp2");
+
+        // When
+        List<String> first = repository.pollExpired(currentTime);
+        List<String> second = repository.pollExpired(currentTime);
+
+        // Then
+        assertEquals(List.of("exp1"), first);
+        assertEquals(List.of(), second);
+        assertTrue(repository.exists("exp1"));
+    }
+
+    @Test
+    void testGrowthAndCompaction_KeepEverythingReachable() throws InterruptedException {
+        // Given - enough data to resize the index and span many small chunks
+        for (int i = 0; i < 100_000; i++) {
+            repository.save("k" + i, new LongUrl("https://example.com/" + i, 3600L + i));
+        }
+        long fullBytes = repository.getOffHeapBytes();
+
+        // When - remove most entries so the arena compacts
+        for (int i = 0; i < 100_000; i++) {
+            if (i % 10 != 0) {
+                repository.remove("k" + i);
+            }
+        }
+
+        // Then - the background compaction shrinks the arena
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (repository.getOffHeapBytes() > fullBytes * 3 / 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(repository.getOffHeapBytes() <= fullBytes * 3 / 4);
+        assertEquals(10_000, repository.size());
+        assertEquals("https://example.com/990", repository.get("k990"));
+        assertNull(repository.get("k991"));
+        assertEquals(Optional.of("k50000"), repository.findByLongUrl("https://example.com/50000"));
+        Map<String, LongUrl> entries = new HashMap<>();
+        repository.forEachEntry(entries::put);
+        assertEquals(10_000, entries.size());
+        assertEquals(3600L + 20, entries.get("k20").getExpiry());
+        assertEquals(10_000, repository.pollExpired(System.currentTimeMillis() / 1000).size());
+    }
+
+    @Test
+    void testCompaction_KeepsWheelSlotsLinked() throws InterruptedException {
+        // Given - links spread over many wheel slots, most of them removed
+        long currentTime = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < 20_000; i++) {
+            repository.save("k" + i, new LongUrl("https://example.com/" + i, currentTime + 1 + i % 500));
+        }
+        long fullBytes = repository.getOffHeapBytes();
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 10 != 0) {
+                repository.remove("k" + i);
+            }
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (repository.getOffHeapBytes() > fullBytes * 3 / 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // When
+        List<String> expired = repository.pollExpired(currentTime + 1000);
+
+        // Then
+        assertTrue(repository.getOffHeapBytes() <= fullBytes * 3 / 4);
+        assertEquals(2_000, expired.size());
+        assertTrue(expired.contains("k19990"));
+        assertEquals(List.of(), repository.pollExpired(currentTime + 1000));
+    }
+
+    @Test
+    void testPollExpired_KeepsLinksDueInALaterRoundOfTheWheel() {
+        // Given - one link a wheel's turn (65536 seconds) and a bit beyond the other
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("soon", new LongUrl("https://soon.com", currentTime + 10));
+        repository.save("later", new LongUrl("https://later.com", currentTime + 10 + (1 << 16)));
+
+        // When
+        List<String> first = repository.pollExpired(currentTime + 20);
+        List<String> second = repository.pollExpired(currentTime + 20 + (1 << 16));
+
+        // Then
+        assertEquals(List.of("soon"), first);
+        assertEquals(List.of("later"), second);
+    }
+
+    @Test
+    void testRescheduleExpiry_HandsStoredIdentifiersOverAgain() {
+        // Given
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("exp1", new LongUrl("https://example1.com", currentTime - 100));
+        repository.save("exp2", new LongUrl("https://example2.com", currentTime - 50));
+        List<String> polled = repository.pollExpired(currentTime);
+        repository.remove("exp2");
+
+        // When
+        repository.rescheduleExpiry(polled);
+
+        // Then
+        assertEquals(List.of("exp1"), repository.pollExpired(currentTime));
+    }
+
+    @Test
+    void testSaveAllGetAllRemoveAll() {
+        // Given
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("abc123", new LongUrl("https://www.example.com", 3600L));
+        batch.put("def456", new LongUrl("https://www.google.com", 3600L));
+        batch.put("my-alias", new LongUrl("https://www.wikipedia.org", 3600L));
+
+        // When
+        repository.saveAll(batch);
+
+        // Then
+        assertEquals(Map.of("abc123", "https://www.example.com", "my-alias", "https://www.wikipedia.org"),
+            repository.getAll(List.of("abc123", "missing", "my-alias")));
+        assertEquals(Optional.of("def456"), repository.findByLongUrl("https://www.google.com"));
+
+        repository.removeAll(List.of("abc123", "def456", "missing"));
+        assertFalse(repository.exists("abc123"));
+        assertFalse(repository.exists("def456"));
+        assertTrue(repository.exists("my-alias"));
+    }
+
+    @Test
+    void testSaveAll_DuplicateIdentifier_StoresNothing() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("def456", new LongUrl("https://www.google.com", 3600L));
+        batch.put("abc123", new LongUrl("https://www.wikipedia.org", 3600L));
+
+        // When & Then
+        assertThrows(DuplicateUrlIdentifierException.class, () -> repository.saveAll(batch));
+        assertFalse(repository.exists("def456"));
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testGetExpiry() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 1_700_000_000L));
+
+        // When / Then
+        assertEquals(1_700_000_000L, repository.getExpiry("abc123"));
+        assertEquals(-1, repository.getExpiry("missing"));
+        repository.remove("abc123");
+        assertEquals(-1, repository.getExpiry("abc123"));
+    }
+}
@@ -0,0 +1,120 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedRepositoryTest {
+
+    private ShardedRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ShardedRepository(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void testSaveGetRemove() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+
+        // When & Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+        assertEquals(Optional.of("abc123"), repository.findByLongUrl("https://www.example.com"));
+
+        repository.remove("abc123");
+        assertFalse(repository.exists("abc123"));
+        assertFalse(repository.findByLongUrl("https://www.example.com").isPresent());
+    }
+
+    @Test
+    void testSave_DuplicateIdentifier_ThrowsOnCaller() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+
+        // When & Then
+        assertThrows(DuplicateUrlIdentifierException.class,
+            () -> repository.save("abc123", new LongUrl("https://www.google.com", 3600L)));
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testSaveAll_DuplicateInOneShard_RollsBackOthers() {
+        // Given
+        repository.save("dup", new LongUrl("https://www.example.com", 3600L));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            batch.put("id" + i, new LongUrl("https://www.example.com/" + i, 3600L));
+        }
+        batch.put("dup", new LongUrl("https://www.google.com", 3600L));
+
+        // When & Then
+        assertThrows(DuplicateUrlIdentifierException.class, () -> repository.saveAll(batch));
+        assertEquals(Set.of("dup"), repository.getAll(batch.keySet()).keySet());
+    }
+
+    @Test
+    void testPollExpired_CollectsFromEveryShard() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            repository.save("id" + i, new LongUrl("https://www.example.com/" + i, 1000L + i));
+        }
+
+        // When
+        List<String> expired = repository.pollExpired(1049L);
+
+        // Then
+        assertEquals(50, expired.size());
+        assertTrue(repository.pollExpired(1049L).isEmpty());
+        repository.removeAll(expired);
+        Map<String, LongUrl> remaining = new HashMap<>();
+        repository.forEachEntry(remaining::put);
+        assertEquals(50, remaining.size());
+    }
+
+    @Test
+    void testConcurrentWriters() throws InterruptedException {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    repository.save("t" + thread + "i" + i,
+                        new LongUrl("https://www.example.com/" + thread + "/" + i, 3600L));
+                }
+                done.countDown();
+            });
+        }
+
+        // Then
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        for (int t = 0; t < 8; t++) {
+            assertEquals("https://www.example.com/" + t + "/999", repository.get("t" + t + "i999"));
+        }
+    }
+}
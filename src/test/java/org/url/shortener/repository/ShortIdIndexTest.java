@@ -0,0 +1,70 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortIdIndexTest {
+
+    @Test
+    void testEncodableAndOverflowIdentifiers() {
+        ShortIdIndex<String> index = new ShortIdIndex<>();
+
+        assertNull(index.putIfAbsent("abc123", "packed"));
+        assertNull(index.putIfAbsent("my-custom-alias", "overflow"));
+        assertEquals("packed", index.putIfAbsent("abc123", "other"));
+
+        assertEquals("packed", index.get("abc123"));
+        assertEquals("overflow", index.get("my-custom-alias"));
+        assertEquals(2, index.size());
+
+        Map<String, String> visited = new HashMap<>();
+        index.forEach(visited::put);
+        assertEquals(Map.of("abc123", "packed", "my-custom-alias", "overflow"), visited);
+
+        assertEquals("packed", index.remove("abc123"));
+        assertEquals("overflow", index.remove("my-custom-alias"));
+        assertFalse(index.containsKey("abc123"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testReadersNeverMissStableEntriesWhileWritersResize() throws InterruptedException {
+        ShortIdIndex<String> index = new ShortIdIndex<>(2);
+        index.putIfAbsent("stable", "value");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        AtomicInteger misses = new AtomicInteger();
+
+        for (int t = 0; t < 2; t++) {
+            int writer = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    index.putIfAbsent("w" + writer + "x" + i, "v");
+                }
+                done.countDown();
+            });
+            executor.submit(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    if (!"value".equals(index.get("stable"))) {
+                        misses.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, misses.get());
+        assertEquals(100_001, index.size());
+    }
+}
@@ -0,0 +1,187 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedRepositoryTest {
+
+    private StripedRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new StripedRepository(8);
+    }
+
+    @Test
+    void testSaveAndGet() {
+        // Given
+        String shortUrl = "abc123";
+        String longUrl = "https://www.example.com";
+
+        // When
+        repository.save(shortUrl, new LongUrl(longUrl, 3600L));
+
+        // Then
+        assertEquals(longUrl, repository.get(shortUrl));
+        assertTrue(repository.exists(shortUrl));
+    }
+
+    @Test
+    void testSave_DuplicateIdentifier_ThrowsException() {
+        // Given
+        String shortUrl = "abc123";
+        repository.save(shortUrl, new LongUrl("https://www.example.com", 3600L));
+
+        // When & Then
+        assertThrows(DuplicateUrlIdentifierException.class,
+            () -> repository.save(shortUrl, new LongUrl("https://www.google.com", 3600L)));
+        assertEquals("https://www.example.com", repository.get(shortUrl));
+    }
+
+    @Test
+    void testRemove() {
+        // Given
+        String shortUrl = "abc123";
+        repository.save(shortUrl, new LongUrl("https://www.example.com", 3600L));
+
+        // When
+        repository.remove(shortUrl);
+
+        // Then
+        assertFalse(repository.exists(shortUrl));
+        assertNull(repository.get(shortUrl));
+        assertFalse(repository.findByLongUrl("https://www.example.com").isPresent());
+        assertTrue(repository.getAllExpired(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void testRemove_KeepsNewerReverseMapping() {
+        // Given - the same long URL saved twice under different identifiers
+        repository.save("first", new LongUrl("https://www.example.com", 3600L));
+        repository.save("second", new LongUrl("https://www.example.com", 3600L));
+
+        // When
+        repository.remove("first");
+
+        // Then
+        assertEquals(Optional.of("second"), repository.findByLongUrl("https://www.example.com"));
+    }
+
+    @Test
+    void testGetAllExpired() {
+        // Given
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("exp1", new LongUrl("https://example1.com", currentTime - 100));
+        repository.save("exp2", new LongUrl("https://example2.com", currentTime - 50));
+        repository.save("valid", new LongUrl("https://valid.com", currentTime + 1000));
+
+        // When
+        List<String> expiredUrls = repository.getAllExpired(currentTime);
+
+        // Then
+        assertEquals(2, expiredUrls.size());
+        assertTrue(expiredUrls.contains("exp1"));
+        assertTrue(expiredUrls.contains("exp2"));
+    }
+
+    @Test
+    void testRescheduleExpiry_HandsStoredIdentifiersOverAgain() {
+        // Given: a sweep whose removal failed
+        long currentTime = System.currentTimeMillis() / 1000;
+        repository.save("exp1", new LongUrl("https://example1.com", currentTime - 100));
+        repository.save("exp2", new LongUrl("https://example2.com", currentTime - 50));
+        List<String> polled = repository.pollExpired(currentTime);
+        repository.remove("exp2");
+
+        // When
+        repository.rescheduleExpiry(polled);
+
+        // Then
+        assertEquals(List.of("exp1"), repository.pollExpired(currentTime));
+        assertTrue(repository.pollExpired(currentTime).isEmpty());
+    }
+
+    @Test
+    void testConcurrentSaves_AllVisible() throws InterruptedException {
+        // Given
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        repository.save("k" + thread + "_" + i,
+                            new LongUrl("https://example.com/" + thread + "/" + i, 3600L + i));
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(0, failures.get());
+        assertEquals(threads * perThread, repository.getAllExpired(Long.MAX_VALUE).size());
+        assertEquals("https://example.com/3/42", repository.get("k3_42"));
+    }
+
+    @Test
+    void testSaveAllGetAllRemoveAll() {
+        // Given
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("abc123", new LongUrl("https://www.example.com", 3600L));
+        batch.put("def456", new LongUrl("https://www.google.com", 3600L));
+        batch.put("my-alias", new LongUrl("https://www.wikipedia.org", 3600L));
+
+        // When
+        repository.saveAll(batch);
+
+        // Then
+        assertEquals(Map.of("abc123", "https://www.example.com", "my-alias", "https://www.wikipedia.org"),
+            repository.getAll(List.of("abc123", "missing", "my-alias")));
+        assertEquals(Optional.of("def456"), repository.findByLongUrl("https://www.google.com"));
+
+        repository.removeAll(List.of("abc123", "def456", "missing"));
+        assertFalse(repository.exists("abc123"));
+        assertFalse(repository.exists("def456"));
+        assertTrue(repository.exists("my-alias"));
+    }
+
+    @Test
+    void testSaveAll_DuplicateIdentifier_StoresNothing() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", 3600L));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("def456", new LongUrl("https://www.google.com", 3600L));
+        batch.put("abc123", new LongUrl("https://www.wikipedia.org", 3600L));
+
+        // When & Then
+        assertThrows(DuplicateUrlIdentifierException.class, () -> repository.saveAll(batch));
+        assertFalse(repository.exists("def456"));
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+}
@@ -0,0 +1,240 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredRepositoryTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private double heapUsage = 0.1;
+    private TieredRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void testIdleLinksAreDemotedAndStillResolve() {
+        // Given
+        repository = open(100);
+        repository.save("old", new LongUrl("https://www.example.com/old", FUTURE));
+        clock.addAndGet(120);
+        repository.save("new", new LongUrl("https://www.example.com/new", FUTURE));
+
+        // When
+        int demoted = repository.demote();
+
+        // Then
+        assertEquals(1, demoted);
+        assertEquals(1, repository.getHotEntries());
+        assertEquals(1, repository.getColdEntries());
+        assertTrue(repository.exists("old"));
+        assertEquals(Optional.of("old"), repository.findByLongUrl("https://www.example.com/old"));
+    }
+
+    @Test
+    void testColdHitPromotesLink() {
+        // Given
+        repository = open(100);
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+        clock.addAndGet(120);
+        repository.demote();
+
+        // When
+        String first = repository.get("abc123");
+        String second = repository.get("abc123");
+
+        // Then
+        assertEquals("https://www.example.com", first);
+        assertEquals("https://www.example.com", second);
+        assertEquals(1, repository.getColdHits());
+        assertEquals(1, repository.getHotHits());
+        assertEquals(1, repository.getPromotions());
+        assertEquals(0, repository.getColdEntries());
+        assertEquals(0.5, repository.getHotHitRate());
+    }
+
+    @Test
+    void testRecentlyReadLinksStayHot() {
+        // Given
+        repository = open(100);
+        repository.save("read", new LongUrl("https://www.example.com/read", FUTURE));
+        repository.save("unread", new LongUrl("https://www.example.com/unread", FUTURE));
+        clock.addAndGet(120);
+        repository.get("read");
+
+        // When
+        repository.demote();
+
+        // Then
+        assertEquals(1, repository.getDemotions());
+        assertEquals(1, repository.getHotHits());
+        repository.get("unread");
+        assertEquals(1, repository.getColdHits());
+    }
+
+    @Test
+    void testOverBudgetDemotesLeastRecentlyUsed() {
+        // Given
+        repository = open(2);
+        for (int i = 0; i < 5; i++) {
+            repository.save("id" + i, new LongUrl("https://www.example.com/" + i, FUTURE));
+            clock.incrementAndGet();
+        }
+
+        // When
+        repository.demote();
+
+        // Then
+        assertEquals(2, repository.getHotEntries());
+        assertEquals(3, repository.getColdEntries());
+        repository.get("id4");
+        assertEquals(1, repository.getHotHits());
+    }
+
+    @Test
+    void testHeapPressureDemotesAQuarter() {
+        // Given
+        repository = open(100);
+        for (int i = 0; i < 8; i++) {
+            repository.save("id" + i, new LongUrl("https://www.example.com/" + i, FUTURE));
+            clock.incrementAndGet();
+        }
+        heapUsage = 0.95;
+
+        // When
+        repository.demote();
+
+        // Then
+        assertEquals(2, repository.getPressureDemotions());
+        assertEquals(6, repository.getHotEntries());
+    }
+
+    @Test
+    void testSpillDemotesRecentLinksToo() {
+        // Given
+        repository = open(100);
+        for (int i = 0; i < 8; i++) {
+            repository.save("id" + i, new LongUrl("https://www.example.com/" + i, FUTURE));
+        }
+
+        // When
+        int spilled = repository.spill(0.5);
+
+        // Then
+        assertEquals(4, spilled);
+        assertEquals(4, repository.getHotEntries());
+        assertEquals(4, repository.getColdEntries());
+        assertEquals("https://www.example.com/3", repository.get("id3"));
+    }
+
+    @Test
+    void testSave_DuplicateOfColdLink() {
+        // Given
+        repository = open(100);
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+        clock.addAndGet(120);
+        repository.demote();
+
+        // When / Then
+        assertThrows(DuplicateUrlIdentifierException.class,
+                () -> repository.save("abc123", new LongUrl("https://www.google.com", FUTURE)));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("other", new LongUrl("https://www.example.com/other", FUTURE));
+        batch.put("abc123", new LongUrl("https://www.google.com", FUTURE));
+        assertThrows(DuplicateUrlIdentifierException.class, () -> repository.saveAll(batch));
+        assertFalse(repository.exists("other"));
+    }
+
+    @Test
+    void testRemoveAndExpiryCoverBothTiers() {
+        // Given
+        repository = open(100);
+        repository.save("cold", new LongUrl("https://www.example.com/cold", 1000L));
+        repository.save("gone", new LongUrl("https://www.example.com/gone", FUTURE));
+        clock.addAndGet(120);
+        repository.demote();
+        repository.save("hot", new LongUrl("https://www.example.com/hot", 1000L));
+
+        // When
+        repository.remove("gone");
+        List<String> expired = repository.pollExpired(2000L);
+
+        // Then
+        assertFalse(repository.exists("gone"));
+        assertEquals(List.of("hot", "cold"), expired);
+        repository.removeAll(expired);
+        assertFalse(repository.exists("cold"));
+        assertFalse(repository.exists("hot"));
+        assertEquals(0, repository.getColdEntries());
+    }
+
+    @Test
+    void testForEachEntryVisitsBothTiers() {
+        // Given
+        repository = open(100);
+        repository.save("a", new LongUrl("https://www.example.com/a", FUTURE));
+        clock.addAndGet(120);
+        repository.demote();
+        repository.save("b", new LongUrl("https://www.example.com/b", FUTURE));
+
+        // When
+        Map<String, String> all = new HashMap<>();
+        repository.forEachEntry((id, longUrl) -> all.put(id, longUrl.getUrl()));
+
+        // Then
+        assertEquals(Map.of("a", "https://www.example.com/a", "b", "https://www.example.com/b"), all);
+    }
+
+    @Test
+    void testColdSegmentsAreReclaimed() {
+        // Given
+        repository = open(100, 1024);
+        for (int i = 0; i < 100; i++) {
+            repository.save("id" + i, new LongUrl("https://www.example.com/page/" + i, FUTURE));
+        }
+        clock.addAndGet(120);
+        repository.demote();
+
+        // When
+        for (int i = 0; i < 90; i++) {
+            repository.remove("id" + i);
+        }
+
+        // Then
+        assertEquals(10, repository.getColdEntries());
+        for (int i = 90; i < 100; i++) {
+            assertEquals("https://www.example.com/page/" + i, repository.get("id" + i));
+        }
+    }
+
+    private TieredRepository open(long maxHotEntries) {
+        return open(maxHotEntries, 64 * 1024);
+    }
+
+    private TieredRepository open(long maxHotEntries, int segmentBytes) {
+        return new TieredRepository(directory, maxHotEntries, 60, segmentBytes, 0,
+                clock::get, () -> heapUsage);
+    }
+}
@@ -0,0 +1,92 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlDictionaryTest {
+
+    @Test
+    void testCompressAndExpand_RoundTrip() {
+        UrlDictionary dictionary = new UrlDictionary();
+        String[] urls = {
+            "https://cdn.example.com/assets/img/logo.png",
+            "https://cdn.example.com/assets/css/site.css",
+            "https://www.example.com",
+            "https://www.example.com/",
+            "http://localhost:8080/path?q=a/b",
+            "https://例え.jp/パス/ページ",
+            "ftp:/not-a-host",
+            "mailto:someone@example.com"
+        };
+
+        for (String url : urls) {
+            CompactUrl compactUrl = dictionary.compress(url, 3600L);
+
+            assertEquals(url, dictionary.expand(compactUrl));
+            assertEquals(3600L, compactUrl.getExpiry());
+        }
+    }
+
+    @Test
+    void testCompress_SharesPrefixAcrossUrls() {
+        UrlDictionary dictionary = new UrlDictionary();
+
+        CompactUrl first = dictionary.compress("https://cdn.example.com/assets/img/a.png", 3600L);
+        CompactUrl second = dictionary.compress("https://cdn.example.com/assets/img/b.png", 3600L);
+        CompactUrl third = dictionary.compress("https://cdn.example.com/assets/img/c.png", 3600L);
+
+        assertNotEquals(UrlDictionary.NO_PREFIX, first.getPrefixId());
+        assertEquals("assets/img/a.png".length(), first.getSuffixLength());
+        assertEquals(second.getPrefixId(), third.getPrefixId());
+        assertEquals("img/c.png".length(), third.getSuffixLength());
+    }
+
+    @Test
+    void testCompress_OneOffSegmentsAreNotInterned() {
+        UrlDictionary dictionary = new UrlDictionary();
+
+        for (int i = 0; i < 100; i++) {
+            dictionary.compress("https://example.com/user" + i + "/profile", 3600L);
+        }
+
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void testCompress_HostEndsAtQueryOrFragment() {
+        UrlDictionary dictionary = new UrlDictionary();
+
+        CompactUrl query = dictionary.compress("https://example.com?q=a/b/c", 3600L);
+        CompactUrl fragment = dictionary.compress("https://example.com#top/x/y", 3600L);
+        dictionary.compress("http://localhost:8080/path?q=a/b", 3600L);
+        CompactUrl path = dictionary.compress("http://localhost:8080/path?q=a/b", 3600L);
+
+        assertEquals(query.getPrefixId(), fragment.getPrefixId());
+        assertEquals("?q=a/b/c".length(), query.getSuffixLength());
+        assertEquals("path?q=a/b".length(), path.getSuffixLength());
+        assertEquals("https://example.com#top/x/y", dictionary.expand(fragment));
+    }
+
+    @Test
+    void testCompress_FullDictionaryFallsBackToHostPrefix() {
+        // Room for the empty prefix, one first-segment prefix and four hosts
+        UrlDictionary dictionary = new UrlDictionary(6);
+
+        dictionary.compress("https://example.com/a/1", 3600L);
+        CompactUrl second = dictionary.compress("https://example.com/a/2", 3600L);
+        dictionary.compress("https://example.com/b/3", 3600L);
+        CompactUrl segmentsFull = dictionary.compress("https://example.com/b/4", 3600L);
+        CompactUrl other = dictionary.compress("https://other.com/c/5", 3600L);
+        dictionary.compress("https://third.com/d/6", 3600L);
+        dictionary.compress("https://fourth.com/e/7", 3600L);
+        CompactUrl full = dictionary.compress("https://fifth.com/f/8", 3600L);
+
+        assertEquals("2".length(), second.getSuffixLength());
+        assertEquals("b/4".length(), segmentsFull.getSuffixLength());
+        assertEquals("c/5".length(), other.getSuffixLength());
+        assertEquals(UrlDictionary.NO_PREFIX, full.getPrefixId());
+        assertEquals("https://fifth.com/f/8", dictionary.expand(full));
+        assertEquals(6, dictionary.size());
+    }
+}
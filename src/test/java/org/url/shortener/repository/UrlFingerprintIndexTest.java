@@ -0,0 +1,79 @@
+package org.url.shortener.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlFingerprintIndexTest {
+
+    private Map<String, String> records;
+    private UrlFingerprintIndex index;
+
+    @BeforeEach
+    void setUp() {
+        records = new HashMap<>();
+        index = new UrlFingerprintIndex(records::get);
+    }
+
+    @Test
+    void testPutAndFind() {
+        // Given
+        save("abc123", "https://www.example.com");
+        save("my-custom-alias", "https://www.google.com");
+
+        // When & Then
+        assertEquals(Optional.of("abc123"), index.find("https://www.example.com"));
+        assertEquals(Optional.of("my-custom-alias"), index.find("https://www.google.com"));
+        assertFalse(index.find("https://nonexistent.com").isPresent());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testFind_VerifiesAgainstPrimaryRecord() {
+        // Given
+        save("abc123", "https://www.example.com");
+
+        // When the primary record changes underneath the index
+        records.put("abc123", "https://www.other.com");
+
+        // Then
+        assertFalse(index.find("https://www.example.com").isPresent());
+    }
+
+    @Test
+    void testRemove_OnlyDropsMatchingIdentifier() {
+        // Given the same URL saved twice, the newest identifier wins
+        save("abc123", "https://www.example.com");
+        save("def456", "https://www.example.com");
+
+        // When the older identifier is removed
+        records.remove("abc123");
+        index.remove("https://www.example.com", "abc123");
+
+        // Then
+        assertEquals(Optional.of("def456"), index.find("https://www.example.com"));
+
+        records.remove("def456");
+        index.remove("https://www.example.com", "def456");
+        assertFalse(index.find("https://www.example.com").isPresent());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testFingerprint_IsStableAndSpreads() {
+        assertEquals(UrlFingerprintIndex.fingerprint("https://www.example.com"),
+            UrlFingerprintIndex.fingerprint(new StringBuilder("https://www.example.com")));
+        assertNotEquals(UrlFingerprintIndex.fingerprint("https://www.example.com/a"),
+            UrlFingerprintIndex.fingerprint("https://www.example.com/b"));
+    }
+
+    private void save(String shortUrlIdentifier, String longUrl) {
+        records.put(shortUrlIdentifier, longUrl);
+        index.put(longUrl, shortUrlIdentifier);
+    }
+}
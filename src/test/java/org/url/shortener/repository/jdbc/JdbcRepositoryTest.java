@@ -0,0 +1,270 @@
+package org.url.shortener.repository.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.url.shortener.exception.DuplicateUrlIdentifierException;
+import org.url.shortener.model.LongUrl;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRepositoryTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private JdbcRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void testSaveAndGet() {
+        // Given
+        repository = new JdbcRepository(memoryUrl());
+
+        // When
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+        assertTrue(repository.exists("abc123"));
+        assertEquals(Optional.of("abc123"), repository.findByLongUrl("https://www.example.com"));
+        assertNull(repository.get("missing"));
+        assertEquals(Optional.empty(), repository.findByLongUrl("https://www.google.com"));
+    }
+
+    @Test
+    void testGetExpiry() {
+        // Given
+        repository = new JdbcRepository(memoryUrl());
+
+        // When
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // Then
+        assertEquals(FUTURE, repository.getExpiry("abc123"));
+        assertEquals(-1, repository.getExpiry("missing"));
+    }
+
+    @Test
+    void testSave_DuplicateIdentifier() {
+        // Given
+        repository = new JdbcRepository(memoryUrl());
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // When / Then
+        assertThrows(DuplicateUrlIdentifierException.class,
+                () -> repository.save("abc123", new LongUrl("https://www.google.com", FUTURE)));
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testSaveAll_DuplicateLeavesRepositoryUnchanged() {
+        // Given
+        repository = new JdbcRepository(memoryUrl());
+        repository.save("taken", new LongUrl("https://www.example.com", FUTURE));
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        batch.put("new1", new LongUrl("https://one.example.com", FUTURE));
+        batch.put("taken", new LongUrl("https://two.example.com", FUTURE));
+
+        // When
+        DuplicateUrlIdentifierException e = assertThrows(DuplicateUrlIdentifierException.class,
+                () -> repository.saveAll(batch));
+
+        // Then
+        assertTrue(e.getMessage().contains("taken"));
+        assertFalse(repository.exists("new1"));
+        assertEquals("https://www.example.com", repository.get("taken"));
+    }
+
+    @Test
+    void testBatchOperations() {
+        // Given
+        repository = new JdbcRepository(memoryUrl());
+        Map<String, LongUrl> batch = new LinkedHashMap<>();
+        for (int i = 0; i < 1200; i++) {
+            batch.put("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+
+        // When
+        repository.saveAll(batch);
+        Map<String, String> found = repository.getAll(List.of("id0", "missing", "id1199", "id600"));
+        repository.removeAll(List.of("id0", "id1", "missing"));
+
+        // Then
+        assertEquals(List.of("id0", "id1199", "id600"), List.copyOf(found.keySet()));
+        assertEquals("https://example.com/600", found.get("id600"));
+        assertNull(repository.get("id0"));
+        assertNull(repository.get("id1"));
+        assertEquals("https://example.com/2", repository.get("id2"));
+    }
+
+    @Test
+    void testGetAllExpired_IsLimitedAndOrdered() {
+        // Given
+        repository = new JdbcRepository(memoryUrl(), 2, 0, 0, 2);
+        repository.save("later", new LongUrl("https://later.example.com", 300L));
+        repository.save("first", new LongUrl("https://first.example.com", 100L));
+        repository.save("second", new LongUrl("https://second.example.com", 200L));
+        repository.save("live", new LongUrl("https://live.example.com", FUTURE));
+
+        // When
+        List<String> expired = repository.getAllExpired(1000);
+
+        // Then
+        assertEquals(List.of("first", "second"), expired);
+        repository.removeAll(expired);
+        assertEquals(List.of("later"), repository.getAllExpired(1000));
+    }
+
+    @Test
+    void testForEachEntry() {
+        // Given
+        repository = new JdbcRepository(memoryUrl());
+        repository.save("a", new LongUrl("https://a.example.com", 100L));
+        repository.save("b", new LongUrl("https://b.example.com", FUTURE));
+
+        // When
+        Map<String, LongUrl> visited = new HashMap<>();
+        repository.forEachEntry(visited::put);
+
+        // Then
+        assertEquals(2, visited.size());
+        assertEquals(100, visited.get("a").getExpiry());
+        assertEquals("https://b.example.com", visited.get("b").getUrl());
+    }
+
+    @Test
+    void testFileDatabaseSurvivesReopen() {
+        // Given
+        String url = "jdbc:h2:file:" + directory.resolve("urls").toAbsolutePath();
+        repository = new JdbcRepository(url);
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+        repository.close();
+
+        // When
+        repository = new JdbcRepository(url);
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    @Test
+    void testPoolReusesConnections() {
+        // Given
+        repository = new JdbcRepository(memoryUrl(), 2, 0, 0);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            repository.save("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+            repository.get("id" + i);
+        }
+
+        // Then
+        assertEquals(1, repository.getOpenConnections());
+    }
+
+    @Test
+    void testWriteBehind_QueuedWritesAreVisibleAndFlushedInBatches() {
+        // Given an interval that will not fire during the test
+        repository = new JdbcRepository(memoryUrl(), 2, 100, 60_000);
+
+        // When
+        for (int i = 0; i < 250; i++) {
+            repository.save("id" + i, new LongUrl("https://example.com/" + i, FUTURE));
+        }
+
+        // Then
+        assertTrue(repository.isWriteBehind());
+        assertEquals("https://example.com/7", repository.get("id7"));
+        assertEquals(Optional.of("id7"), repository.findByLongUrl("https://example.com/7"));
+        assertThrows(DuplicateUrlIdentifierException.class,
+                () -> repository.save("id7", new LongUrl("https://other.example.com", FUTURE)));
+
+        repository.flush();
+        assertEquals(0, repository.getPendingWrites());
+        assertEquals(250, repository.getFlushedWrites());
+        assertTrue(repository.getFlushedBatches() >= 3);
+        assertEquals("https://example.com/249", repository.get("id249"));
+    }
+
+    @Test
+    void testWriteBehind_FlushesOnInterval() throws InterruptedException {
+        // Given
+        repository = new JdbcRepository(memoryUrl(), 2, 1000, 20);
+
+        // When
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (repository.getPendingWrites() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Then
+        assertEquals(0, repository.getPendingWrites());
+        assertEquals(1, repository.getFlushedWrites());
+    }
+
+    @Test
+    void testWriteBehind_RemoveAppliesAfterQueuedInsert() {
+        // Given
+        repository = new JdbcRepository(memoryUrl(), 2, 100, 60_000);
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // When
+        repository.remove("abc123");
+
+        // Then
+        assertNull(repository.get("abc123"));
+        assertEquals(0, repository.getPendingWrites());
+    }
+
+    @Test
+    void testWriteBehind_GetExpiryOfQueuedLink() {
+        // Given an interval that will not fire during the test
+        repository = new JdbcRepository(memoryUrl(), 2, 100, 60_000);
+
+        // When
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // Then
+        assertEquals(1, repository.getPendingWrites());
+        assertEquals(FUTURE, repository.getExpiry("abc123"));
+        repository.flush();
+        assertEquals(FUTURE, repository.getExpiry("abc123"));
+    }
+
+    @Test
+    void testWriteBehind_CloseFlushesQueue() {
+        // Given
+        String url = "jdbc:h2:file:" + directory.resolve("urls").toAbsolutePath();
+        repository = new JdbcRepository(url, 2, 100, 60_000);
+        repository.save("abc123", new LongUrl("https://www.example.com", FUTURE));
+
+        // When
+        repository.close();
+        repository = new JdbcRepository(url);
+
+        // Then
+        assertEquals("https://www.example.com", repository.get("abc123"));
+    }
+
+    private static String memoryUrl() {
+        return "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    }
+}
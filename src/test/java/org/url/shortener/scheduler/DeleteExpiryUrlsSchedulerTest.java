@@ -3,15 +3,26 @@ package org.url.shortener.scheduler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.url.shortener.model.LongUrl;
 import org.url.shortener.observer.URLEventPublisher;
+import org.url.shortener.persistence.FsyncPolicy;
+import org.url.shortener.persistence.WriteAheadLog;
+import org.url.shortener.persistence.WriteAheadLogConfig;
+import org.url.shortener.repository.LsmRepository;
 import org.url.shortener.repository.URLRepository;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -25,6 +36,9 @@ class DeleteExpiryUrlsSchedulerTest {
     @Mock
     private URLEventPublisher mockEventPublisher;
 
+    @TempDir
+    Path directory;
+
     private SchedulerConfig config;
     private DeleteExpiryUrlsScheduler scheduler;
 
@@ -37,7 +51,7 @@ class DeleteExpiryUrlsSchedulerTest {
     @Test
     void testStartAndShutdown() throws InterruptedException {
         // Given
-        when(mockRepository.getAllExpired(anyLong())).thenReturn(Collections.emptyList());
+        when(mockRepository.pollExpired(anyLong())).thenReturn(Collections.emptyList());
 
         // When
         scheduler.start();
@@ -48,6 +62,65 @@ class DeleteExpiryUrlsSchedulerTest {
         assertTrue(true);
     }
 
+    @Test
+    void testSweepRemovesInFixedSizeBatches() {
+        // Given
+        List<String> expired = IntStream.range(0, 2 * DeleteExpiryUrlsScheduler.REMOVE_BATCH_SIZE + 500)
+            .mapToObj(i -> "id" + i)
+            .collect(Collectors.toList());
+        when(mockRepository.pollExpired(anyLong())).thenReturn(expired, Collections.emptyList());
+
+        // When
+        scheduler.start();
+
+        // Then
+        verify(mockRepository, timeout(2000).times(3)).removeAll(anyCollection());
+        verify(mockEventPublisher, timeout(2000).times(expired.size())).publishUrlExpired(anyString());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testSweepReschedulesBatchesThatFailToRemove() {
+        // Given
+        List<String> expired = Arrays.asList("id1", "id2");
+        when(mockRepository.pollExpired(anyLong())).thenReturn(expired, Collections.emptyList());
+        doThrow(new IllegalStateException("Write-ahead log is closed"))
+            .when(mockRepository).removeAll(anyCollection());
+
+        // When
+        scheduler.start();
+
+        // Then
+        verify(mockRepository, timeout(2000)).rescheduleExpiry(expired);
+        verify(mockEventPublisher, never()).publishUrlExpired(anyString());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testLsmSweepThatFailsToRemoveIsRetried() {
+        // Given - an expired link and a write-ahead log that can no longer log its removal
+        WriteAheadLog log = new WriteAheadLog(new WriteAheadLogConfig(
+            directory.resolve("wal"), FsyncPolicy.INTERVAL, 10));
+        LsmRepository lsm = new LsmRepository(directory.resolve("lsm"), log);
+        try {
+            lsm.save("old", new LongUrl("https://www.example.com/old", 1000L));
+            log.close();
+            LsmRepository repository = spy(lsm);
+            scheduler = new DeleteExpiryUrlsScheduler(repository, config, mockEventPublisher);
+
+            // When
+            scheduler.start();
+            verify(repository, timeout(2000)).rescheduleExpiry(List.of("old"));
+            scheduler.shutdown();
+
+            // Then - the next sweep is handed the link again
+            assertEquals(List.of("old"), lsm.pollExpired(2000L));
+            verify(mockEventPublisher, never()).publishUrlExpired(anyString());
+        } finally {
+            lsm.close();
+        }
+    }
+
     @Test
     void testConstructor_WithInvalidRepository_ThrowsException() {
         // When & Then
@@ -71,7 +144,7 @@ class DeleteExpiryUrlsSchedulerTest {
     @Test
     void testStartTwice_DoesNotStartAgain() throws InterruptedException {
         // Given
-        when(mockRepository.getAllExpired(anyLong())).thenReturn(Collections.emptyList());
+        when(mockRepository.pollExpired(anyLong())).thenReturn(Collections.emptyList());
 
         // When
         scheduler.start();
@@ -114,6 +114,33 @@ class BasicURLServiceTest {
         assertThrows(NotFoundException.class, () -> urlService.getLongUrl(shortUrl));
     }
 
+    @Test
+    void testFindLongUrl_NotFound_ReturnsEmpty() {
+        // Given
+        String shortUrl = "nonexistent";
+        when(mockRepository.get(shortUrl)).thenReturn(null);
+
+        // When & Then
+        assertEquals(Optional.empty(), urlService.findLongUrl(shortUrl));
+        verify(mockEventPublisher, never()).publishUrlAccessed(anyString(), anyString());
+    }
+
+    @Test
+    void testFindLink_ReturnsExpiryWithTheUrl() {
+        // Given
+        String shortUrl = "abc123";
+        LongUrl link = new LongUrl("https://www.example.com", 1_700_000_000L);
+        when(mockRepository.getLink(shortUrl)).thenReturn(link);
+
+        // When
+        Optional<LongUrl> result = urlService.findLink(shortUrl);
+
+        // Then
+        assertEquals(Optional.of(link), result);
+        verify(mockRepository, never()).getExpiry(anyString());
+        verify(mockEventPublisher).publishUrlAccessed(shortUrl, "https://www.example.com");
+    }
+
     @Test
     void testDeleteUrl() {
         // Given
@@ -0,0 +1,121 @@
+package org.url.shortener.service;
+
+import org.junit.jupiter.api.Test;
+import org.url.shortener.cache.WTinyLfuCache;
+import org.url.shortener.exception.NotFoundException;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedURLServiceTest {
+
+    private final DefaultRepository repository = new DefaultRepository();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final URLService delegate = new URLService() {
+        @Override
+        public String shortenUrl(String longUrl) {
+            return "abc123";
+        }
+
+        @Override
+        public String getLongUrl(String shortUrlIdentifier) {
+            return findLongUrl(shortUrlIdentifier).orElseThrow(() -> new NotFoundException(shortUrlIdentifier));
+        }
+
+        @Override
+        public Optional<String> findLongUrl(String shortUrlIdentifier) {
+            return findLink(shortUrlIdentifier).map(LongUrl::getUrl);
+        }
+
+        @Override
+        public Optional<LongUrl> findLink(String shortUrlIdentifier) {
+            lookups.incrementAndGet();
+            return Optional.ofNullable(repository.getLink(shortUrlIdentifier));
+        }
+    };
+
+    @Test
+    void testRepeatedLookupsAreServedFromTheCache() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", Instant.now().getEpochSecond() + 3600));
+        CachedURLService service = new CachedURLService(delegate, null,
+                new WTinyLfuCache<>(100), 60_000);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertEquals("https://www.example.com", service.getLongUrl("abc123"));
+        }
+
+        // Then
+        assertEquals(1, lookups.get());
+        assertEquals(4, service.getCache().getHits());
+    }
+
+    @Test
+    void testExpiredLinksAreNotServedFromTheCache() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", Instant.now().getEpochSecond() - 1));
+        CachedURLService service = new CachedURLService(delegate, null,
+                new WTinyLfuCache<>(100), 60_000);
+
+        // When
+        service.getLongUrl("abc123");
+        service.getLongUrl("abc123");
+
+        // Then
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void testDeleteAndExpiryEventsInvalidate() {
+        // Given
+        repository.save("abc123", new LongUrl("https://www.example.com", Instant.now().getEpochSecond() + 3600));
+        repository.save("def456", new LongUrl("https://www.google.com", Instant.now().getEpochSecond() + 3600));
+        CachedURLService service = new CachedURLService(delegate, null,
+                new WTinyLfuCache<>(100), 0);
+        service.getLongUrl("abc123");
+        service.getLongUrl("def456");
+
+        // When
+        repository.remove("abc123");
+        service.onUrlDeleted("abc123");
+        repository.remove("def456");
+        service.onUrlExpired("def456");
+
+        // Then
+        assertThrows(NotFoundException.class, () -> service.getLongUrl("abc123"));
+        assertThrows(NotFoundException.class, () -> service.getLongUrl("def456"));
+    }
+
+    @Test
+    void testCreatedLinksAreCached() {
+        // Given
+        CachedURLService service = new CachedURLService(delegate);
+
+        // When
+        String shortUrl = service.shortenUrl("https://www.example.com");
+        service.onUrlCreated(shortUrl, "https://www.example.com", Instant.now().getEpochSecond() + 3600);
+
+        // Then
+        assertEquals("https://www.example.com", service.getLongUrl(shortUrl));
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    void testCreatedLinksKeepTheirExpiry() {
+        // Given
+        CachedURLService service = new CachedURLService(delegate);
+
+        // When
+        service.onUrlCreated("abc123", "https://www.example.com", Instant.now().getEpochSecond() - 1);
+
+        // Then
+        assertThrows(NotFoundException.class, () -> service.getLongUrl("abc123"));
+        assertEquals(1, lookups.get());
+    }
+}
@@ -0,0 +1,118 @@
+package org.url.shortener.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingURLServiceTest {
+
+    private static final int CALLERS = 8;
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean failing;
+
+    private final CoalescingURLService service = new CoalescingURLService(new URLService() {
+        @Override
+        public String shortenUrl(String longUrl) {
+            return "abc123";
+        }
+
+        @Override
+        public String getLongUrl(String shortUrlIdentifier) {
+            lookups.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new IllegalStateException("Storage unavailable");
+            }
+            return "https://www.example.com/" + shortUrlIdentifier;
+        }
+    });
+
+    @Test
+    void testConcurrentLookupsShareOneLoad() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            // When
+            List<Future<String>> results = startLookups(executor, "abc123");
+            awaitWaiters(CALLERS - 1);
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertEquals("https://www.example.com/abc123", result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, lookups.get());
+            assertEquals(1, service.getLoads());
+            assertEquals(CALLERS - 1, service.getCoalescedWaiters());
+            assertEquals(0, service.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailuresAreSharedWithWaiters() throws Exception {
+        // Given
+        failing = true;
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            // When
+            List<Future<String>> results = startLookups(executor, "abc123");
+            awaitWaiters(CALLERS - 1);
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                Exception e = assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(1, lookups.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCompletedLoadsAreNotRemembered() {
+        // Given
+        release.countDown();
+
+        // When
+        service.getLongUrl("abc123");
+        service.getLongUrl("abc123");
+
+        // Then
+        assertEquals(2, lookups.get());
+        assertEquals(0, service.getCoalescedWaiters());
+    }
+
+    private List<Future<String>> startLookups(ExecutorService executor, String shortUrl) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> service.getLongUrl(shortUrl)));
+        }
+        return results;
+    }
+
+    private void awaitWaiters(int waiters) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (service.getCoalescedWaiters() < waiters && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.url.shortener.service;
+
+import org.junit.jupiter.api.Test;
+import org.url.shortener.exception.ServiceOverloadedException;
+import org.url.shortener.memory.MemoryGovernor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadSheddingURLServiceTest {
+
+    private final MemoryGovernor governor = new MemoryGovernor();
+    private final URLService service = new LoadSheddingURLService(new URLService() {
+        @Override
+        public String shortenUrl(String longUrl) {
+            return "abc123";
+        }
+
+        @Override
+        public String getLongUrl(String shortUrlIdentifier) {
+            return "https://www.example.com";
+        }
+    }, governor);
+
+    @Test
+    void testCreatesPassThroughNormally() {
+        assertEquals("abc123", service.shortenUrl("https://www.example.com"));
+    }
+
+    @Test
+    void testCreatesAreRejectedButReadsServeUnderCriticalPressure() {
+        // Given
+        governor.onHeapUsage(0.99);
+
+        // When / Then
+        assertThrows(ServiceOverloadedException.class, () -> service.shortenUrl("https://www.example.com"));
+        assertEquals("https://www.example.com", service.getLongUrl("abc123"));
+        assertEquals(1, governor.getRejectedCreates());
+    }
+}
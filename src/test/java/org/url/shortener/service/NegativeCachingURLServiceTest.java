@@ -0,0 +1,103 @@
+package org.url.shortener.service;
+
+import org.junit.jupiter.api.Test;
+import org.url.shortener.exception.NotFoundException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeCachingURLServiceTest {
+
+    private final Map<String, String> links = new ConcurrentHashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final URLService delegate = new URLService() {
+        @Override
+        public String shortenUrl(String longUrl) {
+            links.put("abc123", longUrl);
+            return "abc123";
+        }
+
+        @Override
+        public String getLongUrl(String shortUrlIdentifier) {
+            lookups.incrementAndGet();
+            String longUrl = links.get(shortUrlIdentifier);
+            if (longUrl == null) {
+                throw new NotFoundException(shortUrlIdentifier);
+            }
+            return longUrl;
+        }
+    };
+    private final NegativeCachingURLService service = new NegativeCachingURLService(delegate, 100, 60_000);
+
+    @Test
+    void testRepeatedMissesSkipTheDelegate() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Optional.empty(), service.findLongUrl("abc123"));
+        }
+
+        // Then
+        assertEquals(1, lookups.get());
+        assertEquals(4, service.getCache().getHits());
+        assertThrows(NotFoundException.class, () -> service.getLongUrl("abc123"));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void testCreatingACodeForgetsItsMiss() {
+        // Given
+        service.findLongUrl("abc123");
+
+        // When
+        String shortUrl = service.shortenUrl("https://www.example.com");
+
+        // Then
+        assertEquals(Optional.of("https://www.example.com"), service.findLongUrl(shortUrl));
+    }
+
+    @Test
+    void testCreatedEventForgetsTheMiss() {
+        // Given
+        service.findLongUrl("abc123");
+        links.put("abc123", "https://www.example.com");
+
+        // When
+        service.onUrlCreated("abc123", "https://www.example.com", 0);
+
+        // Then
+        assertEquals("https://www.example.com", service.getLongUrl("abc123"));
+    }
+
+    @Test
+    void testMissesAreForgottenAfterTheTtl() throws InterruptedException {
+        // Given
+        NegativeCachingURLService shortLived = new NegativeCachingURLService(delegate, 100, 20);
+        shortLived.findLongUrl("abc123");
+        links.put("abc123", "https://www.example.com");
+
+        // When
+        Thread.sleep(50);
+
+        // Then
+        assertEquals(Optional.of("https://www.example.com"), shortLived.findLongUrl("abc123"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void testFoundLinksAreNotRemembered() {
+        // Given
+        links.put("abc123", "https://www.example.com");
+
+        // When
+        service.findLongUrl("abc123");
+        service.findLongUrl("abc123");
+
+        // Then
+        assertEquals(2, lookups.get());
+        assertEquals(0, service.getCache().size());
+    }
+}
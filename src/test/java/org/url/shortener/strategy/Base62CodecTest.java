@@ -0,0 +1,73 @@
+package org.url.shortener.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Base62CodecTest {
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        for (String identifier : new String[] {"a", "Z", "9", "abc123", "zzzzzz", "AbC9xYz", "9999999999"}) {
+            long code = Base62Codec.encode(identifier);
+
+            assertTrue(code >= 0, identifier);
+            assertEquals(identifier, Base62Codec.decode(code));
+        }
+    }
+
+    @Test
+    void testEncode_LeadingZeroDigitsStayDistinct() {
+        // 'a' is the zero digit, so lengths must not collapse onto each other
+        assertEquals(0L, Base62Codec.encode("a"));
+        assertEquals(62L, Base62Codec.encode("aa"));
+        assertNotEquals(Base62Codec.encode("ab"), Base62Codec.encode("b"));
+    }
+
+    @Test
+    void testEncode_IsBijectiveForShortIdentifiers() {
+        Set<String> decoded = new HashSet<>();
+        long limit = Base62Codec.encode("aaa");
+
+        for (long code = 0; code < limit; code++) {
+            String identifier = Base62Codec.decode(code);
+            assertEquals(code, Base62Codec.encode(identifier));
+            decoded.add(identifier);
+        }
+
+        assertEquals(62 + 62 * 62, decoded.size());
+    }
+
+    @Test
+    void testEncode_NotEncodable() {
+        assertEquals(Base62Codec.NOT_ENCODABLE, Base62Codec.encode(""));
+        assertEquals(Base62Codec.NOT_ENCODABLE, Base62Codec.encode("abcdefghijk"));
+        assertEquals(Base62Codec.NOT_ENCODABLE, Base62Codec.encode("my-alias"));
+        assertEquals(Base62Codec.NOT_ENCODABLE, Base62Codec.encode("café"));
+    }
+
+    @Test
+    void testDecode_InvalidCode_ThrowsException() {
+        long pastLast = Base62Codec.encode("9999999999") + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> Base62Codec.decode(-1));
+        assertThrows(IllegalArgumentException.class, () -> Base62Codec.decode(pastLast));
+    }
+
+    @Test
+    void testToPaddedString_PadsWithZeroDigit() {
+        assertEquals("aaaaaa", Base62Codec.toPaddedString(0, 6));
+        assertEquals("aaaaab", Base62Codec.toPaddedString(1, 6));
+        assertEquals("aaaaba", Base62Codec.toPaddedString(62, 6));
+        assertEquals("999999", Base62Codec.toPaddedString(56_800_235_583L, 6));
+    }
+
+    @Test
+    void testToPaddedString_GrowsPastLengthInsteadOfWrapping() {
+        assertEquals("baaaaaa", Base62Codec.toPaddedString(56_800_235_584L, 6));
+        assertEquals(11, Base62Codec.toPaddedString(Long.MAX_VALUE, 1).length());
+    }
+}
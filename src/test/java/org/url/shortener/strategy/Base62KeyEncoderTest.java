@@ -0,0 +1,87 @@
+package org.url.shortener.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Base62KeyEncoderTest {
+
+    @Test
+    void testNextKey_UsesOnlyAlphabetAtRequestedLength() {
+        // Given
+        Base62KeyEncoder encoder = new Base62KeyEncoder(EntropySource.secure());
+
+        // When / Then
+        for (int length : new int[] {1, 6, 10, 11, 64, 100}) {
+            String key = encoder.nextKey(length);
+            assertEquals(length, key.length());
+            assertTrue(key.matches("[a-zA-Z0-9]+"), key);
+        }
+    }
+
+    @Test
+    void testNextKey_DropsDigitsOutsideAlphabet() {
+        // Given: a draw of all ones is ten 63s, then a draw of zeros is ten 'a's
+        Iterator<Long> draws = List.of(-1L, 0L).iterator();
+        Base62KeyEncoder encoder = new Base62KeyEncoder(draws::next);
+
+        // When
+        String key = encoder.nextKey(6);
+
+        // Then
+        assertEquals("aaaaaa", key);
+    }
+
+    @Test
+    void testNextKey_CharactersAreEvenlyDistributed() {
+        // Given
+        SplittableRandom random = new SplittableRandom(1);
+        Base62KeyEncoder encoder = new Base62KeyEncoder(random::nextLong);
+        int[] counts = new int[128];
+        int keys = 100_000;
+
+        // When
+        for (int i = 0; i < keys; i++) {
+            for (char c : encoder.nextKey(6).toCharArray()) {
+                counts[c]++;
+            }
+        }
+
+        // Then: chi-square with 61 degrees of freedom stays far below 120 unless biased
+        double expected = keys * 6 / 62.0;
+        double chiSquare = 0;
+        for (char c : Base62Codec.ALPHABET.toCharArray()) {
+            chiSquare += Math.pow(counts[c] - expected, 2) / expected;
+        }
+        assertTrue(chiSquare < 120, "chi-square " + chiSquare);
+    }
+
+    @Test
+    void testNextKey_FastSourceGivesDistinctKeys() {
+        // Given
+        Base62KeyEncoder encoder = new Base62KeyEncoder(EntropySource.fast());
+
+        // When
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            keys.add(encoder.nextKey(8));
+        }
+
+        // Then
+        assertEquals(10_000, keys.size());
+    }
+
+    @Test
+    void testNextKey_WithInvalidLength_ThrowsException() {
+        Base62KeyEncoder encoder = new Base62KeyEncoder(EntropySource.fast());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> encoder.nextKey(0));
+        assertEquals("Key length must be positive", exception.getMessage());
+    }
+}
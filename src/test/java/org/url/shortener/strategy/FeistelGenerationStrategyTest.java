@@ -0,0 +1,89 @@
+package org.url.shortener.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeistelGenerationStrategyTest {
+
+    @Test
+    void testPermute_IsBijectiveOverKeySpace() {
+        // Given
+        FeistelGenerationStrategy strategy = new FeistelGenerationStrategy(new MemoryIdBlockAllocator(0, 100), 42L);
+        long domain = 62L * 62L;
+
+        // When
+        Set<Long> images = new HashSet<>();
+        for (long value = 0; value < domain; value++) {
+            long image = strategy.permute(value, 2);
+            assertTrue(image >= 0 && image < domain);
+            images.add(image);
+        }
+
+        // Then
+        assertEquals(domain, images.size());
+    }
+
+    @Test
+    void testGenerateUniqueKey_KeysAreUniqueAndDoNotFollowCounter() {
+        // Given
+        FeistelGenerationStrategy strategy = new FeistelGenerationStrategy(new MemoryIdBlockAllocator(0, 1000), 7L);
+
+        // When
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            keys.add(strategy.generateUniqueKey("https://www.example.com", 6));
+        }
+
+        // Then
+        assertEquals(10_000, new HashSet<>(keys).size());
+        keys.forEach(key -> assertTrue(key.matches("[a-zA-Z0-9]{6}"), key));
+        List<String> sorted = new ArrayList<>(keys);
+        sorted.sort(null);
+        assertNotEquals(sorted, keys);
+    }
+
+    @Test
+    void testGenerateUniqueKey_SameSecretGivesSameKeys() {
+        // Given
+        long key = FeistelGenerationStrategy.keyOf("shared-secret");
+        FeistelGenerationStrategy first = new FeistelGenerationStrategy(new MemoryIdBlockAllocator(0, 100), key);
+        FeistelGenerationStrategy second = new FeistelGenerationStrategy(new MemoryIdBlockAllocator(0, 100), key);
+        FeistelGenerationStrategy other = new FeistelGenerationStrategy(
+            new MemoryIdBlockAllocator(0, 100), FeistelGenerationStrategy.keyOf("other-secret"));
+
+        // When
+        List<String> firstKeys = new ArrayList<>();
+        List<String> secondKeys = new ArrayList<>();
+        List<String> otherKeys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            firstKeys.add(first.generateUniqueKey("https://www.example.com", 6));
+            secondKeys.add(second.generateUniqueKey("https://www.example.com", 6));
+            otherKeys.add(other.generateUniqueKey("https://www.example.com", 6));
+        }
+
+        // Then
+        assertEquals(firstKeys, secondKeys);
+        assertNotEquals(firstKeys, otherKeys);
+    }
+
+    @Test
+    void testGenerateUniqueKey_GrowsOnceKeySpaceIsUsedUp() {
+        // Given: one-character keys, with only two of the 62 left
+        FeistelGenerationStrategy strategy = new FeistelGenerationStrategy(new MemoryIdBlockAllocator(60, 100), 1L);
+
+        // When
+        String last = strategy.generateUniqueKey("https://www.example.com", 1);
+        strategy.generateUniqueKey("https://www.example.com", 1);
+        String grown = strategy.generateUniqueKey("https://www.example.com", 1);
+
+        // Then
+        assertEquals(1, last.length());
+        assertEquals(2, grown.length());
+    }
+}
@@ -0,0 +1,68 @@
+package org.url.shortener.strategy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileIdBlockAllocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLeasesConsecutiveBlocks() {
+        // Given
+        FileIdBlockAllocator allocator = new FileIdBlockAllocator(tempDir.resolve("sequence.counter"), 100);
+
+        // When
+        IdRange first = allocator.lease();
+        IdRange second = allocator.lease();
+
+        // Then
+        assertEquals(0, first.getStart());
+        assertEquals(100, first.getEnd());
+        assertEquals(100, second.getStart());
+        assertEquals(200, second.getEnd());
+    }
+
+    @Test
+    void testRestartNeverReusesLeasedBlocks() {
+        // Given
+        Path counterFile = tempDir.resolve("sequence.counter");
+        new FileIdBlockAllocator(counterFile, 100).lease();
+        new FileIdBlockAllocator(counterFile, 100).lease();
+
+        // When
+        IdRange afterRestart = new FileIdBlockAllocator(counterFile, 100).lease();
+
+        // Then
+        assertEquals(200, afterRestart.getStart());
+    }
+
+    @Test
+    void testNodesTakeBlocksInTurn() {
+        // Given: three members, each with its own counter file
+        FileIdBlockAllocator[] nodes = new FileIdBlockAllocator[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new FileIdBlockAllocator(tempDir.resolve("node" + i), 10, i, nodes.length);
+        }
+
+        // When / Then
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < nodes.length; i++) {
+                assertEquals((round * 3L + i) * 10, nodes[i].lease().getStart());
+            }
+        }
+    }
+
+    @Test
+    void testConstructor_RejectsInvalidNode() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new FileIdBlockAllocator(tempDir.resolve("c"), 10, 3, 3));
+        assertThrows(IllegalArgumentException.class,
+            () -> new FileIdBlockAllocator(tempDir.resolve("c"), 0));
+    }
+}
@@ -0,0 +1,139 @@
+package org.url.shortener.strategy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.url.shortener.model.LongUrl;
+import org.url.shortener.repository.DefaultRepository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyPoolTest {
+
+    private static final long FUTURE = 4_000_000_000L;
+
+    private KeyPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testPoolFillsInBackgroundAndServesDistinctKeys() throws Exception {
+        // Given
+        pool = new KeyPool(new RandomGenerationStrategy(), new DefaultRepository(), 6, 1000, 100);
+        assertTrue(pool.awaitFull(10_000));
+
+        // When
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            keys.add(pool.generateUniqueKey("https://example.com", 6));
+        }
+
+        // Then
+        assertEquals(500, keys.size());
+        keys.forEach(key -> assertEquals(6, key.length()));
+        assertEquals(500, pool.getKeysServed());
+        assertEquals(0, pool.getStarvations());
+        assertTrue(pool.getRefilledKeys() >= 1000);
+        assertTrue(pool.getRefillBatches() >= 10);
+    }
+
+    @Test
+    void testKeysAlreadyStoredAreNeverPooled() throws Exception {
+        // Given: a generator that counts up, with the first hundred keys already taken
+        DefaultRepository repository = new DefaultRepository();
+        for (int i = 0; i < 100; i++) {
+            repository.save(Base62Codec.toPaddedString(i, 6), new LongUrl("https://example.com/" + i, FUTURE));
+        }
+        AtomicLong counter = new AtomicLong();
+        URLGenerationStrategy counting = (longUrl, length) -> Base62Codec.toPaddedString(counter.getAndIncrement(), length);
+
+        // When
+        pool = new KeyPool(counting, repository, 6, 200, 50);
+        assertTrue(pool.awaitFull(10_000));
+
+        // Then
+        for (int i = 0; i < 200; i++) {
+            assertFalse(repository.exists(pool.generateUniqueKey("https://example.com", 6)));
+        }
+        assertEquals(100, pool.getRejectedKeys());
+    }
+
+    @Test
+    void testEmptyPoolFallsBackToGeneratingAndCountsStarvation() {
+        // Given: storage that never answers the refill check
+        CountDownLatch released = new CountDownLatch(1);
+        DefaultRepository stuck = new DefaultRepository() {
+            @Override
+            public Map<String, String> getAll(Collection<String> shortUrlIdentifiers) {
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getAll(shortUrlIdentifiers);
+            }
+        };
+        pool = new KeyPool(new RandomGenerationStrategy(), stuck, 6, 100, 10);
+
+        // When
+        String key = pool.generateUniqueKey("https://example.com", 6);
+
+        // Then
+        assertEquals(6, key.length());
+        assertEquals(1, pool.getStarvations());
+        assertEquals(0, pool.getKeysServed());
+        released.countDown();
+    }
+
+    @Test
+    void testOtherLengthsBypassThePool() throws Exception {
+        // Given
+        pool = new KeyPool(new RandomGenerationStrategy(), new DefaultRepository(), 6, 100, 10);
+        assertTrue(pool.awaitFull(10_000));
+
+        // When
+        String key = pool.generateUniqueKey("https://example.com", 8);
+
+        // Then
+        assertEquals(8, key.length());
+        assertEquals(0, pool.getKeysServed());
+        assertEquals(100, pool.getDepth());
+    }
+
+    @Test
+    void testKeysOfPreviousLengthAreDroppedWhenLengthGrows() throws Exception {
+        // Given
+        AtomicInteger length = new AtomicInteger(6);
+        pool = new KeyPool(new RandomGenerationStrategy(), new DefaultRepository(), length::get, 100, 10);
+        assertTrue(pool.awaitFull(10_000));
+
+        // When
+        length.set(7);
+        String key = pool.generateUniqueKey("https://example.com", 7);
+
+        // Then
+        assertEquals(7, key.length());
+        assertEquals(100, pool.getRejectedKeys());
+        assertTrue(pool.awaitFull(10_000));
+        assertEquals(7, pool.generateUniqueKey("https://example.com", 7).length());
+    }
+
+    @Test
+    void testConstructor_RejectsBatchLargerThanCapacity() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new KeyPool(new RandomGenerationStrategy(), new DefaultRepository(), 6, 10, 11));
+    }
+}
@@ -0,0 +1,29 @@
+package org.url.shortener.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryIdBlockAllocatorTest {
+
+    @Test
+    void testLeasesConsecutiveBlocks() {
+        // Given
+        MemoryIdBlockAllocator allocator = new MemoryIdBlockAllocator(5, 100);
+
+        // When
+        IdRange first = allocator.lease();
+        IdRange second = allocator.lease();
+
+        // Then
+        assertEquals(5, first.getStart());
+        assertEquals(105, first.getEnd());
+        assertEquals(105, second.getStart());
+    }
+
+    @Test
+    void testConstructor_RejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryIdBlockAllocator(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryIdBlockAllocator(0, 0));
+    }
+}
@@ -2,11 +2,25 @@ package org.url.shortener.strategy;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class SequentialGenerationStrategyTest {
 
+    @TempDir
+    Path tempDir;
+
     private SequentialGenerationStrategy strategy;
 
     @BeforeEach
@@ -43,5 +57,77 @@ class SequentialGenerationStrategyTest {
         long id2 = Long.parseLong(key2);
         assertEquals(id1 + 1, id2);
     }
-}
 
+    @Test
+    void testGenerateUniqueKey_LeasedKeysAreBase62OfConfiguredLength() {
+        // Given
+        SequentialGenerationStrategy leased = new SequentialGenerationStrategy(new MemoryIdBlockAllocator(0, 100));
+
+        // When
+        String first = leased.generateUniqueKey("https://www.example.com", 6);
+        String second = leased.generateUniqueKey("https://www.example.com", 6);
+
+        // Then
+        assertEquals("aaaaaa", first);
+        assertEquals("aaaaab", second);
+    }
+
+    @Test
+    void testGenerateUniqueKey_UniqueAcrossThreadsAndBlocks() throws Exception {
+        // Given: small blocks, so threads keep running out of them
+        SequentialGenerationStrategy leased = new SequentialGenerationStrategy(
+            new FileIdBlockAllocator(tempDir.resolve("sequence.counter"), 500));
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    assertTrue(keys.add(leased.generateUniqueKey("https://www.example.com", 6)));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(40_000, keys.size());
+        keys.forEach(key -> assertEquals(6, key.length()));
+    }
+
+    @Test
+    void testGenerateUniqueKey_NodesNeverShareKeys() {
+        // Given
+        SequentialGenerationStrategy node0 = new SequentialGenerationStrategy(
+            new FileIdBlockAllocator(tempDir.resolve("node0"), 100, 0, 2));
+        SequentialGenerationStrategy node1 = new SequentialGenerationStrategy(
+            new FileIdBlockAllocator(tempDir.resolve("node1"), 100, 1, 2));
+        Set<String> keys = new HashSet<>();
+
+        // When / Then
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(keys.add(node0.generateUniqueKey("https://www.example.com", 6)));
+            assertTrue(keys.add(node1.generateUniqueKey("https://www.example.com", 6)));
+        }
+    }
+
+    @Test
+    void testGenerateUniqueKey_RestartContinuesAfterLeasedBlock() {
+        // Given
+        Path counterFile = tempDir.resolve("sequence.counter");
+        String beforeRestart = new SequentialGenerationStrategy(new FileIdBlockAllocator(counterFile, 100))
+            .generateUniqueKey("https://www.example.com", 6);
+
+        // When
+        String afterRestart = new SequentialGenerationStrategy(new FileIdBlockAllocator(counterFile, 100))
+            .generateUniqueKey("https://www.example.com", 6);
+
+        // Then
+        assertEquals(Base62Codec.toPaddedString(0, 6), beforeRestart);
+        assertEquals(Base62Codec.toPaddedString(100, 6), afterRestart);
+    }
+}
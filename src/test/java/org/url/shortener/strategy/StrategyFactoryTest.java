@@ -0,0 +1,56 @@
+package org.url.shortener.strategy;
+
+import org.junit.jupiter.api.Test;
+import org.url.shortener.config.URLShortenerConfig;
+import org.url.shortener.observer.KeyspaceManager;
+import org.url.shortener.repository.DefaultRepository;
+import org.url.shortener.repository.RepositoryType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrategyFactoryTest {
+
+    private final KeyspaceManager keyspaceManager = new KeyspaceManager(6, 10, 1.1);
+
+    @Test
+    void testSequentialKeysWithoutDataDir_StartInMemory() {
+        // Given
+        URLShortenerConfig config = URLShortenerConfig.builder()
+            .withKeyStrategy(URLStrategy.SEQUENTIAL)
+            .build();
+
+        // When
+        try (StrategyFactory factory = new StrategyFactory(config, new DefaultRepository(), keyspaceManager)) {
+            // Then
+            assertEquals(Base62Codec.toPaddedString(0, 6), factory.getDefaultStrategy().generateUniqueKey("https://example.com", 6));
+        }
+    }
+
+    @Test
+    void testSequentialKeysInClusterWithoutDataDir_FailAtStartup() {
+        // Given
+        URLShortenerConfig config = URLShortenerConfig.builder()
+            .withKeyStrategy(URLStrategy.SEQUENTIAL)
+            .withCluster("node-1", "node-1=10.0.0.1:9090,node-2=10.0.0.2:9090", 16)
+            .build();
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+            () -> new StrategyFactory(config, new DefaultRepository(), keyspaceManager));
+    }
+
+    @Test
+    void testFeistelKeysWithExternalDatabaseWithoutDataDir_FailAtStartup() {
+        // Given
+        URLShortenerConfig config = URLShortenerConfig.builder()
+            .withKeyStrategy(URLStrategy.FEISTEL)
+            .withFeistelKey("secret")
+            .withRepositoryType(RepositoryType.JDBC)
+            .withJdbc("jdbc:postgresql://db:5432/urls", 4)
+            .build();
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+            () -> new StrategyFactory(config, new DefaultRepository(), keyspaceManager));
+    }
+}